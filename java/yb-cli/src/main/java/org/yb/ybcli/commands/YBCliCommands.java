@@ -37,7 +37,9 @@ import org.yb.client.ListTablesResponse;
 import org.yb.client.ListTabletServersResponse;
 import org.yb.client.ChangeLoadBalancerStateResponse;
 import org.yb.client.ModifyMasterClusterConfigBlacklist;
+import org.yb.client.TableVerificationResult;
 import org.yb.client.YBClient;
+import org.yb.client.YBTable;
 import org.yb.master.Master;
 import org.yb.util.NetUtil;
 import org.yb.util.ServerInfo;
@@ -66,7 +68,7 @@ public class YBCliCommands implements CommandMarker {
   @CliAvailabilityIndicator({"list tablet-servers", "list tablets", "list tables", "list masters",
                              "change_config", "change_blacklist", "leader_step_down",
                              "get_universe_config", "get_load_move_completion",
-                             "is_load_balanced"})
+                             "is_load_balanced", "verify table"})
   public boolean isDatabaseOperationAvailable() {
     // We can perform operations on the database once we are connected to one.
     if (connectedToDatabase) {
@@ -461,4 +463,34 @@ public class YBCliCommands implements CommandMarker {
       return "Failed: " + e.toString() + "\n";
     }
   }
+
+  @CliCommand(value = "verify table",
+              help = "Checksum all the replicas of all the tablets of a table and compare them. " +
+                     "The table must not be written to while it is being verified.")
+  public String verifyTable(
+      @CliOption(key = { "keyspace", "k" },
+                 mandatory = true,
+                 help = "keyspace name")
+      final String keyspace,
+      @CliOption(key = { "name", "n" },
+                 mandatory = true,
+                 help = "table name")
+      final String tableName,
+      @CliOption(key = { "max_per_server", "m" },
+                 unspecifiedDefaultValue = "2",
+                 help = "Maximum number of checksums running at the same time on a server.")
+      final int maxPerServer,
+      @CliOption(key = { "timeout_ms", "t" },
+                 unspecifiedDefaultValue = "3600000",
+                 help = "Time allowed to verify the whole table, in milliseconds.")
+      final long timeoutMs) {
+    try {
+      YBTable table = ybClient.openTable(keyspace, tableName);
+      TableVerificationResult result = ybClient.verifyTable(table, maxPerServer, timeoutMs);
+      return (result.isConsistent() ? "Consistent. " : "Inconsistent. ") + result;
+    } catch (Exception e) {
+      LOG.error("Caught exception ", e);
+      return "Failed: " + e.toString() + "\n";
+    }
+  }
 }
@@ -0,0 +1,82 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.TserverService;
+import org.yb.util.Pair;
+
+/**
+ * RPC to abort a transaction on its status tablet.
+ */
+@InterfaceAudience.Private
+class AbortTransactionRequest extends YRpc<AbortTransactionResponse>
+    implements YRpc.HasKey {
+  static final String ABORT_TRANSACTION = "AbortTransaction";
+
+  private final byte[] partitionKey;
+  private final byte[] transactionId;
+
+  AbortTransactionRequest(YBTable statusTable, byte[] partitionKey, byte[] transactionId) {
+    super(statusTable);
+    this.partitionKey = partitionKey;
+    this.transactionId = transactionId;
+  }
+
+  @Override
+  public byte[] partitionKey() {
+    return partitionKey;
+  }
+
+  @Override
+  ChannelBuffer serialize(Message header) {
+    assert header.isInitialized();
+    final TserverService.AbortTransactionRequestPB.Builder builder =
+        TserverService.AbortTransactionRequestPB.newBuilder();
+    builder.setTabletId(ByteString.copyFrom(getTablet().getTabletIdAsBytes()));
+    builder.setTransactionId(ByteString.copyFrom(transactionId));
+    if (propagatedTimestamp != AsyncYBClient.NO_TIMESTAMP) {
+      builder.setPropagatedHybridTime(propagatedTimestamp);
+    }
+    return toChannelBuffer(header, builder.build());
+  }
+
+  @Override
+  String serviceName() { return TABLET_SERVER_SERVICE_NAME; }
+
+  @Override
+  String method() {
+    return ABORT_TRANSACTION;
+  }
+
+  @Override
+  Pair<AbortTransactionResponse, Object> deserialize(CallResponse callResponse,
+                                                     String tsUUID) throws Exception {
+    final TserverService.AbortTransactionResponsePB.Builder respBuilder =
+        TserverService.AbortTransactionResponsePB.newBuilder();
+    readProtobuf(callResponse.getPBMessage(), respBuilder);
+    if (respBuilder.hasPropagatedHybridTime()) {
+      table.getAsyncClient().updateLastPropagatedTimestamp(respBuilder.getPropagatedHybridTime());
+    }
+    AbortTransactionResponse response = new AbortTransactionResponse(
+        deadlineTracker.getElapsedMillis(), tsUUID, respBuilder.getStatus(),
+        respBuilder.getStatusHybridTime());
+    return new Pair<AbortTransactionResponse, Object>(
+        response, respBuilder.hasError() ? respBuilder.getError() : null);
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.Common.TransactionStatus;
+import org.yb.annotations.InterfaceAudience;
+
+@InterfaceAudience.Public
+public class AbortTransactionResponse extends YRpcResponse {
+  private final TransactionStatus status;
+  private final long statusHybridTime;
+
+  AbortTransactionResponse(long ellapsedMillis, String tsUUID, TransactionStatus status,
+                           long statusHybridTime) {
+    super(ellapsedMillis, tsUUID);
+    this.status = status;
+    this.statusHybridTime = statusHybridTime;
+  }
+
+  /**
+   * @return the status of the transaction once the abort was handled, it may have been
+   *         committed already
+   */
+  public TransactionStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * @return the hybrid time the status is valid at, e.g. the commit time of a committed
+   *         transaction
+   */
+  public long getStatusHybridTime() {
+    return statusHybridTime;
+  }
+}
@@ -54,6 +54,7 @@ import com.stumbleupon.async.Deferred;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.yb.Common;
+import org.yb.QlProtocol;
 import org.yb.Schema;
 import org.yb.annotations.InterfaceAudience;
 import org.yb.annotations.InterfaceStability;
@@ -61,7 +62,7 @@ import org.yb.consensus.Metadata;
 import org.yb.master.Master;
 import org.yb.master.Master.GetTableLocationsResponsePB;
 import org.yb.master.Master.ListTablesResponsePB.TableInfo;
-import org.yb.util.AsyncUtil;
+import org.yb.tserver.Tserver;
 import org.yb.util.NetUtil;
 import org.yb.util.Pair;
 import org.yb.util.Slice;
@@ -99,6 +100,8 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
@@ -142,6 +145,10 @@ public class AsyncYBClient implements AutoCloseable {
 
   public static final Logger LOG = LoggerFactory.getLogger(AsyncYBClient.class);
   public static final int SLEEP_TIME = 500;
+
+  // Interval between the first two checks when polling for something to be done, the interval
+  // then doubles on each check up to SLEEP_TIME. This is the tick of our timer.
+  static final int MIN_POLL_INTERVAL_MS = 20;
   public static final byte[] EMPTY_ARRAY = new byte[0];
   public static final long NO_TIMESTAMP = -1;
   public static final long DEFAULT_OPERATION_TIMEOUT_MS = 10000;
@@ -223,7 +230,12 @@ public class AsyncYBClient implements AutoCloseable {
    * propagation.
    * @see src/yb/common/common.proto
    */
-  private long lastPropagatedTimestamp = NO_TIMESTAMP;
+  private final AtomicLong lastPropagatedTimestamp = new AtomicLong(NO_TIMESTAMP);
+
+  // RPCs failed by their deadline while waiting for a response, and the responses that showed up
+  // for them afterwards and were dropped. Counted by the TabletClients.
+  private final AtomicLong numTimedOutRpcs = new AtomicLong();
+  private final AtomicLong numLateResponses = new AtomicLong();
 
   // A table is considered not served when we get an empty list of locations but know
   // that a tablet exists. This is currently only used for new tables. The objects stored are
@@ -241,12 +253,30 @@ public class AsyncYBClient implements AutoCloseable {
 
   private final Random sleepRandomizer = new Random();
 
+  // Callers waiting on the master probe in flight, if any, see getMasterTableLocationsPB().
+  private final List<Deferred<Master.GetTableLocationsResponsePB>> masterProbeWaiters =
+      new ArrayList<Deferred<Master.GetTableLocationsResponsePB>>();
+
+  // Simple way to inject an error on Wait based APIs, see injectWaitError().
+  private final AtomicBoolean injectWaitError = new AtomicBoolean(false);
+
   private final long defaultOperationTimeoutMs;
 
   private final long defaultAdminOperationTimeoutMs;
 
   private final long defaultSocketReadTimeoutMs;
 
+  // Null unless hedged reads were enabled in the builder.
+  private final HedgedReads hedgedReads;
+
+  // Null unless the table cache was enabled in the builder.
+  private final TableCache tableCache;
+
+  private final YBTransactionManager transactionManager;
+
+  // Null unless the warm-up was enabled in the builder.
+  private final ConnectionWarmUp connectionWarmUp;
+
   private volatile boolean closed;
 
   private AsyncYBClient(AsyncYBClientBuilder b) {
@@ -257,6 +287,17 @@ public class AsyncYBClient implements AutoCloseable {
     this.defaultOperationTimeoutMs = b.defaultOperationTimeoutMs;
     this.defaultAdminOperationTimeoutMs = b.defaultAdminOperationTimeoutMs;
     this.defaultSocketReadTimeoutMs = b.defaultSocketReadTimeoutMs;
+    this.hedgedReads = b.hedgedReadsPercentile > 0 ?
+        new HedgedReads(this, b.hedgedReadsPercentile, b.maxHedgedReadsRatio) : null;
+    this.tableCache = b.tableCacheSize > 0 ? new TableCache(b.tableCacheSize) : null;
+    this.transactionManager =
+        new YBTransactionManager(this, b.transactionHeartbeatIntervalMs);
+    if (b.warmUpConnections) {
+      this.connectionWarmUp = new ConnectionWarmUp(this, new ArrayList<>(b.warmUpTables));
+      this.connectionWarmUp.start();
+    } else {
+      this.connectionWarmUp = null;
+    }
   }
 
   /**
@@ -267,16 +308,39 @@ public class AsyncYBClient implements AutoCloseable {
    * @param lastPropagatedTimestamp the last timestamp received from a server
    */
   @VisibleForTesting
-  public synchronized void updateLastPropagatedTimestamp(long lastPropagatedTimestamp) {
-    if (this.lastPropagatedTimestamp == -1 ||
-      this.lastPropagatedTimestamp < lastPropagatedTimestamp) {
-      this.lastPropagatedTimestamp = lastPropagatedTimestamp;
+  public void updateLastPropagatedTimestamp(long lastPropagatedTimestamp) {
+    // Every response goes through here, so this is a compare-and-set loop rather than a lock.
+    // NO_TIMESTAMP is lower than any hybrid time, so taking the max also handles the first one.
+    long current = this.lastPropagatedTimestamp.get();
+    while (current < lastPropagatedTimestamp &&
+           !this.lastPropagatedTimestamp.compareAndSet(current, lastPropagatedTimestamp)) {
+      current = this.lastPropagatedTimestamp.get();
     }
   }
 
   @VisibleForTesting
-  public synchronized long getLastPropagatedTimestamp() {
-    return lastPropagatedTimestamp;
+  public long getLastPropagatedTimestamp() {
+    return lastPropagatedTimestamp.get();
+  }
+
+  /**
+   * Get a token of everything this client saw so far, to be passed to another client that must
+   * see it too. See {@link CausalConsistencyToken}.
+   * @return the token, empty if this client didn't hear from any server yet
+   */
+  public CausalConsistencyToken getCausalConsistencyToken() {
+    return CausalConsistencyToken.fromHybridTime(getLastPropagatedTimestamp());
+  }
+
+  /**
+   * Makes the next requests of this client see at least what the client the token comes from
+   * saw when it got the token.
+   * @param token a token from {@link #getCausalConsistencyToken()}
+   */
+  public void observeCausalConsistencyToken(CausalConsistencyToken token) {
+    if (!token.isEmpty()) {
+      updateLastPropagatedTimestamp(token.getHybridTime());
+    }
   }
 
   public Deferred<PingResponse> ping(final HostAndPort hp) {
@@ -321,6 +385,33 @@ public class AsyncYBClient implements AutoCloseable {
     return d;
   }
 
+  /**
+   * Checksums every replica of every tablet of a table and compares the replicas of each tablet,
+   * e.g. to validate a table after a migration without scanning it through the query layer.
+   * Replicas are checksummed in parallel, each checksum being a full scan of the replica, so the
+   * number of checksums running at the same time on each tablet server is capped.
+   * <p>
+   * The replicas are checksummed independently, not at a common read time, so the table must
+   * not be written to while it's being verified: replicas that are a few writes apart look
+   * divergent. A tablet whose replicas diverge is checksummed again a few times, a second apart,
+   * before it is reported as divergent, which only hides replicas that were briefly lagging.
+   * @param table the table to verify
+   * @param maxConcurrentChecksumsPerServer the maximum number of checksums running at the same
+   *                                        time on a tablet server
+   * @param timeoutMs the time allowed to verify the whole table, the checksums still missing by
+   *                  then are reported as errors
+   * @return a deferred object that yields the checksums of all the replicas
+   */
+  public Deferred<TableVerificationResult> verifyTable(YBTable table,
+                                                       int maxConcurrentChecksumsPerServer,
+                                                       long timeoutMs) {
+    checkIsClosed();
+    Preconditions.checkArgument(maxConcurrentChecksumsPerServer > 0,
+        "The maximum number of checksums per server must be positive");
+    return new TableVerifier(this, maxConcurrentChecksumsPerServer, timeoutMs)
+        .verify(table.getTableId());
+  }
+
   /**
    * Create a table on the cluster with the specified name and schema. Default table
    * configurations are used, mainly the table will have one tablet.
@@ -383,9 +474,16 @@ public class AsyncYBClient implements AutoCloseable {
    */
   public Deferred<DeleteTableResponse> deleteTable(final String keyspace, final String name) {
     checkIsClosed();
+    if (tableCache != null) {
+      tableCache.invalidate(keyspace, name);
+    }
     DeleteTableRequest delete = new DeleteTableRequest(this.masterTable, name, keyspace);
     delete.setTimeoutMillis(defaultAdminOperationTimeoutMs);
-    return sendRpcToTablet(delete);
+    Deferred<DeleteTableResponse> d = sendRpcToTablet(delete);
+    if (tableCache != null) {
+      d.addBoth(new InvalidateTableCB<DeleteTableResponse>(keyspace, name));
+    }
+    return d;
   }
 
   /**
@@ -401,9 +499,16 @@ public class AsyncYBClient implements AutoCloseable {
   public Deferred<AlterTableResponse> alterTable(String keyspace, String name,
                                                  AlterTableOptions ato) {
     checkIsClosed();
+    if (tableCache != null) {
+      tableCache.invalidate(keyspace, name);
+    }
     AlterTableRequest alter = new AlterTableRequest(this.masterTable, name, ato, keyspace);
     alter.setTimeoutMillis(defaultAdminOperationTimeoutMs);
-    return sendRpcToTablet(alter);
+    Deferred<AlterTableResponse> d = sendRpcToTablet(alter);
+    if (tableCache != null) {
+      d.addBoth(new InvalidateTableCB<AlterTableResponse>(keyspace, name));
+    }
+    return d;
   }
 
   /**
@@ -413,12 +518,26 @@ public class AsyncYBClient implements AutoCloseable {
    * @param name the table's name, if the table was renamed then that name must be checked against
    * @return a deferred object to track the progress of the isAlterTableDone command
    */
-  public Deferred<IsAlterTableDoneResponse> isAlterTableDone(String keyspace, String name)
+  public Deferred<IsAlterTableDoneResponse> isAlterTableDone(final String keyspace,
+                                                            final String name)
       throws Exception {
     checkIsClosed();
     IsAlterTableDoneRequest request = new IsAlterTableDoneRequest(this.masterTable, name, keyspace);
     request.setTimeoutMillis(defaultAdminOperationTimeoutMs);
-    return sendRpcToTablet(request);
+    Deferred<IsAlterTableDoneResponse> d = sendRpcToTablet(request);
+    if (tableCache != null) {
+      // An openTable done while the alter was in progress cached the old schema.
+      d.addCallback(new Callback<IsAlterTableDoneResponse, IsAlterTableDoneResponse>() {
+        @Override
+        public IsAlterTableDoneResponse call(IsAlterTableDoneResponse response) {
+          if (response.isDone()) {
+            tableCache.invalidate(keyspace, name);
+          }
+          return response;
+        }
+      });
+    }
+    return d;
   }
 
   /**
@@ -513,6 +632,155 @@ public class AsyncYBClient implements AutoCloseable {
     return sendRpcToTablet(rpc);
   }
 
+  /**
+   * A condition that can be checked asynchronously, usually by sending an RPC.
+   */
+  public interface AsyncCondition {
+    /**
+     * @return a Deferred that yields whether the condition is true
+     */
+    Deferred<Boolean> check() throws Exception;
+  }
+
+  /**
+   * Wait for a condition to become true, checking it on this client's timer instead of holding a
+   * thread. The first checks follow each other quickly, the interval between checks then backs
+   * off up to {@link #SLEEP_TIME}. Errors while checking the condition are retried.
+   * @param condition the condition to wait for
+   * @param timeoutMs the amount of time, in MS, to wait, 0 to check the condition only once
+   * @return a deferred object that yields true if the condition became true in the given time,
+   * false otherwise
+   */
+  public Deferred<Boolean> waitForCondition(AsyncCondition condition, long timeoutMs) {
+    checkIsClosed();
+    return new ConditionWaiter(this, condition, timeoutMs, false,
+                               injectWaitError.getAndSet(false)).start();
+  }
+
+  /**
+   * Wait for the specific server to come online.
+   * @param hp the HostAndPort of the server
+   * @param timeoutMs the amount of time, in MS, to wait
+   * @return a deferred object that yields true if the server responded to pings in the given
+   * time, false otherwise
+   */
+  public Deferred<Boolean> waitForServer(final HostAndPort hp, long timeoutMs) {
+    return waitForCondition(new AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        return ping(hp).addCallback(new Callback<Boolean, PingResponse>() {
+          @Override
+          public Boolean call(PingResponse response) {
+            return true;
+          }
+        });
+      }
+    }, timeoutMs);
+  }
+
+  /**
+   * Wait for the tablet load to be balanced by master leader.
+   * @param timeoutMs the amount of time, in MS, to wait
+   * @param numServers expected number of servers which need to balanced.
+   * @return a deferred object that yields true if the master leader stopped returning errors to
+   * the balance check in the given time, false otherwise
+   */
+  public Deferred<Boolean> waitForLoadBalance(long timeoutMs, final int numServers) {
+    return waitForCondition(new AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        return getIsLoadBalanced(numServers).addCallback(
+            new Callback<Boolean, IsLoadBalancedResponse>() {
+              @Override
+              public Boolean call(IsLoadBalancedResponse response) {
+                return !response.hasError();
+              }
+            });
+      }
+    }, timeoutMs);
+  }
+
+  /**
+   * Wait for the leader load to be balanced by master leader.
+   * @param timeoutMs the amount of time, in MS, to wait.
+   * @return a deferred object that yields true iff the leader count is balanced within timeoutMs
+   */
+  public Deferred<Boolean> waitForAreLeadersOnPreferredOnlyCondition(long timeoutMs) {
+    return waitForCondition(new AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        return getAreLeadersOnPreferredOnly().addCallback(
+            new Callback<Boolean, AreLeadersOnPreferredOnlyResponse>() {
+              @Override
+              public Boolean call(AreLeadersOnPreferredOnlyResponse response) {
+                return !response.hasError();
+              }
+            });
+      }
+    }, timeoutMs);
+  }
+
+  /**
+   * Wait for the replica count per ts of a table to match the expected one.
+   * @param timeoutMs number of milliseconds before timing out.
+   * @param table the table to wait for load balancing.
+   * @param replicaMapExpected the expected map between cluster uuid and live, read replica count.
+   * @return a deferred object that yields true if the replica counts of the table match the
+   * expected ones within the expected time frame, false otherwise.
+   * @see YBTable#getMemberTypeCountsForEachTSType(long)
+   */
+  public Deferred<Boolean> waitForExpectedReplicaMap(
+      final long timeoutMs, final YBTable table,
+      final Map<String, List<List<Integer>>> replicaMapExpected) {
+    return waitForCondition(new AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() throws Exception {
+        return table.asyncGetMemberTypeCountsForEachTSType(timeoutMs).addCallback(
+            new Callback<Boolean, Map<String, List<List<Integer>>>>() {
+              @Override
+              public Boolean call(Map<String, List<List<Integer>>> replicaMap) {
+                return replicaMap.equals(replicaMapExpected);
+              }
+            });
+      }
+    }, timeoutMs);
+  }
+
+  /**
+   * Wait for an alter command to complete. Unlike the other waits, an error while checking
+   * whether the alter is done fails the wait.
+   * @param keyspace CQL keyspace to which this table belongs
+   * @param name the table's name, if the table was renamed then that name must be checked against
+   * @param timeoutMs the amount of time, in MS, to wait
+   * @return a deferred object that yields true if the table is done being altered in the given
+   * time, false otherwise
+   */
+  public Deferred<Boolean> waitForAlterTableDone(final String keyspace, final String name,
+                                                 long timeoutMs) {
+    checkIsClosed();
+    return new ConditionWaiter(this, new AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() throws Exception {
+        return isAlterTableDone(keyspace, name).addCallback(
+            new Callback<Boolean, IsAlterTableDoneResponse>() {
+              @Override
+              public Boolean call(IsAlterTableDoneResponse response) {
+                return response.isDone();
+              }
+            });
+      }
+    }, timeoutMs, true, false).start();
+  }
+
+  /**
+   * Quick and dirty error injection on Wait based API's: the first check of the next wait fails.
+   * After every use, for now, will get automatically disabled.
+   */
+  @VisibleForTesting
+  void injectWaitError() {
+    injectWaitError.set(true);
+  }
+
   /**
    * Get the master tablet id.
    * @return the constant master tablet uuid.
@@ -589,7 +857,7 @@ public class AsyncYBClient implements AutoCloseable {
   Deferred<GetTableSchemaResponse> getTableSchema(String keyspace, String name) {
     GetTableSchemaRequest rpc = new GetTableSchemaRequest(this.masterTable, name, null, keyspace);
     rpc.setTimeoutMillis(defaultAdminOperationTimeoutMs);
-    return sendRpcToTablet(rpc);
+    return checkSchemaVersion(sendRpcToTablet(rpc));
   }
 
   /**
@@ -600,7 +868,23 @@ public class AsyncYBClient implements AutoCloseable {
   Deferred<GetTableSchemaResponse> getTableSchemaByUUID(final String tableUUID) {
     GetTableSchemaRequest rpc = new GetTableSchemaRequest(this.masterTable, null, tableUUID);
     rpc.setTimeoutMillis(defaultAdminOperationTimeoutMs);
-    return sendRpcToTablet(rpc);
+    return checkSchemaVersion(sendRpcToTablet(rpc));
+  }
+
+  /**
+   * Drops the table from the table cache if the master just told us about a newer schema.
+   */
+  private Deferred<GetTableSchemaResponse> checkSchemaVersion(Deferred<GetTableSchemaResponse> d) {
+    if (tableCache == null) {
+      return d;
+    }
+    return d.addCallback(new Callback<GetTableSchemaResponse, GetTableSchemaResponse>() {
+      @Override
+      public GetTableSchemaResponse call(GetTableSchemaResponse response) {
+        tableCache.onSchemaVersion(response.getTableId(), response.getSchemaVersion());
+        return response;
+      }
+    });
   }
 
   /**
@@ -633,6 +917,9 @@ public class AsyncYBClient implements AutoCloseable {
     if (name == null) {
       throw new IllegalArgumentException("The table name cannot be null");
     }
+    if (tableCache != null && tableCache.get(keyspace, name) != null) {
+      return Deferred.fromResult(true);
+    }
     return getTableSchema(keyspace, name).addCallbackDeferring(new Callback<Deferred<Boolean>,
         GetTableSchemaResponse>() {
       @Override
@@ -651,6 +938,9 @@ public class AsyncYBClient implements AutoCloseable {
     if (tableUUID == null) {
       throw new IllegalArgumentException("The table UUID cannot be null");
     }
+    if (tableCache != null && tableCache.getById(tableUUID) != null) {
+      return Deferred.fromResult(true);
+    }
     return getTableSchemaByUUID(tableUUID).addCallbackDeferring(new Callback<Deferred<Boolean>,
         GetTableSchemaResponse>() {
       @Override
@@ -670,10 +960,17 @@ public class AsyncYBClient implements AutoCloseable {
   public Deferred<YBTable> openTable(final String keyspace, final String name) {
     checkIsClosed();
 
+    if (tableCache != null) {
+      YBTable table = tableCache.get(keyspace, name);
+      if (table != null) {
+        return Deferred.fromResult(table);
+      }
+    }
+
     final OpenTableHelperRPC helper = new OpenTableHelperRPC();
 
-    return getTableSchema(keyspace, name).addCallbackDeferring(new Callback<Deferred<YBTable>,
-        GetTableSchemaResponse>() {
+    Deferred<YBTable> d = getTableSchema(keyspace, name).addCallbackDeferring(
+        new Callback<Deferred<YBTable>, GetTableSchemaResponse>() {
       @Override
       public Deferred<YBTable> call(GetTableSchemaResponse response) throws Exception {
         YBTable table = new YBTable(AsyncYBClient.this,
@@ -682,10 +979,12 @@ public class AsyncYBClient implements AutoCloseable {
             response.getSchema(),
             response.getPartitionSchema(),
             response.getTableType(),
-            response.getNamespace());
+            response.getNamespace(),
+            response.getSchemaVersion());
         return helper.attemptOpen(response.isCreateTableDone(), table, name);
       }
     });
+    return tableCache == null ? d : d.addCallback(new CacheTableCB(keyspace, name));
   }
 
   /**
@@ -697,9 +996,16 @@ public class AsyncYBClient implements AutoCloseable {
   public Deferred<YBTable> openTableByUUID(final String tableUUID) {
     checkIsClosed();
 
+    if (tableCache != null) {
+      YBTable table = tableCache.getById(tableUUID);
+      if (table != null) {
+        return Deferred.fromResult(table);
+      }
+    }
+
     final OpenTableHelperRPC helper = new OpenTableHelperRPC();
 
-    return getTableSchemaByUUID(tableUUID)
+    Deferred<YBTable> d = getTableSchemaByUUID(tableUUID)
         .addCallbackDeferring(new Callback<Deferred<YBTable>, GetTableSchemaResponse>() {
       @Override
       public Deferred<YBTable> call(GetTableSchemaResponse response) throws Exception {
@@ -709,10 +1015,103 @@ public class AsyncYBClient implements AutoCloseable {
             response.getSchema(),
             response.getPartitionSchema(),
             response.getTableType(),
-            response.getNamespace());
+            response.getNamespace(),
+            response.getSchemaVersion());
         return helper.attemptOpen(response.isCreateTableDone(), table, tableUUID);
       }
     });
+    return tableCache == null ? d : d.addCallback(new CacheTableCB(null, null));
+  }
+
+  /** Callback adding a table that was just opened to the table cache. */
+  private final class CacheTableCB implements Callback<YBTable, YBTable> {
+    private final String keyspace;
+    private final String name;
+
+    CacheTableCB(String keyspace, String name) {
+      this.keyspace = keyspace;
+      this.name = name;
+    }
+
+    @Override
+    public YBTable call(YBTable table) {
+      tableCache.put(keyspace, name, table);
+      return table;
+    }
+
+    @Override
+    public String toString() {
+      return "cache table " + name;
+    }
+  }
+
+  /**
+   * Callback dropping a table from the table cache once a DDL on it completed, successfully or
+   * not. An openTable done while the DDL was in flight may have cached the old table again. An
+   * alter is only complete once {@link #isAlterTableDone} says so, which invalidates it again.
+   */
+  private final class InvalidateTableCB<T> implements Callback<T, T> {
+    private final String keyspace;
+    private final String name;
+
+    InvalidateTableCB(String keyspace, String name) {
+      this.keyspace = keyspace;
+      this.name = name;
+    }
+
+    @Override
+    public T call(T responseOrError) {
+      tableCache.invalidate(keyspace, name);
+      return responseOrError;
+    }
+
+    @Override
+    public String toString() {
+      return "invalidate table " + name;
+    }
+  }
+
+  /**
+   * Callbacks dropping a table from the table cache when a read tells us its schema changed.
+   */
+  private final class SchemaVersionCheckCB implements Callback<ReadResponse, ReadResponse> {
+    private final YBTable table;
+
+    SchemaVersionCheckCB(YBTable table) {
+      this.table = table;
+    }
+
+    @Override
+    public ReadResponse call(ReadResponse response) {
+      for (QlProtocol.QLResponsePB qlResponse : response.getResponse().getQlBatchList()) {
+        if (qlResponse.getStatus() ==
+            QlProtocol.QLResponsePB.QLStatus.YQL_STATUS_SCHEMA_VERSION_MISMATCH) {
+          tableCache.invalidate(table.getTableId());
+          break;
+        }
+      }
+      return response;
+    }
+  }
+
+  private final class SchemaVersionCheckErrback implements Callback<Exception, Exception> {
+    private final YBTable table;
+
+    SchemaVersionCheckErrback(YBTable table) {
+      this.table = table;
+    }
+
+    @Override
+    public Exception call(Exception e) {
+      if (e instanceof TabletServerErrorException) {
+        Tserver.TabletServerErrorPB error = ((TabletServerErrorException) e).getTServerError();
+        if (error != null &&
+            error.getCode() == Tserver.TabletServerErrorPB.Code.MISMATCHED_SCHEMA) {
+          tableCache.invalidate(table.getTableId());
+        }
+      }
+      return e;
+    }
   }
 
   /**
@@ -786,14 +1185,13 @@ public class AsyncYBClient implements AutoCloseable {
   /**
    * This callback will be repeatedly used when opening a table until it is done being created.
    */
-  Callback<Deferred<YBTable>, Master.IsCreateTableDoneResponsePB> getOpenTableCB(
+  Callback<Void, Master.IsCreateTableDoneResponsePB> getOpenTableCB(
       final YRpc<YBTable> rpc, final YBTable table) {
-    return new Callback<Deferred<YBTable>, Master.IsCreateTableDoneResponsePB>() {
+    return new Callback<Void, Master.IsCreateTableDoneResponsePB>() {
       @Override
-      public Deferred<YBTable> call(
+      public Void call(
           Master.IsCreateTableDoneResponsePB isCreateTableDoneResponsePB) throws Exception {
         String tableName = table.getName();
-        Deferred<YBTable> d = rpc.getDeferred();
         if (isCreateTableDoneResponsePB.getDone()) {
           LOG.debug("Table {}'s tablets are now created", tableName);
           rpc.callback(table);
@@ -808,7 +1206,7 @@ public class AsyncYBClient implements AutoCloseable {
               getOpenTableCB(rpc, table),
               getDelayedIsCreateTableDoneErrback(rpc));
         }
-        return d;
+        return null;
       }
     };
   }
@@ -838,6 +1236,102 @@ public class AsyncYBClient implements AutoCloseable {
     return defaultSocketReadTimeoutMs;
   }
 
+  /**
+   * Get a Deferred that is called back once the client is warmed up: connected to all the tablet
+   * servers and done looking up the tablets of the tables given to the builder. The client can
+   * be used before that, the first operations may just be slower. Servers and tables that could
+   * not be warmed up are logged and don't prevent the client from being ready.
+   * @return a Deferred called back once the warm-up is over, right away if it wasn't enabled
+   * @see AsyncYBClientBuilder#warmUpConnections(boolean)
+   */
+  public Deferred<Void> whenReady() {
+    if (connectionWarmUp == null) {
+      return Deferred.fromResult(null);
+    }
+    return connectionWarmUp.whenDone();
+  }
+
+  /**
+   * Get the hedged reads statistics of this client.
+   * @return the hedged reads of this client, or null if they weren't enabled
+   */
+  public HedgedReads getHedgedReads() {
+    return hedgedReads;
+  }
+
+  /**
+   * Get the number of RPCs that failed because their deadline passed while they were waiting for
+   * a response from a server.
+   * @return the number of timed out RPCs since this client was created
+   */
+  public long getNumTimedOutRpcs() {
+    return numTimedOutRpcs.get();
+  }
+
+  /**
+   * Get the number of responses that arrived after their RPC had already timed out or been
+   * cancelled, and were dropped.
+   * @return the number of late responses since this client was created
+   */
+  public long getNumLateResponses() {
+    return numLateResponses.get();
+  }
+
+  void recordTimedOutRpc() {
+    numTimedOutRpcs.incrementAndGet();
+  }
+
+  void recordLateResponse() {
+    numLateResponses.incrementAndGet();
+  }
+
+  /**
+   * Read data from the tablet of a table that owns the given partition key.
+   * <p>
+   * Reads using the CONSISTENT_PREFIX consistency level may be hedged to another replica of the
+   * tablet, see {@link AsyncYBClientBuilder#hedgedReadsPercentile(double)}.
+   * @param table the table to read from
+   * @param partitionKey the partition key of the data to read, or null for the first tablet
+   * @param request the read request, the tablet id and propagated hybrid time get filled in
+   * @return a deferred object that yields the read response
+   */
+  public Deferred<ReadResponse> read(YBTable table, byte[] partitionKey,
+                                     Tserver.ReadRequestPB.Builder request) {
+    checkIsClosed();
+    ReadRequest rpc = new ReadRequest(table, partitionKey, request);
+    rpc.setTimeoutMillis(defaultOperationTimeoutMs);
+    final Deferred<ReadResponse> d;
+    if (hedgedReads != null && rpc.allowsFollowerReads()) {
+      d = hedgedReads.read(rpc);
+    } else {
+      d = sendRpcToTablet(rpc);
+    }
+    if (tableCache != null) {
+      d.addCallbacks(new SchemaVersionCheckCB(table), new SchemaVersionCheckErrback(table));
+    }
+    return d;
+  }
+
+  /**
+   * Get the manager of the distributed transactions of this client.
+   * @return the transaction manager
+   */
+  public YBTransactionManager getTransactionManager() {
+    return transactionManager;
+  }
+
+  /**
+   * Get a builder for a scanner that reads a table, or a range of it, from many tablets at once.
+   * @param table the table to scan
+   * @param request the read request used as a template for the reads of each tablet
+   * @return a new scanner builder
+   */
+  public YBTableScanner.Builder newTableScannerBuilder(YBTable table,
+                                                       QlProtocol.QLReadRequestPB.Builder request) {
+    checkIsClosed();
+    return new YBTableScanner.Builder(this, table, request);
+  }
+
   <R> Deferred<R> sendRpcToTablet(final YRpc<R> request) {
     if (cannotRetryRequest(request)) {
       return tooManyAttemptsOrTimeout(request, null);
@@ -863,6 +1357,9 @@ public class AsyncYBClient implements AutoCloseable {
         request.setTablet(tablet);
         final Deferred<R> d = request.getDeferred();
         tabletClient.sendRpc(request);
+        if (hedgedReads != null && request instanceof ReadRequest) {
+          hedgedReads.onSend((ReadRequest) request, tablet, tabletClient);
+        }
         return d;
       }
     }
@@ -877,31 +1374,35 @@ public class AsyncYBClient implements AutoCloseable {
           new RetryRpcCB<R, Master.IsCreateTableDoneResponsePB>(request),
           getDelayedIsCreateTableDoneErrback(request));
     }
-    Callback<Deferred<R>, Master.GetTableLocationsResponsePB> cb = new RetryRpcCB<>(request);
-    Callback<Deferred<R>, Exception> eb = new RetryRpcErrback<>(request);
-    Deferred<Master.GetTableLocationsResponsePB> returnedD =
-        locateTablet(request.getTable(), partitionKey);
-    return AsyncUtil.addCallbacksDeferring(returnedD, cb, eb);
+    // The retry completes the RPC's own Deferred, so that's what we hand out, instead of
+    // chaining a new Deferred onto the lookup for every attempt. Grab it before the lookup since
+    // the lookup, and the retry, might complete right away and reset it.
+    final Deferred<R> d = request.getDeferred();
+    locateTablet(request.getTable(), partitionKey).addCallbacks(
+        new RetryRpcCB<R, Master.GetTableLocationsResponsePB>(request),
+        new RetryRpcErrback<R>(request));
+    return d;
   }
 
   /**
    * Callback used to retry a RPC after another query finished, like looking up where that RPC
    * should go.
    * <p>
-   * Use {@code AsyncUtil.addCallbacksDeferring} to add this as the callback and
-   * {@link AsyncYBClient.RetryRpcErrback} as the "errback" to the {@code Deferred}
-   * returned by {@link #locateTablet(String, byte[])}.
+   * Add this as the callback and {@link AsyncYBClient.RetryRpcErrback} as the "errback" to the
+   * {@code Deferred} returned by {@link #locateTablet(YBTable, byte[])}. The outcome of the retry
+   * is delivered through the RPC's own {@code Deferred}, nothing gets chained.
    * @param <R> RPC's return type.
    * @param <D> Previous query's return type, which we don't use, but need to specify in order to
    *           tie it all together.
    */
-  final class RetryRpcCB<R, D> implements Callback<Deferred<R>, D> {
+  final class RetryRpcCB<R, D> implements Callback<Void, D> {
     private final YRpc<R> request;
     RetryRpcCB(YRpc<R> request) {
       this.request = request;
     }
-    public Deferred<R> call(final D arg) {
-      return sendRpcToTablet(request);  // Retry the RPC.
+    public Void call(final D arg) {
+      sendRpcToTablet(request);  // Retry the RPC.
+      return null;
     }
     public String toString() {
       return "retry RPC";
@@ -910,15 +1411,14 @@ public class AsyncYBClient implements AutoCloseable {
 
   /**
    * "Errback" used to delayed-retry a RPC if it fails due to no leader master being found.
-   * Other exceptions are passed through to be handled by the caller.
+   * Other exceptions fail the RPC.
    * <p>
-   * Use {@code AsyncUtil.addCallbacksDeferring} to add this as the "errback" and
-   * {@link RetryRpcCB} as the callback to the {@code Deferred} returned by
-   * {@link #locateTablet(String, byte[])}.
+   * Add this as the "errback" and {@link RetryRpcCB} as the callback to the {@code Deferred}
+   * returned by {@link #locateTablet(YBTable, byte[])}.
    * @see #delayedSendRpcToTablet(YRpc, YBException)
    * @param <R> The type of the original RPC.
    */
-  final class RetryRpcErrback<R> implements Callback<Deferred<R>, Exception> {
+  final class RetryRpcErrback<R> implements Callback<Void, Exception> {
     private final YRpc<R> request;
 
     public RetryRpcErrback(YRpc<R> request) {
@@ -926,19 +1426,18 @@ public class AsyncYBClient implements AutoCloseable {
     }
 
     @Override
-    public Deferred<R> call(Exception arg) {
+    public Void call(Exception arg) {
       if (arg instanceof NoLeaderMasterFoundException) {
         // If we could not find the leader master, try looking up the leader master
         // again.
-        Deferred<R> d = request.getDeferred();
         // TODO: Handle the situation when multiple in-flight RPCs are queued waiting
         // for the leader master to be determine (either after a failure or at initialization
         // time). This could re-use some of the existing piping in place for non-master tablets.
         delayedSendRpcToTablet(request, (NoLeaderMasterFoundException) arg, null);
-        return d;
+      } else {
+        request.errback(arg);
       }
-      // Pass all other exceptions through.
-      return Deferred.fromError(arg);
+      return null;
     }
 
     @Override
@@ -967,7 +1466,7 @@ public class AsyncYBClient implements AutoCloseable {
 
   /**
    * This method will call IsCreateTableDone on the master after sleeping for
-   * getSleepTimeForRpc() based on the provided YRpc's number of attempts. Once this is done,
+   * getPollIntervalMs() based on the provided YRpc's number of attempts. Once this is done,
    * the provided callback will be called.
    * @param table the table to lookup
    * @param rpc the original YRpc that needs to access the table
@@ -976,7 +1475,7 @@ public class AsyncYBClient implements AutoCloseable {
    * @return Deferred used to track the provided YRpc
    */
   <R> Deferred<R> delayedIsCreateTableDone(final YBTable table, final YRpc<R> rpc,
-                                           final Callback<Deferred<R>,
+                                           final Callback<Void,
                                                Master.IsCreateTableDoneResponsePB> retryCB,
                                            final Callback<Exception, Exception> errback) {
 
@@ -1009,7 +1508,7 @@ public class AsyncYBClient implements AutoCloseable {
         d.addCallbacks(retryCB, errback);
       }
     }
-    long sleepTime = getSleepTimeForRpc(rpc);
+    long sleepTime = getPollIntervalMs(rpc.attempt);
     if (rpc.deadlineTracker.wouldSleepingTimeout(sleepTime)) {
       return tooManyAttemptsOrTimeout(rpc, null);
     }
@@ -1054,6 +1553,19 @@ public class AsyncYBClient implements AutoCloseable {
   }
 
 
+  /**
+   * Get the time to wait before checking again whether something is done, when polling for it.
+   * It starts at {@link #MIN_POLL_INTERVAL_MS} so that quick operations are noticed quickly, and
+   * doubles on each check up to {@link #SLEEP_TIME}, plus some random time up to a tenth of it.
+   * @param numChecks the number of times we already checked, at least 1
+   * @return a time in milliseconds
+   */
+  long getPollIntervalMs(int numChecks) {
+    final int shift = Math.min(Math.max(numChecks - 1, 0), 10);
+    final int interval = Math.min(MIN_POLL_INTERVAL_MS << shift, SLEEP_TIME);
+    return interval + sleepRandomizer.nextInt(interval / 10 + 1);
+  }
+
   long getSleepTimeForRpc(YRpc<?> rpc) {
     byte attemptCount = rpc.attempt;
     assert (attemptCount > 0);
@@ -1100,6 +1612,33 @@ public class AsyncYBClient implements AutoCloseable {
     }
   }
 
+  /**
+   * Picks the replica a hedged read to the given tablet should be sent to: the one that has been
+   * the fastest lately, other than the one the read was first sent to.
+   * @return a client to another live replica, or null if there is none
+   */
+  TabletClient clientForHedgedRead(RemoteTablet tablet, TabletClient exclude) {
+    synchronized (tablet.tabletServers) {
+      TabletClient best = null;
+      long bestLatency = Long.MAX_VALUE;
+      for (TabletClient client : tablet.tabletServers) {
+        if (client == exclude || !client.isAlive()) {
+          continue;
+        }
+        long latency = client.getReadLatencyTracker().getPercentileMicros();
+        if (latency < 0) {
+          // Not enough reads went to this replica yet, try it only if there's nothing better.
+          latency = Long.MAX_VALUE;
+        }
+        if (best == null || latency < bestLatency) {
+          best = client;
+          bestLatency = latency;
+        }
+      }
+      return best;
+    }
+  }
+
   TabletClient clientFor(RemoteTablet tablet) {
     if (tablet == null) {
       return null;
@@ -1125,13 +1664,14 @@ public class AsyncYBClient implements AutoCloseable {
   /**
    * Checks whether or not an RPC can be retried once more.
    * @param rpc The RPC we're going to attempt to execute.
-   * @return {@code true} if this RPC already had too many attempts,
+   * @return {@code true} if this RPC already had too many attempts, timed out or was cancelled,
    * {@code false} otherwise (in which case it's OK to retry once more).
    * @throws NonRecoverableException if the request has had too many attempts
    * already.
    */
   static boolean cannotRetryRequest(final YRpc<?> rpc) {
-    return rpc.deadlineTracker.timedOut() || rpc.attempt > 100;  // TODO Don't hardcode.
+    return rpc.isCancelled() || rpc.deadlineTracker.timedOut() ||
+        rpc.attempt > 100;  // TODO Don't hardcode.
   }
 
   /**
@@ -1144,7 +1684,9 @@ public class AsyncYBClient implements AutoCloseable {
   static <R> Deferred<R> tooManyAttemptsOrTimeout(final YRpc<R> request,
                                                   final YBException cause) {
     String message;
-    if (request.deadlineTracker.timedOut()) {
+    if (request.isCancelled()) {
+      message = "Cancelled: ";
+    } else if (request.deadlineTracker.timedOut()) {
       message = "Time out: ";
     } else {
       message = "Too many attempts: ";
@@ -1194,9 +1736,77 @@ public class AsyncYBClient implements AutoCloseable {
   /**
    * Update the master config: send RPCs to all config members, use the returned data to
    * fill a {@link Master.GetTabletLocationsResponsePB} object.
+   * <p>
+   * Only one such probe is in flight at any time: callers that come in while one is in flight
+   * get its outcome too, instead of sending one more round of RPCs to every master. This is
+   * what happens when the master leader goes away while many RPCs are headed its way.
    * @return An initialized Deferred object to hold the response.
    */
   Deferred<Master.GetTableLocationsResponsePB> getMasterTableLocationsPB() {
+    final Deferred<Master.GetTableLocationsResponsePB> d =
+        new Deferred<Master.GetTableLocationsResponsePB>();
+    synchronized (masterProbeWaiters) {
+      masterProbeWaiters.add(d);
+      if (masterProbeWaiters.size() > 1) {
+        return d;  // A probe is already in flight.
+      }
+    }
+    probeMasters().addCallbacks(
+        new Callback<Void, Master.GetTableLocationsResponsePB>() {
+          @Override
+          public Void call(Master.GetTableLocationsResponsePB response) {
+            completeMasterProbe(response);
+            return null;
+          }
+        },
+        new Callback<Void, Exception>() {
+          @Override
+          public Void call(Exception e) {
+            completeMasterProbe(e);
+            return null;
+          }
+        });
+    return d;
+  }
+
+  /**
+   * Hands the outcome of the master probe that just completed to everyone who waited on it.
+   * @param result a GetTableLocationsResponsePB or an Exception
+   */
+  private void completeMasterProbe(Object result) {
+    final List<Deferred<Master.GetTableLocationsResponsePB>> waiters;
+    synchronized (masterProbeWaiters) {
+      waiters = new ArrayList<Deferred<Master.GetTableLocationsResponsePB>>(masterProbeWaiters);
+      masterProbeWaiters.clear();
+    }
+    for (Deferred<Master.GetTableLocationsResponsePB> waiter : waiters) {
+      waiter.callback(result);
+    }
+  }
+
+  /**
+   * Find the leader master, asking all the masters in parallel. The first master that says it's
+   * the leader wins, and becomes the one master RPCs get sent to.
+   * @return a deferred object that yields the leader master's uuid and RPC address, or a
+   * {@link NoLeaderMasterFoundException} if none of the masters is the leader
+   */
+  Deferred<Master.TSInfoPB> findLeaderMaster() {
+    return getMasterTableLocationsPB().addCallback(
+        new Callback<Master.TSInfoPB, Master.GetTableLocationsResponsePB>() {
+          @Override
+          public Master.TSInfoPB call(Master.GetTableLocationsResponsePB response)
+              throws Exception {
+            discoverTablets(masterTable, response);
+            return response.getTabletLocations(0).getReplicas(0).getTsInfo();
+          }
+        });
+  }
+
+  /**
+   * Sends a GetMasterRegistration RPC to every master, see
+   * {@link GetMasterRegistrationReceived} for how the responses are put together.
+   */
+  private Deferred<Master.GetTableLocationsResponsePB> probeMasters() {
     final Deferred<Master.GetTableLocationsResponsePB> responseD =
         new Deferred<Master.GetTableLocationsResponsePB>();
     final GetMasterRegistrationReceived received =
@@ -1242,7 +1852,7 @@ public class AsyncYBClient implements AutoCloseable {
 
   private Deferred<List<LocatedTablet>> loopLocateTable(final String tableId,
       final byte[] startPartitionKey, final byte[] endPartitionKey, final List<LocatedTablet> ret,
-      final DeadlineTracker deadlineTracker) {
+      final DeadlineTracker deadlineTracker, final YBTable tableToCache) {
     if (deadlineTracker.timedOut()) {
       return Deferred.fromError(new NonRecoverableException(
           "Took too long getting the list of tablets, " + deadlineTracker));
@@ -1259,6 +1869,13 @@ public class AsyncYBClient implements AutoCloseable {
             if (response.getTabletLocationsCount() == 0) {
               Deferred.fromResult(ret);
             }
+            if (tableToCache != null) {
+              try {
+                discoverTablets(tableToCache, response);
+              } catch (NonRecoverableException e) {
+                return Deferred.fromError(e);
+              }
+            }
             byte[] lastEndPartition = startPartitionKey;
             for (Master.TabletLocationsPB tabletPb : response.getTabletLocationsList()) {
               LocatedTablet locs = new LocatedTablet(tabletPb);
@@ -1279,7 +1896,7 @@ public class AsyncYBClient implements AutoCloseable {
               return Deferred.fromResult(ret);
             } else {
               return loopLocateTable(tableId, lastEndPartition, endPartitionKey, ret,
-                  deadlineTracker);
+                  deadlineTracker, tableToCache);
             }
           }
         });
@@ -1303,7 +1920,23 @@ public class AsyncYBClient implements AutoCloseable {
     final List<LocatedTablet> ret = Lists.newArrayList();
     final DeadlineTracker deadlineTracker = new DeadlineTracker();
     deadlineTracker.setDeadline(deadline);
-    return loopLocateTable(tableId, startPartitionKey, endPartitionKey, ret, deadlineTracker);
+    return loopLocateTable(tableId, startPartitionKey, endPartitionKey, ret, deadlineTracker,
+        null);
+  }
+
+  /**
+   * Looks up the locations of all the tablets of a table and caches them, so that the first
+   * operations on the table don't have to go to the master.
+   * @param table the table to look up
+   * @param deadline max time spent in milliseconds for the deferred result of this method to
+   *         get called back
+   * @return a deferred object that yields the tablets of the table once they are cached
+   */
+  Deferred<List<LocatedTablet>> prefetchTableLocations(YBTable table, long deadline) {
+    final DeadlineTracker deadlineTracker = new DeadlineTracker();
+    deadlineTracker.setDeadline(deadline);
+    return loopLocateTable(table.getTableId(), null, null, Lists.<LocatedTablet>newArrayList(),
+        deadlineTracker, table);
   }
 
   /**
@@ -1638,7 +2271,11 @@ public class AsyncYBClient implements AutoCloseable {
     return disconnectEverything().addCallback(new ReleaseResourcesCB());
   }
 
-  private void checkIsClosed() {
+  boolean isClosed() {
+    return closed;
+  }
+
+  void checkIsClosed() {
     if (closed) {
       throw new IllegalStateException("Cannot proceed, the client to " + getMasterAddresses() +
                                       " has already been closed.");
@@ -1942,15 +2579,23 @@ public class AsyncYBClient implements AutoCloseable {
     return port;
   }
 
-  void newTimeout(final TimerTask task, final long timeout_ms) {
+  /**
+   * Schedules a task on the client's timer.
+   * @param task the task to run
+   * @param timeout_ms delay in milliseconds before running the task
+   * @return a handle that can be used to cancel the task, or {@code null} if the timer was already
+   * stopped
+   */
+  Timeout newTimeout(final TimerTask task, final long timeout_ms) {
     try {
-      timer.newTimeout(task, timeout_ms, MILLISECONDS);
+      return timer.newTimeout(task, timeout_ms, MILLISECONDS);
     } catch (IllegalStateException e) {
       // This can happen if the timer fires just before shutdown()
       // is called from another thread, and due to how threads get
       // scheduled we tried to call newTimeout() after timer.stop().
       LOG.warn("Failed to schedule timer."
           + "  Ignore this if we're shutting down.", e);
+      return null;
     }
   }
 
@@ -2191,11 +2836,19 @@ public class AsyncYBClient implements AutoCloseable {
     private static final int DEFAULT_MASTER_PORT = 7100;
     private static final int DEFAULT_BOSS_COUNT = 1;
     private static final int DEFAULT_WORKER_COUNT = 2 * Runtime.getRuntime().availableProcessors();
+    private static final double DEFAULT_MAX_HEDGED_READS_RATIO = 0.05;
+    private static final long DEFAULT_TRANSACTION_HEARTBEAT_INTERVAL_MS = 500;
 
     private final List<HostAndPort> masterAddresses;
     private long defaultAdminOperationTimeoutMs = DEFAULT_OPERATION_TIMEOUT_MS;
     private long defaultOperationTimeoutMs = DEFAULT_OPERATION_TIMEOUT_MS;
     private long defaultSocketReadTimeoutMs = DEFAULT_SOCKET_READ_TIMEOUT_MS;
+    private double hedgedReadsPercentile = 0;
+    private double maxHedgedReadsRatio = DEFAULT_MAX_HEDGED_READS_RATIO;
+    private int tableCacheSize = 0;
+    private long transactionHeartbeatIntervalMs = DEFAULT_TRANSACTION_HEARTBEAT_INTERVAL_MS;
+    private boolean warmUpConnections = false;
+    private final List<Pair<String, String>> warmUpTables = new ArrayList<>();
 
     private Executor bossExecutor;
     private Executor workerExecutor;
@@ -2276,6 +2929,102 @@ public class AsyncYBClient implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Enables hedged reads. A read that any replica may serve (i.e. using the CONSISTENT_PREFIX
+     * consistency level) and that the tablet's leader hasn't answered within the given
+     * percentile of its recent read latencies is also sent to another replica, and the first
+     * response wins.
+     * Optional.
+     * If not provided, or if 0, reads are not hedged.
+     * @param percentile a percentile between 0 and 100, e.g. 95
+     * @return this builder
+     */
+    public AsyncYBClientBuilder hedgedReadsPercentile(double percentile) {
+      Preconditions.checkArgument(percentile >= 0 && percentile <= 100,
+          "Invalid hedged reads percentile " + percentile);
+      this.hedgedReadsPercentile = percentile;
+      return this;
+    }
+
+    /**
+     * Sets the maximum ratio of hedged reads to reads, past which reads stop being hedged.
+     * Optional.
+     * If not provided, defaults to 0.05.
+     * @param ratio a ratio between 0 and 1
+     * @return this builder
+     */
+    public AsyncYBClientBuilder maxHedgedReadsRatio(double ratio) {
+      Preconditions.checkArgument(ratio >= 0 && ratio <= 1,
+          "Invalid hedged reads ratio " + ratio);
+      this.maxHedgedReadsRatio = ratio;
+      return this;
+    }
+
+    /**
+     * Enables the table cache: tables opened through the client are kept, by keyspace and name
+     * and by id, so that opening them again doesn't need a round trip to the master. A table is
+     * dropped from the cache when it's altered or deleted through this client, when a read finds
+     * out its schema changed, or when it's the least recently used one and the cache is full.
+     * Tables altered through another client can be served from the cache until then.
+     * Optional.
+     * If not provided, or if 0, tables are not cached.
+     * @param size the maximum number of tables to cache
+     * @return this builder
+     */
+    public AsyncYBClientBuilder tableCacheSize(int size) {
+      Preconditions.checkArgument(size >= 0, "Invalid table cache size " + size);
+      this.tableCacheSize = size;
+      return this;
+    }
+
+    /**
+     * Sets the interval between two heartbeats sent to the status tablets of the running
+     * transactions. It has to be well below the transaction timeout of the tablet servers, or
+     * transactions will expire.
+     * Optional.
+     * If not provided, defaults to 500ms.
+     * @param intervalMs the heartbeat interval in milliseconds
+     * @return this builder
+     */
+    public AsyncYBClientBuilder transactionHeartbeatIntervalMs(long intervalMs) {
+      Preconditions.checkArgument(intervalMs > 0,
+          "Invalid transaction heartbeat interval " + intervalMs);
+      this.transactionHeartbeatIntervalMs = intervalMs;
+      return this;
+    }
+
+    /**
+     * Makes the client connect to all the tablet servers of the cluster as soon as it is built,
+     * in parallel, instead of connecting to each server on the first operation sent to it.
+     * Use {@link AsyncYBClient#whenReady()} to wait for the connections to be ready.
+     * Optional.
+     * If not provided, defaults to false.
+     * @param warmUp whether to connect to the tablet servers when the client is built
+     * @return this builder
+     */
+    public AsyncYBClientBuilder warmUpConnections(boolean warmUp) {
+      this.warmUpConnections = warmUp;
+      return this;
+    }
+
+    /**
+     * Adds a table whose tablet locations are looked up as soon as the client is built, along
+     * with the connections to the tablet servers. May be called several times.
+     * Optional.
+     * If not provided, no table is looked up.
+     * @param keyspace the keyspace of the table
+     * @param name the name of the table
+     * @return this builder
+     * @see #warmUpConnections(boolean)
+     */
+    public AsyncYBClientBuilder warmUpTable(String keyspace, String name) {
+      Preconditions.checkNotNull(keyspace);
+      Preconditions.checkNotNull(name);
+      this.warmUpConnections = true;
+      this.warmUpTables.add(new Pair<String, String>(keyspace, name));
+      return this;
+    }
+
     /**
      * Set the executors which will be used for the embedded Netty boss and workers.
      * Optional.
@@ -112,6 +112,13 @@ final class CallResponse {
     return subslice(this.message, 0, mainLength);
   }
 
+  /**
+   * @return the number of sidecars attached to the response
+   */
+  public int getNumSidecars() {
+    return this.header.getSidecarOffsetsCount();
+  }
+
   /**
    * @param sidecar The index of the sidecar to retrieve.
    * @return A slice pointing to the desired sidecar.
@@ -0,0 +1,148 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.util.HybridTimeUtil;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * A token carrying the last hybrid time a client heard of from the servers, so that another
+ * client, possibly in another process, can be made to see everything the first one did.
+ * <p>
+ * The writer gets a token with {@link AsyncYBClient#getCausalConsistencyToken()} after its
+ * writes, passes it along in its string or binary form, and the reader hands it to
+ * {@link AsyncYBClient#observeCausalConsistencyToken(CausalConsistencyToken)} before reading:
+ * the requests of the reader then carry a hybrid time at least as recent as the writes, which
+ * the servers wait on before serving them.
+ * <p>
+ * The string form is {@code "<version>:<physical micros>:<logical>"}, the binary form a version
+ * byte followed by the big-endian hybrid time. A token from a client that didn't hear from any
+ * server yet is empty, and observing it has no effect.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public final class CausalConsistencyToken implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final int VERSION = 1;
+  private static final int SERIALIZED_SIZE = 9;
+
+  /** The token of a client that didn't hear from any server. */
+  public static final CausalConsistencyToken EMPTY =
+      new CausalConsistencyToken(AsyncYBClient.NO_TIMESTAMP);
+
+  private final long hybridTime;
+
+  private CausalConsistencyToken(long hybridTime) {
+    this.hybridTime = hybridTime;
+  }
+
+  /**
+   * @param hybridTime a hybrid time, or {@link AsyncYBClient#NO_TIMESTAMP}
+   * @return the token of this hybrid time
+   */
+  public static CausalConsistencyToken fromHybridTime(long hybridTime) {
+    if (hybridTime == AsyncYBClient.NO_TIMESTAMP) {
+      return EMPTY;
+    }
+    if (hybridTime < 0) {
+      throw new IllegalArgumentException("Invalid hybrid time " + hybridTime);
+    }
+    return new CausalConsistencyToken(hybridTime);
+  }
+
+  /**
+   * Parses the string form of a token, as returned by {@link #toString()}.
+   * @throws IllegalArgumentException if the string isn't a valid token
+   */
+  public static CausalConsistencyToken fromString(String token) {
+    final String[] parts = token.split(":");
+    if (parts.length != 3 || !parts[0].equals(Integer.toString(VERSION))) {
+      throw new IllegalArgumentException("Invalid causal consistency token: " + token);
+    }
+    try {
+      final long physical = Long.parseLong(parts[1]);
+      final long logical = Long.parseLong(parts[2]);
+      if (physical == -1 && logical == 0) {
+        return EMPTY;
+      }
+      if (physical < 0 || logical < 0 || logical > HybridTimeUtil.hybridTimeLogicalBitsMask) {
+        throw new IllegalArgumentException("Invalid causal consistency token: " + token);
+      }
+      return new CausalConsistencyToken(
+          HybridTimeUtil.physicalAndLogicalToHTTimestamp(physical, logical));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid causal consistency token: " + token, e);
+    }
+  }
+
+  /**
+   * Parses the binary form of a token, as returned by {@link #toBytes()}.
+   * @throws IllegalArgumentException if the bytes aren't a valid token
+   */
+  public static CausalConsistencyToken fromBytes(byte[] token) {
+    if (token.length != SERIALIZED_SIZE || token[0] != VERSION) {
+      throw new IllegalArgumentException("Invalid causal consistency token of " + token.length +
+          " bytes");
+    }
+    return fromHybridTime(ByteBuffer.wrap(token, 1, 8).getLong());
+  }
+
+  /**
+   * @return the hybrid time of this token, {@link AsyncYBClient#NO_TIMESTAMP} if it's empty
+   */
+  public long getHybridTime() {
+    return hybridTime;
+  }
+
+  public boolean isEmpty() {
+    return hybridTime == AsyncYBClient.NO_TIMESTAMP;
+  }
+
+  public byte[] toBytes() {
+    return ByteBuffer.allocate(SERIALIZED_SIZE).put((byte) VERSION).putLong(hybridTime).array();
+  }
+
+  /**
+   * @return the string form of this token, which can be parsed back with
+   *         {@link #fromString(String)}
+   */
+  @Override
+  public String toString() {
+    if (isEmpty()) {
+      return VERSION + ":-1:0";
+    }
+    final long[] physicalAndLogical = HybridTimeUtil.HTTimestampToPhysicalAndLogical(hybridTime);
+    return VERSION + ":" + physicalAndLogical[0] + ":" + physicalAndLogical[1];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof CausalConsistencyToken &&
+        ((CausalConsistencyToken) o).hybridTime == hybridTime;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hybridTime);
+  }
+
+  private Object readResolve() {
+    return isEmpty() ? EMPTY : this;
+  }
+}
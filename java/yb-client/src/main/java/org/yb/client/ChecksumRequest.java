@@ -0,0 +1,72 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.yb.Common;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.TserverService;
+import org.yb.util.Pair;
+
+/**
+ * RPC to compute the checksum of the data of a tablet on a given tablet server.
+ * <p>
+ * The request is sent to a specific replica rather than to the tablet's leader, so errors of the
+ * tablet server are handed back in the response instead of being retried on another replica.
+ */
+@InterfaceAudience.Private
+class ChecksumRequest extends YRpc<ChecksumResponse> {
+  static final String CHECKSUM = "Checksum";
+
+  private final byte[] tabletId;
+
+  ChecksumRequest(byte[] tabletId) {
+    super(null);
+    this.tabletId = tabletId;
+  }
+
+  @Override
+  ChannelBuffer serialize(Message header) {
+    assert header.isInitialized();
+    final TserverService.ChecksumRequestPB.Builder builder =
+        TserverService.ChecksumRequestPB.newBuilder();
+    builder.setTabletId(ByteString.copyFrom(tabletId));
+    // Followers have to answer too, we want the checksum of every replica.
+    builder.setConsistencyLevel(Common.YBConsistencyLevel.CONSISTENT_PREFIX);
+    return toChannelBuffer(header, builder.build());
+  }
+
+  @Override
+  String serviceName() { return TABLET_SERVER_SERVICE_NAME; }
+
+  @Override
+  String method() {
+    return CHECKSUM;
+  }
+
+  @Override
+  Pair<ChecksumResponse, Object> deserialize(CallResponse callResponse,
+                                             String tsUUID) throws Exception {
+    final TserverService.ChecksumResponsePB.Builder respBuilder =
+        TserverService.ChecksumResponsePB.newBuilder();
+    readProtobuf(callResponse.getPBMessage(), respBuilder);
+    ChecksumResponse response = new ChecksumResponse(
+        deadlineTracker.getElapsedMillis(), tsUUID, respBuilder.getChecksum(),
+        respBuilder.hasError() ? respBuilder.getError() : null);
+    return new Pair<ChecksumResponse, Object>(response, null);
+  }
+}
@@ -0,0 +1,48 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.Tserver;
+
+@InterfaceAudience.Public
+public class ChecksumResponse extends YRpcResponse {
+  private final long checksum;
+  private final Tserver.TabletServerErrorPB error;
+
+  ChecksumResponse(long ellapsedMillis, String tsUUID, long checksum,
+                   Tserver.TabletServerErrorPB error) {
+    super(ellapsedMillis, tsUUID);
+    this.checksum = checksum;
+    this.error = error;
+  }
+
+  /**
+   * @return the checksum of the data of the tablet, only meaningful if there's no error
+   */
+  public long getChecksum() {
+    return checksum;
+  }
+
+  public boolean hasError() {
+    return error != null;
+  }
+
+  /**
+   * @return the error returned by the tablet server, or null if there was none
+   */
+  public Tserver.TabletServerErrorPB getError() {
+    return error;
+  }
+}
@@ -0,0 +1,348 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.common.net.HostAndPort;
+import com.stumbleupon.async.Deferred;
+import org.yb.Schema;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.master.Master;
+import org.yb.tserver.Tserver;
+import org.yb.util.AsyncUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous client for YB that hands out {@link CompletableFuture}s instead of
+ * {@link Deferred}s, so that it can be composed with code built on
+ * {@link java.util.concurrent.CompletionStage}.
+ * <p>
+ * This class acts as a thin wrapper around {@link AsyncYBClient}: every operation is sent and
+ * retried by the wrapped client, and its outcome is forwarded to the returned future once. Errors
+ * that the wrapped client would throw right away are reported through the returned future.
+ * Cancelling a returned future doesn't cancel the operation behind it.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class CompletableYBClient implements AutoCloseable {
+
+  private final AsyncYBClient asyncClient;
+
+  /**
+   * Create a client that sends its operations through the given asynchronous client.
+   * @param asyncClient the client to wrap, closing this client closes it too
+   */
+  public CompletableYBClient(AsyncYBClient asyncClient) {
+    this.asyncClient = asyncClient;
+  }
+
+  /**
+   * @return the wrapped asynchronous client
+   */
+  public AsyncYBClient getAsyncClient() {
+    return asyncClient;
+  }
+
+  /**
+   * Sends an operation through the wrapped client, which may throw instead of returning a failed
+   * Deferred.
+   */
+  private interface Operation<T> {
+    Deferred<T> send() throws Exception;
+  }
+
+  /**
+   * @return a future that completes like the Deferred of the operation, or fails with what
+   *         sending the operation threw
+   */
+  private static <T> CompletableFuture<T> toFuture(Operation<T> operation) {
+    try {
+      return AsyncUtil.toCompletableFuture(operation.send());
+    } catch (Exception e) {
+      return AsyncUtil.failedFuture(e);
+    }
+  }
+
+  /**
+   * @see AsyncYBClient#ping(HostAndPort)
+   */
+  public CompletableFuture<PingResponse> ping(HostAndPort hp) {
+    return toFuture(() -> asyncClient.ping(hp));
+  }
+
+  /**
+   * @see AsyncYBClient#setFlag(HostAndPort, String, String)
+   */
+  public CompletableFuture<SetFlagResponse> setFlag(HostAndPort hp, String flag, String value) {
+    return toFuture(() -> asyncClient.setFlag(hp, flag, value));
+  }
+
+  /**
+   * @see AsyncYBClient#getMasterAddresses(HostAndPort)
+   */
+  public CompletableFuture<GetMasterAddressesResponse> getMasterAddresses(HostAndPort hp) {
+    return toFuture(() -> asyncClient.getMasterAddresses(hp));
+  }
+
+  /**
+   * @see AsyncYBClient#createTable(String, String, Schema)
+   */
+  public CompletableFuture<YBTable> createTable(String keyspace, String name, Schema schema) {
+    return createTable(keyspace, name, schema, new CreateTableOptions());
+  }
+
+  /**
+   * @see AsyncYBClient#createTable(String, String, Schema, CreateTableOptions)
+   */
+  public CompletableFuture<YBTable> createTable(String keyspace, String name, Schema schema,
+                                                CreateTableOptions builder) {
+    return toFuture(() -> asyncClient.createTable(keyspace, name, schema, builder));
+  }
+
+  /**
+   * @see AsyncYBClient#createKeyspace(String)
+   */
+  public CompletableFuture<CreateKeyspaceResponse> createKeyspace(String keyspace) {
+    return toFuture(() -> asyncClient.createKeyspace(keyspace));
+  }
+
+  /**
+   * @see AsyncYBClient#deleteTable(String, String)
+   */
+  public CompletableFuture<DeleteTableResponse> deleteTable(String keyspace, String name) {
+    return toFuture(() -> asyncClient.deleteTable(keyspace, name));
+  }
+
+  /**
+   * @see AsyncYBClient#alterTable(String, String, AlterTableOptions)
+   */
+  public CompletableFuture<AlterTableResponse> alterTable(String keyspace, String name,
+                                                         AlterTableOptions ato) {
+    return toFuture(() -> asyncClient.alterTable(keyspace, name, ato));
+  }
+
+  /**
+   * @see AsyncYBClient#isAlterTableDone(String, String)
+   */
+  public CompletableFuture<IsAlterTableDoneResponse> isAlterTableDone(String keyspace,
+                                                                     String name) {
+    return toFuture(() -> asyncClient.isAlterTableDone(keyspace, name));
+  }
+
+  /**
+   * @see AsyncYBClient#listTabletServers()
+   */
+  public CompletableFuture<ListTabletServersResponse> listTabletServers() {
+    return toFuture(() -> asyncClient.listTabletServers());
+  }
+
+  /**
+   * @see AsyncYBClient#listMasters()
+   */
+  public CompletableFuture<ListMastersResponse> listMasters() {
+    return toFuture(() -> asyncClient.listMasters());
+  }
+
+  /**
+   * @see AsyncYBClient#getMasterClusterConfig()
+   */
+  public CompletableFuture<GetMasterClusterConfigResponse> getMasterClusterConfig() {
+    return toFuture(() -> asyncClient.getMasterClusterConfig());
+  }
+
+  /**
+   * @see AsyncYBClient#changeMasterClusterConfig(Master.SysClusterConfigEntryPB)
+   */
+  public CompletableFuture<ChangeMasterClusterConfigResponse> changeMasterClusterConfig(
+      Master.SysClusterConfigEntryPB config) {
+    return toFuture(() -> asyncClient.changeMasterClusterConfig(config));
+  }
+
+  /**
+   * @see AsyncYBClient#changeLoadBalancerState(boolean)
+   */
+  public CompletableFuture<ChangeLoadBalancerStateResponse> changeLoadBalancerState(
+      boolean isEnable) {
+    return toFuture(() -> asyncClient.changeLoadBalancerState(isEnable));
+  }
+
+  /**
+   * @see AsyncYBClient#getLoadMoveCompletion()
+   */
+  public CompletableFuture<GetLoadMovePercentResponse> getLoadMoveCompletion() {
+    return toFuture(() -> asyncClient.getLoadMoveCompletion());
+  }
+
+  /**
+   * @see AsyncYBClient#getIsLoadBalanced(int)
+   */
+  public CompletableFuture<IsLoadBalancedResponse> getIsLoadBalanced(int numServers) {
+    return toFuture(() -> asyncClient.getIsLoadBalanced(numServers));
+  }
+
+  /**
+   * @see AsyncYBClient#getAreLeadersOnPreferredOnly()
+   */
+  public CompletableFuture<AreLeadersOnPreferredOnlyResponse> getAreLeadersOnPreferredOnly() {
+    return toFuture(() -> asyncClient.getAreLeadersOnPreferredOnly());
+  }
+
+  /**
+   * @see AsyncYBClient#waitForCondition(AsyncYBClient.AsyncCondition, long)
+   */
+  public CompletableFuture<Boolean> waitForCondition(AsyncYBClient.AsyncCondition condition,
+                                                     long timeoutMs) {
+    return toFuture(() -> asyncClient.waitForCondition(condition, timeoutMs));
+  }
+
+  /**
+   * @see AsyncYBClient#waitForServer(HostAndPort, long)
+   */
+  public CompletableFuture<Boolean> waitForServer(HostAndPort hp, long timeoutMs) {
+    return toFuture(() -> asyncClient.waitForServer(hp, timeoutMs));
+  }
+
+  /**
+   * @see AsyncYBClient#waitForLoadBalance(long, int)
+   */
+  public CompletableFuture<Boolean> waitForLoadBalance(long timeoutMs, int numServers) {
+    return toFuture(() -> asyncClient.waitForLoadBalance(timeoutMs, numServers));
+  }
+
+  /**
+   * @see AsyncYBClient#waitForAreLeadersOnPreferredOnlyCondition(long)
+   */
+  public CompletableFuture<Boolean> waitForAreLeadersOnPreferredOnlyCondition(long timeoutMs) {
+    return toFuture(() -> asyncClient.waitForAreLeadersOnPreferredOnlyCondition(timeoutMs));
+  }
+
+  /**
+   * @see AsyncYBClient#waitForExpectedReplicaMap(long, YBTable, Map)
+   */
+  public CompletableFuture<Boolean> waitForExpectedReplicaMap(
+      long timeoutMs, YBTable table, Map<String, List<List<Integer>>> replicaMapExpected) {
+    return toFuture(
+        () -> asyncClient.waitForExpectedReplicaMap(timeoutMs, table, replicaMapExpected));
+  }
+
+  /**
+   * @see AsyncYBClient#waitForAlterTableDone(String, String, long)
+   */
+  public CompletableFuture<Boolean> waitForAlterTableDone(String keyspace, String name,
+                                                          long timeoutMs) {
+    return toFuture(() -> asyncClient.waitForAlterTableDone(keyspace, name, timeoutMs));
+  }
+
+  /**
+   * @see AsyncYBClient#masterLeaderStepDown(String, String)
+   */
+  public CompletableFuture<LeaderStepDownResponse> masterLeaderStepDown(String leaderUuid,
+                                                                       String tabletId) {
+    return toFuture(() -> asyncClient.masterLeaderStepDown(leaderUuid, tabletId));
+  }
+
+  /**
+   * @see AsyncYBClient#changeMasterConfig(String, int, String, boolean, boolean)
+   */
+  public CompletableFuture<ChangeConfigResponse> changeMasterConfig(
+      String host, int port, String changeUuid, boolean isAdd, boolean useHost) {
+    return toFuture(() -> asyncClient.changeMasterConfig(host, port, changeUuid, isAdd, useHost));
+  }
+
+  /**
+   * @see AsyncYBClient#getTablesList()
+   */
+  public CompletableFuture<ListTablesResponse> getTablesList() {
+    return getTablesList(null);
+  }
+
+  /**
+   * @see AsyncYBClient#getTablesList(String)
+   */
+  public CompletableFuture<ListTablesResponse> getTablesList(String nameFilter) {
+    return toFuture(() -> asyncClient.getTablesList(nameFilter));
+  }
+
+  /**
+   * @see AsyncYBClient#tableExists(String, String)
+   */
+  public CompletableFuture<Boolean> tableExists(String keyspace, String name) {
+    return toFuture(() -> asyncClient.tableExists(keyspace, name));
+  }
+
+  /**
+   * @see AsyncYBClient#tableExistsByUUID(String)
+   */
+  public CompletableFuture<Boolean> tableExistsByUUID(String tableUUID) {
+    return toFuture(() -> asyncClient.tableExistsByUUID(tableUUID));
+  }
+
+  /**
+   * @see AsyncYBClient#openTable(String, String)
+   */
+  public CompletableFuture<YBTable> openTable(String keyspace, String name) {
+    return toFuture(() -> asyncClient.openTable(keyspace, name));
+  }
+
+  /**
+   * @see AsyncYBClient#openTableByUUID(String)
+   */
+  public CompletableFuture<YBTable> openTableByUUID(String tableUUID) {
+    return toFuture(() -> asyncClient.openTableByUUID(tableUUID));
+  }
+
+  /**
+   * @see AsyncYBClient#read(YBTable, byte[], Tserver.ReadRequestPB.Builder)
+   */
+  public CompletableFuture<ReadResponse> read(YBTable table, byte[] partitionKey,
+                                              Tserver.ReadRequestPB.Builder request) {
+    return toFuture(() -> asyncClient.read(table, partitionKey, request));
+  }
+
+  /**
+   * @see AsyncYBClient#verifyTable(YBTable, int, long)
+   */
+  public CompletableFuture<TableVerificationResult> verifyTable(
+      YBTable table, int maxConcurrentChecksumsPerServer, long timeoutMs) {
+    return toFuture(
+        () -> asyncClient.verifyTable(table, maxConcurrentChecksumsPerServer, timeoutMs));
+  }
+
+  /**
+   * @see AsyncYBClient#whenReady()
+   */
+  public CompletableFuture<Void> whenReady() {
+    return toFuture(() -> asyncClient.whenReady());
+  }
+
+  /**
+   * @see AsyncYBClient#shutdown()
+   */
+  public CompletableFuture<ArrayList<Void>> shutdown() {
+    return toFuture(() -> asyncClient.shutdown());
+  }
+
+  /**
+   * Closes the wrapped client.
+   * @see AsyncYBClient#close()
+   */
+  @Override
+  public void close() throws Exception {
+    asyncClient.close();
+  }
+}
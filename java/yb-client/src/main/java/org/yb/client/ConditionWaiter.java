@@ -0,0 +1,171 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.annotations.InterfaceAudience;
+
+/**
+ * Waits for an {@link AsyncYBClient.AsyncCondition} to become true without parking a thread:
+ * every check is an RPC, and the next check is scheduled on the client's timer once the
+ * previous one completes. The first checks follow each other quickly and the interval between
+ * them then backs off, see {@link AsyncYBClient#getPollIntervalMs(int)}.
+ * <p>
+ * Errors while checking the condition are retried, unless the waiter was asked to propagate
+ * them, up to {@link #MAX_ERRORS_TO_IGNORE} errors.
+ */
+@InterfaceAudience.Private
+class ConditionWaiter implements TimerTask {
+  private static final Logger LOG = LoggerFactory.getLogger(ConditionWaiter.class);
+
+  // Number of response errors to tolerate.
+  static final int MAX_ERRORS_TO_IGNORE = 2500;
+
+  // Log errors every so many errors.
+  private static final int LOG_ERRORS_EVERY_NUM_ITERS = 100;
+
+  // Log info after these many iterations.
+  private static final int LOG_EVERY_NUM_ITERS = 200;
+
+  private final AsyncYBClient client;
+  private final AsyncYBClient.AsyncCondition condition;
+  private final boolean propagateErrors;
+  private final DeadlineTracker deadlineTracker = new DeadlineTracker();
+  private final Deferred<Boolean> result = new Deferred<Boolean>();
+
+  // Whether the first check should fail with a simulated error, for tests.
+  private boolean injectError;
+
+  // Only touched by the one check in flight at any time, or by the timer task that schedules it.
+  private int numChecks = 0;
+  private int numErrors = 0;
+  private Exception lastException;
+
+  private final Callback<Void, Boolean> checkCB = new Callback<Void, Boolean>() {
+    @Override
+    public Void call(Boolean done) {
+      if (Boolean.TRUE.equals(done)) {
+        result.callback(true);
+      } else {
+        scheduleNextCheck();
+      }
+      return null;
+    }
+  };
+
+  private final Callback<Void, Exception> checkErrback = new Callback<Void, Exception>() {
+    @Override
+    public Void call(Exception e) {
+      onError(e);
+      return null;
+    }
+  };
+
+  /**
+   * @param client the client whose timer schedules the checks
+   * @param condition the condition to wait for
+   * @param timeoutMs how long to wait for, in milliseconds, 0 to check the condition only once
+   * @param propagateErrors whether an error while checking the condition should fail the wait
+   *                        right away instead of being retried
+   * @param injectError whether the first check should fail with a simulated error
+   */
+  ConditionWaiter(AsyncYBClient client, AsyncYBClient.AsyncCondition condition, long timeoutMs,
+                  boolean propagateErrors, boolean injectError) {
+    this.client = client;
+    this.condition = condition;
+    this.propagateErrors = propagateErrors;
+    this.injectError = injectError;
+    this.deadlineTracker.setDeadline(Math.max(0, timeoutMs));
+  }
+
+  /**
+   * Starts checking the condition.
+   * @return a Deferred that yields true once the condition is true, or false if it didn't
+   * become true in time or checking it failed too many times
+   */
+  Deferred<Boolean> start() {
+    check();
+    return result;
+  }
+
+  @Override
+  public void run(Timeout timeout) {
+    check();
+  }
+
+  private void check() {
+    numChecks++;
+    if (numChecks % LOG_EVERY_NUM_ITERS == 0) {
+      LOG.info("Tried operation {} times so far.", numChecks);
+    }
+    final Deferred<Boolean> d;
+    try {
+      if (injectError) {
+        injectError = false;
+        String msg = "Simulated expection due to injected error.";
+        LOG.info(msg);
+        throw new RuntimeException(msg);
+      }
+      d = condition.check();
+    } catch (Exception e) {
+      onError(e);
+      return;
+    }
+    d.addCallbacks(checkCB, checkErrback);
+  }
+
+  private void onError(Exception e) {
+    if (propagateErrors) {
+      result.callback(e);
+      return;
+    }
+    // We will get exceptions if we cannot connect to the other end. Keep the last one for the
+    // final debug message if we never succeed.
+    lastException = e;
+    numErrors++;
+    if (numErrors % LOG_ERRORS_EVERY_NUM_ITERS == 0) {
+      LOG.warn("Hit {} errors so far. Latest is : {}.", numErrors, e.toString());
+    }
+    if (numErrors >= MAX_ERRORS_TO_IGNORE) {
+      LOG.error("Hit too many errors, final exception is " + e.toString());
+      fail();
+      return;
+    }
+    scheduleNextCheck();
+  }
+
+  private void scheduleNextCheck() {
+    final long sleepTime = client.getPollIntervalMs(numChecks);
+    if (!deadlineTracker.hasDeadline() || deadlineTracker.wouldSleepingTimeout(sleepTime)) {
+      LOG.error("Timed out waiting for operation. Final exception was {}.",
+                lastException != null ? lastException.toString() : "none");
+      fail();
+      return;
+    }
+    if (client.newTimeout(this, sleepTime) == null) {
+      LOG.error("Client shut down while waiting for operation.");
+      fail();
+    }
+  }
+
+  private void fail() {
+    LOG.error("Returning failure after {} iterations, num errors = {}.", numChecks, numErrors);
+    result.callback(false);
+  }
+}
@@ -0,0 +1,181 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.util.Pair;
+import org.yb.util.ServerInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens the connections to all the tablet servers of the cluster when the client starts, and
+ * looks up the locations of the tablets of some tables, so that the first operations of the
+ * client don't pay for the master lookups and connection setups.
+ * <p>
+ * All the connections are opened in parallel: each server is sent a ping, which only gets its
+ * response once the connection is established and ready. Servers that can't be reached are
+ * logged and skipped, the client works without them being warmed up.
+ */
+@InterfaceAudience.Private
+class ConnectionWarmUp {
+  private static final Logger LOG = LoggerFactory.getLogger(ConnectionWarmUp.class);
+
+  private final AsyncYBClient client;
+  // The keyspaces and names of the tables to look up.
+  private final List<Pair<String, String>> tables;
+  private final AtomicInteger numServers = new AtomicInteger();
+  private final AtomicInteger numConnectedServers = new AtomicInteger();
+  private final AtomicInteger numPrefetchedTables = new AtomicInteger();
+
+  // All of the following are guarded by this object's monitor.
+  private boolean done = false;
+  private final List<Deferred<Void>> waiters = new ArrayList<>();
+
+  ConnectionWarmUp(AsyncYBClient client, List<Pair<String, String>> tables) {
+    this.client = client;
+    this.tables = tables;
+  }
+
+  /**
+   * Starts warming up the connections, asynchronously.
+   */
+  void start() {
+    final long start = System.nanoTime();
+    final List<Deferred<Void>> steps = new ArrayList<>();
+    steps.add(client.listTabletServers().addCallbackDeferring(
+        new Callback<Deferred<Void>, ListTabletServersResponse>() {
+          @Override
+          public Deferred<Void> call(ListTabletServersResponse response) {
+            if (response.hasError()) {
+              LOG.warn("Cannot list the tablet servers to connect to: " +
+                  response.errorMessage());
+              return Deferred.fromResult(null);
+            }
+            return connect(response.getTabletServersList());
+          }
+        }).addErrback(new LogErrorCB("list the tablet servers to connect to")));
+    for (final Pair<String, String> table : tables) {
+      steps.add(prefetch(table.getFirst(), table.getSecond()));
+    }
+    // The errors of each step are logged and swallowed, so this only completes successfully.
+    Deferred.group(steps).addBoth(new Callback<Void, ArrayList<Void>>() {
+      @Override
+      public Void call(ArrayList<Void> ignored) {
+        LOG.info("Connected to " + numConnectedServers.get() + " out of " + numServers.get() +
+            " tablet servers and looked up " + numPrefetchedTables.get() + " out of " +
+            tables.size() + " tables in " + (System.nanoTime() - start) / 1000000 + "ms");
+        complete();
+        return null;
+      }
+    });
+  }
+
+  private Deferred<Void> connect(List<ServerInfo> servers) {
+    numServers.set(servers.size());
+    final List<Deferred<Void>> pings = new ArrayList<>();
+    for (final ServerInfo server : servers) {
+      final TabletClient tabletClient =
+          client.newClient(server.getUuid(), server.getHost(), server.getPort());
+      if (tabletClient == null) {
+        LOG.warn("Cannot connect to tablet server " + server.getUuid() + " at " +
+            server.getHost() + ":" + server.getPort());
+        continue;
+      }
+      final PingRequest rpc = new PingRequest();
+      rpc.setTimeoutMillis(client.getDefaultAdminOperationTimeoutMs());
+      final Deferred<PingResponse> d = rpc.getDeferred();
+      rpc.attempt++;
+      tabletClient.sendRpc(rpc);
+      pings.add(d.addCallback(new Callback<Void, PingResponse>() {
+        @Override
+        public Void call(PingResponse response) {
+          numConnectedServers.incrementAndGet();
+          return null;
+        }
+      }).addErrback(new LogErrorCB("connect to tablet server " + server.getUuid() + " at " +
+          server.getHost() + ":" + server.getPort())));
+    }
+    return Deferred.group(pings).addCallback(new Callback<Void, ArrayList<Void>>() {
+      @Override
+      public Void call(ArrayList<Void> ignored) {
+        return null;
+      }
+    });
+  }
+
+  private Deferred<Void> prefetch(final String keyspace, final String name) {
+    return client.openTable(keyspace, name).addCallbackDeferring(
+        new Callback<Deferred<List<LocatedTablet>>, YBTable>() {
+          @Override
+          public Deferred<List<LocatedTablet>> call(YBTable table) {
+            return client.prefetchTableLocations(table,
+                client.getDefaultAdminOperationTimeoutMs());
+          }
+        }).addCallback(new Callback<Void, List<LocatedTablet>>() {
+          @Override
+          public Void call(List<LocatedTablet> tablets) {
+            numPrefetchedTables.incrementAndGet();
+            return null;
+          }
+        }).addErrback(new LogErrorCB("look up the tablets of " + keyspace + "." + name));
+  }
+
+  private void complete() {
+    final List<Deferred<Void>> toCall;
+    synchronized (this) {
+      done = true;
+      toCall = new ArrayList<>(waiters);
+      waiters.clear();
+    }
+    for (Deferred<Void> waiter : toCall) {
+      waiter.callback(null);
+    }
+  }
+
+  /**
+   * @return a new Deferred called back once the warm-up is over, whether all the servers could
+   *         be connected to or not
+   */
+  Deferred<Void> whenDone() {
+    synchronized (this) {
+      if (!done) {
+        final Deferred<Void> d = new Deferred<Void>();
+        waiters.add(d);
+        return d;
+      }
+    }
+    return Deferred.fromResult(null);
+  }
+
+  private static final class LogErrorCB implements Callback<Void, Exception> {
+    private final String what;
+
+    LogErrorCB(String what) {
+      this.what = what;
+    }
+
+    @Override
+    public Void call(Exception e) {
+      LOG.warn("Warm-up failed to " + what, e);
+      return null;
+    }
+  }
+}
@@ -45,6 +45,7 @@ public class GetTableSchemaResponse extends YRpcResponse {
   private final String tableName;
   private final String tableId;
   private final TableType tableType;
+  private final int schemaVersion;
 
   /**
    * @param ellapsedMillis Time in milliseconds since RPC creation to now
@@ -59,7 +60,8 @@ public class GetTableSchemaResponse extends YRpcResponse {
                          String tableId,
                          PartitionSchema partitionSchema,
                          boolean createTableDone,
-                         TableType tableType) {
+                         TableType tableType,
+                         int schemaVersion) {
     super(ellapsedMillis, tsUUID);
     this.schema = schema;
     this.partitionSchema = partitionSchema;
@@ -68,6 +70,7 @@ public class GetTableSchemaResponse extends YRpcResponse {
     this.tableName = tableName;
     this.tableId = tableId;
     this.tableType = tableType;
+    this.schemaVersion = schemaVersion;
   }
 
   /**
@@ -125,4 +128,12 @@ public class GetTableSchemaResponse extends YRpcResponse {
   public TableType getTableType() {
     return tableType;
   }
+
+  /**
+   * Get the table's schema version.
+   * @return the version of the schema
+   */
+  public int getSchemaVersion() {
+    return schemaVersion;
+  }
 }
@@ -0,0 +1,267 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a second copy of slow reads to another replica of the tablet.
+ * <p>
+ * Reads that any replica may serve (those using the CONSISTENT_PREFIX consistency level) are sent
+ * to the tablet's leader as usual. If the leader hasn't answered after the configured percentile
+ * of the read latencies it recently showed, the same read is sent to the replica that has been
+ * the fastest lately. Whichever answers first wins and the other read is cancelled.
+ * <p>
+ * To cap the extra load this puts on the cluster, hedging is suppressed whenever the number of
+ * hedged reads would exceed the configured ratio of all the reads sent. The counters exposed by
+ * this class can be used to keep an eye on that.
+ *
+ * @see AsyncYBClient.AsyncYBClientBuilder#hedgedReadsPercentile(double)
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class HedgedReads {
+  private static final Logger LOG = LoggerFactory.getLogger(HedgedReads.class);
+
+  private final AsyncYBClient client;
+  private final double percentile;
+  private final double maxHedgedReadsRatio;
+
+  private final AtomicLong numReads = new AtomicLong();
+  private final AtomicLong numHedgedReads = new AtomicLong();
+  private final AtomicLong numHedgedReadWins = new AtomicLong();
+  private final AtomicLong numSuppressedHedgedReads = new AtomicLong();
+
+  HedgedReads(AsyncYBClient client, double percentile, double maxHedgedReadsRatio) {
+    this.client = client;
+    this.percentile = percentile;
+    this.maxHedgedReadsRatio = maxHedgedReadsRatio;
+  }
+
+  /**
+   * @return the number of reads that could have been hedged
+   */
+  public long getNumReads() {
+    return numReads.get();
+  }
+
+  /**
+   * @return the number of second copies of reads that were sent out
+   */
+  public long getNumHedgedReads() {
+    return numHedgedReads.get();
+  }
+
+  /**
+   * @return the number of hedged reads that answered before the original read
+   */
+  public long getNumHedgedReadWins() {
+    return numHedgedReadWins.get();
+  }
+
+  /**
+   * @return the number of hedged reads that weren't sent because of the hedged reads ratio cap
+   */
+  public long getNumSuppressedHedgedReads() {
+    return numSuppressedHedgedReads.get();
+  }
+
+  LatencyTracker newLatencyTracker() {
+    return new LatencyTracker(percentile);
+  }
+
+  /**
+   * Sends the given read, possibly hedging it later on.
+   * @param rpc a read that may be served by any replica
+   * @return a Deferred that yields the first response received
+   */
+  Deferred<ReadResponse> read(ReadRequest rpc) {
+    numReads.incrementAndGet();
+    final HedgedRead hedgedRead = new HedgedRead(rpc);
+    rpc.setHedgedRead(hedgedRead);
+    client.sendRpcToTablet(rpc).addCallbacks(hedgedRead.new ResponseCB(rpc),
+                                             hedgedRead.new ErrorCB(rpc));
+    return hedgedRead.result;
+  }
+
+  /**
+   * Called every time the given read is sent to the tablet's leader. Arms the timer that will
+   * hedge it, the first time only.
+   */
+  void onSend(ReadRequest rpc, AsyncYBClient.RemoteTablet tablet, TabletClient leader) {
+    final HedgedRead hedgedRead = rpc.getHedgedRead();
+    if (hedgedRead != null) {
+      hedgedRead.arm(tablet, leader);
+    }
+  }
+
+  private boolean tryAcquireHedge() {
+    // Checked and incremented atomically, so that concurrent hedges can't go over the ratio.
+    while (true) {
+      final long hedged = numHedgedReads.get();
+      if (hedged + 1 > maxHedgedReadsRatio * numReads.get()) {
+        numSuppressedHedgedReads.incrementAndGet();
+        return false;
+      }
+      if (numHedgedReads.compareAndSet(hedged, hedged + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Tracks one read and its hedged copy, and completes the Deferred handed to the user with the
+   * first response, or with the last error if neither of them succeeds.
+   */
+  final class HedgedRead {
+    private final ReadRequest primary;
+    private final Deferred<ReadResponse> result = new Deferred<ReadResponse>();
+
+    // All of the following are guarded by this object's monitor.
+    private ReadRequest hedge;
+    private boolean armed = false;
+    private boolean done = false;
+    private int numOutstanding = 1;
+
+    HedgedRead(ReadRequest primary) {
+      this.primary = primary;
+    }
+
+    void arm(final AsyncYBClient.RemoteTablet tablet, final TabletClient leader) {
+      synchronized (this) {
+        if (armed || done) {
+          return;
+        }
+        armed = true;
+      }
+      final long delayMicros = leader.getReadLatencyTracker().getPercentileMicros();
+      if (delayMicros < 0) {
+        return;  // We don't know how fast this server usually is yet.
+      }
+      final long delayMs = Math.max(1, (delayMicros + 999) / 1000);
+      if (primary.deadlineTracker.wouldSleepingTimeout(delayMs)) {
+        return;
+      }
+      client.newTimeout(new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+          sendHedge(tablet, leader);
+        }
+      }, delayMs);
+    }
+
+    private void sendHedge(AsyncYBClient.RemoteTablet tablet, TabletClient leader) {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+      }
+      final TabletClient replica = client.clientForHedgedRead(tablet, leader);
+      if (replica == null || !tryAcquireHedge()) {
+        return;
+      }
+      final ReadRequest copy;
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        copy = primary.copy();
+        hedge = copy;
+        numOutstanding++;
+      }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Hedging read to tablet " + tablet + " on " + replica);
+      }
+      copy.setTablet(tablet);
+      // Like sendRpcToTablet does for the original read, so that the replica waits to have
+      // caught up with what this client already saw.
+      final long lastPropagatedTs = client.getLastPropagatedTimestamp();
+      if (lastPropagatedTs != AsyncYBClient.NO_TIMESTAMP) {
+        copy.setPropagatedTimestamp(lastPropagatedTs);
+      }
+      copy.attempt++;
+      final Deferred<ReadResponse> d = copy.getDeferred();
+      replica.sendRpc(copy);
+      d.addCallbacks(new ResponseCB(copy), new ErrorCB(copy));
+    }
+
+    private void onResponse(ReadRequest rpc, ReadResponse response) {
+      final ReadRequest other;
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        done = true;
+        other = rpc == primary ? hedge : primary;
+      }
+      if (other != null) {
+        other.cancel();
+      }
+      if (rpc != primary) {
+        numHedgedReadWins.incrementAndGet();
+      }
+      result.callback(response);
+    }
+
+    private void onError(Exception e) {
+      synchronized (this) {
+        if (done || --numOutstanding > 0) {
+          return;
+        }
+        done = true;
+      }
+      result.callback(e);
+    }
+
+    final class ResponseCB implements Callback<Void, ReadResponse> {
+      private final ReadRequest rpc;
+
+      ResponseCB(ReadRequest rpc) {
+        this.rpc = rpc;
+      }
+
+      @Override
+      public Void call(ReadResponse response) {
+        onResponse(rpc, response);
+        return null;
+      }
+    }
+
+    final class ErrorCB implements Callback<Void, Exception> {
+      private final ReadRequest rpc;
+
+      ErrorCB(ReadRequest rpc) {
+        this.rpc = rpc;
+      }
+
+      @Override
+      public Void call(Exception e) {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug((rpc == primary ? "Read" : "Hedged read") + " failed", e);
+        }
+        onError(e);
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.annotations.InterfaceAudience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the latencies of the most recent operations served by a tablet server, and of
+ * a given percentile of these latencies.
+ * <p>
+ * The percentile is only recomputed every so many samples so that recording stays cheap, it's
+ * meant to follow trends rather than to be exact.
+ */
+@InterfaceAudience.Private
+class LatencyTracker {
+  // Number of most recent samples the percentile is computed on.
+  static final int NUM_SAMPLES = 512;
+
+  // Minimum number of samples before we report a percentile.
+  static final int MIN_SAMPLES = 32;
+
+  // How often, in samples, the percentile gets recomputed.
+  private static final int RECOMPUTE_INTERVAL = 64;
+
+  private final double percentile;
+  private final long[] samplesMicros = new long[NUM_SAMPLES];
+  private final long[] sortBuffer = new long[NUM_SAMPLES];
+  private long numSamples = 0;
+  private volatile long percentileMicros = -1;
+
+  /**
+   * @param percentile the percentile to track, between 0 (exclusive) and 100 (inclusive)
+   */
+  LatencyTracker(double percentile) {
+    if (percentile <= 0 || percentile > 100) {
+      throw new IllegalArgumentException("Invalid percentile " + percentile);
+    }
+    this.percentile = percentile;
+  }
+
+  synchronized void record(long latencyNanos) {
+    samplesMicros[(int) (numSamples % NUM_SAMPLES)] = latencyNanos / 1000;
+    numSamples++;
+    if (numSamples == MIN_SAMPLES ||
+        (numSamples > MIN_SAMPLES && numSamples % RECOMPUTE_INTERVAL == 0)) {
+      final int n = (int) Math.min(numSamples, NUM_SAMPLES);
+      System.arraycopy(samplesMicros, 0, sortBuffer, 0, n);
+      Arrays.sort(sortBuffer, 0, n);
+      final int index = (int) Math.ceil(percentile / 100 * n) - 1;
+      percentileMicros = sortBuffer[Math.max(0, Math.min(n - 1, index))];
+    }
+  }
+
+  /**
+   * @return the tracked percentile of the recent latencies in microseconds, or -1 if not enough
+   * samples were recorded yet
+   */
+  long getPercentileMicros() {
+    return percentileMicros;
+  }
+}
@@ -70,7 +70,7 @@ public class PartitionSchema {
    * @param rangeSchema the range schema
    * @param hashBucketSchemas the hash bucket schemas
    * @param schema the table schema
-   * @param hashSchema the hash schema
+   * @param hashSchema the hash schema, null if the table isn't hash partitioned
    */
   PartitionSchema(RangeSchema rangeSchema,
                   List<HashBucketSchema> hashBucketSchemas,
@@ -102,6 +102,33 @@ public class PartitionSchema {
     return new KeyEncoder().encodePartitionKey(row, this);
   }
 
+  /**
+   * Returns the partition key of the rows with the given hash code in a table that uses the
+   * multi-column hash schema, i.e. the hash code encoded as a 2-byte big-endian integer.
+   * @param hashCode the 16-bit hash code of the row's hash columns
+   * @return the encoded partition key
+   */
+  public static byte[] encodeMultiColumnHashValue(int hashCode) {
+    return new byte[] { (byte) (hashCode >>> 8), (byte) hashCode };
+  }
+
+  /**
+   * Returns the hash code encoded in a partition key of a table that uses the multi-column hash
+   * schema, the reverse of {@link #encodeMultiColumnHashValue(int)}.
+   * @param partitionKey the encoded partition key, an empty key stands for the start of the table
+   * @return the 16-bit hash code
+   */
+  public static int decodeMultiColumnHashValue(byte[] partitionKey) {
+    if (partitionKey.length == 0) {
+      return 0;
+    }
+    if (partitionKey.length != 2) {
+      throw new IllegalArgumentException("Not a multi-column hash partition key: " +
+          Bytes.pretty(partitionKey));
+    }
+    return ((partitionKey[0] & 0xff) << 8) | (partitionKey[1] & 0xff);
+  }
+
   public RangeSchema getRangeSchema() {
     return rangeSchema;
   }
@@ -110,6 +137,9 @@ public class PartitionSchema {
     return hashBucketSchemas;
   }
 
+  /**
+   * @return the hash schema, or null if the table isn't hash partitioned
+   */
   public HashSchema getHashSchema() { return hashSchema; }
 
   /**
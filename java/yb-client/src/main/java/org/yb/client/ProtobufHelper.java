@@ -162,7 +162,8 @@ public class ProtobufHelper {
       hashBucketSchemas.add(hashBucketSchema);
     }
 
-    return new PartitionSchema(rangeSchema, hashBucketSchemas.build(), schema, pb.getHashSchema());
+    return new PartitionSchema(rangeSchema, hashBucketSchemas.build(), schema,
+                               pb.hasHashSchema() ? pb.getHashSchema() : null);
   }
 
   /**
@@ -0,0 +1,213 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.ColumnSchema;
+import org.yb.Common.DataType;
+import org.yb.QLType;
+import org.yb.QlProtocol.QLBCallPB;
+import org.yb.QlProtocol.QLExpressionPB;
+import org.yb.QlProtocol.QLValuePB;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * An aggregate function computed by each tablet server over the rows of its tablets, the client
+ * only has to merge one partial result per tablet.
+ *
+ * @see QLReadRequestBuilder#aggregate(QLAggregate...)
+ * @see YBClient#aggregate(YBTable, QLReadRequestBuilder, int)
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public final class QLAggregate {
+
+  /**
+   * The aggregate functions, along with their opcodes in the tablet server builtin calls.
+   */
+  public enum Function {
+    COUNT(4),
+    MAX(5),
+    MIN(6),
+    SUM(7);
+
+    private final int opcode;
+
+    Function(int opcode) {
+      this.opcode = opcode;
+    }
+  }
+
+  private final Function function;
+  // Null for COUNT(*).
+  private final ColumnSchema column;
+
+  private QLAggregate(Function function, ColumnSchema column) {
+    if (function != Function.COUNT && !isAggregatable(column.getQLType().getMain())) {
+      throw new IllegalArgumentException("Cannot compute " + function + " of column " +
+          column.getName() + " of type " + column.getQLType().toCqlString());
+    }
+    this.function = function;
+    this.column = column;
+  }
+
+  /**
+   * @return an aggregate counting the rows
+   */
+  public static QLAggregate count() {
+    return new QLAggregate(Function.COUNT, null);
+  }
+
+  /**
+   * @return an aggregate counting the rows whose column isn't NULL
+   */
+  public static QLAggregate count(ColumnSchema column) {
+    return new QLAggregate(Function.COUNT, column);
+  }
+
+  /**
+   * @return an aggregate summing the values of a numeric column, the sum has the column's type
+   */
+  public static QLAggregate sum(ColumnSchema column) {
+    return new QLAggregate(Function.SUM, column);
+  }
+
+  /**
+   * @return an aggregate finding the smallest value of a column
+   */
+  public static QLAggregate min(ColumnSchema column) {
+    return new QLAggregate(Function.MIN, column);
+  }
+
+  /**
+   * @return an aggregate finding the largest value of a column
+   */
+  public static QLAggregate max(ColumnSchema column) {
+    return new QLAggregate(Function.MAX, column);
+  }
+
+  public Function getFunction() {
+    return function;
+  }
+
+  /**
+   * @return the column aggregated, or null for COUNT(*)
+   */
+  public ColumnSchema getColumn() {
+    return column;
+  }
+
+  /**
+   * @return the type of the result of this aggregate
+   */
+  QLType getResultType() {
+    return function == Function.COUNT ? QLType.INT64 : column.getQLType();
+  }
+
+  /**
+   * @return the aggregate as a selected expression sent to the tablet servers
+   */
+  QLExpressionPB toPB() {
+    final QLExpressionPB operand;
+    if (column == null) {
+      // The tablet servers count every row unless the operand is a column.
+      operand = QLExpressionPB.newBuilder().setValue(QLValuePB.getDefaultInstance()).build();
+    } else {
+      operand = QLPredicate.columnExpr(column);
+    }
+    return QLExpressionPB.newBuilder()
+        .setTscall(QLBCallPB.newBuilder().setOpcode(function.opcode).addOperands(operand))
+        .build();
+  }
+
+  /**
+   * Merges the partial results of two tablets the same way the tablet servers aggregate rows.
+   * @param a a partial result, null if there wasn't any
+   * @param b another partial result, null if there wasn't any
+   * @return the merged result, null if both were
+   */
+  Object merge(Object a, Object b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    switch (function) {
+      case COUNT:
+        return (Long) a + (Long) b;
+      case SUM:
+        return add(a, b);
+      case MIN:
+        return compare(a, b) <= 0 ? a : b;
+      case MAX:
+        return compare(a, b) >= 0 ? a : b;
+      default:
+        throw new IllegalStateException("Unknown aggregate function " + function);
+    }
+  }
+
+  /**
+   * @return the final result of this aggregate given the merged partial results
+   */
+  Object finish(Object merged) {
+    if (merged == null && function == Function.COUNT) {
+      return 0L;
+    }
+    return merged;
+  }
+
+  private static Object add(Object a, Object b) {
+    // Like the tablet servers, sum in the type of the column.
+    if (a instanceof Byte) {
+      return (byte) ((Byte) a + (Byte) b);
+    } else if (a instanceof Short) {
+      return (short) ((Short) a + (Short) b);
+    } else if (a instanceof Integer) {
+      return (Integer) a + (Integer) b;
+    } else if (a instanceof Long) {
+      return (Long) a + (Long) b;
+    } else if (a instanceof Float) {
+      return (Float) a + (Float) b;
+    } else if (a instanceof Double) {
+      return (Double) a + (Double) b;
+    } else if (a instanceof BigInteger) {
+      return ((BigInteger) a).add((BigInteger) b);
+    } else if (a instanceof BigDecimal) {
+      return ((BigDecimal) a).add((BigDecimal) b);
+    }
+    throw new IllegalArgumentException("Cannot sum values of " + a.getClass().getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object a, Object b) {
+    if (a instanceof byte[]) {
+      return Bytes.memcmp((byte[]) a, (byte[]) b);
+    }
+    return ((Comparable<Object>) a).compareTo(b);
+  }
+
+  @Override
+  public String toString() {
+    return function + "(" + (column == null ? "*" : column.getName()) + ")";
+  }
+
+  private static boolean isAggregatable(DataType type) {
+    return type != DataType.LIST && type != DataType.MAP && type != DataType.SET &&
+        type != DataType.FROZEN && type != DataType.USER_DEFINED_TYPE && type != DataType.JSONB;
+  }
+}
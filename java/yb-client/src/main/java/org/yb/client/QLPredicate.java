@@ -0,0 +1,203 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.common.base.Preconditions;
+import org.yb.ColumnSchema;
+import org.yb.Common.DataType;
+import org.yb.QlProtocol.QLConditionPB;
+import org.yb.QlProtocol.QLExpressionPB;
+import org.yb.QlProtocol.QLOperator;
+import org.yb.QlProtocol.QLSeqValuePB;
+import org.yb.QlProtocol.QLValuePB;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+
+import java.util.Collection;
+
+/**
+ * A condition on a column that the tablet servers evaluate while reading, so that only the
+ * matching rows are sent back.
+ * <p>
+ * Conditions on the range columns of the primary key also narrow down the part of each tablet
+ * that gets read, conditions on other columns only filter the rows that are read.
+ * <p>
+ * Values are given as Java objects of the column's type, see {@link QLValues} for the mapping.
+ *
+ * @see QLReadRequestBuilder#where(QLPredicate)
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public final class QLPredicate {
+
+  /**
+   * The comparison operators that can be used in a predicate.
+   */
+  public enum ComparisonOp {
+    EQUAL(QLOperator.QL_OP_EQUAL),
+    NOT_EQUAL(QLOperator.QL_OP_NOT_EQUAL),
+    LESS(QLOperator.QL_OP_LESS_THAN),
+    LESS_EQUAL(QLOperator.QL_OP_LESS_THAN_EQUAL),
+    GREATER(QLOperator.QL_OP_GREATER_THAN),
+    GREATER_EQUAL(QLOperator.QL_OP_GREATER_THAN_EQUAL);
+
+    private final QLOperator op;
+
+    ComparisonOp(QLOperator op) {
+      this.op = op;
+    }
+  }
+
+  private final QLConditionPB condition;
+
+  private QLPredicate(QLConditionPB condition) {
+    this.condition = condition;
+  }
+
+  /**
+   * Creates a predicate comparing a column to a value.
+   * @param column the column
+   * @param op the comparison operator
+   * @param value the value the column is compared to, it may not be null
+   * @return a new predicate
+   */
+  public static QLPredicate newComparisonPredicate(ColumnSchema column, ComparisonOp op,
+                                                   Object value) {
+    Preconditions.checkNotNull(value, "Use an IS NULL predicate to compare to NULL");
+    return new QLPredicate(QLConditionPB.newBuilder()
+        .setOp(op.op)
+        .addOperands(columnExpr(column))
+        .addOperands(valueExpr(QLValues.toPB(getType(column), value)))
+        .build());
+  }
+
+  /**
+   * Creates a predicate matching the rows whose column has one of the given values.
+   * @param column the column
+   * @param values the values, none may be null
+   * @return a new predicate
+   */
+  public static QLPredicate newInListPredicate(ColumnSchema column, Collection<?> values) {
+    Preconditions.checkArgument(!values.isEmpty(), "The list of values may not be empty");
+    final DataType type = getType(column);
+    final QLSeqValuePB.Builder list = QLSeqValuePB.newBuilder();
+    for (Object value : values) {
+      Preconditions.checkNotNull(value, "The list of values may not contain NULL");
+      list.addElems(QLValues.toPB(type, value));
+    }
+    return new QLPredicate(QLConditionPB.newBuilder()
+        .setOp(QLOperator.QL_OP_IN)
+        .addOperands(columnExpr(column))
+        .addOperands(valueExpr(QLValuePB.newBuilder().setListValue(list).build()))
+        .build());
+  }
+
+  /**
+   * Creates a predicate matching the rows whose column is in the range [lower, upper).
+   * @param column the column, usually one of the range columns of the primary key
+   * @param lower the inclusive lower bound, null if there is none
+   * @param upper the exclusive upper bound, null if there is none
+   * @return a new predicate
+   */
+  public static QLPredicate newRangePredicate(ColumnSchema column, Object lower, Object upper) {
+    Preconditions.checkArgument(lower != null || upper != null,
+        "At least one of the bounds must be given");
+    if (upper == null) {
+      return newComparisonPredicate(column, ComparisonOp.GREATER_EQUAL, lower);
+    }
+    if (lower == null) {
+      return newComparisonPredicate(column, ComparisonOp.LESS, upper);
+    }
+    return and(newComparisonPredicate(column, ComparisonOp.GREATER_EQUAL, lower),
+               newComparisonPredicate(column, ComparisonOp.LESS, upper));
+  }
+
+  /**
+   * Creates a predicate matching the rows whose column is NULL.
+   */
+  public static QLPredicate newIsNullPredicate(ColumnSchema column) {
+    return new QLPredicate(QLConditionPB.newBuilder()
+        .setOp(QLOperator.QL_OP_IS_NULL)
+        .addOperands(columnExpr(column))
+        .build());
+  }
+
+  /**
+   * Creates a predicate matching the rows whose column isn't NULL.
+   */
+  public static QLPredicate newIsNotNullPredicate(ColumnSchema column) {
+    return new QLPredicate(QLConditionPB.newBuilder()
+        .setOp(QLOperator.QL_OP_IS_NOT_NULL)
+        .addOperands(columnExpr(column))
+        .build());
+  }
+
+  /**
+   * Creates a predicate matching the rows that match all the given predicates.
+   */
+  public static QLPredicate and(QLPredicate... predicates) {
+    Preconditions.checkArgument(predicates.length > 0, "At least one predicate must be given");
+    if (predicates.length == 1) {
+      return predicates[0];
+    }
+    final QLConditionPB.Builder and = QLConditionPB.newBuilder().setOp(QLOperator.QL_OP_AND);
+    for (QLPredicate predicate : predicates) {
+      and.addOperands(predicate.toPB());
+    }
+    return new QLPredicate(and.build());
+  }
+
+  /**
+   * @return the predicate as sent to the tablet servers
+   */
+  QLExpressionPB toPB() {
+    return QLExpressionPB.newBuilder().setCondition(condition).build();
+  }
+
+  /**
+   * Adds the ids of the columns this predicate refers to to the given collection.
+   */
+  void collectColumnIds(Collection<Integer> ids) {
+    collectColumnIds(condition, ids);
+  }
+
+  private static void collectColumnIds(QLConditionPB condition, Collection<Integer> ids) {
+    for (QLExpressionPB operand : condition.getOperandsList()) {
+      if (operand.hasColumnId()) {
+        ids.add(operand.getColumnId());
+      } else if (operand.hasCondition()) {
+        collectColumnIds(operand.getCondition(), ids);
+      }
+    }
+  }
+
+  static QLExpressionPB columnExpr(ColumnSchema column) {
+    Preconditions.checkArgument(column.getId() != null,
+        "Column %s has no id, it must come from the schema of an opened table", column.getName());
+    return QLExpressionPB.newBuilder().setColumnId(column.getId()).build();
+  }
+
+  private static QLExpressionPB valueExpr(QLValuePB value) {
+    return QLExpressionPB.newBuilder().setValue(value).build();
+  }
+
+  private static DataType getType(ColumnSchema column) {
+    return column.getQLType().getMain();
+  }
+
+  @Override
+  public String toString() {
+    return condition.toString();
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.ColumnSchema;
+import org.yb.Common.DataType;
+import org.yb.Common.QLClient;
+import org.yb.QLType;
+import org.yb.QlProtocol.QLRSColDescPB;
+import org.yb.QlProtocol.QLRSRowDescPB;
+import org.yb.QlProtocol.QLReadRequestPB;
+import org.yb.QlProtocol.QLReferencedColumnsPB;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Builds the {@link QLReadRequestPB} of a table scan: the columns to read or the aggregates to
+ * compute, and the predicates the rows must match.
+ * <p>
+ * The request built is meant to be used as the template of a {@link YBTableScanner}, which takes
+ * care of the hash codes, limit and paging state. A request either selects columns or computes
+ * aggregates, it can't do both.
+ * <p>
+ * For example, to count the rows of a table that have a value greater than 10:
+ * <pre>{@code
+ * Schema schema = table.getSchema();
+ * QLReadRequestBuilder request = new QLReadRequestBuilder(table)
+ *     .aggregate(QLAggregate.count())
+ *     .where(QLPredicate.newComparisonPredicate(schema.getColumn("v"),
+ *                                               QLPredicate.ComparisonOp.GREATER, 10));
+ * long count = (Long) client.aggregate(table, request, 16).get(0);
+ * }</pre>
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class QLReadRequestBuilder {
+  private final YBTable table;
+  private final List<ColumnSchema> columns = new ArrayList<ColumnSchema>();
+  private final List<QLAggregate> aggregates = new ArrayList<QLAggregate>();
+  private final List<QLPredicate> predicates = new ArrayList<QLPredicate>();
+
+  public QLReadRequestBuilder(YBTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Adds columns to read.
+   * @param columnNames the names of the columns
+   * @return this builder
+   */
+  public QLReadRequestBuilder select(String... columnNames) {
+    checkNoAggregates();
+    for (String columnName : columnNames) {
+      columns.add(table.getSchema().getColumn(columnName));
+    }
+    return this;
+  }
+
+  /**
+   * Adds aggregates to compute over the matching rows.
+   * @param aggregates the aggregates
+   * @return this builder
+   */
+  public QLReadRequestBuilder aggregate(QLAggregate... aggregates) {
+    checkNoColumns();
+    Collections.addAll(this.aggregates, aggregates);
+    return this;
+  }
+
+  /**
+   * Adds a predicate the rows must match. Rows have to match all the predicates.
+   * @param predicate the predicate
+   * @return this builder
+   */
+  public QLReadRequestBuilder where(QLPredicate predicate) {
+    predicates.add(predicate);
+    return this;
+  }
+
+  /**
+   * @return the aggregates of this request, in order
+   */
+  public List<QLAggregate> getAggregates() {
+    return Collections.unmodifiableList(aggregates);
+  }
+
+  /**
+   * @return the types of the values in each row returned, in order
+   */
+  public List<DataType> getResultTypes() {
+    final List<DataType> types = new ArrayList<DataType>();
+    for (QLType type : getResultQLTypes()) {
+      types.add(type.getMain());
+    }
+    return types;
+  }
+
+  private List<QLType> getResultQLTypes() {
+    final List<QLType> types = new ArrayList<QLType>();
+    for (ColumnSchema column : columns) {
+      types.add(column.getQLType());
+    }
+    for (QLAggregate aggregate : aggregates) {
+      types.add(aggregate.getResultType());
+    }
+    return types;
+  }
+
+  /**
+   * @return a new read request
+   */
+  public QLReadRequestPB.Builder build() {
+    if (columns.isEmpty() && aggregates.isEmpty()) {
+      throw new IllegalStateException("Nothing to read, select columns or aggregates first");
+    }
+    final QLReadRequestPB.Builder request = QLReadRequestPB.newBuilder()
+        .setClient(QLClient.YQL_CLIENT_CQL);
+    if (table.getSchemaVersion() != YBTable.UNKNOWN_SCHEMA_VERSION) {
+      request.setSchemaVersion(table.getSchemaVersion());
+    }
+
+    // Keep the referenced columns sorted, that's how the tablet servers project them.
+    final TreeSet<Integer> columnIds = new TreeSet<Integer>();
+    final QLRSRowDescPB.Builder rowDesc = QLRSRowDescPB.newBuilder();
+    for (ColumnSchema column : columns) {
+      request.addSelectedExprs(QLPredicate.columnExpr(column));
+      columnIds.add(column.getId());
+      rowDesc.addRscolDescs(newColDesc(column.getName(), column.getQLType()));
+    }
+    for (QLAggregate aggregate : aggregates) {
+      request.addSelectedExprs(aggregate.toPB());
+      if (aggregate.getColumn() != null) {
+        columnIds.add(aggregate.getColumn().getId());
+      }
+      rowDesc.addRscolDescs(newColDesc(aggregate.toString(), aggregate.getResultType()));
+    }
+    request.setRsrowDesc(rowDesc).setIsAggregate(!aggregates.isEmpty());
+
+    if (!predicates.isEmpty()) {
+      final QLPredicate where = QLPredicate.and(predicates.toArray(new QLPredicate[0]));
+      request.setWhereExpr(where.toPB());
+      where.collectColumnIds(columnIds);
+    }
+    request.setColumnRefs(QLReferencedColumnsPB.newBuilder().addAllIds(columnIds));
+    return request;
+  }
+
+  private static QLRSColDescPB newColDesc(String name, QLType type) {
+    return QLRSColDescPB.newBuilder()
+        .setName(name)
+        .setQlType(ProtobufHelper.QLTypeToPb(type))
+        .build();
+  }
+
+  private void checkNoColumns() {
+    if (!columns.isEmpty()) {
+      throw new IllegalStateException("A request can't both select columns and aggregates");
+    }
+  }
+
+  private void checkNoAggregates() {
+    if (!aggregates.isEmpty()) {
+      throw new IllegalStateException("A request can't both select columns and aggregates");
+    }
+  }
+}
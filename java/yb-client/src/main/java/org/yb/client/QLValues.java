@@ -0,0 +1,191 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import org.yb.Common.DataType;
+import org.yb.QlProtocol.QLValuePB;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.util.Slice;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Conversions between Java objects and the values exchanged with the tablet servers.
+ * <p>
+ * Values sent to the servers are {@link QLValuePB}s. Values read back are in the rows data
+ * sidecar of the {@code QLResponsePB}, which uses the CQL wire format: a 4-byte row count
+ * followed by the columns of each row, every column being a 4-byte length (-1 for NULL) and
+ * that many bytes.
+ * <p>
+ * The Java types used are: Byte, Short, Integer, Long, Float, Double, String, Boolean, byte[],
+ * Date (TIMESTAMP), BigDecimal, BigInteger (VARINT), InetAddress and UUID. Values of the other
+ * types are read as their raw bytes.
+ */
+@InterfaceAudience.Private
+final class QLValues {
+
+  private QLValues() {
+  }
+
+  /**
+   * Converts a Java object to a value of the given type.
+   * @param type the type of the column the value is compared or assigned to
+   * @param value the value, null for NULL. A TIMESTAMP is either a Date or a number of
+   *              microseconds since the epoch
+   * @return the value as sent to the tablet servers
+   * @throws IllegalArgumentException if the value can't be converted to the type
+   */
+  static QLValuePB toPB(DataType type, Object value) {
+    final QLValuePB.Builder pb = QLValuePB.newBuilder();
+    if (value == null) {
+      return pb.build();
+    }
+    try {
+      switch (type) {
+        case INT8: return pb.setInt8Value(((Number) value).byteValue()).build();
+        case INT16: return pb.setInt16Value(((Number) value).shortValue()).build();
+        case INT32: return pb.setInt32Value(((Number) value).intValue()).build();
+        case INT64: return pb.setInt64Value(((Number) value).longValue()).build();
+        case FLOAT: return pb.setFloatValue(((Number) value).floatValue()).build();
+        case DOUBLE: return pb.setDoubleValue(((Number) value).doubleValue()).build();
+        case STRING: return pb.setStringValue((String) value).build();
+        case BOOL: return pb.setBoolValue((Boolean) value).build();
+        case BINARY: return pb.setBinaryValue(ByteString.copyFrom((byte[]) value)).build();
+        case TIMESTAMP:
+          if (value instanceof Date) {
+            return pb.setTimestampValue(((Date) value).getTime() * 1000).build();
+          }
+          return pb.setTimestampValue(((Number) value).longValue()).build();
+        case INET:
+          return pb.setInetaddressValue(ByteString.copyFrom(((InetAddress) value).getAddress()))
+              .build();
+        case UUID:
+          return pb.setUuidValue(ByteString.copyFrom(uuidToBytes((UUID) value))).build();
+        case TIMEUUID:
+          return pb.setTimeuuidValue(ByteString.copyFrom(uuidToBytes((UUID) value))).build();
+        default:
+          break;
+      }
+    } catch (ClassCastException e) {
+      throw new IllegalArgumentException("Value " + value + " of class " +
+          value.getClass().getName() + " is not valid for type " + type, e);
+    }
+    throw new IllegalArgumentException("Values of type " + type + " are not supported");
+  }
+
+  private static byte[] uuidToBytes(UUID uuid) {
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+
+  /**
+   * Decodes the rows of a rows data sidecar into one object per value, on top of
+   * {@link RowBlock#decode}.
+   * @param types the types of the selected expressions, in order
+   * @param rowsData the sidecar
+   * @return the rows, each with one value per selected expression
+   */
+  static List<Object[]> decodeRows(List<DataType> types, Slice rowsData) {
+    final RowBlock block = RowBlock.decode(types, rowsData);
+    final List<Object[]> rows = new ArrayList<Object[]>(block.getNumRows());
+    for (int row = 0; row < block.getNumRows(); row++) {
+      final Object[] values = new Object[block.getNumColumns()];
+      for (int col = 0; col < values.length; col++) {
+        values[col] = block.isNull(col, row) ? null : getValue(block, col, row);
+      }
+      rows.add(values);
+    }
+    return rows;
+  }
+
+  private static Object getValue(RowBlock block, int col, int row) {
+    final DataType type = block.getColumnType(col);
+    switch (type) {
+      case INT8: return (byte) block.getLong(col, row);
+      case INT16: return (short) block.getLong(col, row);
+      case INT32: return (int) block.getLong(col, row);
+      case INT64: return block.getLong(col, row);
+      case FLOAT: return (float) block.getDouble(col, row);
+      case DOUBLE: return block.getDouble(col, row);
+      case BOOL: return block.getBoolean(col, row);
+      case TIMESTAMP: return new Date(block.getLong(col, row));
+      // Dates and times are read as their raw bytes, which the row block doesn't keep.
+      case DATE: return ByteBuffer.allocate(4).putInt((int) block.getLong(col, row)).array();
+      case TIME: return ByteBuffer.allocate(8).putLong(block.getLong(col, row)).array();
+      default: {
+        final int length = block.getLength(col, row);
+        return decode(type, ByteBuffer.wrap(block.getData(), block.getOffset(col, row), length),
+                      length);
+      }
+    }
+  }
+
+  /**
+   * Decodes a non-NULL value in the CQL wire format.
+   * @param type the type of the value
+   * @param buf the buffer positioned at the value, it's advanced past it
+   * @param length the length of the value
+   * @return the value
+   */
+  static Object decode(DataType type, ByteBuffer buf, int length) {
+    switch (type) {
+      case INT8: return buf.get();
+      case INT16: return buf.getShort();
+      case INT32: return buf.getInt();
+      case INT64: return buf.getLong();
+      case FLOAT: return buf.getFloat();
+      case DOUBLE: return buf.getDouble();
+      case BOOL: return buf.get() != 0;
+      case TIMESTAMP: return new Date(buf.getLong());
+      case STRING:
+      case JSONB:
+        return new String(getBytes(buf, length), StandardCharsets.UTF_8);
+      case VARINT:
+        return new BigInteger(getBytes(buf, length));
+      case DECIMAL: {
+        final int scale = buf.getInt();
+        return new BigDecimal(new BigInteger(getBytes(buf, length - 4)), scale);
+      }
+      case UUID:
+      case TIMEUUID:
+        return new UUID(buf.getLong(), buf.getLong());
+      case INET:
+        try {
+          return InetAddress.getByAddress(getBytes(buf, length));
+        } catch (UnknownHostException e) {
+          throw new IllegalArgumentException("Invalid inet address", e);
+        }
+      default:
+        return getBytes(buf, length);
+    }
+  }
+
+  private static byte[] getBytes(ByteBuffer buf, int length) {
+    final byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return bytes;
+  }
+}
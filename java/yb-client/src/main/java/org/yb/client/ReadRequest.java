@@ -0,0 +1,127 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.yb.Common.YBConsistencyLevel;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.Tserver;
+import org.yb.util.Pair;
+import org.yb.util.Slice;
+
+/**
+ * RPC to read data from the tablet that owns a given partition key.
+ * <p>
+ * The tablet id and the propagated hybrid time of the request are filled in when the request is
+ * sent, everything else is taken as is from the {@link Tserver.ReadRequestPB} given by the caller.
+ */
+@InterfaceAudience.Private
+class ReadRequest extends YRpc<ReadResponse> implements YRpc.HasKey {
+  static final String READ = "Read";
+
+  private final byte[] partitionKey;
+  private final Tserver.ReadRequestPB.Builder builder;
+
+  // Set if this read may be hedged to another replica, see HedgedReads.
+  private HedgedReads.HedgedRead hedgedRead;
+
+  ReadRequest(YBTable table, byte[] partitionKey, Tserver.ReadRequestPB.Builder builder) {
+    super(table);
+    this.partitionKey = partitionKey == null ? AsyncYBClient.EMPTY_ARRAY : partitionKey;
+    this.builder = builder;
+  }
+
+  @Override
+  public byte[] partitionKey() {
+    return partitionKey;
+  }
+
+  /**
+   * Tells whether any replica of the tablet, and not only the leader, may serve this read.
+   */
+  boolean allowsFollowerReads() {
+    return builder.getConsistencyLevel() == YBConsistencyLevel.CONSISTENT_PREFIX;
+  }
+
+  HedgedReads.HedgedRead getHedgedRead() {
+    return hedgedRead;
+  }
+
+  void setHedgedRead(HedgedReads.HedgedRead hedgedRead) {
+    this.hedgedRead = hedgedRead;
+  }
+
+  /**
+   * Makes a new request for the same data, with a deadline set to what's left of this one's.
+   */
+  ReadRequest copy() {
+    final Tserver.ReadRequestPB.Builder builderCopy;
+    synchronized (builder) {
+      builderCopy = builder.clone();
+    }
+    ReadRequest copy = new ReadRequest(table, partitionKey, builderCopy);
+    if (deadlineTracker.hasDeadline()) {
+      copy.setTimeoutMillis(deadlineTracker.getMillisBeforeDeadline());
+    }
+    return copy;
+  }
+
+  @Override
+  ChannelBuffer serialize(Message header) {
+    assert header.isInitialized();
+    // The builder is shared by all the attempts of this request, and a hedged copy clones it
+    // from another thread, so only touch it while holding its monitor.
+    final Tserver.ReadRequestPB request;
+    synchronized (builder) {
+      builder.setTabletId(ByteString.copyFrom(getTablet().getTabletIdAsBytes()));
+      if (propagatedTimestamp != AsyncYBClient.NO_TIMESTAMP) {
+        builder.setPropagatedHybridTime(propagatedTimestamp);
+      }
+      request = builder.build();
+    }
+    return toChannelBuffer(header, request);
+  }
+
+  @Override
+  String serviceName() { return TABLET_SERVER_SERVICE_NAME; }
+
+  @Override
+  String method() {
+    return READ;
+  }
+
+  @Override
+  Pair<ReadResponse, Object> deserialize(CallResponse callResponse,
+                                         String tsUUID) throws Exception {
+    final Tserver.ReadResponsePB.Builder respBuilder = Tserver.ReadResponsePB.newBuilder();
+    readProtobuf(callResponse.getPBMessage(), respBuilder);
+    // The sidecars point into the channel's buffer which gets reused once we return, so they
+    // have to be copied out.
+    final int numSidecars = callResponse.getNumSidecars();
+    final Slice[] sidecars = new Slice[numSidecars];
+    for (int i = 0; i < numSidecars; i++) {
+      sidecars[i] = new Slice(callResponse.getSidecar(i).getBytes());
+    }
+    if (respBuilder.hasPropagatedHybridTime()) {
+      table.getAsyncClient().updateLastPropagatedTimestamp(respBuilder.getPropagatedHybridTime());
+    }
+    ReadResponse response = new ReadResponse(deadlineTracker.getElapsedMillis(), tsUUID,
+        respBuilder.build(), sidecars);
+    return new Pair<ReadResponse, Object>(
+        response, respBuilder.hasError() ? respBuilder.getError() : null);
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.Common.DataType;
+import org.yb.QlProtocol;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.Tserver;
+import org.yb.util.Slice;
+
+import java.util.List;
+
+@InterfaceAudience.Public
+public class ReadResponse extends YRpcResponse {
+  private final Tserver.ReadResponsePB response;
+  private final Slice[] sidecars;
+
+  ReadResponse(long ellapsedMillis, String tsUUID, Tserver.ReadResponsePB response,
+               Slice[] sidecars) {
+    super(ellapsedMillis, tsUUID);
+    this.response = response;
+    this.sidecars = sidecars;
+  }
+
+  /**
+   * @return the response as it was sent by the tablet server
+   */
+  public Tserver.ReadResponsePB getResponse() {
+    return response;
+  }
+
+  public int getNumSidecars() {
+    return sidecars.length;
+  }
+
+  /**
+   * Get a sidecar of the response, such as the rows data referred to by
+   * {@code QLResponsePB.rows_data_sidecar}.
+   * @param sidecar the index of the sidecar
+   * @return the sidecar's data
+   */
+  public Slice getSidecar(int sidecar) {
+    if (sidecar < 0 || sidecar >= sidecars.length) {
+      throw new IllegalArgumentException("Sidecar " + sidecar
+          + " not valid, response has " + sidecars.length + " sidecars");
+    }
+    return sidecars[sidecar];
+  }
+
+  /**
+   * Decode the rows returned for one of the QL requests of the read into a columnar block.
+   * @param qlBatchIndex the index of the request in {@code ql_batch}
+   * @param types the types of the expressions selected by the request, in order
+   * @return the rows, or null if there weren't any rows data for that request
+   */
+  public RowBlock getRowBlock(int qlBatchIndex, List<DataType> types) {
+    final QlProtocol.QLResponsePB qlResponse = response.getQlBatch(qlBatchIndex);
+    if (!qlResponse.hasRowsDataSidecar()) {
+      return null;
+    }
+    return RowBlock.decode(types, getSidecar(qlResponse.getRowsDataSidecar()));
+  }
+}
@@ -0,0 +1,264 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.Common.DataType;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.util.Slice;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The rows of a read result decoded column by column into primitive arrays, so that they can be
+ * iterated over without allocating an object per row or per value.
+ * <p>
+ * Integers, booleans and timestamps (in milliseconds since the epoch) are stored in a
+ * {@code long[]}, floating point numbers in a {@code double[]}. Values of all the other types
+ * aren't copied: their column keeps the offset and length of each value in the rows data, in
+ * the CQL wire format. Each column also has a bitmap of its NULL values, where the value stored
+ * in the arrays is 0.
+ * <p>
+ * A row block is immutable and keeps a reference to the rows data it was decoded from.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class RowBlock {
+  // How the values of each column are stored.
+  private static final int KIND_LONG = 0;
+  private static final int KIND_DOUBLE = 1;
+  private static final int KIND_BYTES = 2;
+
+  private final int numRows;
+  private final DataType[] types;
+  private final long[][] longs;
+  private final double[][] doubles;
+  private final int[][] offsets;
+  private final int[][] lengths;
+  private final long[][] nulls;
+  private final byte[] data;
+
+  private RowBlock(int numRows, DataType[] types, byte[] data) {
+    this.numRows = numRows;
+    this.types = types;
+    this.data = data;
+    this.longs = new long[types.length][];
+    this.doubles = new double[types.length][];
+    this.offsets = new int[types.length][];
+    this.lengths = new int[types.length][];
+    this.nulls = new long[types.length][];
+  }
+
+  /**
+   * Decodes rows data in the CQL wire format, as found in the rows sidecar of a read response.
+   * @param types the types of the selected expressions, in order
+   * @param rowsData the rows data
+   * @return the decoded rows
+   */
+  public static RowBlock decode(List<DataType> types, Slice rowsData) {
+    final ByteBuffer buf = ByteBuffer.wrap(rowsData.getRawArray(), rowsData.getRawOffset(),
+                                           rowsData.length());
+    final int numRows = buf.getInt();
+    final RowBlock block = new RowBlock(numRows, types.toArray(new DataType[types.size()]),
+                                        rowsData.getRawArray());
+    final int numColumns = block.types.length;
+    final int[] kinds = new int[numColumns];
+    for (int col = 0; col < numColumns; col++) {
+      kinds[col] = kindOf(block.types[col]);
+      switch (kinds[col]) {
+        case KIND_LONG: block.longs[col] = new long[numRows]; break;
+        case KIND_DOUBLE: block.doubles[col] = new double[numRows]; break;
+        default:
+          block.offsets[col] = new int[numRows];
+          block.lengths[col] = new int[numRows];
+          break;
+      }
+      block.nulls[col] = new long[(numRows + 63) >>> 6];
+    }
+
+    for (int row = 0; row < numRows; row++) {
+      for (int col = 0; col < numColumns; col++) {
+        final int length = buf.getInt();
+        if (length < 0) {
+          block.nulls[col][row >>> 6] |= 1L << row;
+          continue;
+        }
+        switch (kinds[col]) {
+          case KIND_LONG:
+            block.longs[col][row] = getLong(block.types[col], buf);
+            break;
+          case KIND_DOUBLE:
+            block.doubles[col][row] =
+                block.types[col] == DataType.FLOAT ? buf.getFloat() : buf.getDouble();
+            break;
+          default:
+            block.offsets[col][row] = buf.position();
+            block.lengths[col][row] = length;
+            buf.position(buf.position() + length);
+            break;
+        }
+      }
+    }
+    return block;
+  }
+
+  private static int kindOf(DataType type) {
+    switch (type) {
+      case INT8:
+      case INT16:
+      case INT32:
+      case INT64:
+      case BOOL:
+      case TIMESTAMP:
+      case DATE:
+      case TIME:
+        return KIND_LONG;
+      case FLOAT:
+      case DOUBLE:
+        return KIND_DOUBLE;
+      default:
+        return KIND_BYTES;
+    }
+  }
+
+  private static long getLong(DataType type, ByteBuffer buf) {
+    switch (type) {
+      case INT8: return buf.get();
+      case INT16: return buf.getShort();
+      case INT32: return buf.getInt();
+      case BOOL: return buf.get() != 0 ? 1 : 0;
+      // Dates are unsigned.
+      case DATE: return buf.getInt() & 0xffffffffL;
+      default: return buf.getLong();
+    }
+  }
+
+  public int getNumRows() {
+    return numRows;
+  }
+
+  public int getNumColumns() {
+    return types.length;
+  }
+
+  public DataType getColumnType(int column) {
+    return types[column];
+  }
+
+  public boolean isNull(int column, int row) {
+    checkRow(row);
+    return (nulls[column][row >>> 6] & (1L << row)) != 0;
+  }
+
+  /**
+   * @return the value of an integer, boolean (1 for true), timestamp, date or time column
+   */
+  public long getLong(int column, int row) {
+    checkRow(row);
+    return checkKind(column, longs, "an integer")[row];
+  }
+
+  public boolean getBoolean(int column, int row) {
+    return getLong(column, row) != 0;
+  }
+
+  /**
+   * @return the value of a float or double column
+   */
+  public double getDouble(int column, int row) {
+    checkRow(row);
+    return checkKind(column, doubles, "a floating point")[row];
+  }
+
+  /**
+   * @return the value of a string column, decoded into a new string
+   */
+  public String getString(int column, int row) {
+    if (isNull(column, row)) {
+      return null;
+    }
+    return new String(data, getOffset(column, row), getLength(column, row),
+                      StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return the raw value of a column that isn't stored in a primitive array, copied into a new
+   *         array
+   */
+  public byte[] getBytes(int column, int row) {
+    if (isNull(column, row)) {
+      return null;
+    }
+    final byte[] bytes = new byte[getLength(column, row)];
+    System.arraycopy(data, getOffset(column, row), bytes, 0, bytes.length);
+    return bytes;
+  }
+
+  /**
+   * Get the whole array of values of an integer, boolean, timestamp, date or time column.
+   * The array must not be modified.
+   */
+  public long[] getLongs(int column) {
+    return checkKind(column, longs, "an integer");
+  }
+
+  /**
+   * Get the whole array of values of a float or double column. The array must not be modified.
+   */
+  public double[] getDoubles(int column) {
+    return checkKind(column, doubles, "a floating point");
+  }
+
+  /**
+   * @return the offset in {@link #getData()} of a value that isn't stored in a primitive array
+   */
+  public int getOffset(int column, int row) {
+    checkRow(row);
+    return checkKind(column, offsets, "a variable length")[row];
+  }
+
+  /**
+   * @return the length of a value that isn't stored in a primitive array, 0 if it's NULL
+   */
+  public int getLength(int column, int row) {
+    checkRow(row);
+    return checkKind(column, lengths, "a variable length")[row];
+  }
+
+  /**
+   * Get the rows data the values that aren't stored in primitive arrays point into.
+   * The array must not be modified.
+   */
+  public byte[] getData() {
+    return data;
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= numRows) {
+      throw new IndexOutOfBoundsException("Row " + row + " not valid, block has " + numRows +
+          " rows");
+    }
+  }
+
+  private <T> T checkKind(int column, T[] arrays, String kind) {
+    final T array = arrays[column];
+    if (array == null) {
+      throw new IllegalArgumentException("Column " + column + " of type " + types[column] +
+          " is not " + kind + " column");
+    }
+    return array;
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.annotations.InterfaceAudience;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client-side cache of opened tables, by table id and by keyspace and name, so that opening a
+ * table doesn't have to ask the master for its schema every time.
+ * <p>
+ * The cache holds at most a given number of tables and evicts the least recently used one
+ * past that. A table is dropped from the cache when it gets altered or deleted through this
+ * client, or when a tablet server tells us it has a different schema version than ours. A table
+ * only replaces the cached one if its schema version isn't older.
+ */
+@InterfaceAudience.Private
+class TableCache {
+
+  /** A cached table and the keys it can be found by. */
+  private static final class Entry {
+    final YBTable table;
+    final List<String> nameKeys = new ArrayList<String>(1);
+
+    Entry(YBTable table) {
+      this.table = table;
+    }
+  }
+
+  private final int maxSize;
+
+  // Tables by id, in access order so that the least recently used one comes first.
+  // Guarded by this.
+  private final LinkedHashMap<String, Entry> entriesById;
+
+  // Ids of the tables above, by keyspace and name. Guarded by this.
+  private final Map<String, String> idsByName = new HashMap<String, String>();
+
+  /**
+   * @param maxSize the maximum number of tables to keep, must be positive
+   */
+  TableCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Invalid table cache size " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.entriesById = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() <= TableCache.this.maxSize) {
+          return false;
+        }
+        removeNameKeys(eldest.getKey(), eldest.getValue());
+        return true;
+      }
+    };
+  }
+
+  private static String nameKey(String keyspace, String name) {
+    return keyspace + "." + name;
+  }
+
+  private void removeNameKeys(String tableId, Entry entry) {
+    for (String nameKey : entry.nameKeys) {
+      idsByName.remove(nameKey, tableId);
+    }
+  }
+
+  /**
+   * @return the cached table with the given keyspace and name, or null
+   */
+  synchronized YBTable get(String keyspace, String name) {
+    final String tableId = idsByName.get(nameKey(keyspace, name));
+    return tableId == null ? null : getById(tableId);
+  }
+
+  /**
+   * @return the cached table with the given id, or null
+   */
+  synchronized YBTable getById(String tableId) {
+    final Entry entry = entriesById.get(tableId);
+    return entry == null ? null : entry.table;
+  }
+
+  /**
+   * Caches a table that was just opened.
+   * @param keyspace the keyspace the table was opened with, can be different from the one the
+   *                 table reports, e.g. if it was null
+   * @param name the name the table was opened with, or null if it was opened by id
+   * @param table the table
+   */
+  synchronized void put(String keyspace, String name, YBTable table) {
+    final String tableId = table.getTableId();
+    Entry entry = entriesById.get(tableId);
+    if (entry == null || entry.table.getSchemaVersion() <= table.getSchemaVersion()) {
+      final Entry newEntry = new Entry(table);
+      if (entry != null) {
+        newEntry.nameKeys.addAll(entry.nameKeys);
+      }
+      entry = newEntry;
+      entriesById.put(tableId, entry);
+    }
+    addNameKey(tableId, entry, nameKey(table.getKeyspace(), table.getName()));
+    if (name != null) {
+      addNameKey(tableId, entry, nameKey(keyspace, name));
+    }
+  }
+
+  private void addNameKey(String tableId, Entry entry, String nameKey) {
+    final String previousId = idsByName.put(nameKey, tableId);
+    if (previousId != null && !previousId.equals(tableId)) {
+      // That name now belongs to another table, the old one must have been dropped.
+      final Entry previous = entriesById.remove(previousId);
+      if (previous != null) {
+        previous.nameKeys.remove(nameKey);
+        removeNameKeys(previousId, previous);
+      }
+    }
+    if (!entry.nameKeys.contains(nameKey)) {
+      entry.nameKeys.add(nameKey);
+    }
+  }
+
+  /**
+   * Drops the table with the given id from the cache.
+   */
+  synchronized void invalidate(String tableId) {
+    final Entry entry = entriesById.remove(tableId);
+    if (entry != null) {
+      removeNameKeys(tableId, entry);
+    }
+  }
+
+  /**
+   * Drops the table with the given keyspace and name from the cache.
+   */
+  synchronized void invalidate(String keyspace, String name) {
+    final String tableId = idsByName.remove(nameKey(keyspace, name));
+    if (tableId != null) {
+      invalidate(tableId);
+    }
+  }
+
+  /**
+   * Drops the table with the given id from the cache if the cached schema is older than the
+   * given version.
+   */
+  synchronized void onSchemaVersion(String tableId, int schemaVersion) {
+    final Entry entry = entriesById.get(tableId);
+    if (entry != null && entry.table.getSchemaVersion() < schemaVersion) {
+      invalidate(tableId);
+    }
+  }
+
+  synchronized int size() {
+    return entriesById.size();
+  }
+}
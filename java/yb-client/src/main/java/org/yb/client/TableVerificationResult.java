@@ -0,0 +1,187 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The checksums of all the replicas of all the tablets of a table, as computed by
+ * {@link AsyncYBClient#verifyTable}.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class TableVerificationResult {
+  private final String tableId;
+  private final List<TabletChecksums> tablets;
+
+  TableVerificationResult(String tableId, List<TabletChecksums> tablets) {
+    this.tableId = tableId;
+    this.tablets = Collections.unmodifiableList(tablets);
+  }
+
+  public String getTableId() {
+    return tableId;
+  }
+
+  /**
+   * @return the checksums of every tablet of the table
+   */
+  public List<TabletChecksums> getTablets() {
+    return tablets;
+  }
+
+  /**
+   * @return the tablets whose replicas don't all have the same checksum
+   */
+  public List<TabletChecksums> getDivergentTablets() {
+    List<TabletChecksums> result = new ArrayList<>();
+    for (TabletChecksums tablet : tablets) {
+      if (tablet.isDivergent()) {
+        result.add(tablet);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the tablets some replicas of which couldn't be checksummed
+   */
+  public List<TabletChecksums> getFailedTablets() {
+    List<TabletChecksums> result = new ArrayList<>();
+    for (TabletChecksums tablet : tablets) {
+      if (!tablet.getErrors().isEmpty()) {
+        result.add(tablet);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return true if every replica of every tablet was checksummed and they all matched
+   */
+  public boolean isConsistent() {
+    for (TabletChecksums tablet : tablets) {
+      if (tablet.isDivergent() || !tablet.getErrors().isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Table ").append(tableId).append(": ").append(tablets.size()).append(" tablets, ")
+        .append(getDivergentTablets().size()).append(" divergent, ")
+        .append(getFailedTablets().size()).append(" failed");
+    for (TabletChecksums tablet : tablets) {
+      if (tablet.isDivergent() || !tablet.getErrors().isEmpty()) {
+        sb.append("\n  ").append(tablet);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * The checksums of the replicas of a tablet, by tablet server UUID.
+   */
+  @InterfaceAudience.Public
+  @InterfaceStability.Unstable
+  public static class TabletChecksums {
+    private final String tabletId;
+    // Sorted so that the reports are stable.
+    private final Map<String, Long> checksums = new TreeMap<>();
+    private final Map<String, String> errors = new TreeMap<>();
+    private int numAttempts = 1;
+
+    TabletChecksums(String tabletId) {
+      this.tabletId = tabletId;
+    }
+
+    synchronized void addChecksum(String tsUuid, long checksum) {
+      checksums.put(tsUuid, checksum);
+    }
+
+    synchronized void addError(String tsUuid, String error) {
+      errors.put(tsUuid, error);
+    }
+
+    /**
+     * Forgets the checksums and errors of the previous attempt, before checksumming all the
+     * replicas again.
+     */
+    synchronized void startAttempt() {
+      checksums.clear();
+      errors.clear();
+      numAttempts++;
+    }
+
+    public String getTabletId() {
+      return tabletId;
+    }
+
+    /**
+     * @return the checksum of each replica that could be checksummed, by tablet server UUID
+     */
+    public synchronized Map<String, Long> getChecksums() {
+      return new TreeMap<>(checksums);
+    }
+
+    /**
+     * @return the error of each replica that couldn't be checksummed, by tablet server UUID
+     */
+    public synchronized Map<String, String> getErrors() {
+      return new TreeMap<>(errors);
+    }
+
+    /**
+     * @return the number of times the replicas were checksummed, more than 1 if they diverged
+     *         the first times
+     */
+    public synchronized int getNumAttempts() {
+      return numAttempts;
+    }
+
+    /**
+     * @return true if at least two replicas have different checksums
+     */
+    public synchronized boolean isDivergent() {
+      return new HashSet<>(checksums.values()).size() > 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+      StringBuilder sb = new StringBuilder("tablet ").append(tabletId).append(":");
+      for (Map.Entry<String, Long> entry : checksums.entrySet()) {
+        sb.append(" ").append(entry.getKey()).append("=")
+            .append(Long.toHexString(entry.getValue()));
+      }
+      for (Map.Entry<String, String> entry : errors.entrySet()) {
+        sb.append(" ").append(entry.getKey()).append(" failed: ").append(entry.getValue());
+      }
+      if (numAttempts > 1) {
+        sb.append(" (after ").append(numAttempts).append(" attempts)");
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -0,0 +1,311 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.annotations.InterfaceAudience;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checksums every replica of every tablet of a table in parallel, with at most a given number
+ * of checksums running on each tablet server at any time since each of them is a full scan of
+ * the tablet.
+ * <p>
+ * The replicas are checksummed independently and at whatever state they are in when the
+ * checksum runs, there is no common read time. A tablet whose replicas don't match is
+ * checksummed again a few times after a short delay, so that replicas that were only lagging a
+ * few writes behind get the chance to catch up. Replicas are still only expected to match if
+ * the table isn't being written to.
+ */
+@InterfaceAudience.Private
+class TableVerifier {
+  private static final Logger LOG = LoggerFactory.getLogger(TableVerifier.class);
+
+  static final int DEFAULT_MAX_RECHECKS = 3;
+  static final long DEFAULT_RECHECK_DELAY_MS = 1000;
+
+  private final AsyncYBClient client;
+  private final int maxConcurrentChecksumsPerServer;
+  private final int maxRechecks;
+  private final long recheckDelayMs;
+  private final DeadlineTracker deadlineTracker = new DeadlineTracker();
+  private final Deferred<TableVerificationResult> result =
+      new Deferred<TableVerificationResult>();
+
+  // All of the following are guarded by this object's monitor.
+  private final Map<String, ServerQueue> servers = new HashMap<>();
+  private final List<TableVerificationResult.TabletChecksums> checksums = new ArrayList<>();
+  private String tableId;
+  private int numOutstanding;
+
+  TableVerifier(AsyncYBClient client, int maxConcurrentChecksumsPerServer, long timeoutMs) {
+    this(client, maxConcurrentChecksumsPerServer, timeoutMs, DEFAULT_MAX_RECHECKS,
+         DEFAULT_RECHECK_DELAY_MS);
+  }
+
+  @VisibleForTesting
+  TableVerifier(AsyncYBClient client, int maxConcurrentChecksumsPerServer, long timeoutMs,
+                int maxRechecks, long recheckDelayMs) {
+    this.client = client;
+    this.maxConcurrentChecksumsPerServer = maxConcurrentChecksumsPerServer;
+    this.maxRechecks = maxRechecks;
+    this.recheckDelayMs = recheckDelayMs;
+    this.deadlineTracker.setDeadline(timeoutMs);
+  }
+
+  /**
+   * Locates the tablets of the table and checksums all their replicas.
+   * @return a Deferred that yields the checksums once all of them are known
+   */
+  Deferred<TableVerificationResult> verify(final String tableId) {
+    client.locateTable(tableId, null, null, deadlineTracker.getMillisBeforeDeadline())
+        .addCallbacks(new Callback<Void, List<LocatedTablet>>() {
+          @Override
+          public Void call(List<LocatedTablet> tablets) {
+            checksumReplicas(tableId, tablets);
+            return null;
+          }
+        }, new Callback<Void, Exception>() {
+          @Override
+          public Void call(Exception e) {
+            result.callback(e);
+            return null;
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Checksums all the replicas of the given tablets, without looking them up.
+   * @return a Deferred that yields the checksums once all of them are known
+   */
+  @VisibleForTesting
+  Deferred<TableVerificationResult> verify(String tableId, List<LocatedTablet> tablets) {
+    checksumReplicas(tableId, tablets);
+    return result;
+  }
+
+  private void checksumReplicas(String tableId, List<LocatedTablet> tablets) {
+    final List<ReplicaChecksum> toStart = new ArrayList<>();
+    synchronized (this) {
+      this.tableId = tableId;
+      for (LocatedTablet tablet : tablets) {
+        final TabletState state = new TabletState(tablet);
+        checksums.add(state.checksums);
+        enqueueReplicas(state, toStart);
+      }
+    }
+    if (toStart.isEmpty()) {
+      complete();
+      return;
+    }
+    for (ReplicaChecksum checksum : toStart) {
+      checksum.start();
+    }
+  }
+
+  /**
+   * Queues a checksum of every replica of a tablet on its server, and adds the ones that can
+   * start right away to toStart. Must be called with this object's monitor held.
+   */
+  private void enqueueReplicas(TabletState tablet, List<ReplicaChecksum> toStart) {
+    for (LocatedTablet.Replica replica : tablet.replicas) {
+      final ReplicaChecksum checksum = new ReplicaChecksum(tablet, replica);
+      ServerQueue server = servers.get(replica.getTsUuid());
+      if (server == null) {
+        server = new ServerQueue();
+        servers.put(replica.getTsUuid(), server);
+      }
+      tablet.numOutstanding++;
+      numOutstanding++;
+      if (server.numRunning < maxConcurrentChecksumsPerServer) {
+        server.numRunning++;
+        toStart.add(checksum);
+      } else {
+        server.pending.add(checksum);
+      }
+    }
+  }
+
+  /**
+   * Called when the checksum of a replica completed, successfully or not. Starts the next
+   * checksum of the same server if any, checksums the tablet again if it was the last replica
+   * of a divergent tablet, and completes the result after the last checksum.
+   */
+  private void onDone(ReplicaChecksum checksum) {
+    final String tsUuid = checksum.replica.getTsUuid();
+    final TabletState tablet = checksum.tablet;
+    final ReplicaChecksum next;
+    final boolean recheck;
+    final boolean done;
+    synchronized (this) {
+      final ServerQueue server = servers.get(tsUuid);
+      next = server.pending.poll();
+      if (next == null) {
+        server.numRunning--;
+      }
+      recheck = --tablet.numOutstanding == 0 && tablet.checksums.isDivergent() &&
+          tablet.numRechecks < maxRechecks &&
+          deadlineTracker.getMillisBeforeDeadline() > recheckDelayMs;
+      if (recheck) {
+        tablet.numRechecks++;
+        // Counted as outstanding right away, so that the result isn't completed in between.
+        numOutstanding++;
+      }
+      done = --numOutstanding == 0;
+    }
+    if (next != null) {
+      next.start();
+    }
+    if (recheck) {
+      LOG.info("Replicas of tablet " + tablet.checksums.getTabletId() + " diverge: " +
+          tablet.checksums + ", checksumming them again");
+      final TimerTask task = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+          recheck(tablet);
+        }
+      };
+      if (client.newTimeout(task, recheckDelayMs) == null) {
+        // The client is shutting down, the checksums will fail right away.
+        recheck(tablet);
+      }
+    }
+    if (done) {
+      complete();
+    }
+  }
+
+  private void recheck(TabletState tablet) {
+    final List<ReplicaChecksum> toStart = new ArrayList<>();
+    final boolean done;
+    synchronized (this) {
+      tablet.checksums.startAttempt();
+      enqueueReplicas(tablet, toStart);
+      // Replaced by the checksums just queued.
+      done = --numOutstanding == 0;
+    }
+    for (ReplicaChecksum checksum : toStart) {
+      checksum.start();
+    }
+    if (done) {
+      complete();
+    }
+  }
+
+  private void complete() {
+    final TableVerificationResult verification;
+    synchronized (this) {
+      verification = new TableVerificationResult(tableId, new ArrayList<>(checksums));
+    }
+    result.callback(verification);
+  }
+
+  private static final class ServerQueue {
+    final ArrayDeque<ReplicaChecksum> pending = new ArrayDeque<>();
+    int numRunning;
+  }
+
+  private static final class TabletState {
+    final byte[] tabletId;
+    final List<LocatedTablet.Replica> replicas;
+    final TableVerificationResult.TabletChecksums checksums;
+    // Guarded by the verifier's monitor.
+    int numOutstanding;
+    int numRechecks;
+
+    TabletState(LocatedTablet tablet) {
+      this.tabletId = tablet.getTabletId();
+      this.replicas = tablet.getReplicas();
+      this.checksums = new TableVerificationResult.TabletChecksums(
+          new String(tabletId, StandardCharsets.UTF_8));
+    }
+  }
+
+  private final class ReplicaChecksum {
+    private final TabletState tablet;
+    private final LocatedTablet.Replica replica;
+    private final TableVerificationResult.TabletChecksums tabletChecksums;
+
+    ReplicaChecksum(TabletState tablet, LocatedTablet.Replica replica) {
+      this.tablet = tablet;
+      this.replica = replica;
+      this.tabletChecksums = tablet.checksums;
+    }
+
+    void start() {
+      final String tsUuid = replica.getTsUuid();
+      if (deadlineTracker.timedOut()) {
+        tabletChecksums.addError(tsUuid, "timed out before the checksum started");
+        onDone(this);
+        return;
+      }
+      final TabletClient tabletClient;
+      try {
+        tabletClient = client.newClient(tsUuid, replica.getRpcHost(), replica.getRpcPort());
+      } catch (RuntimeException e) {
+        tabletChecksums.addError(tsUuid, e.toString());
+        onDone(this);
+        return;
+      }
+      if (tabletClient == null) {
+        tabletChecksums.addError(tsUuid, "could not connect to " + replica.getRpcHost() + ":" +
+            replica.getRpcPort());
+        onDone(this);
+        return;
+      }
+      final ChecksumRequest rpc = new ChecksumRequest(tablet.tabletId);
+      rpc.setTimeoutMillis(deadlineTracker.getMillisBeforeDeadline());
+      // We want the checksum of this very replica, and the RPC has no table to look the tablet up
+      // with, so retries have to go to the same server.
+      rpc.setRetrySameServer(true);
+      final Deferred<ChecksumResponse> d = rpc.getDeferred();
+      rpc.attempt++;
+      d.addCallbacks(new Callback<Void, ChecksumResponse>() {
+        @Override
+        public Void call(ChecksumResponse response) {
+          if (response.hasError()) {
+            tabletChecksums.addError(tsUuid, response.getError().getStatus().getMessage());
+          } else {
+            tabletChecksums.addChecksum(tsUuid, response.getChecksum());
+          }
+          onDone(ReplicaChecksum.this);
+          return null;
+        }
+      }, new Callback<Void, Exception>() {
+        @Override
+        public Void call(Exception e) {
+          LOG.debug("Checksum of tablet " + tabletChecksums.getTabletId() + " on " + tsUuid +
+              " failed", e);
+          tabletChecksums.addError(tsUuid, e.toString());
+          onDone(ReplicaChecksum.this);
+          return null;
+        }
+      });
+      tabletClient.sendRpc(rpc);
+    }
+  }
+}
@@ -64,6 +64,8 @@ import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.ExceptionEvent;
 import org.jboss.netty.handler.codec.replay.ReplayingDecoder;
 import org.jboss.netty.handler.codec.replay.VoidEnum;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -148,10 +150,15 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
 
   private final long socketReadTimeoutMs;
 
+  // Latencies of the reads this server answered, only kept when hedged reads are enabled.
+  private final LatencyTracker readLatencyTracker;
+
   public TabletClient(AsyncYBClient client, String uuid) {
     this.ybClient = client;
     this.uuid = uuid;
     this.socketReadTimeoutMs = client.getDefaultSocketReadTimeoutMs();
+    final HedgedReads hedgedReads = client.getHedgedReads();
+    this.readLatencyTracker = hedgedReads == null ? null : hedgedReads.newLatencyTracker();
   }
 
   <R> void sendRpc(YRpc<R> rpc) {
@@ -199,6 +206,13 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
   }
 
   private <R> ChannelBuffer encode(final YRpc<R> rpc) {
+    if (rpc.deadlineTracker.timedOut() || rpc.isCancelled()) {
+      // This can happen to RPCs that were queued while we were connecting. There's no point in
+      // sending them since nobody is going to wait for the response.
+      rpc.errback(new NonRecoverableException(getPeerUuidLoggingString() +
+          (rpc.isCancelled() ? "Cancelled: " : "Time out: ") + rpc));
+      return null;
+    }
     final int rpcid = this.rpcid.incrementAndGet();
     ChannelBuffer payload;
     final String service = rpc.serviceName();
@@ -239,8 +253,14 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
           + ".  This happened when sending out: " + rpc;
       LOG.error(wtf);
       // Make it fail. This isn't an expected failure mode.
+      oldrpc.cancelTimeoutTask();
       oldrpc.errback(new NonRecoverableException(wtf));
     }
+    rpc.setSentTo(this, rpcid);
+    if (rpc.deadlineTracker.hasDeadline()) {
+      rpc.setTimeoutTask(ybClient.newTimeout(new RpcTimeoutTask(rpcid, rpc),
+          rpc.deadlineTracker.getMillisBeforeDeadline()));
+    }
 
     if (LOG.isDebugEnabled()) {
       LOG.debug(getPeerUuidLoggingString() + chan + " Sending RPC #" + rpcid
@@ -250,13 +270,68 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
     return payload;
   }
 
+  /**
+   * Timer task that fails an in-flight RPC once its deadline is reached. Whoever manages to remove
+   * the RPC from {@link #rpcs_inflight} first, this task or {@link #decode}, gets to complete it,
+   * so a response that shows up afterwards is simply dropped.
+   */
+  private final class RpcTimeoutTask implements TimerTask {
+    private final int rpcid;
+    private final YRpc<?> rpc;
+
+    RpcTimeoutTask(int rpcid, YRpc<?> rpc) {
+      this.rpcid = rpcid;
+      this.rpc = rpc;
+    }
+
+    @Override
+    public void run(final Timeout timeout) {
+      if (!rpcs_inflight.remove(rpcid, rpc)) {
+        return;  // Already completed, retried or failed by a disconnection.
+      }
+      ybClient.recordTimedOutRpc();
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(getPeerUuidLoggingString() + "RPC #" + rpcid + " timed out: " + rpc);
+      }
+      rpc.errback(new NonRecoverableException(getPeerUuidLoggingString() + "Time out: " + rpc));
+    }
+  }
+
+  /**
+   * Fails the given RPC if it's still waiting for a response from this server. Its response, if
+   * it ever shows up, will be dropped.
+   */
+  void cancelRpc(YRpc<?> rpc) {
+    if (rpcs_inflight.remove(rpc.getCallId(), rpc)) {
+      rpc.cancelTimeoutTask();
+      rpc.errback(new NonRecoverableException(getPeerUuidLoggingString() + "Cancelled: " + rpc));
+    }
+  }
+
+  /**
+   * Tells whether the given call ID was handed out by this connection. Call IDs only wrap around
+   * after 2^31 calls on the same connection so this is good enough to tell a late response from a
+   * corrupted one.
+   */
+  private boolean isIssuedCallId(int callId) {
+    return callId >= 0 && callId <= rpcid.get();
+  }
+
+  /**
+   * @return the latencies of the reads this server answered, or null if hedged reads are disabled
+   */
+  LatencyTracker getReadLatencyTracker() {
+    return readLatencyTracker;
+  }
+
   public Deferred<Void> shutdown() {
     // First, check whether we have RPCs in flight and cancel them.
-    for (Iterator<YRpc<?>> ite = rpcs_inflight.values().iterator(); ite
-        .hasNext();) {
-      YRpc<?> rpc = ite.next();
-      rpc.errback(new ConnectionResetException(null));
-      ite.remove();
+    for (Integer rpcid : rpcs_inflight.keySet()) {
+      YRpc<?> rpc = rpcs_inflight.remove(rpcid);
+      if (rpc != null) {
+        rpc.cancelTimeoutTask();
+        rpc.errback(new ConnectionResetException(null));
+      }
     }
 
     // Same for the pending RPCs.
@@ -344,6 +419,16 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
     @SuppressWarnings("rawtypes")
     final YRpc rpc = rpcs_inflight.get(rpcid);
 
+    if (rpc == null && isIssuedCallId(rpcid)) {
+      // The RPC already timed out. Only the header was read, skip the rest of the response so
+      // that the next one is decoded from its start.
+      buf.readerIndex(rdx + Integer.BYTES + response.getTotalResponseSize());
+      ybClient.recordLateResponse();
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(getPeerUuidLoggingString() + "Dropping late response for RPC #" + rpcid);
+      }
+      return null;
+    }
     if (rpc == null) {
       final String msg = getPeerUuidLoggingString() + "Invalid rpcid: " + rpcid + " found in "
           + buf + '=' + Bytes.pretty(buf);
@@ -392,9 +477,17 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
     {
       final YRpc<?> removed = rpcs_inflight.remove(rpcid);
       if (removed == null) {
-        // The RPC we were decoding was cleaned up already, give up.
-        throw new NonRecoverableException("RPC not found");
+        // The RPC we were decoding timed out or was cleaned up while we were decoding it, so it
+        // has been completed already.
+        ybClient.recordLateResponse();
+        return null;
       }
+      removed.cancelTimeoutTask();
+    }
+
+    if (readLatencyTracker != null && rpc instanceof ReadRequest &&
+        decoded != null && decoded.getSecond() == null) {
+      readLatencyTracker.record(rpc.getNanosSinceSent());
     }
 
     // This check is specifically for the ERROR_SERVER_TOO_BUSY case above.
@@ -632,11 +725,13 @@ public class TabletClient extends ReplayingDecoder<VoidEnum> {
   private void cleanup(final Channel chan) {
     final ConnectionResetException exception =
         new ConnectionResetException(getPeerUuidLoggingString() + "Connection reset on " + chan);
-    for (Iterator<YRpc<?>> ite = rpcs_inflight.values().iterator(); ite
-        .hasNext();) {
-      YRpc<?> rpc = ite.next();
-      failOrRetryRpc(rpc, exception);
-      ite.remove();
+    for (Integer rpcid : rpcs_inflight.keySet()) {
+      // Removing first so we don't race with an RpcTimeoutTask over who completes the RPC.
+      YRpc<?> rpc = rpcs_inflight.remove(rpcid);
+      if (rpc != null) {
+        rpc.cancelTimeoutTask();
+        failOrRetryRpc(rpc, exception);
+      }
     }
 
     final ArrayList<YRpc<?>> rpcs;
@@ -0,0 +1,84 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import org.yb.annotations.InterfaceAudience;
+import org.yb.tserver.Tserver;
+import org.yb.tserver.TserverService;
+import org.yb.util.Pair;
+
+/**
+ * RPC to change the state of a transaction on its status tablet: create it, keep it alive with
+ * heartbeats or commit it.
+ */
+@InterfaceAudience.Private
+class UpdateTransactionRequest extends YRpc<UpdateTransactionResponse>
+    implements YRpc.HasKey {
+  static final String UPDATE_TRANSACTION = "UpdateTransaction";
+
+  private final byte[] partitionKey;
+  private final Tserver.TransactionStatePB state;
+
+  UpdateTransactionRequest(YBTable statusTable, byte[] partitionKey,
+                           Tserver.TransactionStatePB state) {
+    super(statusTable);
+    this.partitionKey = partitionKey;
+    this.state = state;
+  }
+
+  @Override
+  public byte[] partitionKey() {
+    return partitionKey;
+  }
+
+  @Override
+  ChannelBuffer serialize(Message header) {
+    assert header.isInitialized();
+    final TserverService.UpdateTransactionRequestPB.Builder builder =
+        TserverService.UpdateTransactionRequestPB.newBuilder();
+    builder.setTabletId(ByteString.copyFrom(getTablet().getTabletIdAsBytes()));
+    builder.setState(state);
+    if (propagatedTimestamp != AsyncYBClient.NO_TIMESTAMP) {
+      builder.setPropagatedHybridTime(propagatedTimestamp);
+    }
+    return toChannelBuffer(header, builder.build());
+  }
+
+  @Override
+  String serviceName() { return TABLET_SERVER_SERVICE_NAME; }
+
+  @Override
+  String method() {
+    return UPDATE_TRANSACTION;
+  }
+
+  @Override
+  Pair<UpdateTransactionResponse, Object> deserialize(CallResponse callResponse,
+                                                      String tsUUID) throws Exception {
+    final TserverService.UpdateTransactionResponsePB.Builder respBuilder =
+        TserverService.UpdateTransactionResponsePB.newBuilder();
+    readProtobuf(callResponse.getPBMessage(), respBuilder);
+    if (respBuilder.hasPropagatedHybridTime()) {
+      table.getAsyncClient().updateLastPropagatedTimestamp(respBuilder.getPropagatedHybridTime());
+    }
+    UpdateTransactionResponse response = new UpdateTransactionResponse(
+        deadlineTracker.getElapsedMillis(), tsUUID);
+    return new Pair<UpdateTransactionResponse, Object>(
+        response, respBuilder.hasError() ? respBuilder.getError() : null);
+  }
+}
@@ -39,12 +39,13 @@ import java.util.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yb.ColumnSchema;
+import org.yb.Common.DataType;
 import org.yb.Common.TableType;
+import org.yb.QlProtocol;
 import org.yb.Schema;
 import org.yb.Type;
 import org.yb.annotations.InterfaceAudience;
 import org.yb.annotations.InterfaceStability;
-import org.yb.consensus.Metadata;
 import org.yb.master.Master;
 import org.yb.tserver.Tserver;
 
@@ -81,19 +82,6 @@ public class YBClient implements AutoCloseable {
   // 2 power 16
   public static final int TWO_POWER_SIXTEEN = (int)Math.pow(2, 16);
 
-  // Number of response errors to tolerate.
-  private static final int MAX_ERRORS_TO_IGNORE = 2500;
-
-  // Log errors every so many errors.
-  private static final int LOG_ERRORS_EVERY_NUM_ITERS = 100;
-
-  // Log info after these many iterations.
-  private static final int LOG_EVERY_NUM_ITERS = 200;
-
-  // Simple way to inject an error on Wait based APIs. If enabled, after first inject,
-  // it will be turned off. We can enhance it to use more options like every-N etc.
-  private boolean injectWaitError = false;
-
   public YBClient(AsyncYBClient asyncClient) {
     this.asyncClient = asyncClient;
   }
@@ -224,39 +212,9 @@ public class YBClient implements AutoCloseable {
    * @return a boolean indicating if the table is done being altered
    */
   public boolean isAlterTableDone(String keyspace, String name) throws Exception {
-    long totalSleepTime = 0;
-    while (totalSleepTime < getDefaultAdminOperationTimeoutMs()) {
-      long start = System.currentTimeMillis();
-
-      Deferred<IsAlterTableDoneResponse> d = asyncClient.isAlterTableDone(keyspace, name);
-      IsAlterTableDoneResponse response;
-      try {
-        response = d.join(AsyncYBClient.SLEEP_TIME);
-      } catch (Exception ex) {
-        throw ex;
-      }
-
-      if (response.isDone()) {
-        return true;
-      }
-
-      // Count time that was slept and see if we need to wait a little more.
-      long elapsed = System.currentTimeMillis() - start;
-      // Don't oversleep the deadline.
-      if (totalSleepTime + AsyncYBClient.SLEEP_TIME > getDefaultAdminOperationTimeoutMs()) {
-        return false;
-      }
-      // elapsed can be bigger if we slept about 500ms
-      if (elapsed <= AsyncYBClient.SLEEP_TIME) {
-        LOG.debug("Alter not done, sleep " + (AsyncYBClient.SLEEP_TIME - elapsed) +
-            " and slept " + totalSleepTime);
-        Thread.sleep(AsyncYBClient.SLEEP_TIME - elapsed);
-        totalSleepTime += AsyncYBClient.SLEEP_TIME;
-      } else {
-        totalSleepTime += elapsed;
-      }
-    }
-    return false;
+    Deferred<Boolean> d = asyncClient.waitForAlterTableDone(
+        keyspace, name, getDefaultAdminOperationTimeoutMs());
+    return d.join();
   }
 
   /**
@@ -357,9 +315,10 @@ public class YBClient implements AutoCloseable {
     }
 
     long start = System.currentTimeMillis();
+    int numChecks = 0;
     while (System.currentTimeMillis() - start < timeoutMS &&
       getMasterUUID(hp.getHostText(), hp.getPort()) == null) {
-      Thread.sleep(AsyncYBClient.SLEEP_TIME);
+      Thread.sleep(asyncClient.getPollIntervalMs(++numChecks));
     }
     return getMasterUUID(hp.getHostText(), hp.getPort()) != null;
   }
@@ -396,27 +355,8 @@ public class YBClient implements AutoCloseable {
    * @return The uuid of the leader master, or null if no leader found.
    */
   public String getLeaderMasterUUID() {
-    for (HostAndPort hostAndPort : asyncClient.getMasterAddresses()) {
-      Deferred<GetMasterRegistrationResponse> d;
-      TabletClient clientForHostAndPort = asyncClient.newMasterClient(hostAndPort);
-      if (clientForHostAndPort == null) {
-        String message = "Couldn't resolve this master's address " + hostAndPort.toString();
-        LOG.warn(message);
-      } else {
-        d = asyncClient.getMasterRegistration(clientForHostAndPort);
-        try {
-          GetMasterRegistrationResponse resp = d.join(getDefaultAdminOperationTimeoutMs());
-          if (resp.getRole() == Metadata.RaftPeerPB.Role.LEADER) {
-            return resp.getInstanceId().getPermanentUuid().toStringUtf8();
-          }
-        } catch (Exception e) {
-          LOG.warn("Couldn't get registration info for master {} due to error '{}'.",
-                   hostAndPort.toString(), e.getMessage());
-        }
-      }
-    }
-
-    return null;
+    Master.TSInfoPB leader = findLeaderMaster();
+    return leader == null ? null : leader.getPermanentUuid().toStringUtf8();
   }
 
   /**
@@ -424,28 +364,25 @@ public class YBClient implements AutoCloseable {
    * @return The host and port of the leader master, or null if no leader found.
    */
   public HostAndPort getLeaderMasterHostAndPort() {
-    for (HostAndPort hostAndPort : asyncClient.getMasterAddresses()) {
-      Deferred<GetMasterRegistrationResponse> d;
-      TabletClient clientForHostAndPort = asyncClient.newMasterClient(hostAndPort);
-      if (clientForHostAndPort == null) {
-        String message = "Couldn't resolve this master's host/port " + hostAndPort.toString();
-        LOG.warn(message);
-      } else {
-        d = asyncClient.getMasterRegistration(clientForHostAndPort);
-        try {
-          GetMasterRegistrationResponse resp = d.join(getDefaultAdminOperationTimeoutMs());
-          if (resp.getRole() == Metadata.RaftPeerPB.Role.LEADER) {
-            return hostAndPort;
-          }
-        } catch (Exception e) {
-          LOG.warn("Couldn't get registration info for master " + hostAndPort.toString());
-        }
-      }
-    }
+    Master.TSInfoPB leader = findLeaderMaster();
+    return leader == null ?
+        null : ProtobufHelper.hostAndPortFromPB(leader.getPrivateRpcAddresses(0));
+  }
 
-    return null;
+  /**
+   * Ask all the masters in parallel which one is the leader.
+   * @return the leader master's info, or null if no leader was found
+   */
+  private Master.TSInfoPB findLeaderMaster() {
+    try {
+      return asyncClient.findLeaderMaster().join(getDefaultAdminOperationTimeoutMs());
+    } catch (Exception e) {
+      LOG.warn("Couldn't find the leader master due to error '{}'.", e.getMessage());
+      return null;
+    }
   }
 
+
   /**
    * Helper API to wait and get current leader's UUID. This takes care of waiting for any election
    * in progress.
@@ -455,6 +392,7 @@ public class YBClient implements AutoCloseable {
    */
   private String waitAndGetLeaderMasterUUID(long timeoutMs) throws Exception {
     long start = System.currentTimeMillis();
+    int numChecks = 0;
 
     // Retry till we get a valid UUID (or timeout) for the new leader.
     do {
@@ -465,7 +403,7 @@ public class YBClient implements AutoCloseable {
         return leaderUuid;
       }
 
-      Thread.sleep(asyncClient.SLEEP_TIME);
+      Thread.sleep(asyncClient.getPollIntervalMs(++numChecks));
     } while (System.currentTimeMillis() - start < timeoutMs);
 
     LOG.error("Timed out getting leader uuid.");
@@ -674,64 +612,22 @@ public class YBClient implements AutoCloseable {
     return d.join(getDefaultAdminOperationTimeoutMs()).getMasterAddresses();
   }
 
-  public interface Condition {
-    boolean get() throws Exception;
-  }
-
   /**
-   * Checks the ping of the given ip and port.
+   * Checksums every replica of every tablet of a table and compares the replicas of each tablet.
+   * The table must not be written to while it's being verified.
+   * @see AsyncYBClient#verifyTable(YBTable, int, long)
+   * @param table the table to verify
+   * @param maxConcurrentChecksumsPerServer the maximum number of checksums running at the same
+   *                                        time on a tablet server
+   * @param timeoutMs the time allowed to verify the whole table
+   * @return the checksums of all the replicas
    */
-  private class ServerCondition implements Condition {
-    private HostAndPort hp;
-    public ServerCondition(HostAndPort hp) {
-      this.hp = hp;
-    }
-    @Override
-    public boolean get() throws Exception {
-      return ping(hp.getHostText(), hp.getPort());
-    }
-  }
-
-  /**
-   * Checks whether the IsLoadBalancedResponse has no error.
-   */
-  private class LoadBalanceCondition implements Condition {
-    private int numServers;
-    public LoadBalanceCondition(int numServers) {
-      this.numServers = numServers;
-    }
-    @Override
-    public boolean get() throws Exception {
-      IsLoadBalancedResponse resp = getIsLoadBalanced(numServers);
-      return !resp.hasError();
-    }
-  }
-
-  private class AreLeadersOnPreferredOnlyCondition implements Condition {
-    @Override
-    public boolean get() throws Exception {
-      AreLeadersOnPreferredOnlyResponse resp = getAreLeadersOnPreferredOnly();
-      return !resp.hasError();
-    }
-  }
-
-  private class ReplicaMapCondition implements Condition {
-    private YBTable table;
-    Map<String, List<List<Integer>>> replicaMapExpected;
-    private long deadline;
-    public ReplicaMapCondition(YBTable table,
-                               Map<String, List<List<Integer>>> replicaMapExpected,
-                               long deadline) {
-      this.table = table;
-      this.replicaMapExpected = replicaMapExpected;
-      this.deadline = deadline;
-    }
-    @Override
-    public boolean get() throws Exception {
-      Map<String, List<List<Integer>>> replicaMap =
-          table.getMemberTypeCountsForEachTSType(deadline);
-      return replicaMap.equals(replicaMapExpected);
-    }
+  public TableVerificationResult verifyTable(YBTable table, int maxConcurrentChecksumsPerServer,
+                                             long timeoutMs) throws Exception {
+    Deferred<TableVerificationResult> d =
+        asyncClient.verifyTable(table, maxConcurrentChecksumsPerServer, timeoutMs);
+    // The checksums still running at the deadline need a bit more time to time out.
+    return d.join(timeoutMs + getDefaultAdminOperationTimeoutMs());
   }
 
   /**
@@ -739,69 +635,20 @@ public class YBClient implements AutoCloseable {
    * After every use, for now, will get automatically disabled.
    */
   public void injectWaitError() {
-    injectWaitError = true;
+    asyncClient.injectWaitError();
   }
 
   /**
-   * Helper method that loops on a condition every 500ms until it returns true or the
-   * operation times out.
-   * @param condition the Condition which implements a boolean get() method.
-   * @param timeoutMs the amount of time, in MS, to wait.
-   * @return true if the condition is true within the time frame, false otherwise.
+   * Waits for the given asynchronous wait to complete.
+   * @return what the wait yields, or false if it failed
    */
-  private boolean waitForCondition(Condition condition, final long timeoutMs) {
-    Exception finalException = null;
-    long start = System.currentTimeMillis();
-    int numErrors = 0;
-    int numIters = 0;
-    String errorMessage = null;
-    do {
-      try {
-        if (injectWaitError) {
-          Thread.sleep(AsyncYBClient.SLEEP_TIME);
-          injectWaitError = false;
-          String msg = "Simulated expection due to injected error.";
-          LOG.info(msg);
-          throw new RuntimeException(msg);
-        }
-        if (condition.get()) {
-          return true;
-        }
-      } catch (Exception e) {
-        // We will get exceptions if we cannot connect to the other end. Catch them and save for
-        // final debug if we never succeed.
-        finalException = e;
-        numErrors++;
-        if (numErrors % LOG_ERRORS_EVERY_NUM_ITERS == 0) {
-          LOG.warn("Hit {} errors so far. Latest is : {}.", numErrors, finalException.toString());
-        }
-        if (numErrors >= MAX_ERRORS_TO_IGNORE) {
-          errorMessage = "Hit too many errors, final exception is " + finalException.toString();
-          break;
-        }
-      }
-
-      numIters++;
-      if (numIters % LOG_EVERY_NUM_ITERS == 0) {
-        LOG.info("Tried operation {} times so far.", numIters);
-      }
-
-      // Need to wait even when ping has an exception, so the sleep is outside the above try block.
-      try {
-        Thread.sleep(AsyncYBClient.SLEEP_TIME);
-      } catch (Exception e) {}
-    } while (System.currentTimeMillis() - start < timeoutMs);
-
-    if (errorMessage == null) {
-      LOG.error("Timed out waiting for operation. Final exception was {}.",
-                finalException != null ? finalException.toString() : "none");
-    } else {
-      LOG.error(errorMessage);
+  private boolean joinWait(Deferred<Boolean> d) {
+    try {
+      return d.join();
+    } catch (Exception e) {
+      LOG.error("Error while waiting for operation.", e);
+      return false;
     }
-
-    LOG.error("Returning failure after {} iterations, num errors = {}.", numIters, numErrors);
-
-    return false;
   }
 
   /**
@@ -811,8 +658,7 @@ public class YBClient implements AutoCloseable {
   * @return true if the server responded to pings in the given time, false otherwise
   */
   public boolean waitForServer(final HostAndPort hp, final long timeoutMs) {
-    Condition serverCondition = new ServerCondition(hp);
-    return waitForCondition(serverCondition, timeoutMs);
+    return joinWait(asyncClient.waitForServer(hp, timeoutMs));
   }
 
   /**
@@ -822,8 +668,7 @@ public class YBClient implements AutoCloseable {
   * @return true if the master leader does not return any error balance check.
   */
   public boolean waitForLoadBalance(final long timeoutMs, int numServers) {
-    Condition loadBalanceCondition = new LoadBalanceCondition(numServers);
-    return waitForCondition(loadBalanceCondition, timeoutMs);
+    return joinWait(asyncClient.waitForLoadBalance(timeoutMs, numServers));
   }
 
   /**
@@ -832,9 +677,7 @@ public class YBClient implements AutoCloseable {
    * @return true iff the leader count is balanced within timeoutMs.
    */
   public boolean waitForAreLeadersOnPreferredOnlyCondition(final long timeoutMs) {
-    Condition areLeadersOnPreferredOnlyCondition =
-        new AreLeadersOnPreferredOnlyCondition();
-    return waitForCondition(areLeadersOnPreferredOnlyCondition, timeoutMs);
+    return joinWait(asyncClient.waitForAreLeadersOnPreferredOnlyCondition(timeoutMs));
   }
 
   /**
@@ -850,8 +693,8 @@ public class YBClient implements AutoCloseable {
    */
   public boolean waitForExpectedReplicaMap(final long timeoutMs, YBTable table,
                                             Map<String, List<List<Integer>>> replicaMapExpected) {
-    Condition replicaMapCondition = new ReplicaMapCondition(table, replicaMapExpected, timeoutMs);
-    return waitForCondition(replicaMapCondition, timeoutMs);
+    return joinWait(
+        asyncClient.waitForExpectedReplicaMap(timeoutMs, table, replicaMapExpected));
   }
 
   /**
@@ -959,6 +802,50 @@ public class YBClient implements AutoCloseable {
     return d.join(getDefaultAdminOperationTimeoutMs());
   }
 
+  /**
+   * Compute aggregates over a table, or the rows of it matching some predicates. Each tablet
+   * computes the aggregates over its own rows, only these partial results are merged here.
+   * @param table the table to aggregate
+   * @param request the aggregates to compute and the predicates the rows must match
+   * @param maxParallelism the number of tablets aggregating their rows at the same time
+   * @return the value of each aggregate of the request, in order
+   * @throws Exception if the request isn't an aggregate or one of the tablets failed
+   */
+  public List<Object> aggregate(YBTable table, QLReadRequestBuilder request,
+                                int maxParallelism) throws Exception {
+    final List<QLAggregate> aggregates = request.getAggregates();
+    if (aggregates.isEmpty()) {
+      throw new IllegalArgumentException("The request has no aggregates");
+    }
+    final List<DataType> types = request.getResultTypes();
+    final Object[] merged = new Object[aggregates.size()];
+    try (YBTableScanner scanner = asyncClient.newTableScannerBuilder(table, request.build())
+             .maxParallelism(maxParallelism)
+             .maxBufferedPages(maxParallelism)
+             .build()) {
+      ReadResponse page;
+      while ((page = scanner.nextPage()) != null) {
+        for (QlProtocol.QLResponsePB response : page.getResponse().getQlBatchList()) {
+          if (!response.hasRowsDataSidecar()) {
+            continue;
+          }
+          // Tablets without any matching row don't return any.
+          for (Object[] row : QLValues.decodeRows(
+              types, page.getSidecar(response.getRowsDataSidecar()))) {
+            for (int i = 0; i < merged.length; i++) {
+              merged[i] = aggregates.get(i).merge(merged[i], row[i]);
+            }
+          }
+        }
+      }
+    }
+    final List<Object> results = new ArrayList<Object>(merged.length);
+    for (int i = 0; i < merged.length; i++) {
+      results.add(aggregates.get(i).finish(merged[i]));
+    }
+    return results;
+  }
+
   /**
    * Analogous to {@link #shutdown()}.
    * @throws Exception if an error happens while closing the connections
@@ -992,6 +879,30 @@ public class YBClient implements AutoCloseable {
     return asyncClient.getDefaultAdminOperationTimeoutMs();
   }
 
+  /**
+   * @see AsyncYBClient#getCausalConsistencyToken()
+   */
+  public CausalConsistencyToken getCausalConsistencyToken() {
+    return asyncClient.getCausalConsistencyToken();
+  }
+
+  /**
+   * @see AsyncYBClient#observeCausalConsistencyToken(CausalConsistencyToken)
+   */
+  public void observeCausalConsistencyToken(CausalConsistencyToken token) {
+    asyncClient.observeCausalConsistencyToken(token);
+  }
+
+  /**
+   * Waits for the client to be warmed up.
+   * @see AsyncYBClient#whenReady()
+   * @param timeoutMs the maximum time to wait in milliseconds
+   * @throws Exception if the warm-up didn't complete in time
+   */
+  public void waitUntilReady(long timeoutMs) throws Exception {
+    asyncClient.whenReady().join(timeoutMs);
+  }
+
   /**
    * Builder class to use in order to connect to YB.
    * All the parameters beyond those in the constructors are optional.
@@ -1101,6 +1012,22 @@ public class YBClient implements AutoCloseable {
       return this;
     }
 
+    /**
+     * @see AsyncYBClient.AsyncYBClientBuilder#warmUpConnections(boolean)
+     */
+    public YBClientBuilder warmUpConnections(boolean warmUp) {
+      clientBuilder.warmUpConnections(warmUp);
+      return this;
+    }
+
+    /**
+     * @see AsyncYBClient.AsyncYBClientBuilder#warmUpTable(String, String)
+     */
+    public YBClientBuilder warmUpTable(String keyspace, String name) {
+      clientBuilder.warmUpTable(keyspace, name);
+      return this;
+    }
+
     /**
      * Creates a new client that connects to the masters.
      * Doesn't block and won't throw an exception if the masters don't exist.
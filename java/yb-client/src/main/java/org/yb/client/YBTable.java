@@ -37,6 +37,7 @@ import org.yb.Schema;
 import org.yb.annotations.InterfaceAudience;
 import org.yb.annotations.InterfaceStability;
 
+import com.stumbleupon.async.Callback;
 import com.stumbleupon.async.Deferred;
 
 import java.util.List;
@@ -68,6 +69,10 @@ public class YBTable {
   private final String keyspace;
   private final String tableId;
   private final TableType tableType;
+  private final int schemaVersion;
+
+  // Schema version of the tables we don't know the version of.
+  static final int UNKNOWN_SCHEMA_VERSION = -1;
 
   private static final String OBSERVER = "OBSERVER";
   private static final String PRE_OBSERVER = "PRE_OBSERVER";
@@ -80,6 +85,13 @@ public class YBTable {
    */
   YBTable(AsyncYBClient client, String name, String tableId, Schema schema,
           PartitionSchema partitionSchema, TableType tableType, String keyspace) {
+    this(client, name, tableId, schema, partitionSchema, tableType, keyspace,
+         UNKNOWN_SCHEMA_VERSION);
+  }
+
+  YBTable(AsyncYBClient client, String name, String tableId, Schema schema,
+          PartitionSchema partitionSchema, TableType tableType, String keyspace,
+          int schemaVersion) {
     this.schema = schema;
     this.partitionSchema = partitionSchema;
     this.client = client;
@@ -87,6 +99,7 @@ public class YBTable {
     this.tableId = tableId;
     this.tableType = tableType;
     this.keyspace = keyspace;
+    this.schemaVersion = schemaVersion;
   }
 
   YBTable(AsyncYBClient client, String name, String tableId,
@@ -103,6 +116,14 @@ public class YBTable {
     return this.schema;
   }
 
+  /**
+   * Get the version of this table's schema, as of the moment this instance was created.
+   * @return the schema version, or -1 if it isn't known
+   */
+  public int getSchemaVersion() {
+    return this.schemaVersion;
+  }
+
   /**
    * Get this table's type.
    */
@@ -226,11 +247,33 @@ public class YBTable {
    */
   public Map<String, List<List<Integer>>> getMemberTypeCountsForEachTSType(long deadline)
       throws Exception {
+    return getMemberTypeCounts(getTabletsLocations(deadline));
+  }
+
+  /**
+   * Asynchronously compute the replica counts described in
+   * {@link #getMemberTypeCountsForEachTSType(long)}.
+   * @param deadline deadline in milliseconds for getTabletsLocations rpc.
+   * @return a {@link Deferred} object that yields a map from placement zone to a list of lists
+   * of integers.
+   */
+  public Deferred<Map<String, List<List<Integer>>>> asyncGetMemberTypeCountsForEachTSType(
+      long deadline) throws Exception {
+    return asyncGetTabletsLocations(deadline).addCallback(
+        new Callback<Map<String, List<List<Integer>>>, List<LocatedTablet>>() {
+          @Override
+          public Map<String, List<List<Integer>>> call(List<LocatedTablet> tablets) {
+            return getMemberTypeCounts(tablets);
+          }
+        });
+  }
+
+  private static Map<String, List<List<Integer>>> getMemberTypeCounts(
+      List<LocatedTablet> tablets) {
     // Intermediate map which contains an internal map from ts uuid to live and
     // read replica counts.
     Map<String, Map<String, List<Integer>>> intermediateMap =
         new HashMap<String, Map<String, List<Integer>>>();
-    List<LocatedTablet> tablets = getTabletsLocations(deadline);
     for (LocatedTablet tablet : tablets) {
       for (LocatedTablet.Replica replica : tablet.getReplicas()) {
         String placementUuid = replica.getTsPlacementUuid();
@@ -0,0 +1,458 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.common.base.Preconditions;
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.Common.PartitionSchemaPB.HashSchema;
+import org.yb.Common.YBConsistencyLevel;
+import org.yb.QlProtocol;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.tserver.Tserver;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Scans a range of a table by reading from many of its tablets at once.
+ * <p>
+ * The tablets covering the range are looked up from the master, then each of them is read page
+ * by page using the given {@link QlProtocol.QLReadRequestPB} as a template. At most
+ * {@link Builder#maxParallelism(int)} tablets are read at the same time, and no more than
+ * {@link Builder#maxBufferedPages(int)} pages are either being fetched or waiting to be consumed,
+ * so a slow consumer holds the scan back instead of filling up the memory.
+ * <p>
+ * Pages are handed out in the order they arrive, pages of different tablets are interleaved.
+ * The template should select the columns to read and may filter the rows, but it must not set
+ * the hashed column values, the hash codes, the limit or the paging state, those are filled in
+ * by the scanner.
+ * <p>
+ * Instances are created with {@link AsyncYBClient#newTableScannerBuilder}. This class is
+ * thread-safe, but the pages are meant to be consumed by a single thread.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class YBTableScanner implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(YBTableScanner.class);
+
+  // Put in the queue once the scan is over, whether it finished or failed.
+  private static final Object END_OF_SCAN = new Object();
+
+  private final AsyncYBClient client;
+  private final YBTable table;
+  private final QlProtocol.QLReadRequestPB template;
+  private final YBConsistencyLevel consistencyLevel;
+  private final byte[] startPartitionKey;
+  private final byte[] endPartitionKey;
+  private final int maxParallelism;
+  private final int pageSizeRows;
+
+  private final LinkedBlockingQueue<Object> pages = new LinkedBlockingQueue<Object>();
+
+  // Everything below is guarded by this.
+  private final Deque<TabletScan> pendingScans = new ArrayDeque<TabletScan>();
+  private final Deque<TabletScan> stalledScans = new ArrayDeque<TabletScan>();
+  private int numRunningScans;
+  private int numFreeSlots;
+  private boolean located;
+  private int numTablets;
+  private Exception error;
+  private boolean closed;
+
+  private YBTableScanner(Builder builder) {
+    this.client = builder.client;
+    this.table = builder.table;
+    this.template = builder.template.build();
+    this.consistencyLevel = builder.consistencyLevel;
+    this.startPartitionKey = builder.startPartitionKey;
+    this.endPartitionKey = builder.endPartitionKey;
+    this.maxParallelism = builder.maxParallelism;
+    this.pageSizeRows = builder.pageSizeRows;
+    this.numFreeSlots = builder.maxBufferedPages;
+  }
+
+  private void start(long timeoutMs) {
+    client.locateTable(table.getTableId(), startPartitionKey, endPartitionKey, timeoutMs)
+        .addCallbacks(new LocateCB(), new ErrorCB());
+  }
+
+  /**
+   * Get the next page of the scan, waiting for it if none has arrived yet.
+   * @return the next page, or null if the scan is over or the scanner was closed
+   * @throws Exception if looking up the tablets or reading one of them failed
+   */
+  public ReadResponse nextPage() throws Exception {
+    final Object page = pages.take();
+    if (page == END_OF_SCAN) {
+      // Leave it there for the next callers.
+      pages.add(END_OF_SCAN);
+      synchronized (this) {
+        if (error != null && !closed) {
+          throw error;
+        }
+      }
+      return null;
+    }
+    synchronized (this) {
+      numFreeSlots++;
+    }
+    schedule();
+    return (ReadResponse) page;
+  }
+
+  /**
+   * Stop the scan. The pages that were already fetched are dropped and the reads still in flight
+   * get ignored when they complete.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pendingScans.clear();
+      stalledScans.clear();
+    }
+    pages.clear();
+    pages.add(END_OF_SCAN);
+  }
+
+  /**
+   * @return the number of tablets covering the scanned range, or -1 if they aren't known yet
+   */
+  public synchronized int getNumTablets() {
+    return located ? numTablets : -1;
+  }
+
+  /**
+   * Start as many tablet scans and resume as many stalled ones as the parallelism and the free
+   * slots of the queue allow. The reads are sent outside of the lock.
+   */
+  private void schedule() {
+    final List<TabletScan> toSend = new ArrayList<TabletScan>();
+    synchronized (this) {
+      if (closed || error != null) {
+        return;
+      }
+      while (numFreeSlots > 0 && !stalledScans.isEmpty()) {
+        numFreeSlots--;
+        toSend.add(stalledScans.poll());
+      }
+      while (numFreeSlots > 0 && numRunningScans < maxParallelism && !pendingScans.isEmpty()) {
+        numFreeSlots--;
+        numRunningScans++;
+        toSend.add(pendingScans.poll());
+      }
+    }
+    for (TabletScan scan : toSend) {
+      scan.sendNextPage();
+    }
+  }
+
+  private void fail(Exception e) {
+    synchronized (this) {
+      if (closed || error != null) {
+        return;
+      }
+      error = e;
+      pendingScans.clear();
+      stalledScans.clear();
+    }
+    LOG.warn("Scan of table " + table.getName() + " failed", e);
+    pages.add(END_OF_SCAN);
+  }
+
+  /**
+   * Called when a tablet was read entirely, ends the scan if it was the last one.
+   */
+  private void onScanDone() {
+    final boolean done;
+    synchronized (this) {
+      numRunningScans--;
+      done = numRunningScans == 0 && pendingScans.isEmpty() && !closed && error == null;
+    }
+    if (done) {
+      pages.add(END_OF_SCAN);
+    } else {
+      schedule();
+    }
+  }
+
+  private static byte[] max(byte[] a, byte[] b) {
+    if (a == null) {
+      return b;
+    }
+    return Bytes.memcmp(a, b) >= 0 ? a : b;
+  }
+
+  // An empty or null end key means the end of the table.
+  private static byte[] minEnd(byte[] a, byte[] b) {
+    if (a == null || a.length == 0) {
+      return b;
+    }
+    if (b == null || b.length == 0) {
+      return a;
+    }
+    return Bytes.memcmp(a, b) <= 0 ? a : b;
+  }
+
+  private final class LocateCB implements Callback<Void, List<LocatedTablet>> {
+    @Override
+    public Void call(List<LocatedTablet> tablets) {
+      final List<TabletScan> scans = new ArrayList<TabletScan>();
+      for (LocatedTablet tablet : tablets) {
+        final Partition partition = tablet.getPartition();
+        final byte[] start = max(startPartitionKey, partition.getPartitionKeyStart());
+        final byte[] end = minEnd(endPartitionKey, partition.getPartitionKeyEnd());
+        // The master may return tablets that only border the range.
+        if (end.length != 0 && Bytes.memcmp(start, end) >= 0) {
+          continue;
+        }
+        scans.add(new TabletScan(start, end));
+      }
+      final boolean empty;
+      synchronized (YBTableScanner.this) {
+        located = true;
+        numTablets = scans.size();
+        if (closed) {
+          return null;
+        }
+        pendingScans.addAll(scans);
+        empty = scans.isEmpty();
+      }
+      if (empty) {
+        pages.add(END_OF_SCAN);
+      } else {
+        schedule();
+      }
+      return null;
+    }
+  }
+
+  private final class ErrorCB implements Callback<Void, Exception> {
+    @Override
+    public Void call(Exception e) {
+      fail(e);
+      return null;
+    }
+  }
+
+  /**
+   * The scan of a single tablet, restricted to the part of the tablet that is in the range.
+   */
+  private final class TabletScan implements Callback<Void, ReadResponse> {
+    private final byte[] startKey;
+    private final byte[] endKey;
+    private QlProtocol.QLPagingStatePB pagingState;
+    private byte[] nextPartitionKey;
+
+    TabletScan(byte[] startKey, byte[] endKey) {
+      this.startKey = startKey;
+      this.endKey = endKey;
+      this.nextPartitionKey = startKey;
+    }
+
+    void sendNextPage() {
+      final Deferred<ReadResponse> d;
+      try {
+        final QlProtocol.QLReadRequestPB.Builder ql = template.toBuilder()
+            .setHashCode(PartitionSchema.decodeMultiColumnHashValue(startKey))
+            .setLimit(pageSizeRows)
+            .setReturnPagingState(true);
+        if (endKey.length != 0) {
+          ql.setMaxHashCode(PartitionSchema.decodeMultiColumnHashValue(endKey) - 1);
+        }
+        if (pagingState != null) {
+          ql.setPagingState(pagingState);
+        }
+        final Tserver.ReadRequestPB.Builder request = Tserver.ReadRequestPB.newBuilder()
+            .setConsistencyLevel(consistencyLevel)
+            .addQlBatch(ql);
+        d = client.read(table, nextPartitionKey, request);
+      } catch (Exception e) {
+        // Nothing else would end the scan, and nextPage() would wait forever.
+        fail(e);
+        return;
+      }
+      d.addCallbacks(this, new ErrorCB());
+    }
+
+    @Override
+    public Void call(ReadResponse response) {
+      for (QlProtocol.QLResponsePB qlResponse : response.getResponse().getQlBatchList()) {
+        if (qlResponse.getStatus() != QlProtocol.QLResponsePB.QLStatus.YQL_STATUS_OK) {
+          fail(new NonRecoverableException("Scan of table " + table.getName() + " failed: " +
+              qlResponse.getStatus() + " " + qlResponse.getErrorMessage()));
+          return null;
+        }
+      }
+      boolean hasMore = false;
+      if (response.getResponse().getQlBatchCount() > 0) {
+        final QlProtocol.QLResponsePB qlResponse = response.getResponse().getQlBatch(0);
+        // An empty row key means this tablet is done, the partition key the server may still
+        // send back then is the start of the next tablet, which has a scan of its own.
+        if (qlResponse.hasPagingState() && !qlResponse.getPagingState().getNextRowKey().isEmpty()) {
+          pagingState = qlResponse.getPagingState();
+          if (!pagingState.getNextPartitionKey().isEmpty()) {
+            nextPartitionKey = pagingState.getNextPartitionKey().toByteArray();
+          }
+          hasMore = true;
+        }
+      }
+      boolean sendNow = false;
+      synchronized (YBTableScanner.this) {
+        if (closed || error != null) {
+          return null;
+        }
+        // The slot this page was fetched with is released once the page is consumed.
+        pages.add(response);
+        if (hasMore) {
+          if (numFreeSlots > 0) {
+            numFreeSlots--;
+            sendNow = true;
+          } else {
+            stalledScans.add(this);
+          }
+        }
+      }
+      if (sendNow) {
+        sendNextPage();
+      } else if (!hasMore) {
+        onScanDone();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Builder of {@link YBTableScanner}.
+   */
+  @InterfaceAudience.Public
+  @InterfaceStability.Unstable
+  public static class Builder {
+    private final AsyncYBClient client;
+    private final YBTable table;
+    private final QlProtocol.QLReadRequestPB.Builder template;
+    private YBConsistencyLevel consistencyLevel = YBConsistencyLevel.STRONG;
+    private byte[] startPartitionKey;
+    private byte[] endPartitionKey;
+    private int maxParallelism = 4;
+    private int maxBufferedPages = 16;
+    private int pageSizeRows = 1024;
+
+    Builder(AsyncYBClient client, YBTable table, QlProtocol.QLReadRequestPB.Builder template) {
+      this.client = client;
+      this.table = table;
+      this.template = template;
+    }
+
+    /**
+     * Restricts the scan to a range of partition keys. Only the tablets overlapping the range
+     * are read.
+     * @param start the inclusive start of the range, null to start at the beginning of the table
+     * @param end the exclusive end of the range, null to scan until the end of the table
+     * @return this builder
+     */
+    public Builder partitionKeyRange(byte[] start, byte[] end) {
+      this.startPartitionKey = start;
+      this.endPartitionKey = end;
+      return this;
+    }
+
+    /**
+     * Restricts the scan to the rows whose hash code is in the given range, which is what
+     * {@code token()} bounds do in CQL.
+     * @param lower the inclusive lower bound of the hash codes
+     * @param upper the exclusive upper bound of the hash codes, 65536 for the end of the table
+     * @return this builder
+     */
+    public Builder hashCodeRange(int lower, int upper) {
+      Preconditions.checkArgument(0 <= lower && lower <= upper && upper <= 0x10000,
+          "Invalid hash code range [%s, %s)", lower, upper);
+      this.startPartitionKey = lower == 0 ? null
+          : PartitionSchema.encodeMultiColumnHashValue(lower);
+      this.endPartitionKey = upper == 0x10000 ? null
+          : PartitionSchema.encodeMultiColumnHashValue(upper);
+      return this;
+    }
+
+    /**
+     * Sets the number of tablets read at the same time.
+     * Optional.
+     * If not provided, defaults to 4.
+     */
+    public Builder maxParallelism(int maxParallelism) {
+      Preconditions.checkArgument(maxParallelism > 0, "maxParallelism must be positive");
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the number of pages that may be either fetched or waiting to be consumed at the same
+     * time. Tablets wait for the consumer once it's reached.
+     * Optional.
+     * If not provided, defaults to 16.
+     */
+    public Builder maxBufferedPages(int maxBufferedPages) {
+      Preconditions.checkArgument(maxBufferedPages > 0, "maxBufferedPages must be positive");
+      this.maxBufferedPages = maxBufferedPages;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of rows returned by each read.
+     * Optional.
+     * If not provided, defaults to 1024.
+     */
+    public Builder pageSizeRows(int pageSizeRows) {
+      Preconditions.checkArgument(pageSizeRows > 0, "pageSizeRows must be positive");
+      this.pageSizeRows = pageSizeRows;
+      return this;
+    }
+
+    /**
+     * Sets the consistency level of the reads, CONSISTENT_PREFIX lets followers serve them.
+     * Optional.
+     * If not provided, defaults to STRONG.
+     */
+    public Builder consistencyLevel(YBConsistencyLevel consistencyLevel) {
+      this.consistencyLevel = consistencyLevel;
+      return this;
+    }
+
+    /**
+     * Creates the scanner and starts looking up the tablets to read.
+     * @return a new scanner
+     * @throws IllegalArgumentException if the table doesn't use the multi-column hash schema,
+     * the only one whose tablets can be read by hash code
+     */
+    public YBTableScanner build() {
+      final HashSchema hashSchema = table.getPartitionSchema().getHashSchema();
+      Preconditions.checkArgument(hashSchema == HashSchema.MULTI_COLUMN_HASH_SCHEMA,
+          "Can't scan table %s, its hash schema is %s", table.getName(), hashSchema);
+      YBTableScanner scanner = new YBTableScanner(this);
+      scanner.start(client.getDefaultAdminOperationTimeoutMs());
+      return scanner;
+    }
+  }
+}
@@ -0,0 +1,301 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.google.protobuf.ByteString;
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.Common.IsolationLevel;
+import org.yb.Common.TransactionMetadataPB;
+import org.yb.Common.TransactionStatus;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.tserver.Tserver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A distributed transaction, begun with {@link YBTransactionManager#begin(IsolationLevel)}.
+ * <p>
+ * The metadata of the transaction, see {@link #getMetadata()}, has to be attached to the reads
+ * and writes done as part of it, and the tablets written to have to be added with
+ * {@link #addInvolvedTablet(String)} so that they get the outcome of the transaction when it's
+ * committed.
+ * <p>
+ * This class is thread-safe.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class YBTransaction {
+  private static final Logger LOG = LoggerFactory.getLogger(YBTransaction.class);
+
+  /**
+   * The states of a transaction, as seen from the client.
+   */
+  public enum State {
+    // Being registered on its status tablet.
+    CREATING,
+    // Registered and sending heartbeats.
+    RUNNING,
+    // The commit was sent to the status tablet.
+    COMMITTING,
+    COMMITTED,
+    ABORTED
+  }
+
+  private final YBTransactionManager manager;
+  private final YBTable statusTable;
+  private final byte[] statusTabletKey;
+  private final String statusTabletId;
+  private final UUID id;
+  private final ByteString idBytes;
+  private final TransactionMetadataPB metadata;
+
+  // Guarded by this.
+  private State state = State.CREATING;
+  private final Set<String> involvedTablets = new LinkedHashSet<String>();
+  private boolean heartbeatInFlight;
+  private Exception error;
+
+  YBTransaction(YBTransactionManager manager, YBTable statusTable, LocatedTablet statusTablet,
+                IsolationLevel isolation, long priority, long startHybridTime) {
+    this.manager = manager;
+    this.statusTable = statusTable;
+    this.statusTabletKey = statusTablet.getPartition().getPartitionKeyStart();
+    this.statusTabletId = new String(statusTablet.getTabletId(), StandardCharsets.UTF_8);
+    this.id = UUID.randomUUID();
+    this.idBytes = ByteString.copyFrom(ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array());
+    this.metadata = TransactionMetadataPB.newBuilder()
+        .setTransactionId(idBytes)
+        .setIsolation(isolation)
+        .setStatusTablet(statusTabletId)
+        .setPriority(priority)
+        .setStartHybridTime(startHybridTime)
+        .build();
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  ByteString getIdAsByteString() {
+    return idBytes;
+  }
+
+  /**
+   * @return the metadata to attach to the requests done as part of this transaction
+   */
+  public TransactionMetadataPB getMetadata() {
+    return metadata;
+  }
+
+  public String getStatusTabletId() {
+    return statusTabletId;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Registers a tablet this transaction wrote to.
+   * @param tabletId the id of the tablet
+   * @throws IllegalStateException if the transaction isn't running anymore
+   */
+  public synchronized void addInvolvedTablet(String tabletId) {
+    checkRunning();
+    involvedTablets.add(tabletId);
+  }
+
+  /**
+   * Commit this transaction. A transaction that didn't write anything is simply aborted.
+   * @return a deferred object that yields null once the status tablet committed the
+   *         transaction, the involved tablets apply it in the background
+   */
+  public Deferred<Void> commit() {
+    final Tserver.TransactionStatePB.Builder state;
+    synchronized (this) {
+      checkRunning();
+      // Stop counting the transaction as running before anyone can see it isn't.
+      manager.onFinished(this);
+      if (involvedTablets.isEmpty()) {
+        this.state = State.ABORTED;
+        state = null;
+      } else {
+        this.state = State.COMMITTING;
+        state = YBTransactionManager.newState(this, TransactionStatus.COMMITTED)
+            .addAllTablets(toByteStrings(involvedTablets));
+      }
+    }
+    if (state == null) {
+      sendAbort();
+      return Deferred.fromResult(null);
+    }
+    final UpdateTransactionRequest rpc =
+        new UpdateTransactionRequest(statusTable, statusTabletKey, state.build());
+    rpc.setTimeoutMillis(manager.getClient().getDefaultOperationTimeoutMs());
+    return manager.getClient().sendRpcToTablet(rpc).addCallbacks(
+        new Callback<Void, UpdateTransactionResponse>() {
+          @Override
+          public Void call(UpdateTransactionResponse response) {
+            synchronized (YBTransaction.this) {
+              YBTransaction.this.state = State.COMMITTED;
+            }
+            return null;
+          }
+        },
+        new Callback<Void, Exception>() {
+          @Override
+          public Void call(Exception e) throws Exception {
+            // The outcome is unknown, the status tablet may have committed the transaction.
+            synchronized (YBTransaction.this) {
+              error = e;
+            }
+            throw e;
+          }
+        });
+  }
+
+  /**
+   * Abort this transaction.
+   * @return a deferred object that yields the status of the transaction once the status tablet
+   *         handled the abort
+   */
+  public Deferred<AbortTransactionResponse> abort() {
+    synchronized (this) {
+      checkRunning();
+      manager.onFinished(this);
+      state = State.ABORTED;
+    }
+    return sendAbort();
+  }
+
+  /**
+   * Get the status of this transaction from its status tablet.
+   * @return a deferred object that yields the status
+   */
+  public Deferred<GetTransactionStatusResponse> getStatus() {
+    final GetTransactionStatusRequest rpc = new GetTransactionStatusRequest(
+        statusTable, statusTabletKey, idBytes.toByteArray());
+    rpc.setTimeoutMillis(manager.getClient().getDefaultOperationTimeoutMs());
+    return manager.getClient().sendRpcToTablet(rpc);
+  }
+
+  private Deferred<AbortTransactionResponse> sendAbort() {
+    final AbortTransactionRequest rpc = new AbortTransactionRequest(
+        statusTable, statusTabletKey, idBytes.toByteArray());
+    rpc.setTimeoutMillis(manager.getClient().getDefaultOperationTimeoutMs());
+    return manager.getClient().sendRpcToTablet(rpc);
+  }
+
+  /**
+   * Registers this transaction on its status tablet.
+   * @return a deferred object that yields this transaction once it's running
+   */
+  Deferred<YBTransaction> create() {
+    final UpdateTransactionRequest rpc = new UpdateTransactionRequest(statusTable,
+        statusTabletKey, YBTransactionManager.newState(this, TransactionStatus.CREATED).build());
+    rpc.setTimeoutMillis(manager.getClient().getDefaultOperationTimeoutMs());
+    return manager.getClient().sendRpcToTablet(rpc).addCallback(
+        new Callback<YBTransaction, UpdateTransactionResponse>() {
+          @Override
+          public YBTransaction call(UpdateTransactionResponse response) {
+            synchronized (YBTransaction.this) {
+              state = State.RUNNING;
+            }
+            manager.onStarted(YBTransaction.this);
+            return YBTransaction.this;
+          }
+        });
+  }
+
+  /**
+   * Sends a heartbeat to the status tablet, unless the previous one is still in flight.
+   * @return true if a heartbeat was sent
+   */
+  boolean sendHeartbeat() {
+    synchronized (this) {
+      if (state != State.RUNNING || heartbeatInFlight) {
+        return false;
+      }
+      heartbeatInFlight = true;
+    }
+    final UpdateTransactionRequest rpc = new UpdateTransactionRequest(statusTable,
+        statusTabletKey, YBTransactionManager.newState(this, TransactionStatus.PENDING).build());
+    rpc.setTimeoutMillis(manager.getClient().getDefaultOperationTimeoutMs());
+    manager.getClient().sendRpcToTablet(rpc).addCallbacks(
+        new Callback<Void, UpdateTransactionResponse>() {
+          @Override
+          public Void call(UpdateTransactionResponse response) {
+            synchronized (YBTransaction.this) {
+              heartbeatInFlight = false;
+            }
+            return null;
+          }
+        },
+        new Callback<Void, Exception>() {
+          @Override
+          public Void call(Exception e) {
+            final boolean expired = YBTransactionManager.isExpired(e);
+            synchronized (YBTransaction.this) {
+              heartbeatInFlight = false;
+              if (expired && state == State.RUNNING) {
+                manager.onFinished(YBTransaction.this);
+                state = State.ABORTED;
+                error = e;
+              }
+            }
+            if (expired) {
+              LOG.warn("Transaction " + id + " expired", e);
+            } else {
+              // The next heartbeat will be sent with the others.
+              LOG.info("Heartbeat of transaction " + id + " failed", e);
+            }
+            return null;
+          }
+        });
+    return true;
+  }
+
+  private void checkRunning() {
+    if (state != State.RUNNING) {
+      throw new IllegalStateException("Transaction " + id + " is not running but " + state +
+          (error == null ? "" : ": " + error.getMessage()));
+    }
+  }
+
+  private static Iterable<ByteString> toByteStrings(Set<String> tabletIds) {
+    final List<ByteString> bytes = new ArrayList<ByteString>();
+    for (String tabletId : tabletIds) {
+      bytes.add(ByteString.copyFromUtf8(tabletId));
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return "YBTransaction(" + id + ", " + getState() + ")";
+  }
+}
@@ -0,0 +1,247 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package org.yb.client;
+
+import com.stumbleupon.async.Callback;
+import com.stumbleupon.async.Deferred;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yb.Common.IsolationLevel;
+import org.yb.Common.TransactionStatus;
+import org.yb.WireProtocol;
+import org.yb.annotations.InterfaceAudience;
+import org.yb.annotations.InterfaceStability;
+import org.yb.tserver.Tserver;
+import org.yb.util.HybridTimeUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts distributed transactions and keeps them alive.
+ * <p>
+ * Every transaction is registered on a tablet of the {@code system.transactions} table, its
+ * status tablet, picked at random when it begins. The status tablet aborts the transaction if
+ * it doesn't hear from the client for a while, so the client has to send it heartbeats until the
+ * transaction is committed or aborted.
+ * <p>
+ * Rather than each transaction scheduling its own heartbeats, a single timer task sends the
+ * heartbeats of all the running transactions of the client at every interval. A transaction
+ * whose previous heartbeat hasn't been answered yet is skipped, and the task stops once there
+ * are no running transactions left, so the overhead stays proportional to the number of
+ * transactions actually open.
+ *
+ * @see AsyncYBClient#getTransactionManager()
+ * @see AsyncYBClient.AsyncYBClientBuilder#transactionHeartbeatIntervalMs(long)
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public class YBTransactionManager {
+  private static final Logger LOG = LoggerFactory.getLogger(YBTransactionManager.class);
+
+  static final String STATUS_TABLE_KEYSPACE = "system";
+  static final String STATUS_TABLE_NAME = "transactions";
+
+  private final AsyncYBClient client;
+  private final long heartbeatIntervalMs;
+  private final Random random = new Random();
+
+  private final Set<YBTransaction> runningTransactions =
+      ConcurrentHashMap.<YBTransaction>newKeySet();
+
+  // Guarded by this.
+  private YBTable statusTable;
+  private List<LocatedTablet> statusTablets;
+  private List<Deferred<Void>> statusTabletsWaiters;
+  private boolean heartbeatScheduled;
+
+  YBTransactionManager(AsyncYBClient client, long heartbeatIntervalMs) {
+    this.client = client;
+    this.heartbeatIntervalMs = heartbeatIntervalMs;
+  }
+
+  /**
+   * Begin a new transaction. The transaction is usable once it's registered on its status tablet.
+   * @param isolation the isolation level of the transaction
+   * @return a deferred object that yields the running transaction
+   */
+  public Deferred<YBTransaction> begin(final IsolationLevel isolation) {
+    client.checkIsClosed();
+    return loadStatusTablets().addCallbackDeferring(
+        new Callback<Deferred<YBTransaction>, Void>() {
+          @Override
+          public Deferred<YBTransaction> call(Void ignored) {
+            final YBTable table;
+            final LocatedTablet tablet;
+            synchronized (YBTransactionManager.this) {
+              table = statusTable;
+              tablet = statusTablets.get(random.nextInt(statusTablets.size()));
+            }
+            final YBTransaction transaction = new YBTransaction(
+                YBTransactionManager.this, table, tablet, isolation, random.nextLong(), now());
+            return transaction.create();
+          }
+        });
+  }
+
+  /**
+   * @return the number of transactions that are running, i.e. sending heartbeats
+   */
+  public int getNumRunningTransactions() {
+    return runningTransactions.size();
+  }
+
+  AsyncYBClient getClient() {
+    return client;
+  }
+
+  /**
+   * @return the current hybrid time as far as this client knows
+   */
+  long now() {
+    final long physical = HybridTimeUtil.clockTimestampToHTTimestamp(
+        System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    return Math.max(physical, client.getLastPropagatedTimestamp());
+  }
+
+  void onStarted(YBTransaction transaction) {
+    runningTransactions.add(transaction);
+    synchronized (this) {
+      if (heartbeatScheduled) {
+        return;
+      }
+      heartbeatScheduled = true;
+    }
+    client.newTimeout(new HeartbeatTask(), heartbeatIntervalMs);
+  }
+
+  void onFinished(YBTransaction transaction) {
+    runningTransactions.remove(transaction);
+  }
+
+  /**
+   * Opens the status table and locates its tablets the first time it's called, the next calls
+   * wait for the first one to be done.
+   */
+  private Deferred<Void> loadStatusTablets() {
+    final Deferred<Void> d = new Deferred<Void>();
+    synchronized (this) {
+      if (statusTablets != null) {
+        return Deferred.fromResult(null);
+      }
+      if (statusTabletsWaiters != null) {
+        statusTabletsWaiters.add(d);
+        return d;
+      }
+      statusTabletsWaiters = new ArrayList<Deferred<Void>>();
+      statusTabletsWaiters.add(d);
+    }
+    client.openTable(STATUS_TABLE_KEYSPACE, STATUS_TABLE_NAME).addCallbackDeferring(
+        new Callback<Deferred<List<LocatedTablet>>, YBTable>() {
+          @Override
+          public Deferred<List<LocatedTablet>> call(YBTable table) {
+            synchronized (YBTransactionManager.this) {
+              statusTable = table;
+            }
+            return client.locateTable(table.getTableId(), null, null,
+                                      client.getDefaultAdminOperationTimeoutMs());
+          }
+        }).addCallbacks(
+        new Callback<Void, List<LocatedTablet>>() {
+          @Override
+          public Void call(List<LocatedTablet> tablets) {
+            if (tablets.isEmpty()) {
+              completeStatusTablets(null, new NonRecoverableException(
+                  "The transaction status table has no tablets"));
+            } else {
+              completeStatusTablets(tablets, null);
+            }
+            return null;
+          }
+        },
+        new Callback<Void, Exception>() {
+          @Override
+          public Void call(Exception e) {
+            completeStatusTablets(null, e);
+            return null;
+          }
+        });
+    return d;
+  }
+
+  private void completeStatusTablets(List<LocatedTablet> tablets, Exception error) {
+    final List<Deferred<Void>> waiters;
+    synchronized (this) {
+      statusTablets = tablets;
+      waiters = statusTabletsWaiters;
+      statusTabletsWaiters = null;
+    }
+    for (Deferred<Void> waiter : waiters) {
+      if (error == null) {
+        waiter.callback(null);
+      } else {
+        waiter.callback(error);
+      }
+    }
+  }
+
+  /**
+   * Tells whether a failed heartbeat means the status tablet gave up on the transaction.
+   */
+  static boolean isExpired(Exception e) {
+    return e instanceof TabletServerErrorException &&
+        ((TabletServerErrorException) e).getTServerError() != null &&
+        ((TabletServerErrorException) e).getTServerError().getStatus().getCode() ==
+            WireProtocol.AppStatusPB.ErrorCode.EXPIRED;
+  }
+
+  /**
+   * Sends the heartbeats of all the running transactions, and reschedules itself as long as
+   * there are some.
+   */
+  private final class HeartbeatTask implements TimerTask {
+    @Override
+    public void run(Timeout timeout) {
+      int numSent = 0;
+      for (YBTransaction transaction : runningTransactions) {
+        if (transaction.sendHeartbeat()) {
+          numSent++;
+        }
+      }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Sent " + numSent + " transaction heartbeats");
+      }
+      synchronized (YBTransactionManager.this) {
+        if (runningTransactions.isEmpty() || client.isClosed()) {
+          heartbeatScheduled = false;
+          return;
+        }
+      }
+      client.newTimeout(this, heartbeatIntervalMs);
+    }
+  }
+
+  static Tserver.TransactionStatePB.Builder newState(YBTransaction transaction,
+                                                     TransactionStatus status) {
+    return Tserver.TransactionStatePB.newBuilder()
+        .setTransactionId(transaction.getIdAsByteString())
+        .setStatus(status);
+  }
+}
@@ -49,6 +49,7 @@ import org.yb.util.Pair;
 import org.yb.util.Slice;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.util.Timeout;
 
 import java.io.IOException;
 
@@ -116,6 +117,27 @@ public abstract class YRpc<R> {
   // tablet.
   private volatile boolean retrySameServer;
 
+  /**
+   * The timer task that will fail this RPC when its deadline expires while it's in flight, or
+   * {@code null} if no such task is armed. Set by {@link TabletClient} when the RPC is sent out,
+   * and cancelled once a response, a retry or a disconnection takes it out of flight.
+   */
+  private volatile Timeout timeoutTask;
+
+  /**
+   * The connection and call ID the latest attempt of this RPC was sent with, and when. Set by
+   * {@link TabletClient} when the RPC is encoded.
+   */
+  private volatile TabletClient sentTo;
+  private volatile int callId;
+  private volatile long sendTimeNanos;
+
+  /**
+   * Set once nobody is interested in the result of this RPC anymore. A cancelled RPC won't be
+   * retried or sent out again.
+   */
+  private volatile boolean cancelled;
+
   YRpc(YBTable table) {
     this.table = table;
     this.deadlineTracker = new DeadlineTracker();
@@ -172,6 +194,7 @@ public abstract class YRpc<R> {
     }
     deferred = null;
     attempt = 0;
+    cancelTimeoutTask();
     deadlineTracker.reset();
     d.callback(result);
   }
@@ -228,6 +251,55 @@ public abstract class YRpc<R> {
     deadlineTracker.setDeadline(timeout);
   }
 
+  void setTimeoutTask(Timeout timeoutTask) {
+    this.timeoutTask = timeoutTask;
+  }
+
+  void setSentTo(TabletClient client, int callId) {
+    this.sentTo = client;
+    this.callId = callId;
+    this.sendTimeNanos = System.nanoTime();
+  }
+
+  int getCallId() {
+    return callId;
+  }
+
+  /**
+   * @return nanoseconds elapsed since the latest attempt of this RPC was sent out
+   */
+  long getNanosSinceSent() {
+    return System.nanoTime() - sendTimeNanos;
+  }
+
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Gives up on this RPC: if it's currently waiting for a response it is failed right away,
+   * otherwise it will be failed the next time it would have been sent or retried.
+   */
+  void cancel() {
+    cancelled = true;
+    final TabletClient client = sentTo;
+    if (client != null) {
+      client.cancelRpc(this);
+    }
+  }
+
+  /**
+   * Cancels the deadline timer task for the current attempt, if any. Calling this more than once,
+   * or from the timer task itself, is harmless.
+   */
+  void cancelTimeoutTask() {
+    final Timeout task = timeoutTask;
+    if (task != null) {
+      timeoutTask = null;
+      task.cancel();
+    }
+  }
+
   public String toString() {
 
     final StringBuilder buf = new StringBuilder();
@@ -35,6 +35,8 @@ import com.stumbleupon.async.Callback;
 import com.stumbleupon.async.Deferred;
 import org.yb.annotations.InterfaceAudience;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Utility methods for various parts of async, such as Deferred.
  * TODO (KUDU-602): Some of these methods could eventually be contributed back to async or to a
@@ -44,22 +46,37 @@ import org.yb.annotations.InterfaceAudience;
 public class AsyncUtil {
 
   /**
-   * Register a callback and an "errback".
+   * Get a {@code CompletableFuture} that completes with the result of the given {@code Deferred}.
    * <p>
-   * This has the exact same effect as {@link Deferred#addCallbacks(Callback, Callback)}
-   * keeps the type information "correct" when the callback and errback return a
-   * {@code Deferred}.
-   * @param d The {@code Deferred} we want to add the callback and errback to.
-   * @param cb The callback to register.
-   * @param eb The errback to register.
-   * @return {@code d} with an "updated" type.
+   * Only one callback and one errback are added to {@code d}, so this is as cheap as it gets. Note
+   * that cancelling the returned future doesn't cancel the operation behind {@code d}.
+   * @param d The {@code Deferred} to follow.
+   * @return A future that completes normally or exceptionally like {@code d} does.
+   */
+  public static <T> CompletableFuture<T> toCompletableFuture(final Deferred<T> d) {
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    d.addCallbacks(new Callback<Void, T>() {
+      @Override
+      public Void call(T arg) {
+        future.complete(arg);
+        return null;
+      }
+    }, new Callback<Void, Exception>() {
+      @Override
+      public Void call(Exception e) {
+        future.completeExceptionally(e);
+        return null;
+      }
+    });
+    return future;
+  }
+
+  /**
+   * @return A future that has already failed with the given exception.
    */
-  @SuppressWarnings("unchecked")
-  public static <T, R, D extends Deferred<R>, E>
-  Deferred<R> addCallbacksDeferring(final Deferred<T> d,
-                                    final Callback<D, T> cb,
-                                    final Callback<D, E> eb) {
-    return d.addCallbacks((Callback<R, T>) ((Object) cb),
-                          (Callback<R, E>) ((Object) eb));
+  public static <T> CompletableFuture<T> failedFuture(final Throwable t) {
+    final CompletableFuture<T> future = new CompletableFuture<T>();
+    future.completeExceptionally(t);
+    return future;
   }
 }
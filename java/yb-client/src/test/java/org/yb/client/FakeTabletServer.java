@@ -0,0 +1,199 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Message;
+
+import org.yb.rpc.RpcHeader;
+
+/**
+ * A server that speaks the YB RPC protocol and hands every call to a handler, so that tests can
+ * script the answers of a tablet server without running one. Calls may be answered late, out of
+ * order or not at all.
+ */
+class FakeTabletServer implements AutoCloseable {
+
+  /**
+   * Decides what to do with each call the server receives. Called on the connection's thread.
+   */
+  interface Handler {
+    void handle(Call call) throws Exception;
+  }
+
+  /**
+   * A call received by the server.
+   */
+  static final class Call {
+    private final Connection connection;
+    private final RpcHeader.RequestHeader header;
+    private final ByteString body;
+
+    private Call(Connection connection, RpcHeader.RequestHeader header, ByteString body) {
+      this.connection = connection;
+      this.header = header;
+      this.body = body;
+    }
+
+    String getMethodName() {
+      return header.getRemoteMethod().getMethodName();
+    }
+
+    int getCallId() {
+      return header.getCallId();
+    }
+
+    /**
+     * @return the serialized request, to be parsed with the request's PB class
+     */
+    ByteString getBody() {
+      return body;
+    }
+
+    void respond(Message response) throws IOException {
+      connection.send(RpcHeader.ResponseHeader.newBuilder()
+          .setCallId(getCallId())
+          .setIsError(false)
+          .build(), response);
+    }
+
+    void respondError(RpcHeader.ErrorStatusPB.RpcErrorCodePB code) throws IOException {
+      connection.send(RpcHeader.ResponseHeader.newBuilder()
+          .setCallId(getCallId())
+          .setIsError(true)
+          .build(), RpcHeader.ErrorStatusPB.newBuilder()
+          .setMessage(code.toString())
+          .setCode(code)
+          .build());
+    }
+  }
+
+  private final ServerSocket serverSocket;
+  private final Handler handler;
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+  private final List<String> methods = new CopyOnWriteArrayList<>();
+
+  FakeTabletServer(Handler handler) throws IOException {
+    this.handler = handler;
+    this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        accept();
+      }
+    }, "FakeTabletServer acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  String getHost() {
+    return serverSocket.getInetAddress().getHostAddress();
+  }
+
+  int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * @return the methods of all the calls received so far, in order
+   */
+  List<String> getReceivedMethods() {
+    return new ArrayList<>(methods);
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Connection connection : connections) {
+      connection.socket.close();
+    }
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        return;
+      }
+      final Connection connection;
+      try {
+        connection = new Connection(socket);
+      } catch (IOException e) {
+        continue;
+      }
+      connections.add(connection);
+      Thread reader = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          connection.read();
+        }
+      }, "FakeTabletServer connection");
+      reader.setDaemon(true);
+      reader.start();
+    }
+  }
+
+  private final class Connection {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.in = new DataInputStream(socket.getInputStream());
+      this.out = new DataOutputStream(socket.getOutputStream());
+    }
+
+    void read() {
+      try {
+        // The "YB" magic and the protocol version.
+        in.readFully(new byte[3]);
+        while (true) {
+          final byte[] frame = new byte[in.readInt()];
+          in.readFully(frame);
+          final CodedInputStream frameIn = CodedInputStream.newInstance(frame);
+          final RpcHeader.RequestHeader header =
+              RpcHeader.RequestHeader.parseFrom(frameIn.readBytes());
+          final Call call = new Call(this, header, frameIn.readBytes());
+          methods.add(call.getMethodName());
+          handler.handle(call);
+        }
+      } catch (Exception e) {
+        // The client or the test closed the connection.
+      }
+    }
+
+    synchronized void send(RpcHeader.ResponseHeader header, Message body) throws IOException {
+      final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+      header.writeDelimitedTo(frame);
+      body.writeDelimitedTo(frame);
+      out.writeInt(frame.size());
+      frame.writeTo(out);
+      out.flush();
+    }
+  }
+}
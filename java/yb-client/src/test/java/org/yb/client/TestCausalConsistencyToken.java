@@ -0,0 +1,115 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.yb.YBTestRunner;
+import org.yb.util.HybridTimeUtil;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestCausalConsistencyToken {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    long hybridTime = HybridTimeUtil.clockTimestampToHTTimestamp(1500000000000L,
+                                                                 TimeUnit.MILLISECONDS) + 7;
+    CausalConsistencyToken token = CausalConsistencyToken.fromHybridTime(hybridTime);
+
+    assertEquals("1:1500000000000000:7", token.toString());
+    assertEquals(token, CausalConsistencyToken.fromString(token.toString()));
+    assertEquals(token, CausalConsistencyToken.fromBytes(token.toBytes()));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(token);
+    }
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(hybridTime, ((CausalConsistencyToken) in.readObject()).getHybridTime());
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    CausalConsistencyToken empty = CausalConsistencyToken.fromHybridTime(
+        AsyncYBClient.NO_TIMESTAMP);
+    assertTrue(empty.isEmpty());
+    assertSame(CausalConsistencyToken.EMPTY, CausalConsistencyToken.fromString(empty.toString()));
+    assertSame(CausalConsistencyToken.EMPTY, CausalConsistencyToken.fromBytes(empty.toBytes()));
+  }
+
+  @Test
+  public void testInvalid() {
+    for (String token : new String[] { "", "1:2", "2:1:0", "1:x:0", "1:5:4096" }) {
+      try {
+        CausalConsistencyToken.fromString(token);
+        fail("Parsing '" + token + "' should fail");
+      } catch (IllegalArgumentException e) {
+        // Expected.
+      }
+    }
+    try {
+      CausalConsistencyToken.fromBytes(new byte[3]);
+      fail("Parsing a truncated token should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testObserve() throws Exception {
+    AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:7100").build();
+    try {
+      assertTrue(client.getCausalConsistencyToken().isEmpty());
+      client.observeCausalConsistencyToken(CausalConsistencyToken.EMPTY);
+      assertEquals(AsyncYBClient.NO_TIMESTAMP, client.getLastPropagatedTimestamp());
+
+      client.observeCausalConsistencyToken(CausalConsistencyToken.fromHybridTime(100));
+      // An older token doesn't move the client back.
+      client.observeCausalConsistencyToken(CausalConsistencyToken.fromHybridTime(50));
+      assertEquals(100L, client.getCausalConsistencyToken().getHybridTime());
+
+      // Concurrent updates keep the max.
+      Thread[] threads = new Thread[4];
+      for (int i = 0; i < threads.length; i++) {
+        final int offset = i;
+        threads[i] = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            for (int ts = 0; ts < 10000; ts++) {
+              client.updateLastPropagatedTimestamp(ts * threads.length + offset);
+            }
+          }
+        });
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      assertEquals(10000L * threads.length - 1, client.getLastPropagatedTimestamp());
+    } finally {
+      client.shutdown().join();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import com.stumbleupon.async.Deferred;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.yb.YBTestRunner;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestConditionWaiter {
+
+  // The conditions below don't send any RPC, so the client never connects to this address.
+  private AsyncYBClient client;
+
+  @Before
+  public void setUp() {
+    client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1").build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.close();
+  }
+
+  @Test
+  public void testPollInterval() {
+    long previousMin = 0;
+    for (int numChecks = 1; numChecks < 100; numChecks++) {
+      long interval = client.getPollIntervalMs(numChecks);
+      long min = Math.min(AsyncYBClient.MIN_POLL_INTERVAL_MS << Math.min(numChecks - 1, 10),
+                          AsyncYBClient.SLEEP_TIME);
+      assertTrue(interval >= min);
+      assertTrue(interval <= min + min / 10);
+      assertTrue(min >= previousMin);
+      previousMin = min;
+    }
+    assertEquals((long) AsyncYBClient.SLEEP_TIME, previousMin);
+  }
+
+  @Test
+  public void testConditionBecomesTrue() throws Exception {
+    final AtomicInteger numChecks = new AtomicInteger();
+    Deferred<Boolean> d = client.waitForCondition(new AsyncYBClient.AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        return Deferred.fromResult(numChecks.incrementAndGet() == 4);
+      }
+    }, 10000);
+    assertTrue(d.join(10000));
+    assertEquals(4, numChecks.get());
+  }
+
+  @Test
+  public void testErrorsAreRetried() throws Exception {
+    final AtomicInteger numChecks = new AtomicInteger();
+    client.injectWaitError();
+    Deferred<Boolean> d = client.waitForCondition(new AsyncYBClient.AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() throws Exception {
+        if (numChecks.incrementAndGet() == 1) {
+          return Deferred.fromError(new NonRecoverableException("Not yet"));
+        }
+        return Deferred.fromResult(true);
+      }
+    }, 10000);
+    assertTrue(d.join(10000));
+    // The injected error doesn't call the condition.
+    assertEquals(2, numChecks.get());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    final AtomicInteger numChecks = new AtomicInteger();
+    Deferred<Boolean> d = client.waitForCondition(new AsyncYBClient.AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        numChecks.incrementAndGet();
+        return Deferred.fromResult(false);
+      }
+    }, 300);
+    assertFalse(d.join(10000));
+    // 20 + 40 + 80 + 160 ms, give or take the jitter.
+    assertTrue(numChecks.get() >= 2 && numChecks.get() <= 5);
+  }
+
+  @Test
+  public void testCheckOnce() throws Exception {
+    final AtomicInteger numChecks = new AtomicInteger();
+    Deferred<Boolean> d = client.waitForCondition(new AsyncYBClient.AsyncCondition() {
+      @Override
+      public Deferred<Boolean> check() {
+        numChecks.incrementAndGet();
+        return Deferred.fromResult(false);
+      }
+    }, 0);
+    assertFalse(d.join(10000));
+    assertEquals(1, numChecks.get());
+  }
+}
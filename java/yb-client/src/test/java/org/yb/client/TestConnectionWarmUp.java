@@ -0,0 +1,51 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import org.junit.Test;
+
+import org.yb.YBTestRunner;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestConnectionWarmUp {
+
+  @Test
+  public void testReadyWithoutWarmUp() throws Exception {
+    AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:7100").build();
+    try {
+      assertNull(client.whenReady().join(1));
+    } finally {
+      client.shutdown().join();
+    }
+  }
+
+  @Test
+  public void testReadyWithUnreachableCluster() throws Exception {
+    // Nothing listens on this port: the warm-up fails, but the client still becomes ready.
+    AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1")
+        .defaultAdminOperationTimeoutMs(500)
+        .warmUpTable("test_keyspace", "test_table")
+        .build();
+    try {
+      client.whenReady().join(30000);
+      // Every waiter gets its own Deferred, even after the warm-up is over.
+      assertNull(client.whenReady().join(1));
+    } finally {
+      client.shutdown().join();
+    }
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.ByteString;
+import com.stumbleupon.async.Deferred;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.yb.Common.HostPortPB;
+import org.yb.Common.PartitionPB;
+import org.yb.Common.TableType;
+import org.yb.Common.YBConsistencyLevel;
+import org.yb.YBTestRunner;
+import org.yb.consensus.Metadata.RaftPeerPB;
+import org.yb.master.Master.GetTableLocationsResponsePB;
+import org.yb.master.Master.TSInfoPB;
+import org.yb.master.Master.TabletLocationsPB;
+import org.yb.tserver.Tserver;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestHedgedReads {
+
+  private static final long TIMEOUT_MS = 30000;
+  private static final long PROPAGATED_HYBRID_TIME = 12345L << 12;
+  private static final long LEADER_LATENCY_MS = 100;
+
+  // The calls each server got, answered by the tests.
+  private final BlockingQueue<FakeTabletServer.Call> leaderCalls = new LinkedBlockingQueue<>();
+  private final BlockingQueue<FakeTabletServer.Call> followerCalls = new LinkedBlockingQueue<>();
+
+  private FakeTabletServer leader;
+  private FakeTabletServer follower;
+  private AsyncYBClient client;
+  private YBTable table;
+
+  private static FakeTabletServer queueingServer(final BlockingQueue<FakeTabletServer.Call> calls)
+      throws Exception {
+    return new FakeTabletServer(new FakeTabletServer.Handler() {
+      @Override
+      public void handle(FakeTabletServer.Call call) {
+        calls.add(call);
+      }
+    });
+  }
+
+  private static TabletLocationsPB.ReplicaPB replica(String uuid, FakeTabletServer server,
+                                                     RaftPeerPB.Role role) {
+    return TabletLocationsPB.ReplicaPB.newBuilder()
+        .setRole(role)
+        .setTsInfo(TSInfoPB.newBuilder()
+            .setPermanentUuid(ByteString.copyFromUtf8(uuid))
+            .addPrivateRpcAddresses(HostPortPB.newBuilder()
+                .setHost(server.getHost())
+                .setPort(server.getPort())))
+        .build();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    leader = queueingServer(leaderCalls);
+    follower = queueingServer(followerCalls);
+    client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1")
+        .hedgedReadsPercentile(50)
+        .maxHedgedReadsRatio(1)
+        .build();
+    table = new YBTable(client, "table", "table_id", null, null, TableType.YQL_TABLE_TYPE,
+                        "keyspace");
+    // A single tablet, so that the client doesn't need a master to find it.
+    client.discoverTablets(table, GetTableLocationsResponsePB.newBuilder()
+        .addTabletLocations(TabletLocationsPB.newBuilder()
+            .setTabletId(ByteString.copyFromUtf8("tablet"))
+            .setStale(false)
+            .setPartition(PartitionPB.newBuilder()
+                .setPartitionKeyStart(ByteString.EMPTY)
+                .setPartitionKeyEnd(ByteString.EMPTY))
+            .addReplicas(replica("leader", leader, RaftPeerPB.Role.LEADER))
+            .addReplicas(replica("follower", follower, RaftPeerPB.Role.FOLLOWER)))
+        .build());
+    client.updateLastPropagatedTimestamp(PROPAGATED_HYBRID_TIME);
+
+    // Enough reads for the client to know how fast the leader usually is. The leader takes a
+    // while, which gives the tests time to act before a read gets hedged.
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      Deferred<ReadResponse> d = read();
+      FakeTabletServer.Call call = nextCall(leaderCalls);
+      Thread.sleep(LEADER_LATENCY_MS);
+      answer(call);
+      assertEquals("leader", d.join(TIMEOUT_MS).getTsUUID());
+    }
+    assertEquals(0, client.getHedgedReads().getNumHedgedReads());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (client != null) {
+      client.shutdown().join();
+    }
+    if (leader != null) {
+      leader.close();
+    }
+    if (follower != null) {
+      follower.close();
+    }
+  }
+
+  private Deferred<ReadResponse> read() {
+    return client.read(table, null, Tserver.ReadRequestPB.newBuilder()
+        .setConsistencyLevel(YBConsistencyLevel.CONSISTENT_PREFIX));
+  }
+
+  private static FakeTabletServer.Call nextCall(BlockingQueue<FakeTabletServer.Call> calls)
+      throws Exception {
+    FakeTabletServer.Call call = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertNotNull("No call received", call);
+    return call;
+  }
+
+  private static Tserver.ReadRequestPB answer(BlockingQueue<FakeTabletServer.Call> calls)
+      throws Exception {
+    return answer(nextCall(calls));
+  }
+
+  private static Tserver.ReadRequestPB answer(FakeTabletServer.Call call) throws Exception {
+    call.respond(Tserver.ReadResponsePB.getDefaultInstance());
+    return Tserver.ReadRequestPB.parseFrom(call.getBody());
+  }
+
+  private void waitForLateResponses(long expected) throws Exception {
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (client.getNumLateResponses() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, client.getNumLateResponses());
+  }
+
+  @Test(timeout = 120000)
+  public void testHedgeWins() throws Exception {
+    Deferred<ReadResponse> d = read();
+    // The leader sits on the read, so the timer goes off and the read goes to the follower too.
+    FakeTabletServer.Call leaderCall = nextCall(leaderCalls);
+    assertEquals(PROPAGATED_HYBRID_TIME,
+                 Tserver.ReadRequestPB.parseFrom(leaderCall.getBody()).getPropagatedHybridTime());
+    // The client hears of a later hybrid time before the read gets hedged.
+    final long laterHybridTime = PROPAGATED_HYBRID_TIME + (1L << 12);
+    client.updateLastPropagatedTimestamp(laterHybridTime);
+    Tserver.ReadRequestPB hedge = answer(followerCalls);
+    ReadResponse response = d.join(TIMEOUT_MS);
+    assertEquals("follower", response.getTsUUID());
+    // The copy carries the latest hybrid time this client saw, like a retry of the read would.
+    assertEquals(laterHybridTime, hedge.getPropagatedHybridTime());
+
+    // The leader's answer shows up after the read completed, it's dropped.
+    answer(leaderCall);
+    waitForLateResponses(1);
+    HedgedReads hedgedReads = client.getHedgedReads();
+    assertEquals(1, hedgedReads.getNumHedgedReads());
+    assertEquals(1, hedgedReads.getNumHedgedReadWins());
+    assertEquals(LatencyTracker.MIN_SAMPLES + 1, hedgedReads.getNumReads());
+  }
+
+  @Test(timeout = 120000)
+  public void testPrimaryWins() throws Exception {
+    Deferred<ReadResponse> d = read();
+    FakeTabletServer.Call leaderCall = nextCall(leaderCalls);
+    FakeTabletServer.Call followerCall = nextCall(followerCalls);
+    // The leader answers first, even though the read was hedged.
+    answer(leaderCall);
+    assertEquals("leader", d.join(TIMEOUT_MS).getTsUUID());
+
+    answer(followerCall);
+    waitForLateResponses(1);
+    HedgedReads hedgedReads = client.getHedgedReads();
+    assertEquals(1, hedgedReads.getNumHedgedReads());
+    assertEquals(0, hedgedReads.getNumHedgedReadWins());
+  }
+}
@@ -31,6 +31,7 @@
 //
 package org.yb.client;
 
+import static org.yb.AssertionWrappers.assertArrayEquals;
 import static org.yb.AssertionWrappers.assertEquals;
 import static org.yb.AssertionWrappers.assertTrue;
 
@@ -141,4 +142,17 @@ public class TestKeyEncoding {
                           'c'                   // b = "c"
                       });
   }
+
+  @Test
+  public void testMultiColumnHashValueEncoding() {
+    assertArrayEquals(new byte[] { 0, 0 }, PartitionSchema.encodeMultiColumnHashValue(0));
+    assertArrayEquals(new byte[] { (byte) 0xff, (byte) 0xff },
+                      PartitionSchema.encodeMultiColumnHashValue(0xffff));
+    for (int hashCode : new int[] { 0, 1, 0x7f, 0x80, 0x1234, 0x8000, 0xffff }) {
+      assertEquals(hashCode, PartitionSchema.decodeMultiColumnHashValue(
+          PartitionSchema.encodeMultiColumnHashValue(hashCode)));
+    }
+    // The first tablet starts with an empty partition key.
+    assertEquals(0, PartitionSchema.decodeMultiColumnHashValue(new byte[0]));
+  }
 }
@@ -0,0 +1,51 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import org.junit.Test;
+
+import org.yb.YBTestRunner;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestLatencyTracker {
+
+  @Test
+  public void testPercentile() {
+    LatencyTracker tracker = new LatencyTracker(90);
+
+    // Not enough samples to say anything yet.
+    for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+      tracker.record(i * 1000L);
+    }
+    assertEquals(-1L, tracker.getPercentileMicros());
+
+    // 1..32 microseconds, the 90th percentile is the 29th sample.
+    tracker.record(LatencyTracker.MIN_SAMPLES * 1000L);
+    assertEquals(29L, tracker.getPercentileMicros());
+
+    // Once the oldest samples fall out of the window, only the recent ones count.
+    for (int i = 0; i < LatencyTracker.NUM_SAMPLES; i++) {
+      tracker.record(5000000L);
+    }
+    assertEquals(5000L, tracker.getPercentileMicros());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new LatencyTracker(0);
+  }
+}
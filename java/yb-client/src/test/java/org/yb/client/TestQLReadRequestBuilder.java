@@ -0,0 +1,144 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.yb.ColumnSchema;
+import org.yb.Common.DataType;
+import org.yb.Common.TableType;
+import org.yb.QlProtocol.QLConditionPB;
+import org.yb.QlProtocol.QLOperator;
+import org.yb.QlProtocol.QLReadRequestPB;
+import org.yb.Schema;
+import org.yb.Type;
+import org.yb.YBTestRunner;
+import org.yb.util.Slice;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestQLReadRequestBuilder {
+
+  private static YBTable newTable() {
+    List<ColumnSchema> columns = new ArrayList<>();
+    columns.add(new ColumnSchema.ColumnSchemaBuilder("h", Type.INT32).id(10).hashKey(true)
+        .build());
+    columns.add(new ColumnSchema.ColumnSchemaBuilder("r", Type.STRING).id(11)
+        .rangeKey(true, ColumnSchema.SortOrder.ASC).build());
+    columns.add(new ColumnSchema.ColumnSchemaBuilder("v", Type.INT64).id(12).nullable(true)
+        .build());
+    Schema schema = new Schema(columns, Arrays.asList(10, 11, 12), Schema.defaultTTL);
+    return new YBTable(null, "t", "id", schema, null, TableType.YQL_TABLE_TYPE, "ks", 3);
+  }
+
+  @Test
+  public void testSelectWithPredicates() {
+    YBTable table = newTable();
+    Schema schema = table.getSchema();
+    QLReadRequestPB request = new QLReadRequestBuilder(table)
+        .select("r", "v")
+        .where(QLPredicate.newRangePredicate(schema.getColumn("r"), "a", "m"))
+        .where(QLPredicate.newInListPredicate(schema.getColumn("v"), Arrays.asList(1, 2, 3)))
+        .build()
+        .build();
+
+    assertEquals(3, request.getSchemaVersion());
+    assertFalse(request.getIsAggregate());
+    assertEquals(2, request.getSelectedExprsCount());
+    assertEquals(11, request.getSelectedExprs(0).getColumnId());
+    assertEquals(DataType.INT64, request.getRsrowDesc().getRscolDescs(1).getQlType().getMain());
+    assertEquals(Arrays.asList(11, 12), request.getColumnRefs().getIdsList());
+
+    // Both predicates are ANDed, the range being an AND of two comparisons itself.
+    QLConditionPB where = request.getWhereExpr().getCondition();
+    assertEquals(QLOperator.QL_OP_AND, where.getOp());
+    assertEquals(2, where.getOperandsCount());
+    QLConditionPB range = where.getOperands(0).getCondition();
+    assertEquals(QLOperator.QL_OP_AND, range.getOp());
+    assertEquals(QLOperator.QL_OP_GREATER_THAN_EQUAL, range.getOperands(0).getCondition().getOp());
+    assertEquals("m", range.getOperands(1).getCondition().getOperands(1).getValue()
+        .getStringValue());
+    QLConditionPB in = where.getOperands(1).getCondition();
+    assertEquals(QLOperator.QL_OP_IN, in.getOp());
+    assertEquals(3, in.getOperands(1).getValue().getListValue().getElemsCount());
+    // The values take the type of the column.
+    assertEquals(2L, in.getOperands(1).getValue().getListValue().getElems(1).getInt64Value());
+  }
+
+  @Test
+  public void testAggregates() {
+    YBTable table = newTable();
+    Schema schema = table.getSchema();
+    QLReadRequestBuilder builder = new QLReadRequestBuilder(table)
+        .aggregate(QLAggregate.count(), QLAggregate.sum(schema.getColumn("v")),
+                   QLAggregate.max(schema.getColumn("r")));
+    QLReadRequestPB request = builder.build().build();
+
+    assertTrue(request.getIsAggregate());
+    assertEquals(3, request.getSelectedExprsCount());
+    // The opcode of COUNT in the tablet server builtin calls.
+    assertEquals(4, request.getSelectedExprs(0).getTscall().getOpcode());
+    assertEquals(Arrays.asList(DataType.INT64, DataType.INT64, DataType.STRING),
+                 builder.getResultTypes());
+    assertEquals(Arrays.asList(11, 12), request.getColumnRefs().getIdsList());
+
+    try {
+      builder.select("v");
+      fail("Selecting columns along with aggregates should fail");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testMergeAggregates() {
+    Schema schema = newTable().getSchema();
+    QLAggregate count = QLAggregate.count();
+    QLAggregate sum = QLAggregate.sum(schema.getColumn("v"));
+    QLAggregate min = QLAggregate.min(schema.getColumn("r"));
+
+    assertEquals(7L, count.merge(3L, 4L));
+    assertEquals(0L, count.finish(null));
+    assertEquals(5L, sum.merge(null, 5L));
+    assertNull(sum.finish(sum.merge(null, null)));
+    assertEquals(-1L, sum.merge(2L, -3L));
+    assertEquals("a", min.merge("b", "a"));
+    assertEquals("a", min.merge("a", null));
+  }
+
+  @Test
+  public void testDecodeRows() {
+    // Two rows of (bigint, text), the second one with a NULL text.
+    ByteBuffer buf = ByteBuffer.allocate(64);
+    buf.putInt(2);
+    buf.putInt(8).putLong(42L).putInt(3).put("abc".getBytes());
+    buf.putInt(8).putLong(-1L).putInt(-1);
+    byte[] data = Arrays.copyOf(buf.array(), buf.position());
+
+    List<Object[]> rows = QLValues.decodeRows(Arrays.asList(DataType.INT64, DataType.STRING),
+                                              new Slice(data));
+    assertEquals(2, rows.size());
+    assertEquals(42L, rows.get(0)[0]);
+    assertEquals("abc", rows.get(0)[1]);
+    assertEquals(-1L, rows.get(1)[0]);
+    assertNull(rows.get(1)[1]);
+  }
+}
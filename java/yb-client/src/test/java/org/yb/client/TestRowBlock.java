@@ -0,0 +1,91 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.yb.Common.DataType;
+import org.yb.YBTestRunner;
+import org.yb.util.Slice;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestRowBlock {
+
+  // Rows of (int, double, text, boolean), in the CQL wire format, starting at some offset to make
+  // sure offsets in the data are handled.
+  private static Slice newRowsData(int numRows) {
+    ByteBuffer buf = ByteBuffer.allocate(16 + numRows * 64);
+    buf.put(new byte[] { 1, 2, 3 });
+    buf.putInt(numRows);
+    for (int i = 0; i < numRows; i++) {
+      buf.putInt(4).putInt(i * 10);
+      if (i % 3 == 0) {
+        buf.putInt(-1);
+      } else {
+        buf.putInt(8).putDouble(i / 2.0);
+      }
+      byte[] s = ("row" + i).getBytes(StandardCharsets.UTF_8);
+      buf.putInt(s.length).put(s);
+      buf.putInt(1).put((byte) (i % 2));
+    }
+    return new Slice(buf.array(), 3, buf.position() - 3);
+  }
+
+  @Test
+  public void testDecode() {
+    final int numRows = 100;
+    RowBlock block = RowBlock.decode(
+        Arrays.asList(DataType.INT32, DataType.DOUBLE, DataType.STRING, DataType.BOOL),
+        newRowsData(numRows));
+
+    assertEquals(numRows, block.getNumRows());
+    assertEquals(4, block.getNumColumns());
+    assertEquals(DataType.STRING, block.getColumnType(2));
+    long[] ints = block.getLongs(0);
+    for (int i = 0; i < numRows; i++) {
+      assertEquals(i * 10L, ints[i]);
+      assertEquals(i % 3 == 0, block.isNull(1, i));
+      assertEquals(i % 3 == 0 ? 0.0 : i / 2.0, block.getDouble(1, i), 0.0);
+      assertEquals("row" + i, block.getString(2, i));
+      assertEquals(i % 2 == 1, block.getBoolean(3, i));
+      assertFalse(block.isNull(2, i));
+    }
+  }
+
+  @Test
+  public void testWrongAccessors() {
+    RowBlock block = RowBlock.decode(
+        Arrays.asList(DataType.INT32, DataType.DOUBLE, DataType.STRING, DataType.BOOL),
+        newRowsData(2));
+    try {
+      block.getLong(2, 0);
+      fail("Reading a string as a long should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    try {
+      block.getLong(0, 2);
+      fail("Reading past the last row should fail");
+    } catch (IndexOutOfBoundsException e) {
+      // Expected.
+    }
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.stumbleupon.async.Deferred;
+import org.junit.Test;
+
+import org.yb.YBTestRunner;
+import org.yb.tserver.TserverService.ChecksumResponsePB;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestRpcDeadline {
+
+  private static final long TIMEOUT_MS = 30000;
+
+  private static Deferred<ChecksumResponse> sendChecksum(TabletClient tabletClient,
+                                                         long timeoutMs) {
+    ChecksumRequest rpc = new ChecksumRequest("tablet".getBytes(StandardCharsets.UTF_8));
+    rpc.setTimeoutMillis(timeoutMs);
+    rpc.setRetrySameServer(true);
+    Deferred<ChecksumResponse> d = rpc.getDeferred();
+    rpc.attempt++;
+    tabletClient.sendRpc(rpc);
+    return d;
+  }
+
+  @Test(timeout = 60000)
+  public void testLateResponseIsDropped() throws Exception {
+    // Holds on to the calls until the test answers them.
+    final BlockingQueue<FakeTabletServer.Call> calls = new LinkedBlockingQueue<>();
+    try (FakeTabletServer server = new FakeTabletServer(new FakeTabletServer.Handler() {
+      @Override
+      public void handle(FakeTabletServer.Call call) {
+        calls.add(call);
+      }
+    })) {
+      AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1").build();
+      try {
+        TabletClient tabletClient =
+            client.newClient("ts1", server.getHost(), server.getPort());
+
+        // The RPC fails at its deadline, while the server still holds the call.
+        final long timeoutMs = 500;
+        final long start = System.nanoTime();
+        Deferred<ChecksumResponse> d = sendChecksum(tabletClient, timeoutMs);
+        FakeTabletServer.Call call = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(call);
+        try {
+          d.join(TIMEOUT_MS);
+          fail("The RPC should have timed out");
+        } catch (NonRecoverableException e) {
+          assertTrue(e.getMessage(), e.getMessage().contains("Time out"));
+        }
+        final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Timed out after " + elapsedMs + "ms", elapsedMs >= timeoutMs);
+        assertTrue("Timed out after " + elapsedMs + "ms", elapsedMs < timeoutMs + 5000);
+        assertEquals(1, client.getNumTimedOutRpcs());
+        assertEquals(0, client.getNumLateResponses());
+
+        // The response that shows up afterwards is dropped, and the connection stays usable.
+        call.respond(ChecksumResponsePB.newBuilder().setChecksum(1).build());
+        Deferred<ChecksumResponse> d2 = sendChecksum(tabletClient, TIMEOUT_MS);
+        FakeTabletServer.Call call2 = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        call2.respond(ChecksumResponsePB.newBuilder().setChecksum(2).build());
+        assertEquals(2, d2.join(TIMEOUT_MS).getChecksum());
+        // Responses are read in order, the late one was handled before the second one.
+        assertEquals(1, client.getNumLateResponses());
+        assertEquals(1, client.getNumTimedOutRpcs());
+        assertTrue(tabletClient.isAlive());
+      } finally {
+        client.shutdown().join();
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import org.yb.Common.TableType;
+import org.yb.WireProtocol.NodeInstancePB;
+import org.yb.YBTestRunner;
+import org.yb.consensus.Metadata.RaftPeerPB;
+import org.yb.master.Master.AlterTableResponsePB;
+import org.yb.master.Master.GetMasterRegistrationResponsePB;
+import org.yb.master.Master.GetTableSchemaResponsePB;
+import org.yb.master.Master.IsAlterTableDoneResponsePB;
+import org.yb.master.Master.NamespaceIdentifierPB;
+import org.yb.master.Master.TableIdentifierPB;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestTableCache {
+
+  private static final long TIMEOUT_MS = 30000;
+
+  private static YBTable newTable(String keyspace, String name, String tableId, int version) {
+    return new YBTable(null, name, tableId, null, null, TableType.YQL_TABLE_TYPE, keyspace,
+                       version);
+  }
+
+  @Test
+  public void testLookups() {
+    TableCache cache = new TableCache(10);
+    YBTable table = newTable("ks", "t", "id1", 1);
+    cache.put("ks", "t", table);
+    assertSame(table, cache.get("ks", "t"));
+    assertSame(table, cache.getById("id1"));
+    assertNull(cache.get("ks", "other"));
+    assertNull(cache.get("other", "t"));
+
+    // Opened by id, only the table's own keyspace and name lead to it.
+    YBTable table2 = newTable("ks", "t2", "id2", 1);
+    cache.put(null, null, table2);
+    assertSame(table2, cache.get("ks", "t2"));
+
+    // Opened without a keyspace, it can be found both ways.
+    YBTable table3 = newTable("ks", "t3", "id3", 1);
+    cache.put(null, "t3", table3);
+    assertSame(table3, cache.get(null, "t3"));
+    assertSame(table3, cache.get("ks", "t3"));
+  }
+
+  @Test
+  public void testLruEviction() {
+    TableCache cache = new TableCache(2);
+    cache.put("ks", "t1", newTable("ks", "t1", "id1", 1));
+    cache.put("ks", "t2", newTable("ks", "t2", "id2", 1));
+    // Touch t1 so that t2 is the least recently used one.
+    assertNotNull(cache.get("ks", "t1"));
+    cache.put("ks", "t3", newTable("ks", "t3", "id3", 1));
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get("ks", "t1"));
+    assertNull(cache.get("ks", "t2"));
+    assertNull(cache.getById("id2"));
+    assertNotNull(cache.get("ks", "t3"));
+  }
+
+  @Test
+  public void testSchemaVersions() {
+    TableCache cache = new TableCache(10);
+    YBTable v2 = newTable("ks", "t", "id1", 2);
+    cache.put("ks", "t", v2);
+
+    // An older schema doesn't replace a newer one.
+    cache.put("ks", "t", newTable("ks", "t", "id1", 1));
+    assertSame(v2, cache.get("ks", "t"));
+
+    // Seeing the same version keeps the table, seeing a newer one drops it.
+    cache.onSchemaVersion("id1", 2);
+    assertSame(v2, cache.get("ks", "t"));
+    cache.onSchemaVersion("id1", 3);
+    assertNull(cache.get("ks", "t"));
+    assertNull(cache.getById("id1"));
+  }
+
+  @Test
+  public void testInvalidation() {
+    TableCache cache = new TableCache(10);
+    cache.put("ks", "t", newTable("ks", "t", "id1", 1));
+    cache.invalidate("ks", "t");
+    assertNull(cache.getById("id1"));
+    assertEquals(0, cache.size());
+
+    // A table recreated with the same name replaces the old one.
+    cache.put("ks", "t", newTable("ks", "t", "id1", 1));
+    YBTable recreated = newTable("ks", "t", "id2", 0);
+    cache.put("ks", "t", recreated);
+    assertSame(recreated, cache.get("ks", "t"));
+    assertNull(cache.getById("id1"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test(timeout = 60000)
+  public void testOpenDuringAlter() throws Exception {
+    // A master leader whose alter of the table completes when the test says so.
+    final AtomicBoolean altered = new AtomicBoolean();
+    try (FakeTabletServer master = new FakeTabletServer(new FakeTabletServer.Handler() {
+      @Override
+      public void handle(FakeTabletServer.Call call) throws Exception {
+        switch (call.getMethodName()) {
+          case "GetMasterRegistration":
+            call.respond(GetMasterRegistrationResponsePB.newBuilder()
+                .setInstanceId(NodeInstancePB.newBuilder()
+                    .setPermanentUuid(ByteString.copyFromUtf8("master"))
+                    .setInstanceSeqno(1))
+                .setRole(RaftPeerPB.Role.LEADER)
+                .build());
+            break;
+          case "GetTableSchema":
+            call.respond(GetTableSchemaResponsePB.newBuilder()
+                .setVersion(altered.get() ? 2 : 1)
+                .setCreateTableDone(true)
+                .setTableType(TableType.YQL_TABLE_TYPE)
+                .setIdentifier(TableIdentifierPB.newBuilder()
+                    .setTableId(ByteString.copyFromUtf8("id1"))
+                    .setTableName("t")
+                    .setNamespace(NamespaceIdentifierPB.newBuilder().setName("ks")))
+                .build());
+            break;
+          case "AlterTable":
+            call.respond(AlterTableResponsePB.getDefaultInstance());
+            break;
+          case "IsAlterTableDone":
+            call.respond(IsAlterTableDoneResponsePB.newBuilder().setDone(altered.get()).build());
+            break;
+          default:
+            fail("Unexpected call " + call.getMethodName());
+        }
+      }
+    })) {
+      AsyncYBClient client =
+          new AsyncYBClient.AsyncYBClientBuilder(master.getHost() + ":" + master.getPort())
+              .tableCacheSize(10)
+              .build();
+      try {
+        client.alterTable("ks", "t", new AlterTableOptions()).join(TIMEOUT_MS);
+        // The master accepted the alter but is still applying it, the old schema gets cached.
+        assertEquals(1, client.openTable("ks", "t").join(TIMEOUT_MS).getSchemaVersion());
+        assertFalse(client.isAlterTableDone("ks", "t").join(TIMEOUT_MS).isDone());
+        assertEquals(1, client.openTable("ks", "t").join(TIMEOUT_MS).getSchemaVersion());
+
+        // Once the alter is seen complete, the table is opened again with its new schema.
+        altered.set(true);
+        assertTrue(client.waitForAlterTableDone("ks", "t", TIMEOUT_MS).join(TIMEOUT_MS));
+        assertEquals(2, client.openTable("ks", "t").join(TIMEOUT_MS).getSchemaVersion());
+        assertEquals(2, client.openTable("ks", "t").join(TIMEOUT_MS).getSchemaVersion());
+      } finally {
+        client.shutdown().join();
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.yb.YBTestRunner;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestTableVerificationResult {
+
+  @Test
+  public void testConsistent() {
+    TableVerificationResult.TabletChecksums tablet =
+        new TableVerificationResult.TabletChecksums("tablet1");
+    tablet.addChecksum("ts1", 42);
+    tablet.addChecksum("ts2", 42);
+    tablet.addChecksum("ts3", 42);
+    TableVerificationResult result = new TableVerificationResult("table", Arrays.asList(tablet));
+    assertFalse(tablet.isDivergent());
+    assertTrue(result.isConsistent());
+    assertTrue(result.getDivergentTablets().isEmpty());
+    assertTrue(result.getFailedTablets().isEmpty());
+  }
+
+  @Test
+  public void testDivergentAndFailed() {
+    TableVerificationResult.TabletChecksums divergent =
+        new TableVerificationResult.TabletChecksums("tablet1");
+    divergent.addChecksum("ts1", 42);
+    divergent.addChecksum("ts2", 43);
+    TableVerificationResult.TabletChecksums failed =
+        new TableVerificationResult.TabletChecksums("tablet2");
+    failed.addChecksum("ts1", 7);
+    failed.addError("ts2", "tablet not found");
+    TableVerificationResult result =
+        new TableVerificationResult("table", Arrays.asList(divergent, failed));
+
+    assertFalse(result.isConsistent());
+    assertEquals(Arrays.asList(divergent), result.getDivergentTablets());
+    assertEquals(Arrays.asList(failed), result.getFailedTablets());
+    // A single checksum can't diverge, the tablet is reported as failed only.
+    assertFalse(failed.isDivergent());
+    assertEquals("tablet tablet1: ts1=2a ts2=2b", divergent.toString());
+    assertTrue(result.toString().contains("ts2 failed: tablet not found"));
+  }
+}
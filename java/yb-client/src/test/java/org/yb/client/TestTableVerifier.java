@@ -0,0 +1,196 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import org.yb.Common.HostPortPB;
+import org.yb.Common.PartitionPB;
+import org.yb.WireProtocol.AppStatusPB;
+import org.yb.YBTestRunner;
+import org.yb.consensus.Metadata.RaftPeerPB;
+import org.yb.master.Master.TSInfoPB;
+import org.yb.master.Master.TabletLocationsPB;
+import org.yb.rpc.RpcHeader.ErrorStatusPB.RpcErrorCodePB;
+import org.yb.tserver.Tserver.TabletServerErrorPB;
+import org.yb.tserver.TserverService.ChecksumResponsePB;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestTableVerifier {
+
+  private static final long TIMEOUT_MS = 30000;
+
+  private static LocatedTablet newTablet(String tabletId, FakeTabletServer... servers) {
+    TabletLocationsPB.Builder pb = TabletLocationsPB.newBuilder()
+        .setTabletId(ByteString.copyFromUtf8(tabletId))
+        .setStale(false)
+        .setPartition(PartitionPB.newBuilder()
+            .setPartitionKeyStart(ByteString.EMPTY)
+            .setPartitionKeyEnd(ByteString.EMPTY));
+    for (FakeTabletServer server : servers) {
+      pb.addReplicas(TabletLocationsPB.ReplicaPB.newBuilder()
+          .setRole(RaftPeerPB.Role.FOLLOWER)
+          .setTsInfo(TSInfoPB.newBuilder()
+              .setPermanentUuid(ByteString.copyFromUtf8(uuid(server)))
+              .addPrivateRpcAddresses(HostPortPB.newBuilder()
+                  .setHost(server.getHost())
+                  .setPort(server.getPort()))));
+    }
+    return new LocatedTablet(pb.build());
+  }
+
+  private static String uuid(FakeTabletServer server) {
+    return "ts-" + server.getPort();
+  }
+
+  private static FakeTabletServer checksumServer(final long checksum) throws Exception {
+    return new FakeTabletServer(new FakeTabletServer.Handler() {
+      @Override
+      public void handle(FakeTabletServer.Call call) throws Exception {
+        call.respond(ChecksumResponsePB.newBuilder().setChecksum(checksum).build());
+      }
+    });
+  }
+
+  @Test(timeout = 60000)
+  public void testVerify() throws Exception {
+    // Too busy for the first two calls, then answers.
+    final AtomicInteger numCalls = new AtomicInteger();
+    try (FakeTabletServer ts1 = checksumServer(42);
+         FakeTabletServer ts2 = new FakeTabletServer(new FakeTabletServer.Handler() {
+           @Override
+           public void handle(FakeTabletServer.Call call) throws Exception {
+             if (numCalls.incrementAndGet() <= 2) {
+               call.respondError(RpcErrorCodePB.ERROR_SERVER_TOO_BUSY);
+             } else {
+               call.respond(ChecksumResponsePB.newBuilder().setChecksum(42).build());
+             }
+           }
+         });
+         FakeTabletServer ts3 = new FakeTabletServer(new FakeTabletServer.Handler() {
+           @Override
+           public void handle(FakeTabletServer.Call call) throws Exception {
+             call.respond(ChecksumResponsePB.newBuilder()
+                 .setError(TabletServerErrorPB.newBuilder()
+                     .setCode(TabletServerErrorPB.Code.TABLET_NOT_FOUND)
+                     .setStatus(AppStatusPB.newBuilder()
+                         .setCode(AppStatusPB.ErrorCode.NOT_FOUND)
+                         .setMessage("tablet not found")))
+                 .build());
+           }
+         });
+         FakeTabletServer ts4 = checksumServer(43)) {
+      AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1").build();
+      try {
+        // Divergent tablets aren't checksummed again, see testRecheck.
+        TableVerifier verifier = new TableVerifier(client, 1, TIMEOUT_MS, 0, 0);
+        TableVerificationResult result = verifier.verify("table", Arrays.asList(
+            newTablet("tablet1", ts1, ts2),
+            newTablet("tablet2", ts1, ts3),
+            newTablet("tablet3", ts1, ts4))).join(TIMEOUT_MS);
+
+        assertEquals(3, result.getTablets().size());
+        // The busy replica was asked again until it answered.
+        TableVerificationResult.TabletChecksums tablet1 = result.getTablets().get(0);
+        assertEquals(3, numCalls.get());
+        assertEquals(Long.valueOf(42), tablet1.getChecksums().get(uuid(ts2)));
+        assertFalse(tablet1.isDivergent());
+        assertTrue(tablet1.getErrors().isEmpty());
+
+        TableVerificationResult.TabletChecksums tablet2 = result.getTablets().get(1);
+        assertEquals("tablet not found", tablet2.getErrors().get(uuid(ts3)));
+
+        TableVerificationResult.TabletChecksums tablet3 = result.getTablets().get(2);
+        assertTrue(tablet3.isDivergent());
+
+        assertFalse(result.isConsistent());
+        assertEquals(Arrays.asList(tablet3), result.getDivergentTablets());
+        assertEquals(Arrays.asList(tablet2), result.getFailedTablets());
+        // The replicas of the same server were checksummed one at a time, all of them were.
+        assertEquals(3, ts1.getReceivedMethods().size());
+      } finally {
+        client.shutdown().join();
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testRecheck() throws Exception {
+    // Lags behind for its first two checksums, then catches up.
+    final AtomicInteger numLaggingCalls = new AtomicInteger();
+    try (FakeTabletServer ts1 = checksumServer(42);
+         FakeTabletServer ts2 = new FakeTabletServer(new FakeTabletServer.Handler() {
+           @Override
+           public void handle(FakeTabletServer.Call call) throws Exception {
+             long checksum = numLaggingCalls.incrementAndGet() <= 2 ? 41 : 42;
+             call.respond(ChecksumResponsePB.newBuilder().setChecksum(checksum).build());
+           }
+         });
+         FakeTabletServer ts3 = checksumServer(43)) {
+      AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1").build();
+      try {
+        TableVerifier verifier = new TableVerifier(client, 1, TIMEOUT_MS, 3, 10);
+        TableVerificationResult result = verifier.verify("table", Arrays.asList(
+            newTablet("tablet1", ts1, ts2),
+            newTablet("tablet2", ts1, ts3))).join(TIMEOUT_MS);
+
+        // The lagging replica matches on the third attempt.
+        TableVerificationResult.TabletChecksums tablet1 = result.getTablets().get(0);
+        assertFalse(tablet1.isDivergent());
+        assertEquals(3, tablet1.getNumAttempts());
+        assertEquals(3, numLaggingCalls.get());
+        assertEquals(Long.valueOf(42), tablet1.getChecksums().get(uuid(ts2)));
+
+        // The really divergent one is reported once the rechecks are used up.
+        TableVerificationResult.TabletChecksums tablet2 = result.getTablets().get(1);
+        assertTrue(tablet2.isDivergent());
+        assertEquals(4, tablet2.getNumAttempts());
+        assertEquals(4, ts3.getReceivedMethods().size());
+        assertEquals(Arrays.asList(tablet2), result.getDivergentTablets());
+        assertTrue(result.getFailedTablets().isEmpty());
+        assertEquals(3 + 4, ts1.getReceivedMethods().size());
+      } finally {
+        client.shutdown().join();
+      }
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testUnreachableReplica() throws Exception {
+    try (FakeTabletServer ts1 = checksumServer(42)) {
+      FakeTabletServer ts2 = checksumServer(42);
+      // Nothing listens there anymore.
+      ts2.close();
+      AsyncYBClient client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1").build();
+      try {
+        TableVerifier verifier = new TableVerifier(client, 1, 5000);
+        TableVerificationResult result = verifier.verify("table", Arrays.asList(
+            newTablet("tablet1", ts1, ts2))).join(TIMEOUT_MS);
+        TableVerificationResult.TabletChecksums tablet = result.getTablets().get(0);
+        assertEquals(Long.valueOf(42), tablet.getChecksums().get(uuid(ts1)));
+        assertTrue(tablet.getErrors().containsKey(uuid(ts2)));
+        assertEquals(Arrays.asList(tablet), result.getFailedTablets());
+      } finally {
+        client.shutdown().join();
+      }
+    }
+  }
+}
@@ -35,7 +35,6 @@ import org.junit.runner.Description;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yb.BaseYBTest;
-import org.yb.client.YBClient.Condition;
 import org.yb.util.EnvAndSysPropertyUtil;
 import org.yb.util.RandomNumberUtil;
 import org.yb.util.SanitizerUtil;
@@ -323,6 +322,13 @@ public class TestUtils {
         MAX_ATTEMPTS + " attempts");
   }
 
+  /**
+   * A condition the tests wait for, checked again and again until it holds.
+   */
+  public interface Condition {
+    boolean get() throws Exception;
+  }
+
   public static void waitFor(Condition condition, long timeoutMs) throws Exception {
     waitFor(condition, timeoutMs, SLEEP_TIME_MS);
   }
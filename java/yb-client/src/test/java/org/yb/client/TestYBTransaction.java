@@ -0,0 +1,310 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package org.yb.client;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.ByteString;
+import com.stumbleupon.async.Deferred;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.yb.Common.HostPortPB;
+import org.yb.Common.IsolationLevel;
+import org.yb.Common.PartitionPB;
+import org.yb.Common.TableType;
+import org.yb.Common.TransactionStatus;
+import org.yb.WireProtocol.AppStatusPB;
+import org.yb.YBTestRunner;
+import org.yb.consensus.Metadata.RaftPeerPB;
+import org.yb.master.Master.GetTableLocationsResponsePB;
+import org.yb.master.Master.TSInfoPB;
+import org.yb.master.Master.TabletLocationsPB;
+import org.yb.tserver.Tserver.TabletServerErrorPB;
+import org.yb.tserver.TserverService.AbortTransactionRequestPB;
+import org.yb.tserver.TserverService.AbortTransactionResponsePB;
+import org.yb.tserver.TserverService.GetTransactionStatusRequestPB;
+import org.yb.tserver.TserverService.GetTransactionStatusResponsePB;
+import org.yb.tserver.TserverService.UpdateTransactionRequestPB;
+import org.yb.tserver.TserverService.UpdateTransactionResponsePB;
+import org.yb.util.HybridTimeUtil;
+
+import org.junit.runner.RunWith;
+
+@RunWith(value=YBTestRunner.class)
+public class TestYBTransaction {
+
+  private static final long TIMEOUT_MS = 30000;
+  private static final long HEARTBEAT_INTERVAL_MS = 50;
+  private static final String STATUS_TABLET_ID = "status_tablet";
+  private static final long PROPAGATED_HYBRID_TIME = 12345L << 12;
+
+  // The calls the status tablet got, answered by the tests.
+  private final BlockingQueue<FakeTabletServer.Call> calls = new LinkedBlockingQueue<>();
+
+  private FakeTabletServer server;
+  private AsyncYBClient client;
+  private YBTable statusTable;
+  private LocatedTablet statusTablet;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new FakeTabletServer(new FakeTabletServer.Handler() {
+      @Override
+      public void handle(FakeTabletServer.Call call) {
+        calls.add(call);
+      }
+    });
+    client = new AsyncYBClient.AsyncYBClientBuilder("127.0.0.1:1")
+        .transactionHeartbeatIntervalMs(HEARTBEAT_INTERVAL_MS)
+        .build();
+    statusTable = new YBTable(client, YBTransactionManager.STATUS_TABLE_NAME, "status_table_id",
+                              null, null, TableType.YQL_TABLE_TYPE,
+                              YBTransactionManager.STATUS_TABLE_KEYSPACE);
+    TabletLocationsPB locations = TabletLocationsPB.newBuilder()
+        .setTabletId(ByteString.copyFromUtf8(STATUS_TABLET_ID))
+        .setStale(false)
+        .setPartition(PartitionPB.newBuilder()
+            .setPartitionKeyStart(ByteString.EMPTY)
+            .setPartitionKeyEnd(ByteString.EMPTY))
+        .addReplicas(TabletLocationsPB.ReplicaPB.newBuilder()
+            .setRole(RaftPeerPB.Role.LEADER)
+            .setTsInfo(TSInfoPB.newBuilder()
+                .setPermanentUuid(ByteString.copyFromUtf8("ts1"))
+                .addPrivateRpcAddresses(HostPortPB.newBuilder()
+                    .setHost(server.getHost())
+                    .setPort(server.getPort()))))
+        .build();
+    // The status table has a single tablet, so that the client doesn't need a master to find it.
+    client.discoverTablets(statusTable, GetTableLocationsResponsePB.newBuilder()
+        .addTabletLocations(locations)
+        .build());
+    statusTablet = new LocatedTablet(locations);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (client != null) {
+      client.shutdown().join();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private FakeTabletServer.Call nextCall(String method) throws Exception {
+    FakeTabletServer.Call call = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertNotNull("No call received", call);
+    assertEquals(method, call.getMethodName());
+    return call;
+  }
+
+  private UpdateTransactionRequestPB answerUpdate() throws Exception {
+    FakeTabletServer.Call call = nextCall(UpdateTransactionRequest.UPDATE_TRANSACTION);
+    call.respond(UpdateTransactionResponsePB.getDefaultInstance());
+    return UpdateTransactionRequestPB.parseFrom(call.getBody());
+  }
+
+  private YBTransaction newTransaction() {
+    return new YBTransaction(client.getTransactionManager(), statusTable, statusTablet,
+                             IsolationLevel.SNAPSHOT_ISOLATION, 7, PROPAGATED_HYBRID_TIME);
+  }
+
+  /**
+   * Registers a new transaction on the status tablet.
+   */
+  private YBTransaction startTransaction() throws Exception {
+    YBTransaction transaction = newTransaction();
+    Deferred<YBTransaction> d = transaction.create();
+    UpdateTransactionRequestPB request = answerUpdate();
+    assertEquals(STATUS_TABLET_ID, request.getTabletId().toStringUtf8());
+    assertEquals(TransactionStatus.CREATED, request.getState().getStatus());
+    assertEquals(transaction.getIdAsByteString(), request.getState().getTransactionId());
+    assertSame(transaction, d.join(TIMEOUT_MS));
+    return transaction;
+  }
+
+  @Test(timeout = 60000)
+  public void testMetadata() throws Exception {
+    YBTransaction transaction = newTransaction();
+    assertEquals(YBTransaction.State.CREATING, transaction.getState());
+    assertEquals(STATUS_TABLET_ID, transaction.getStatusTabletId());
+    assertEquals(STATUS_TABLET_ID, transaction.getMetadata().getStatusTablet());
+    assertEquals(IsolationLevel.SNAPSHOT_ISOLATION, transaction.getMetadata().getIsolation());
+    assertEquals(7, transaction.getMetadata().getPriority());
+    assertEquals(PROPAGATED_HYBRID_TIME, transaction.getMetadata().getStartHybridTime());
+    assertEquals(16, transaction.getIdAsByteString().size());
+    assertEquals(transaction.getIdAsByteString(), transaction.getMetadata().getTransactionId());
+    try {
+      transaction.addInvolvedTablet("tablet");
+      fail("A transaction that isn't running yet can't write");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testNow() throws Exception {
+    YBTransactionManager manager = client.getTransactionManager();
+    final long before = HybridTimeUtil.clockTimestampToHTTimestamp(
+        System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    final long now = manager.now();
+    assertTrue(now >= before);
+    // A hybrid time the client heard of from a server that's ahead of the local clock wins.
+    final long ahead =
+        now + (TimeUnit.HOURS.toMicros(1) << HybridTimeUtil.hybridTimeNumBitsToShift);
+    client.updateLastPropagatedTimestamp(ahead);
+    assertEquals(ahead, manager.now());
+  }
+
+  @Test(timeout = 60000)
+  public void testCommit() throws Exception {
+    YBTransaction transaction = startTransaction();
+    assertEquals(YBTransaction.State.RUNNING, transaction.getState());
+    assertEquals(1, client.getTransactionManager().getNumRunningTransactions());
+    transaction.addInvolvedTablet("tablet1");
+    transaction.addInvolvedTablet("tablet2");
+    transaction.addInvolvedTablet("tablet1");
+
+    Deferred<Void> d = transaction.commit();
+    // Heartbeats may have been sent in the meantime.
+    FakeTabletServer.Call call;
+    UpdateTransactionRequestPB request;
+    do {
+      call = nextCall(UpdateTransactionRequest.UPDATE_TRANSACTION);
+      call.respond(UpdateTransactionResponsePB.getDefaultInstance());
+      request = UpdateTransactionRequestPB.parseFrom(call.getBody());
+    } while (request.getState().getStatus() == TransactionStatus.PENDING);
+    assertEquals(TransactionStatus.COMMITTED, request.getState().getStatus());
+    assertEquals(Arrays.asList(ByteString.copyFromUtf8("tablet1"),
+                               ByteString.copyFromUtf8("tablet2")),
+                 request.getState().getTabletsList());
+    assertNull(d.join(TIMEOUT_MS));
+    assertEquals(YBTransaction.State.COMMITTED, transaction.getState());
+    assertEquals(0, client.getTransactionManager().getNumRunningTransactions());
+    try {
+      transaction.commit();
+      fail("A transaction can only be committed once");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testCommitWithoutWrites() throws Exception {
+    YBTransaction transaction = startTransaction();
+    // Nothing to commit, the transaction is aborted instead.
+    assertNull(transaction.commit().join(TIMEOUT_MS));
+    assertEquals(YBTransaction.State.ABORTED, transaction.getState());
+    assertEquals(0, client.getTransactionManager().getNumRunningTransactions());
+    FakeTabletServer.Call call;
+    do {
+      call = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      assertNotNull("No call received", call);
+    } while (!call.getMethodName().equals(AbortTransactionRequest.ABORT_TRANSACTION));
+    AbortTransactionRequestPB request = AbortTransactionRequestPB.parseFrom(call.getBody());
+    assertEquals(STATUS_TABLET_ID, request.getTabletId().toStringUtf8());
+    assertEquals(transaction.getIdAsByteString(), request.getTransactionId());
+  }
+
+  @Test(timeout = 60000)
+  public void testAbort() throws Exception {
+    YBTransaction transaction = startTransaction();
+    transaction.addInvolvedTablet("tablet1");
+    Deferred<AbortTransactionResponse> d = transaction.abort();
+    assertEquals(YBTransaction.State.ABORTED, transaction.getState());
+    FakeTabletServer.Call call;
+    do {
+      call = calls.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      assertNotNull("No call received", call);
+      if (!call.getMethodName().equals(AbortTransactionRequest.ABORT_TRANSACTION)) {
+        call.respond(UpdateTransactionResponsePB.getDefaultInstance());
+      }
+    } while (!call.getMethodName().equals(AbortTransactionRequest.ABORT_TRANSACTION));
+    AbortTransactionRequestPB request = AbortTransactionRequestPB.parseFrom(call.getBody());
+    assertEquals(STATUS_TABLET_ID, request.getTabletId().toStringUtf8());
+    assertEquals(transaction.getIdAsByteString(), request.getTransactionId());
+    call.respond(AbortTransactionResponsePB.newBuilder()
+        .setStatus(TransactionStatus.ABORTED)
+        .setStatusHybridTime(PROPAGATED_HYBRID_TIME)
+        .build());
+    AbortTransactionResponse response = d.join(TIMEOUT_MS);
+    assertEquals(TransactionStatus.ABORTED, response.getStatus());
+    assertEquals(PROPAGATED_HYBRID_TIME, response.getStatusHybridTime());
+    assertEquals(0, client.getTransactionManager().getNumRunningTransactions());
+  }
+
+  @Test(timeout = 60000)
+  public void testGetStatus() throws Exception {
+    YBTransaction transaction = newTransaction();
+    Deferred<GetTransactionStatusResponse> d = transaction.getStatus();
+    FakeTabletServer.Call call =
+        nextCall(GetTransactionStatusRequest.GET_TRANSACTION_STATUS);
+    GetTransactionStatusRequestPB request =
+        GetTransactionStatusRequestPB.parseFrom(call.getBody());
+    assertEquals(STATUS_TABLET_ID, request.getTabletId().toStringUtf8());
+    assertEquals(transaction.getIdAsByteString(), request.getTransactionId());
+    call.respond(GetTransactionStatusResponsePB.newBuilder()
+        .setStatus(TransactionStatus.PENDING)
+        .setStatusHybridTime(PROPAGATED_HYBRID_TIME)
+        .build());
+    GetTransactionStatusResponse response = d.join(TIMEOUT_MS);
+    assertEquals(TransactionStatus.PENDING, response.getStatus());
+    assertEquals(PROPAGATED_HYBRID_TIME, response.getStatusHybridTime());
+  }
+
+  @Test(timeout = 60000)
+  public void testHeartbeatExpired() throws Exception {
+    YBTransaction transaction = startTransaction();
+
+    // The heartbeats keep the transaction alive.
+    for (int i = 0; i < 3; i++) {
+      UpdateTransactionRequestPB heartbeat = answerUpdate();
+      assertEquals(TransactionStatus.PENDING, heartbeat.getState().getStatus());
+      assertEquals(transaction.getIdAsByteString(), heartbeat.getState().getTransactionId());
+    }
+    assertEquals(YBTransaction.State.RUNNING, transaction.getState());
+
+    // Until the status tablet gave up on it.
+    FakeTabletServer.Call call = nextCall(UpdateTransactionRequest.UPDATE_TRANSACTION);
+    call.respond(UpdateTransactionResponsePB.newBuilder()
+        .setError(TabletServerErrorPB.newBuilder()
+            .setCode(TabletServerErrorPB.Code.UNKNOWN_ERROR)
+            .setStatus(AppStatusPB.newBuilder()
+                .setCode(AppStatusPB.ErrorCode.EXPIRED)
+                .setMessage("transaction expired")))
+        .build());
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (transaction.getState() == YBTransaction.State.RUNNING &&
+           System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(YBTransaction.State.ABORTED, transaction.getState());
+    assertEquals(0, client.getTransactionManager().getNumRunningTransactions());
+    try {
+      transaction.commit();
+      fail("An expired transaction can't be committed");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("transaction expired"));
+    }
+    // No more heartbeats for it.
+    FakeTabletServer.Call late = calls.poll(HEARTBEAT_INTERVAL_MS * 4, TimeUnit.MILLISECONDS);
+    assertNull(late);
+  }
+}
@@ -31,13 +31,16 @@
 //
 package org.yb.util;
 
-import com.stumbleupon.async.Callback;
 import com.stumbleupon.async.Deferred;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.yb.AssertionWrappers.assertEquals;
+import static org.yb.AssertionWrappers.assertFalse;
+import static org.yb.AssertionWrappers.assertTrue;
+import static org.yb.AssertionWrappers.fail;
 
 /**
  * Test for {@link AsyncUtil}.
@@ -49,47 +52,23 @@ import org.junit.runner.RunWith;
 @RunWith(value=YBTestRunner.class)
 public class TestAsyncUtil {
 
-  @Rule
-  public ExpectedException exception = ExpectedException.none();
-
   @Test
-  public void testAddCallbacksDeferring() throws Exception {
+  public void testToCompletableFuture() throws Exception {
     Deferred<String> d = new Deferred<String>();
-    TestCallback cb = new TestCallback();
-    TestErrback eb = new TestErrback();
-
-    // Test normal callbacks.
-    AsyncUtil.addCallbacksDeferring(d, cb, eb);
-    final String testStr = "hello world";
-    d.callback(testStr);
-    assertEquals(d.join(), "callback: " + testStr);
+    CompletableFuture<String> future = AsyncUtil.toCompletableFuture(d);
+    assertFalse(future.isDone());
+    d.callback("hello world");
+    assertEquals("hello world", future.get());
 
     d = new Deferred<String>();
-    AsyncUtil.addCallbacksDeferring(d, cb, eb);
+    future = AsyncUtil.toCompletableFuture(d);
     d.callback(new IllegalArgumentException());
-    assertEquals(d.join(), "illegal arg");
-
-    d = new Deferred<String>();
-    AsyncUtil.addCallbacksDeferring(d, cb, eb);
-    d.callback(new IllegalStateException());
-    exception.expect(IllegalStateException.class);
-    d.join();
-  }
-
-  final class TestCallback implements Callback<Deferred<String>, String> {
-    @Override
-    public Deferred<String> call(String arg) throws Exception {
-      return Deferred.fromResult("callback: " + arg);
-    }
-  }
-
-  final class TestErrback implements Callback<Deferred<String>, Exception> {
-    @Override
-    public Deferred<String> call(Exception arg) {
-      if (arg instanceof IllegalArgumentException) {
-        return Deferred.fromResult("illegal arg");
-      }
-      return Deferred.fromError(arg);
+    assertTrue(future.isCompletedExceptionally());
+    try {
+      future.get();
+      fail("Expected the future to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
     }
   }
 }
@@ -24,6 +24,8 @@ import com.yugabyte.sample.apps.AppConfig;
 import com.yugabyte.sample.common.CmdLineOpts;
 import com.yugabyte.sample.common.IOPSThread;
 import com.yugabyte.sample.common.IOPSThread.IOType;
+import com.yugabyte.sample.common.VirtualThreads;
+import com.yugabyte.sample.common.metrics.CarrierUtilization;
 
 
 /**
@@ -182,25 +184,59 @@ public class Main {
                                        IOType.Read, app.appConfig.printAllExceptions));
       }
 
-      // Start the reader and writer threads.
-      for (IOPSThread iopsThread : iopsThreads) {
-        iopsThread.start();
+      // Spread the target throughput, if any, evenly over the threads.
+      if (AppBase.appConfig.targetOpsPerSec > 0) {
+        for (IOPSThread iopsThread : iopsThreads) {
+          iopsThread.setTargetOpsPerSec(AppBase.appConfig.targetOpsPerSec / iopsThreads.size());
+        }
       }
 
+      // Start the reader and writer threads.
+      List<Thread> threads = startIOPSThreads();
+
       // Wait for the various threads to exit.
-      while (!iopsThreads.isEmpty()) {
+      while (!threads.isEmpty()) {
         try {
-          iopsThreads.get(0).join();
-          iopsThreads.remove(0);
+          threads.get(0).join();
+          threads.remove(0);
         } catch (InterruptedException e) {
           LOG.error("Error waiting for thread join()", e);
         }
       }
+      iopsThreads.clear();
     } finally {
       terminate();
     }
   }
 
+  /**
+   * Starts the IOPS threads, either as they are or on virtual threads.
+   * @return the threads that run the IOPS threads.
+   */
+  private List<Thread> startIOPSThreads() {
+    List<Thread> threads = new ArrayList<Thread>();
+    boolean useVirtualThreads = AppBase.appConfig.useVirtualThreads;
+    if (useVirtualThreads && !VirtualThreads.isSupported()) {
+      LOG.warn("Virtual threads are not supported by this JVM, using platform threads.");
+      useVirtualThreads = false;
+    }
+    if (useVirtualThreads) {
+      if (AppBase.appConfig.numCarrierThreads > 0) {
+        VirtualThreads.setNumCarrierThreads(AppBase.appConfig.numCarrierThreads);
+      }
+      for (IOPSThread iopsThread : iopsThreads) {
+        threads.add(VirtualThreads.start(iopsThread.getName(), iopsThread));
+      }
+      AppBase.registerStatusMessageAppender(new CarrierUtilization());
+    } else {
+      for (IOPSThread iopsThread : iopsThreads) {
+        iopsThread.start();
+        threads.add(iopsThread);
+      }
+    }
+    return threads;
+  }
+
   private void setupForPureReads() {
     if (cmdLineOpts.getNumWriterThreads() != 0) {
       LOG.warn("Cannot call pure reads setup API when there are non-zero writer threads.");
@@ -13,6 +13,7 @@
 
 package com.yugabyte.sample.apps;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
@@ -25,8 +26,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
 import java.util.zip.Checksum;
@@ -37,6 +44,8 @@ import org.apache.log4j.Logger;
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.QueryOptions;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.SimpleStatement;
 import com.datastax.driver.core.exceptions.NoHostAvailableException;
 import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
@@ -45,11 +54,16 @@ import com.datastax.driver.core.policies.LoggingRetryPolicy;
 import com.yugabyte.driver.core.policies.PartitionAwarePolicy;
 import com.yugabyte.sample.common.CmdLineOpts;
 import com.yugabyte.sample.common.CmdLineOpts.ContactPoint;
+import com.yugabyte.sample.common.Crc32c;
+import com.yugabyte.sample.common.KeyChooser;
 import com.yugabyte.sample.common.RedisHashLoadGenerator;
 import com.yugabyte.sample.common.SimpleLoadGenerator;
 import com.yugabyte.sample.common.SimpleLoadGenerator.Key;
+import com.yugabyte.sample.common.metrics.AllocationRate;
+import com.yugabyte.sample.common.metrics.MetricsFileWriter;
 import com.yugabyte.sample.common.metrics.MetricsTracker;
 import com.yugabyte.sample.common.metrics.MetricsTracker.MetricName;
+import com.yugabyte.sample.common.metrics.PrometheusEndpoint;
 
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
@@ -76,13 +90,25 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
   // The configuration of the load tester.
   protected CmdLineOpts configuration;
   // The number of keys written so far.
-  protected static AtomicLong numKeysWritten = new AtomicLong(0);
+  protected static LongAdder numKeysWritten = new LongAdder();
   // The number of keys that have been read so far.
-  protected static AtomicLong numKeysRead = new AtomicLong(0);
+  protected static LongAdder numKeysRead = new LongAdder();
+  // The number of operations that failed so far.
+  private static LongAdder numErrors = new LongAdder();
+  // The intended start time of operations that were not scheduled at a target throughput.
+  private static final long UNSCHEDULED = Long.MIN_VALUE;
   // Object to track read and write metrics.
   private static volatile MetricsTracker metricsTracker;
   // State variable to track if this workload has finished.
   protected AtomicBoolean hasFinished = new AtomicBoolean(false);
+  // The in-flight window of the asynchronous operations of this app instance, created by the
+  // first one.
+  private volatile Semaphore asyncWindow = null;
+  // The first failure of an asynchronous operation, rethrown by the next operation of the thread.
+  private final AtomicReference<RuntimeException> asyncFailure = new AtomicReference<>();
+  // The asynchronous reads and writes of this app instance, null when they are synchronous.
+  private Supplier<AsyncOp> asyncRead = null;
+  private IntFunction<AsyncOp> asyncWrite = null;
   // The Cassandra client variables.
   protected static volatile Cluster cassandra_cluster = null;
   protected static volatile Session cassandra_session = null;
@@ -268,7 +294,24 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
 
   Random random = new Random();
   byte[] buffer;
-  Checksum checksum = new Adler32();
+
+  /**
+   * The scratch space to generate and verify values without allocating. It is per thread rather
+   * than per app instance because asynchronous reads verify their values in the driver's threads.
+   */
+  private static final class ValueScratch {
+    final SplittableRandom random = new SplittableRandom();
+    final Checksum adler32 = new Adler32();
+    final Checksum crc32c = Crc32c.newChecksum();
+    final byte[] valueStr = new byte[Key.MAX_VALUE_STR_LENGTH];
+  }
+  private static final ThreadLocal<ValueScratch> valueScratch = new ThreadLocal<ValueScratch>() {
+    @Override
+    protected ValueScratch initialValue() {
+      return new ValueScratch();
+    }
+  };
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
 
   // For binary values we store checksum in bytes.
   static final int CHECKSUM_SIZE = 4;
@@ -277,8 +320,12 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
   // If value size is more than VALUE_SIZE_TO_USE_PREFIX we add prefix in "val: $key" format
   // in order to check if value matches the key during read.
   static final int VALUE_SIZE_TO_USE_PREFIX = 16;
+  // The markers of the values checksummed with Adler32, written when the JVM has no CRC32C.
   static final byte ASCII_MARKER = (byte) 'A';
   static final byte BINARY_MARKER = (byte) 'B';
+  // The markers of the values checksummed with CRC32C.
+  static final byte ASCII_CRC32C_MARKER = (byte) 'a';
+  static final byte BINARY_CRC32C_MARKER = (byte) 'b';
 
   /////////////////  Helper functions to create or verify a value of given size. ////////////////
   private static boolean isUseChecksum(int valueSize, int checksumSize) {
@@ -300,54 +347,61 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
   }
 
   protected void getRandomValue(Key key, int valueSize, byte[] outBuffer) {
-    outBuffer[0] = appConfig.restrictValuesToAscii ? ASCII_MARKER : BINARY_MARKER;
+    final ValueScratch scratch = valueScratch.get();
+    final boolean useCrc32c = Crc32c.isJdkAvailable();
+    if (useCrc32c) {
+      outBuffer[0] = appConfig.restrictValuesToAscii ? ASCII_CRC32C_MARKER : BINARY_CRC32C_MARKER;
+    } else {
+      outBuffer[0] = appConfig.restrictValuesToAscii ? ASCII_MARKER : BINARY_MARKER;
+    }
     final int checksumSize = appConfig.restrictValuesToAscii ? CHECKSUM_ASCII_SIZE : CHECKSUM_SIZE;
     final boolean isUseChecksum = isUseChecksum(valueSize, checksumSize);
     final int contentSize = valueSize - (isUseChecksum ? checksumSize : 0);
     int i = 1;
     if (isUsePrefix(valueSize)) {
-      final byte[] keyValueBytes = key.getValueStr().getBytes();
+      final int keyValueSize = key.writeValueStr(scratch.valueStr, 0);
 
       // Beginning of value is not random, but has format "<MARKER><PREFIX>", where prefix is
       // "val: $key" (or part of it in case small value size). This is needed to verify expected
       // value during read.
-      final int prefixSize = Math.min(contentSize - 1 /* marker */, keyValueBytes.length);
-      System.arraycopy(keyValueBytes, 0, outBuffer, 1, prefixSize);
+      final int prefixSize = Math.min(contentSize - 1 /* marker */, keyValueSize);
+      System.arraycopy(scratch.valueStr, 0, outBuffer, 1, prefixSize);
       i += prefixSize;
     }
 
     // Generate randomly the rest of payload leaving space for checksum.
+    final SplittableRandom random = scratch.random;
     if (appConfig.restrictValuesToAscii) {
       final int ASCII_START = 32;
       final int ASCII_RANGE_SIZE = 95;
       while (i < contentSize) {
-        long r = (long) (random.nextInt() & 0xffffffff);
-        // Hack to minimize number of calls to random.nextInt() in order to reduce CPU load.
+        long r = random.nextLong() >>> 1;
+        // Hack to minimize number of calls to random.nextLong() in order to reduce CPU load.
         // This makes distribution non-uniform, but should be OK for load tests.
-        for (int n = Math.min(Integer.BYTES, contentSize - i); n > 0;
+        for (int n = Math.min(Long.BYTES, contentSize - i); n > 0;
           r /= ASCII_RANGE_SIZE, n--) {
           outBuffer[i++] = (byte) (ASCII_START + r % ASCII_RANGE_SIZE);
         }
       }
     } else {
       while (i < contentSize) {
-        for (int r = random.nextInt(), n = Math.min(Integer.BYTES, contentSize - i); n > 0;
+        for (long r = random.nextLong(), n = Math.min(Long.BYTES, contentSize - i); n > 0;
              r >>= Byte.SIZE, n--)
             outBuffer[i++] = (byte) r;
       }
     }
 
     if (isUseChecksum) {
+      final Checksum checksum = useCrc32c ? scratch.crc32c : scratch.adler32;
       checksum.reset();
       checksum.update(outBuffer, 0, contentSize);
       long cs = checksum.getValue();
       if (appConfig.restrictValuesToAscii) {
-        String csHexStr = Long.toHexString(cs);
-        // Prepend zeros
-        while (i < valueSize - csHexStr.length()) {
-          outBuffer[i++] = (byte) '0';
+        // The checksum in hex, prepended with zeros.
+        for (int j = valueSize - 1; j >= i; j--) {
+          outBuffer[j] = HEX_DIGITS[(int) (cs & 0xF)];
+          cs >>>= 4;
         }
-        System.arraycopy(csHexStr.getBytes(), 0, outBuffer, i, csHexStr.length());
       } else {
         while (i < valueSize) {
           outBuffer[i++] = (byte) cs;
@@ -358,30 +412,42 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
   }
 
   protected boolean verifyRandomValue(Key key, byte[] value) {
-    final boolean isAscii = value[0] == ASCII_MARKER;
+    final boolean isCrc32c = value[0] == ASCII_CRC32C_MARKER || value[0] == BINARY_CRC32C_MARKER;
+    final boolean isAscii = value[0] == ASCII_MARKER || value[0] == ASCII_CRC32C_MARKER;
     final int checksumSize = isAscii ? CHECKSUM_ASCII_SIZE : CHECKSUM_SIZE;
     final boolean hasChecksum = isUseChecksum(value.length, checksumSize);
+    final ValueScratch scratch = valueScratch.get();
     if (isUsePrefix(value.length)) {
-      final String keyValueStr = key.getValueStr();
-      final int prefixSize = Math.min(keyValueStr.length(), value.length -
+      final int keyValueSize = key.writeValueStr(scratch.valueStr, 0);
+      final int prefixSize = Math.min(keyValueSize, value.length -
                              (hasChecksum ? checksumSize : 0) - 1 /* marker */);
-      final String prefix = new String(value, 1, prefixSize);
       // Check prefix.
-      if (!prefix.equals(keyValueStr.substring(0, prefixSize))) {
-        LOG.fatal("Value mismatch for key: " + key.toString() +
-                  ", expected to start with: " + keyValueStr +
-                  ", got: " + prefix);
-        return false;
+      for (int i = 0; i < prefixSize; i++) {
+        if (value[1 + i] != scratch.valueStr[i]) {
+          LOG.fatal("Value mismatch for key: " + key.toString() +
+                    ", expected to start with: " + key.getValueStr() +
+                    ", got: " + new String(value, 1, prefixSize));
+          return false;
+        }
       }
     }
     if (hasChecksum) {
       // Verify checksum.
+      final Checksum checksum = isCrc32c ? scratch.crc32c : scratch.adler32;
       checksum.reset();
       checksum.update(value, 0, value.length - checksumSize);
       long expectedCs;
       if (isAscii) {
-        String csHexStr = new String(value, value.length - checksumSize, checksumSize);
-        expectedCs = Long.parseUnsignedLong(csHexStr, 16);
+        expectedCs = 0;
+        for (int i = value.length - checksumSize; i < value.length; i++) {
+          final int digit = Character.digit(value[i], 16);
+          if (digit < 0) {
+            LOG.fatal("Value mismatch for key: " + key.toString() + ", invalid checksum: " +
+                      new String(value, value.length - checksumSize, checksumSize));
+            return false;
+          }
+          expectedCs = (expectedCs << 4) | digit;
+        }
       } else {
         expectedCs = 0;
         for (int i = value.length - 1; i >= value.length - checksumSize; --i) {
@@ -466,6 +532,47 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
    */
   public long doWrite(int threadIdx) { return 0; }
 
+  /**
+   * The asynchronous version of {@link #doRead()}, used instead of it when the Cassandra requests
+   * are executed asynchronously. It starts a read without waiting for it, and returns the read
+   * that was started or null if there was nothing to read.
+   * @return the asynchronous read, or null if the app only reads synchronously.
+   */
+  protected Supplier<AsyncOp> getAsyncRead() { return null; }
+
+  /**
+   * The asynchronous version of {@link #doWrite(int)}, used instead of it when the Cassandra
+   * requests are executed asynchronously. It starts a write for the given thread index without
+   * waiting for it, and returns the write that was started or null if there was nothing to write.
+   * @return the asynchronous write, or null if the app only writes synchronously.
+   */
+  protected IntFunction<AsyncOp> getAsyncWrite() { return null; }
+
+  /**
+   * An asynchronous Cassandra operation. The callbacks run in the driver's threads once the
+   * operation completes, so they should not block.
+   */
+  protected static final class AsyncOp {
+    private final ResultSetFuture future;
+    private final long numOps;
+    private final Consumer<ResultSet> onSuccess;
+    private final Runnable onFailure;
+
+    /**
+     * @param future the future of the Cassandra request.
+     * @param numOps the number of ops done once the request succeeds.
+     * @param onSuccess verifies the result of the request, may be null.
+     * @param onFailure called when the request fails, may be null.
+     */
+    public AsyncOp(ResultSetFuture future, long numOps, Consumer<ResultSet> onSuccess,
+                   Runnable onFailure) {
+      this.future = future;
+      this.numOps = numOps;
+      this.onSuccess = onSuccess;
+      this.onFailure = onFailure;
+    }
+  }
+
   /**
    * This call should implement the main logic in non-OLTP apps. Not called for OLTP apps.
    */
@@ -519,6 +626,15 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
     workloadStartTime = System.currentTimeMillis();
     this.configuration = configuration;
     initialize(configuration);
+    if (appConfig.cassandraAsyncInFlight > 0) {
+      asyncRead = getAsyncRead();
+      asyncWrite = getAsyncWrite();
+      if (asyncRead == null && asyncWrite == null) {
+        LOG.fatal(appConfig.appName + " doesn't support asynchronous CQL requests, " +
+                  "--cql_async_in_flight can't be used with it");
+        System.exit(-1);
+      }
+    }
     if (enableMetrics) initMetricsTracker();
   }
 
@@ -533,11 +649,34 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
         metricsTracker.createMetric(MetricName.Read);
         metricsTracker.createMetric(MetricName.Write);
         metricsTracker.registerStatusMessageAppender(this);
+        metricsTracker.registerStatusMessageAppender(new AllocationRate(AppBase::numOps));
+        metricsTracker.setErrorCounter(AppBase::numErrors);
+        try {
+          if (appConfig.metricsFile != null) {
+            metricsTracker.addReportListener(
+                new MetricsFileWriter(appConfig.metricsFile, appConfig.metricsFileFormat));
+          }
+          if (appConfig.prometheusPort > 0) {
+            metricsTracker.addReportListener(new PrometheusEndpoint(appConfig.prometheusPort));
+          }
+        } catch (IOException e) {
+          throw new RuntimeException("Cannot export the metrics", e);
+        }
         metricsTracker.start();
       }
     }
   }
 
+  /**
+   * Adds a custom message to the periodic status of the workload, if metrics are enabled.
+   */
+  public static void registerStatusMessageAppender(
+      MetricsTracker.StatusMessageAppender appender) {
+    if (metricsTracker != null) {
+      metricsTracker.registerStatusMessageAppender(appender);
+    }
+  }
+
   /**
    * Helper method to get a random proxy-service contact point to do io against.
    * @return
@@ -591,22 +730,39 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
    * @param threadIdx index of thread that invoked this write.
    */
   public void performWrite(int threadIdx) {
+    performWrite(threadIdx, UNSCHEDULED);
+  }
+
+  /**
+   * Called by the framework to perform a write operation scheduled at a given time, when
+   * generating a target throughput. The latency from the scheduled time to the end of the write
+   * is reported as its response time, along with the time the write itself took.
+   * @param threadIdx index of thread that invoked this write.
+   * @param intendedStartNanos the time the write was scheduled at, as given by System.nanoTime()
+   * @return the number of keys written, or to be written for an asynchronous write
+   */
+  public long performWrite(int threadIdx, long intendedStartNanos) {
     // If we have written enough keys we are done.
-    if (appConfig.numKeysToWrite > 0 && numKeysWritten.get() >= appConfig.numKeysToWrite
+    if (appConfig.numKeysToWrite > 0 && numKeysWritten.sum() >= appConfig.numKeysToWrite
         || isOutOfTime()) {
       hasFinished.set(true);
-      return;
+      return 0;
+    }
+    if (asyncWrite != null) {
+      return performAsync(MetricName.Write, numKeysWritten, () -> asyncWrite.apply(threadIdx),
+                          intendedStartNanos);
     }
     // Perform the write and track the number of successfully written keys.
     long startTs = System.nanoTime();
     long count = doWrite(threadIdx);
     long endTs = System.nanoTime();
     if (count > 0) {
-      numKeysWritten.addAndGet(count);
+      numKeysWritten.add(count);
       if (metricsTracker != null) {
-        metricsTracker.getMetric(MetricName.Write).accumulate(count, endTs - startTs);
+        accumulate(MetricName.Write, count, startTs, endTs, intendedStartNanos);
       }
     }
+    return count;
   }
 
   /**
@@ -615,22 +771,104 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
    * report the metrics to the user.
    */
   public void performRead() {
+    performRead(UNSCHEDULED);
+  }
+
+  /**
+   * Called by the framework to perform a read operation scheduled at a given time, when
+   * generating a target throughput.
+   * @param intendedStartNanos the time the read was scheduled at, as given by System.nanoTime()
+   * @return the number of keys read, or to be read for an asynchronous read
+   * @see #performWrite(int, long)
+   */
+  public long performRead(long intendedStartNanos) {
     // If we have read enough keys we are done.
-    if (appConfig.numKeysToRead > 0 && numKeysRead.get() >= appConfig.numKeysToRead
+    if (appConfig.numKeysToRead > 0 && numKeysRead.sum() >= appConfig.numKeysToRead
         || isOutOfTime()) {
       hasFinished.set(true);
-      return;
+      return 0;
+    }
+    if (asyncRead != null) {
+      return performAsync(MetricName.Read, numKeysRead, asyncRead, intendedStartNanos);
     }
     // Perform the read and track the number of successfully read keys.
     long startTs = System.nanoTime();
     long count = doRead();
     long endTs = System.nanoTime();
     if (count > 0) {
-      numKeysRead.addAndGet(count);
+      numKeysRead.add(count);
       if (metricsTracker != null) {
-        metricsTracker.getMetric(MetricName.Read).accumulate(count, endTs - startTs);
+        accumulate(MetricName.Read, count, startTs, endTs, intendedStartNanos);
       }
     }
+    return count;
+  }
+
+  /**
+   * Starts an asynchronous operation once there is room for it in the in-flight window of this
+   * app instance. The keys and the metrics are recorded when it completes, and if it fails the
+   * failure is thrown by the next operation.
+   * @return the number of keys the operation is for, 0 if none was started
+   */
+  private long performAsync(MetricName metricName, LongAdder numKeys, Supplier<AsyncOp> start,
+                            long intendedStartNanos) {
+    RuntimeException failure = asyncFailure.getAndSet(null);
+    if (failure != null) {
+      throw failure;
+    }
+    if (asyncWindow == null) {
+      asyncWindow = new Semaphore(appConfig.cassandraAsyncInFlight);
+    }
+    final Semaphore window = asyncWindow;
+    window.acquireUninterruptibly();
+    final long startTs = System.nanoTime();
+    final AsyncOp op;
+    try {
+      op = start.get();
+    } catch (RuntimeException e) {
+      window.release();
+      throw e;
+    }
+    if (op == null) {
+      window.release();
+      return 0;
+    }
+    op.future.addListener(() -> {
+      try {
+        ResultSet rs = op.future.getUninterruptibly();
+        if (op.onSuccess != null) {
+          op.onSuccess.accept(rs);
+        }
+        long endTs = System.nanoTime();
+        if (op.numOps > 0) {
+          numKeys.add(op.numOps);
+          if (metricsTracker != null) {
+            accumulate(metricName, op.numOps, startTs, endTs, intendedStartNanos);
+          }
+        }
+      } catch (RuntimeException e) {
+        if (op.onFailure != null) {
+          op.onFailure.run();
+        }
+        // The failure that is rethrown is counted by the IO thread.
+        if (!asyncFailure.compareAndSet(null, e)) {
+          numErrors.increment();
+        }
+      } finally {
+        window.release();
+      }
+    }, Runnable::run);
+    return op.numOps;
+  }
+
+  private void accumulate(MetricName metricName, long count, long startTs, long endTs,
+                          long intendedStartNanos) {
+    if (intendedStartNanos == UNSCHEDULED) {
+      metricsTracker.getMetric(metricName).accumulate(count, endTs - startTs);
+    } else {
+      metricsTracker.getMetric(metricName).accumulate(count, endTs - startTs,
+                                                      endTs - intendedStartNanos);
+    }
   }
 
   @Override
@@ -642,6 +880,10 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
    * Terminate the workload (tear down connections if needed, etc).
    */
   public void terminate() {
+    // Wait for the asynchronous operations still in flight before closing the clients.
+    if (asyncWindow != null) {
+      asyncWindow.acquireUninterruptibly(appConfig.cassandraAsyncInFlight);
+    }
     destroyClients();
   }
 
@@ -667,7 +909,9 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
         if (simpleLoadGenerator == null) {
           simpleLoadGenerator = new SimpleLoadGenerator(0,
               appConfig.numUniqueKeysToWrite,
-              appConfig.maxWrittenKey);
+              appConfig.maxWrittenKey,
+              KeyChooser.create(appConfig.keyDistribution, appConfig.keyZipfExponent,
+                                appConfig.hotKeyFraction, appConfig.hotOpFraction));
         }
       }
     }
@@ -689,11 +933,22 @@ public abstract class AppBase implements MetricsTracker.StatusMessageAppender {
   }
 
   public static long numOps() {
-    return numKeysRead.get() + numKeysWritten.get();
+    return numKeysRead.sum() + numKeysWritten.sum();
+  }
+
+  /**
+   * Counts an operation that failed.
+   */
+  public static void recordError() {
+    numErrors.increment();
+  }
+
+  public static long numErrors() {
+    return numErrors.sum();
   }
 
   public static void resetOps() {
-    numKeysRead.set(0);
-    numKeysWritten.set(0);
+    numKeysRead.reset();
+    numKeysWritten.reset();
   }
 }
@@ -13,6 +13,9 @@
 
 package com.yugabyte.sample.apps;
 
+import com.yugabyte.sample.common.KeyChooser;
+import com.yugabyte.sample.common.metrics.MetricsFileWriter;
+
 /**
  * This class encapsulates the various configuration parameters for the various apps.
  */
@@ -132,6 +135,37 @@ public class AppConfig {
   // Run time for workload. Negative values means no limit.
   public long runTimeSeconds = -1;
 
+  // Total number of operations per second to schedule across all the IO threads, a batch counting
+  // as the number of keys in it. Negative values mean that each thread issues its next operation
+  // as soon as the previous one completes.
+  public double targetOpsPerSec = -1;
+
+  // The maximum number of asynchronous Cassandra requests in flight per IO thread, for the apps
+  // that support them. Zero means that each thread waits for its requests one at a time.
+  public int cassandraAsyncInFlight = 0;
+
+  // Run the IO threads on virtual threads, when the JVM supports them.
+  public boolean useVirtualThreads = false;
+
+  // The number of carrier threads of the virtual threads. Zero means the number of CPUs.
+  public int numCarrierThreads = 0;
+
+  // The distribution of the existing keys that are read and updated.
+  public KeyChooser.Distribution keyDistribution = KeyChooser.Distribution.Uniform;
+  // The exponent of the Zipfian key distributions.
+  public double keyZipfExponent = 0.99;
+  // The fraction of the keys that are hot, and the fraction of the operations on them, with the
+  // hotspot key distribution.
+  public double hotKeyFraction = 0.2;
+  public double hotOpFraction = 0.8;
+
+  // The file to write the metrics of every interval to, if any, and its format.
+  public String metricsFile = null;
+  public MetricsFileWriter.Format metricsFileFormat = MetricsFileWriter.Format.Json;
+
+  // The port to serve the metrics at in the Prometheus format. Zero means no endpoint.
+  public int prometheusPort = 0;
+
   public String localDc;
 
   // Used by CassandraPersonalization workload.
@@ -0,0 +1,693 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.apps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.log4j.Logger;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.TableMetadata;
+import com.datastax.driver.core.TypeCodec;
+import com.yugabyte.driver.core.PartitionMetadata;
+import com.yugabyte.driver.core.TableSplitMetadata;
+import com.yugabyte.driver.core.utils.Jenkins;
+import com.yugabyte.sample.common.CmdLineOpts;
+
+/**
+ * This app loads a CSV or binary file into an existing CQL table, writing each tablet its own
+ * rows in large batches rather than inserting rows one by one.
+ *
+ * The input file is memory-mapped and parsed in regions. Each row is assigned to its tablet by
+ * computing the hash of its partition key columns the way the YB partition-aware policy does,
+ * and is copied to an off-heap buffer of that tablet. Once the buffered rows reach the buffer
+ * size, the rows of each tablet are sorted by hash and written in unlogged batches that only
+ * touch that tablet, going round robin over the tablets with a cap on the number of batches in
+ * flight per tablet leader and overall. The next rows are then buffered, so that the load never
+ * holds more than the buffer size in memory.
+ *
+ * The binary format is a sequence of rows, each being for each column a 4-byte big-endian length,
+ * -1 for NULL, followed by the value serialized in the CQL native protocol format.
+ */
+public class CassandraBulkLoad extends AppBase {
+  private static final Logger LOG = Logger.getLogger(CassandraBulkLoad.class);
+
+  // Static initialization of this workload's config.
+  static {
+    // Set the app type to simple.
+    appConfig.appType = AppConfig.Type.Simple;
+    // The number of batches in flight overall.
+    appConfig.numWriterThreads = 32;
+    // The number of rows to write in each batch.
+    appConfig.cassandraBatchSize = 512;
+  }
+
+  // The input formats.
+  private enum Format {
+    csv,
+    binary
+  }
+
+  // The CQL types whose serialized values are hashed as is by the partition-aware policy, the only
+  // types supported in partition key columns.
+  private static final EnumSet<DataType.Name> HASHABLE_TYPES = EnumSet.of(
+      DataType.Name.BOOLEAN, DataType.Name.TINYINT, DataType.Name.SMALLINT, DataType.Name.INT,
+      DataType.Name.BIGINT, DataType.Name.ASCII, DataType.Name.TEXT, DataType.Name.VARCHAR,
+      DataType.Name.BLOB, DataType.Name.INET, DataType.Name.UUID, DataType.Name.TIMEUUID,
+      DataType.Name.DATE, DataType.Name.TIME);
+
+  // Seed of the hash of the partition key columns.
+  private static final long HASH_SEED = 97;
+
+  // Maximum size of a memory-mapped region of the input file.
+  private static final long MAX_REGION_SIZE = 1L << 30;
+
+  // Size of the off-heap chunks the rows of a tablet are buffered in.
+  private static final int CHUNK_SIZE = 4 << 20;
+
+  // Maximum number of rows buffered per tablet, so that a row index fits in 40 bits next to its
+  // 16-bit hash.
+  private static final long MAX_ROWS_PER_TABLET = 1L << 40;
+
+  private String inputFile;
+  private Format format = Format.csv;
+  private String tableName;
+  private List<String> columnNames;
+  private long bufferBytes = 1L << 30;
+  private int maxInFlightPerServer = 8;
+
+  // The table being loaded.
+  private List<DataType> columnTypes;
+  private List<TypeCodec<Object>> codecs;
+  private int[] hashColumns;
+  private ProtocolVersion protocolVersion;
+  private PreparedStatement insert;
+
+  // The tablets, by the start of their hash range, and their buffered rows.
+  private int[] tabletStarts;
+  private String[] tabletLeaders;
+  private TabletRows[] tabletRows;
+  private long numBufferedBytes;
+
+  private final AtomicLong numRowsWritten = new AtomicLong();
+  private long numRowsRead;
+
+  @Override
+  public void initialize(CmdLineOpts configuration) {
+    CommandLine commandLine = configuration.getCommandLine();
+    if (!commandLine.hasOption("bulk_load_input_file") ||
+        !commandLine.hasOption("bulk_load_table")) {
+      LOG.fatal("--bulk_load_input_file and --bulk_load_table are required");
+      System.exit(1);
+    }
+    inputFile = commandLine.getOptionValue("bulk_load_input_file");
+    tableName = commandLine.getOptionValue("bulk_load_table");
+    if (commandLine.hasOption("bulk_load_format")) {
+      format = Format.valueOf(commandLine.getOptionValue("bulk_load_format"));
+    }
+    if (commandLine.hasOption("bulk_load_columns")) {
+      columnNames = Arrays.asList(commandLine.getOptionValue("bulk_load_columns").split(","));
+    }
+    if (commandLine.hasOption("bulk_load_buffer_mb")) {
+      bufferBytes = Long.parseLong(commandLine.getOptionValue("bulk_load_buffer_mb")) << 20;
+    }
+    if (commandLine.hasOption("max_in_flight_per_server")) {
+      maxInFlightPerServer =
+          Integer.parseInt(commandLine.getOptionValue("max_in_flight_per_server"));
+    }
+    LOG.info("Bulk loading " + format + " file " + inputFile + " into " + tableName +
+             " with a buffer of " + (bufferBytes >> 20) + " MB");
+  }
+
+  @Override
+  public void run() {
+    final long startTime = System.currentTimeMillis();
+    try {
+      prepareTable();
+      try (FileChannel channel = FileChannel.open(Paths.get(inputFile),
+                                                  StandardOpenOption.READ)) {
+        final long size = channel.size();
+        long position = 0;
+        while (position < size) {
+          final long regionSize = Math.min(MAX_REGION_SIZE, size - position);
+          final MappedByteBuffer region =
+              channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+          final boolean isLast = position + regionSize == size;
+          final int consumed = format == Format.csv ? parseCsv(region, isLast) :
+                                                      parseBinary(region, isLast);
+          if (consumed == 0) {
+            throw new IllegalStateException("Row at offset " + position + " of " + inputFile +
+                                            " is larger than " + MAX_REGION_SIZE + " bytes");
+          }
+          position += consumed;
+        }
+      }
+      writeBufferedRows();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read " + inputFile, e);
+    }
+    final long elapsedMs = Math.max(1, System.currentTimeMillis() - startTime);
+    LOG.info("Loaded " + numRowsWritten.get() + " rows in " + elapsedMs + " ms (" +
+             numRowsWritten.get() * 1000 / elapsedMs + " rows/sec)");
+  }
+
+  /**
+   * Looks up the columns and the tablets of the table, and prepares the insert statement.
+   */
+  private void prepareTable() {
+    final Session session = getCassandraClient();
+    final String keyspaceName;
+    final String name;
+    final int dot = tableName.indexOf('.');
+    if (dot >= 0) {
+      keyspaceName = tableName.substring(0, dot);
+      name = tableName.substring(dot + 1);
+    } else {
+      keyspaceName = getKeyspace();
+      name = tableName;
+    }
+    final KeyspaceMetadata keyspaceMetadata =
+        cassandra_cluster.getMetadata().getKeyspace(keyspaceName);
+    final TableMetadata table =
+        keyspaceMetadata == null ? null : keyspaceMetadata.getTable(name);
+    if (table == null) {
+      throw new IllegalArgumentException("Table " + keyspaceName + "." + name + " not found");
+    }
+
+    final List<ColumnMetadata> columns = new ArrayList<>();
+    if (columnNames == null) {
+      columns.addAll(table.getColumns());
+    } else {
+      for (String columnName : columnNames) {
+        final ColumnMetadata column = table.getColumn(columnName.trim());
+        if (column == null) {
+          throw new IllegalArgumentException("Column " + columnName + " not found in " + name);
+        }
+        columns.add(column);
+      }
+    }
+    columnTypes = new ArrayList<>();
+    codecs = new ArrayList<>();
+    for (ColumnMetadata column : columns) {
+      columnTypes.add(column.getType());
+      codecs.add(CodecRegistry.DEFAULT_INSTANCE.codecFor(column.getType()));
+    }
+    final List<ColumnMetadata> partitionKey = table.getPartitionKey();
+    hashColumns = new int[partitionKey.size()];
+    for (int i = 0; i < hashColumns.length; i++) {
+      hashColumns[i] = columns.indexOf(partitionKey.get(i));
+      if (hashColumns[i] < 0) {
+        throw new IllegalArgumentException("Partition key column " +
+                                           partitionKey.get(i).getName() + " is not loaded");
+      }
+      if (!HASHABLE_TYPES.contains(partitionKey.get(i).getType().getName())) {
+        throw new IllegalArgumentException("Partition key column " +
+                                           partitionKey.get(i).getName() + " of type " +
+                                           partitionKey.get(i).getType() + " is not supported");
+      }
+    }
+    protocolVersion =
+        cassandra_cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+
+    final StringBuilder stmt = new StringBuilder("INSERT INTO " + keyspaceName + "." + name + " (");
+    final StringBuilder values = new StringBuilder(") VALUES (");
+    for (int i = 0; i < columns.size(); i++) {
+      stmt.append(i == 0 ? "" : ", ").append(columns.get(i).getName());
+      values.append(i == 0 ? "?" : ", ?");
+    }
+    insert = session.prepare(stmt.append(values).append(");").toString());
+
+    final TableSplitMetadata splits =
+        cassandra_cluster.getMetadata().getTableSplitMetadata(keyspaceName, name);
+    if (splits == null || splits.getPartitionMap().isEmpty()) {
+      LOG.warn("No tablet metadata for " + tableName + ", rows will not be grouped by tablet");
+      tabletStarts = new int[] { 0 };
+      tabletLeaders = new String[] { "" };
+    } else {
+      final NavigableMap<Integer, PartitionMetadata> partitions = splits.getPartitionMap();
+      tabletStarts = new int[partitions.size()];
+      tabletLeaders = new String[partitions.size()];
+      int i = 0;
+      for (Map.Entry<Integer, PartitionMetadata> partition : partitions.entrySet()) {
+        tabletStarts[i] = partition.getKey();
+        final List<Host> hosts = partition.getValue().getHosts();
+        // The leader comes first.
+        tabletLeaders[i] = hosts.isEmpty() ? "" : hosts.get(0).getAddress().toString();
+        i++;
+      }
+    }
+    tabletRows = new TabletRows[tabletStarts.length];
+    for (int i = 0; i < tabletRows.length; i++) {
+      tabletRows[i] = new TabletRows();
+    }
+    LOG.info("Loading " + columns.size() + " columns into " + tabletStarts.length + " tablets");
+  }
+
+  /**
+   * Parses the CSV rows of a region of the input file.
+   * @return the number of bytes consumed, up to the end of the last complete line
+   */
+  private int parseCsv(ByteBuffer region, boolean isLast) {
+    final int limit = region.limit();
+    final RowBuilder row = new RowBuilder(columnTypes.size());
+    final List<String> fields = new ArrayList<>(columnTypes.size());
+    final StringBuilder field = new StringBuilder();
+    int lineStart = 0;
+    while (lineStart < limit) {
+      int lineEnd = lineStart;
+      while (lineEnd < limit && region.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      if (lineEnd == limit && !isLast) {
+        break;
+      }
+      final int next = lineEnd + 1;
+      if (lineEnd > lineStart && region.get(lineEnd - 1) == '\r') {
+        lineEnd--;
+      }
+      if (lineEnd > lineStart) {
+        splitCsvLine(region, lineStart, lineEnd, fields, field);
+        if (fields.size() != columnTypes.size()) {
+          throw new IllegalArgumentException("Row " + (numRowsRead + 1) + " has " +
+                                             fields.size() + " fields instead of " +
+                                             columnTypes.size());
+        }
+        row.reset();
+        for (int i = 0; i < fields.size(); i++) {
+          row.addValue(serialize(i, fields.get(i)));
+        }
+        addRow(row);
+      }
+      lineStart = next;
+    }
+    return Math.min(lineStart, limit);
+  }
+
+  /**
+   * Splits a CSV line into its fields. Fields may be quoted with double quotes, a double quote
+   * in a quoted field being escaped by another one. An empty unquoted field stands for NULL.
+   */
+  private static void splitCsvLine(ByteBuffer region, int start, int end, List<String> fields,
+                                   StringBuilder field) {
+    fields.clear();
+    final byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = region.get(start + i);
+    }
+    final String line = new String(bytes, StandardCharsets.UTF_8);
+    int i = 0;
+    while (true) {
+      field.setLength(0);
+      boolean quoted = false;
+      if (i < line.length() && line.charAt(i) == '"') {
+        quoted = true;
+        i++;
+        while (i < line.length()) {
+          final char c = line.charAt(i++);
+          if (c == '"') {
+            if (i < line.length() && line.charAt(i) == '"') {
+              field.append('"');
+              i++;
+            } else {
+              break;
+            }
+          } else {
+            field.append(c);
+          }
+        }
+      }
+      while (i < line.length() && line.charAt(i) != ',') {
+        field.append(line.charAt(i++));
+      }
+      fields.add(!quoted && field.length() == 0 ? null : field.toString());
+      if (i >= line.length()) {
+        return;
+      }
+      i++;  // Skip the comma.
+    }
+  }
+
+  /**
+   * Serializes a CSV field into the CQL native protocol format of its column.
+   */
+  private ByteBuffer serialize(int column, String value) {
+    if (value == null) {
+      return null;
+    }
+    switch (columnTypes.get(column).getName()) {
+      case ASCII:
+      case TEXT:
+      case VARCHAR:
+        // The codecs of strings parse quoted CQL literals, the CSV field is the string itself.
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+      default:
+        final TypeCodec<Object> codec = codecs.get(column);
+        return codec.serialize(codec.parse(value), protocolVersion);
+    }
+  }
+
+  /**
+   * Parses the binary rows of a region of the input file.
+   * @return the number of bytes consumed, up to the end of the last complete row
+   */
+  private int parseBinary(ByteBuffer region, boolean isLast) {
+    final int limit = region.limit();
+    final RowBuilder row = new RowBuilder(columnTypes.size());
+    int rowStart = 0;
+    while (rowStart < limit) {
+      int position = rowStart;
+      boolean complete = true;
+      row.reset();
+      for (int i = 0; i < columnTypes.size(); i++) {
+        if (position + 4 > limit) {
+          complete = false;
+          break;
+        }
+        final int length = region.getInt(position);
+        position += 4;
+        if (length < 0) {
+          row.addValue(null);
+          continue;
+        }
+        if (position + length > limit) {
+          complete = false;
+          break;
+        }
+        final ByteBuffer value = region.duplicate();
+        value.limit(position + length).position(position);
+        row.addValue(value);
+        position += length;
+      }
+      if (!complete) {
+        if (isLast) {
+          throw new IllegalArgumentException("Truncated row " + (numRowsRead + 1) + " at the " +
+                                             "end of " + inputFile);
+        }
+        break;
+      }
+      addRow(row);
+      rowStart = position;
+    }
+    return rowStart;
+  }
+
+  /**
+   * Buffers a row in its tablet, and writes the buffered rows out if the buffer is full.
+   */
+  private void addRow(RowBuilder row) {
+    final int hash = row.hash(hashColumns);
+    int tablet = Arrays.binarySearch(tabletStarts, hash);
+    if (tablet < 0) {
+      tablet = Math.max(0, -tablet - 2);
+    }
+    numBufferedBytes += tabletRows[tablet].add(hash, row);
+    numRowsRead++;
+    if (numBufferedBytes >= bufferBytes) {
+      writeBufferedRows();
+    }
+  }
+
+  /**
+   * Writes all the buffered rows, sorted per tablet, and waits for them to be written.
+   */
+  private void writeBufferedRows() {
+    if (numBufferedBytes == 0) {
+      return;
+    }
+    final long startTime = System.currentTimeMillis();
+    final long rowsBefore = numRowsWritten.get();
+    final int batchSize = appConfig.cassandraBatchSize;
+    final int maxInFlight = configuration.getNumWriterThreads();
+    final Semaphore inFlight = new Semaphore(maxInFlight);
+    final Map<String, Semaphore> inFlightPerServer = new HashMap<>();
+    for (String leader : tabletLeaders) {
+      inFlightPerServer.putIfAbsent(leader, new Semaphore(maxInFlightPerServer));
+    }
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    final int[] nextRow = new int[tabletRows.length];
+    for (TabletRows rows : tabletRows) {
+      rows.sort();
+    }
+    boolean remaining = true;
+    while (remaining && error.get() == null) {
+      remaining = false;
+      // One batch per tablet at a time, so that all the servers get work.
+      for (int tablet = 0; tablet < tabletRows.length && error.get() == null; tablet++) {
+        final TabletRows rows = tabletRows[tablet];
+        if (nextRow[tablet] >= rows.numRows) {
+          continue;
+        }
+        final int end = Math.min(rows.numRows, nextRow[tablet] + batchSize);
+        final BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        for (int i = nextRow[tablet]; i < end; i++) {
+          batch.add(bind(rows, i));
+        }
+        final int numRows = end - nextRow[tablet];
+        nextRow[tablet] = end;
+        remaining |= end < rows.numRows;
+
+        final Semaphore serverInFlight = inFlightPerServer.get(tabletLeaders[tablet]);
+        serverInFlight.acquireUninterruptibly();
+        inFlight.acquireUninterruptibly();
+        final ResultSetFuture future = getCassandraClient().executeAsync(batch);
+        future.addListener(() -> {
+          try {
+            future.getUninterruptibly();
+            numRowsWritten.addAndGet(numRows);
+          } catch (RuntimeException e) {
+            error.compareAndSet(null, e);
+          } finally {
+            inFlight.release();
+            serverInFlight.release();
+          }
+        }, Runnable::run);
+      }
+    }
+    // Wait for the last batches, the buffers can't be reused before.
+    inFlight.acquireUninterruptibly(maxInFlight);
+    inFlight.release(maxInFlight);
+    for (TabletRows rows : tabletRows) {
+      rows.clear();
+    }
+    numBufferedBytes = 0;
+    if (error.get() != null) {
+      throw new RuntimeException("Bulk load failed after " + numRowsWritten.get() + " rows",
+                                 error.get());
+    }
+    LOG.info("Wrote " + (numRowsWritten.get() - rowsBefore) + " rows in " +
+             (System.currentTimeMillis() - startTime) + " ms, " + numRowsWritten.get() +
+             " rows loaded so far");
+  }
+
+  private BoundStatement bind(TabletRows rows, int index) {
+    final BoundStatement statement = insert.bind();
+    final ByteBuffer row = rows.getRow(index);
+    for (int column = 0; column < columnTypes.size(); column++) {
+      final int length = row.getInt();
+      if (length < 0) {
+        statement.setBytesUnsafe(column, null);
+      } else {
+        final ByteBuffer value = row.slice();
+        value.limit(length);
+        statement.setBytesUnsafe(column, value);
+        row.position(row.position() + length);
+      }
+    }
+    return statement;
+  }
+
+  /**
+   * The serialized values of the row being parsed.
+   */
+  private static class RowBuilder {
+    private final ByteBuffer[] values;
+    private int numValues;
+
+    RowBuilder(int numColumns) {
+      values = new ByteBuffer[numColumns];
+    }
+
+    void reset() {
+      numValues = 0;
+    }
+
+    void addValue(ByteBuffer value) {
+      values[numValues++] = value;
+    }
+
+    /**
+     * @return the size of the row once encoded as a 4-byte length and the bytes of each value
+     */
+    int encodedSize() {
+      int size = 0;
+      for (int i = 0; i < numValues; i++) {
+        size += 4 + (values[i] == null ? 0 : values[i].remaining());
+      }
+      return size;
+    }
+
+    void encodeTo(ByteBuffer buf) {
+      for (int i = 0; i < numValues; i++) {
+        if (values[i] == null) {
+          buf.putInt(-1);
+        } else {
+          buf.putInt(values[i].remaining());
+          buf.put(values[i].duplicate());
+        }
+      }
+    }
+
+    /**
+     * Hashes the partition key columns the way the YB partition-aware policy does: the Jenkins
+     * hash of their concatenated values, folded into 16 bits.
+     */
+    int hash(int[] hashColumns) {
+      int size = 0;
+      for (int column : hashColumns) {
+        if (values[column] == null) {
+          throw new IllegalArgumentException("Partition key column " + column + " is NULL");
+        }
+        size += values[column].remaining();
+      }
+      final byte[] key = new byte[size];
+      int offset = 0;
+      for (int column : hashColumns) {
+        final ByteBuffer value = values[column].duplicate();
+        final int length = value.remaining();
+        value.get(key, offset, length);
+        offset += length;
+      }
+      final long h = Jenkins.hash64(key, HASH_SEED);
+      final long h1 = h >>> 48;
+      final long h2 = 3 * (h >>> 32);
+      final long h3 = 5 * (h >>> 16);
+      final long h4 = 7 * (h & 0xffff);
+      return (int) ((h1 ^ h2 ^ h3 ^ h4) & 0xffff);
+    }
+  }
+
+  /**
+   * The rows buffered for a tablet, copied into off-heap chunks. Each row is indexed by a long
+   * made of its hash and its position in the buffer, so that sorting the rows by hash is a sort of
+   * a primitive array.
+   */
+  private static class TabletRows {
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    // (hash << 40) | row index, sorted by sort().
+    private long[] keys = new long[1024];
+    // (chunk index << 32) | offset in the chunk, by row index.
+    private long[] locations = new long[1024];
+    private int numRows;
+
+    /**
+     * @return the number of bytes buffered for the row
+     */
+    int add(int hash, RowBuilder row) {
+      final int size = row.encodedSize();
+      if (current == null || current.remaining() < size) {
+        current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, size));
+        chunks.add(current);
+      }
+      if (numRows == keys.length) {
+        keys = Arrays.copyOf(keys, numRows * 2);
+        locations = Arrays.copyOf(locations, numRows * 2);
+      }
+      if (numRows >= MAX_ROWS_PER_TABLET) {
+        throw new IllegalStateException("Too many rows buffered for a tablet");
+      }
+      keys[numRows] = ((long) hash << 40) | numRows;
+      locations[numRows] = ((long) (chunks.size() - 1) << 32) | current.position();
+      row.encodeTo(current);
+      numRows++;
+      return size;
+    }
+
+    void sort() {
+      Arrays.sort(keys, 0, numRows);
+    }
+
+    /**
+     * @return the row at the given position in the sorted rows
+     */
+    ByteBuffer getRow(int index) {
+      final int row = (int) (keys[index] & (MAX_ROWS_PER_TABLET - 1));
+      final long location = locations[row];
+      final ByteBuffer buf = chunks.get((int) (location >>> 32)).duplicate();
+      buf.position((int) location);
+      return buf;
+    }
+
+    void clear() {
+      // Keep the first chunk around for the next rows.
+      if (!chunks.isEmpty()) {
+        current = chunks.get(0);
+        current.clear();
+        chunks.clear();
+        chunks.add(current);
+      }
+      numRows = 0;
+    }
+  }
+
+  @Override
+  public List<String> getWorkloadDescription() {
+    return Arrays.asList(
+      "Bulk loads a CSV or binary file into an existing CQL table. Rows are grouped by tablet",
+      "and sorted in an off-heap buffer, then written in large per-tablet batches in parallel,",
+      "with a cap on the batches in flight per tablet server. The binary format is, for each",
+      "column of each row, a 4-byte length (-1 for NULL) followed by the CQL serialized value.");
+  }
+
+  @Override
+  public List<String> getExampleUsageOptions() {
+    return Arrays.asList(
+      "--bulk_load_input_file <path to input file>",
+      "--bulk_load_table <[keyspace.]table>",
+      "--bulk_load_format csv",
+      "--bulk_load_columns <comma-separated columns, all the columns by default>",
+      "--bulk_load_buffer_mb " + (bufferBytes >> 20),
+      "--num_threads_write " + appConfig.numWriterThreads,
+      "--batch_size " + appConfig.cassandraBatchSize,
+      "--max_in_flight_per_server " + maxInFlightPerServer);
+  }
+}
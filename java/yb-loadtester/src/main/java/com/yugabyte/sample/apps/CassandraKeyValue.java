@@ -16,6 +16,8 @@ package com.yugabyte.sample.apps;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
 
@@ -141,13 +143,35 @@ public class CassandraKeyValue extends AppBase {
     // Bind the select statement.
     BoundStatement select = getPreparedSelect().bind(key.asString());
     ResultSet rs = getCassandraClient().execute(select);
+    verifyRead(key, rs);
+    return 1;
+  }
+
+  @Override
+  protected Supplier<AsyncOp> getAsyncRead() {
+    // Subclasses that read differently from doRead() do so synchronously.
+    return overrides("doRead") ? null : this::doReadAsync;
+  }
+
+  private AsyncOp doReadAsync() {
+    Key key = getSimpleLoadGenerator().getKeyToRead();
+    if (key == null) {
+      // There are no keys to read yet.
+      return null;
+    }
+    BoundStatement select = getPreparedSelect().bind(key.asString());
+    return new AsyncOp(getCassandraClient().executeAsync(select), 1,
+                       rs -> verifyRead(key, rs), null);
+  }
+
+  private void verifyRead(Key key, ResultSet rs) {
     List<Row> rows = rs.all();
     if (rows.size() != 1) {
       // If TTL is enabled, turn off correctness validation.
       if (appConfig.tableTTLSeconds <= 0) {
         LOG.fatal("Read key: " + key.asString() + " expected 1 row in result, got " + rows.size());
       }
-      return 1;
+      return;
     }
     if (appConfig.valueSize == 0) {
       ByteBuffer buf = rows.get(0).getBytes(1);
@@ -159,8 +183,9 @@ public class CassandraKeyValue extends AppBase {
       value.get(bytes);
       verifyRandomValue(key, bytes);
     }
-    LOG.debug("Read key: " + key.toString());
-    return 1;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Read key: " + key.toString());
+    }
   }
 
   protected PreparedStatement getPreparedInsert(String insertStmt)  {
@@ -189,16 +214,10 @@ public class CassandraKeyValue extends AppBase {
 
     try {
       // Do the write to Cassandra.
-      BoundStatement insert = null;
-      if (appConfig.valueSize == 0) {
-        String value = key.getValueStr();
-        insert = getPreparedInsert().bind(key.asString(), ByteBuffer.wrap(value.getBytes()));
-      } else {
-        byte[] value = getRandomValue(key);
-        insert = getPreparedInsert().bind(key.asString(), ByteBuffer.wrap(value));
+      ResultSet resultSet = getCassandraClient().execute(bindInsert(key, buffer));
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Wrote key: " + key.toString() + ", return code: " + resultSet.toString());
       }
-      ResultSet resultSet = getCassandraClient().execute(insert);
-      LOG.debug("Wrote key: " + key.toString() + ", return code: " + resultSet.toString());
       getSimpleLoadGenerator().recordWriteSuccess(key);
       return 1;
     } catch (Exception e) {
@@ -207,6 +226,55 @@ public class CassandraKeyValue extends AppBase {
     }
   }
 
+  @Override
+  protected IntFunction<AsyncOp> getAsyncWrite() {
+    // Subclasses that write differently from doWrite() do so synchronously.
+    return overrides("doWrite", int.class) ? null : this::doWriteAsync;
+  }
+
+  private AsyncOp doWriteAsync(int threadIdx) {
+    Key key = getSimpleLoadGenerator().getKeyToWrite();
+    if (key == null) {
+      return null;
+    }
+
+    try {
+      // The value is sent after this returns, so it can't be in the buffer the next write reuses.
+      BoundStatement insert = bindInsert(key, new byte[appConfig.valueSize]);
+      return new AsyncOp(getCassandraClient().executeAsync(insert), 1, resultSet -> {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Wrote key: " + key.toString() + ", return code: " + resultSet.toString());
+        }
+        getSimpleLoadGenerator().recordWriteSuccess(key);
+      }, () -> getSimpleLoadGenerator().recordWriteFailure(key));
+    } catch (Exception e) {
+      getSimpleLoadGenerator().recordWriteFailure(key);
+      throw e;
+    }
+  }
+
+  /**
+   * @return whether the class of this app overrides the given public method of this class.
+   */
+  private boolean overrides(String methodName, Class<?>... parameterTypes) {
+    try {
+      return getClass().getMethod(methodName, parameterTypes).getDeclaringClass() !=
+          CassandraKeyValue.class;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private BoundStatement bindInsert(Key key, byte[] valueBuffer) {
+    if (appConfig.valueSize == 0) {
+      String value = key.getValueStr();
+      return getPreparedInsert().bind(key.asString(), ByteBuffer.wrap(value.getBytes()));
+    } else {
+      byte[] value = getRandomValue(key, valueBuffer);
+      return getPreparedInsert().bind(key.asString(), ByteBuffer.wrap(value));
+    }
+  }
+
   @Override
   public void appendMessage(StringBuilder sb) {
     super.appendMessage(sb);
@@ -17,6 +17,7 @@ import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.log4j.Logger;
@@ -204,18 +205,8 @@ public class CassandraTimeseries extends AppBase {
     if (!dataSource.getHasEmittedData()) {
       return 0;
     }
-    long startTs = dataSource.getStartTs();
-    long endTs = dataSource.getEndTs();
-
-    // Bind the select statement.
-    BoundStatement select =
-        getPreparedSelect().bind().setString("userId", dataSource.getUserId())
-                                  .setString("nodeId", dataSource.getNodeId())
-                                  .setString("metricId", dataSource.getRandomMetricId())
-                                  .setTimestamp("startTs", new Date(startTs))
-                                  .setTimestamp("endTs", new Date(endTs));
     // Make the query.
-    ResultSet rs = getCassandraClient().execute(select);
+    ResultSet rs = getCassandraClient().execute(bindSelect(dataSource));
     List<Row> rows = rs.all();
 
     // TODO: there is still a verification bug that needs to be tracked down.
@@ -246,6 +237,30 @@ public class CassandraTimeseries extends AppBase {
     return 1;
   }
 
+  private BoundStatement bindSelect(DataSource dataSource) {
+    long startTs = dataSource.getStartTs();
+    long endTs = dataSource.getEndTs();
+    return getPreparedSelect().bind().setString("userId", dataSource.getUserId())
+                                     .setString("nodeId", dataSource.getNodeId())
+                                     .setString("metricId", dataSource.getRandomMetricId())
+                                     .setTimestamp("startTs", new Date(startTs))
+                                     .setTimestamp("endTs", new Date(endTs));
+  }
+
+  @Override
+  protected Supplier<AsyncOp> getAsyncRead() {
+    return this::doReadAsync;
+  }
+
+  private AsyncOp doReadAsync() {
+    DataSource dataSource = dataSources.get(random.nextInt(dataSources.size()));
+    if (!dataSource.getHasEmittedData()) {
+      return null;
+    }
+    // The results are not verified, as in doRead().
+    return new AsyncOp(getCassandraClient().executeAsync(bindSelect(dataSource)), 1, null, null);
+  }
+
   private PreparedStatement getPreparedInsert()  {
     if (preparedInsert == null) {
       synchronized (prepareInitLock) {
@@ -29,6 +29,7 @@ import org.apache.commons.cli.ParseException;
 import org.apache.log4j.Logger;
 
 import com.yugabyte.sample.apps.AppBase;
+import com.yugabyte.sample.common.metrics.MetricsFileWriter;
 
 /**
  * This is a helper class to parse the user specified command-line options if they were specified,
@@ -56,6 +57,7 @@ public class CmdLineOpts {
     CassandraPersonalization,
     CassandraSparkWordCount,
     CassandraSparkKeyValueCopy,
+    CassandraBulkLoad,
     CassandraSecondaryIndex,
     CassandraUniqueSecondaryIndex,
     PostgresqlSecondaryIndex,
@@ -115,6 +117,65 @@ public class CmdLineOpts {
     }
     LOG.info("Run time (seconds): " + AppBase.appConfig.runTimeSeconds);
 
+    if (commandLine.hasOption("target_ops_per_sec")) {
+      AppBase.appConfig.targetOpsPerSec =
+          Double.parseDouble(commandLine.getOptionValue("target_ops_per_sec"));
+      LOG.info("Target ops/sec: " + AppBase.appConfig.targetOpsPerSec);
+    }
+
+    if (commandLine.hasOption("cql_async_in_flight")) {
+      AppBase.appConfig.cassandraAsyncInFlight =
+          Integer.parseInt(commandLine.getOptionValue("cql_async_in_flight"));
+      LOG.info("Async CQL requests in flight per thread: " +
+               AppBase.appConfig.cassandraAsyncInFlight);
+    }
+
+    if (commandLine.hasOption("key_distribution")) {
+      AppBase.appConfig.keyDistribution =
+          KeyChooser.Distribution.valueOf(commandLine.getOptionValue("key_distribution"));
+    }
+    if (commandLine.hasOption("key_zipf_exponent")) {
+      AppBase.appConfig.keyZipfExponent =
+          Double.parseDouble(commandLine.getOptionValue("key_zipf_exponent"));
+    }
+    if (commandLine.hasOption("hot_key_fraction")) {
+      AppBase.appConfig.hotKeyFraction =
+          Double.parseDouble(commandLine.getOptionValue("hot_key_fraction"));
+    }
+    if (commandLine.hasOption("hot_op_fraction")) {
+      AppBase.appConfig.hotOpFraction =
+          Double.parseDouble(commandLine.getOptionValue("hot_op_fraction"));
+    }
+    // Fail early on invalid parameters, rather than in the IO threads.
+    KeyChooser.create(AppBase.appConfig.keyDistribution, AppBase.appConfig.keyZipfExponent,
+                      AppBase.appConfig.hotKeyFraction, AppBase.appConfig.hotOpFraction);
+    LOG.info("Key distribution: " + AppBase.appConfig.keyDistribution);
+
+    if (commandLine.hasOption("metrics_file")) {
+      AppBase.appConfig.metricsFile = commandLine.getOptionValue("metrics_file");
+      if (commandLine.hasOption("metrics_file_format")) {
+        AppBase.appConfig.metricsFileFormat =
+            MetricsFileWriter.Format.valueOf(commandLine.getOptionValue("metrics_file_format"));
+      }
+      LOG.info("Writing " + AppBase.appConfig.metricsFileFormat + " metrics to " +
+               AppBase.appConfig.metricsFile);
+    }
+    if (commandLine.hasOption("prometheus_port")) {
+      AppBase.appConfig.prometheusPort =
+          Integer.parseInt(commandLine.getOptionValue("prometheus_port"));
+    }
+
+    if (commandLine.hasOption("virtual_threads")) {
+      AppBase.appConfig.useVirtualThreads = true;
+      if (commandLine.hasOption("num_carrier_threads")) {
+        AppBase.appConfig.numCarrierThreads =
+            Integer.parseInt(commandLine.getOptionValue("num_carrier_threads"));
+      }
+      LOG.info("Using virtual threads, carrier threads: " +
+               (AppBase.appConfig.numCarrierThreads > 0 ?
+                    AppBase.appConfig.numCarrierThreads : "one per CPU"));
+    }
+
     // Get the proxy contact points.
     List<String> hostPortList = Arrays.asList(commandLine.getOptionValue("nodes").split(","));
     for (String hostPort : hostPortList) {
@@ -531,6 +592,46 @@ public class CmdLineOpts {
     options.addOption("skip_workload", false, "Skip running workload.");
     options.addOption("run_time", true,
         "Run time for workload. Negative value means forever (default).");
+    options.addOption("target_ops_per_sec", true,
+        "Total number of operations per second to issue across all the IO threads. Each thread " +
+        "schedules its operations at fixed intervals instead of waiting for the previous one " +
+        "to complete, and latencies are also reported from the scheduled start times. A batch " +
+        "counts as the number of keys in it. By default each thread issues its next operation " +
+        "as soon as the previous one completes.");
+    options.addOption("cql_async_in_flight", true,
+        "Execute the CQL requests asynchronously, with up to this many requests in flight per " +
+        "IO thread. Results are verified and metrics recorded when the requests complete. " +
+        "Supported by CassandraKeyValue and by the reads of CassandraBatchKeyValue and " +
+        "CassandraTimeseries, the other apps can't be run with it.");
+    options.addOption("key_distribution", true,
+        "The distribution of the existing keys read and updated by the key-value apps: " +
+        "Uniform (default), Zipfian (the first keys are the hottest), ScrambledZipfian (the " +
+        "hot keys are spread over the key space), Latest (the last inserted keys are the " +
+        "hottest) or Hotspot (hot_op_fraction of the operations go to hot_key_fraction of " +
+        "the keys).");
+    options.addOption("key_zipf_exponent", true,
+        "The exponent of the Zipfian key distributions, between 0 and 1. Defaults to 0.99.");
+    options.addOption("hot_key_fraction", true,
+        "The fraction of the keys that are hot with the Hotspot key distribution. " +
+        "Defaults to 0.2.");
+    options.addOption("hot_op_fraction", true,
+        "The fraction of the operations on the hot keys with the Hotspot key distribution. " +
+        "Defaults to 0.8.");
+    options.addOption("metrics_file", true,
+        "Write the metrics of every reporting interval to this file: throughput, latency " +
+        "percentiles, errors and, in the Json format, the app status messages.");
+    options.addOption("metrics_file_format", true,
+        "The format of metrics_file: Json (default) for one JSON object per line, or Csv.");
+    options.addOption("prometheus_port", true,
+        "Serve the metrics of the last reporting interval at http://<host>:<port>/metrics in " +
+        "the Prometheus text format.");
+    options.addOption("virtual_threads", false,
+        "Run the IO threads on virtual threads, so that tens of thousands of them can simulate " +
+        "as many concurrent clients. Requires Java 21, or earlier versions with preview " +
+        "features enabled. Falls back to platform threads otherwise.");
+    options.addOption("num_carrier_threads", true,
+        "The number of platform threads the virtual threads run on, with virtual_threads. " +
+        "Defaults to the number of CPUs.");
     options.addOption("use_redis_cluster", false, "Use redis cluster client.");
     options.addOption("yql_username", true,
         "Use authentication with the YQL client using the provided username. " +
@@ -586,6 +687,22 @@ public class CmdLineOpts {
     options.addOption("wordcount_output_table", true,
                       "[CassandraSparkWordCount] Output table to write wordcounts to.");
 
+    // Options for CassandraBulkLoad app.
+    options.addOption("bulk_load_input_file", true,
+                      "[CassandraBulkLoad] Input file with the rows to load.");
+    options.addOption("bulk_load_format", true,
+                      "[CassandraBulkLoad] Format of the input file: csv (default) or binary.");
+    options.addOption("bulk_load_table", true,
+                      "[CassandraBulkLoad] Table to load the rows into, as [keyspace.]table.");
+    options.addOption("bulk_load_columns", true,
+                      "[CassandraBulkLoad] Comma-separated columns of the input file, in order. " +
+                      "All the columns of the table by default.");
+    options.addOption("bulk_load_buffer_mb", true,
+                      "[CassandraBulkLoad] Size in MB of the rows sorted per tablet before " +
+                      "being written.");
+    options.addOption("max_in_flight_per_server", true,
+                      "[CassandraBulkLoad] Maximum number of batches in flight per tablet server.");
+
     // Options for CassandraPersonalization app.
     options.addOption("num_stores", true,
                       "[CassandraPersonalization] Number of stores.");
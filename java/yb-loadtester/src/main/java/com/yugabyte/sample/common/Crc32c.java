@@ -0,0 +1,95 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common;
+
+import java.lang.reflect.Constructor;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C checksums. Java 9 and later have java.util.zip.CRC32C, which uses the CRC32 instructions
+ * of the CPU. The load tester is built for Java 8, so it is created through reflection, and a
+ * table-driven implementation is used when it is not available.
+ */
+public final class Crc32c implements Checksum {
+  // The reflected CRC32C polynomial of Castagnoli.
+  private static final int POLYNOMIAL = 0x82F63B78;
+  private static final int[] TABLE = new int[256];
+  // The constructor of java.util.zip.CRC32C, null if the JVM doesn't have it.
+  private static final Constructor<? extends Checksum> jdkConstructor;
+
+  static {
+    for (int i = 0; i < TABLE.length; i++) {
+      int crc = i;
+      for (int bit = 0; bit < 8; bit++) {
+        crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+      }
+      TABLE[i] = crc;
+    }
+    Constructor<? extends Checksum> constructor = null;
+    try {
+      constructor = Class.forName("java.util.zip.CRC32C").asSubclass(Checksum.class)
+          .getConstructor();
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      constructor = null;
+    }
+    jdkConstructor = constructor;
+  }
+
+  private int crc = ~0;
+
+  /**
+   * Returns true if the JVM has a CRC32C implementation, that is much faster than this one.
+   */
+  public static boolean isJdkAvailable() {
+    return jdkConstructor != null;
+  }
+
+  /**
+   * Creates a CRC32C checksum, the one of the JVM if it has one.
+   */
+  public static Checksum newChecksum() {
+    if (jdkConstructor != null) {
+      try {
+        return jdkConstructor.newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot create a CRC32C checksum", e);
+      }
+    }
+    return new Crc32c();
+  }
+
+  @Override
+  public void update(int b) {
+    crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xFF];
+  }
+
+  @Override
+  public void update(byte[] b, int off, int len) {
+    int c = crc;
+    for (int i = off; i < off + len; i++) {
+      c = (c >>> 8) ^ TABLE[(c ^ b[i]) & 0xFF];
+    }
+    crc = c;
+  }
+
+  @Override
+  public long getValue() {
+    return ~crc & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void reset() {
+    crc = ~0;
+  }
+}
@@ -13,6 +13,8 @@
 
 package com.yugabyte.sample.common;
 
+import java.util.concurrent.locks.LockSupport;
+
 import org.apache.log4j.Logger;
 
 import com.yugabyte.sample.apps.AppBase;
@@ -47,6 +49,10 @@ public class IOPSThread extends Thread {
 
   private final boolean printAllExceptions;
 
+  // The number of operations per second this thread schedules, or 0 to issue each operation as
+  // soon as the previous one completes.
+  private double targetOpsPerSec = 0;
+
   public IOPSThread(int threadIdx, AppBase app, IOType ioType, boolean printAllExceptions) {
     this.threadIdx = threadIdx;
     this.app = app;
@@ -54,6 +60,18 @@ public class IOPSThread extends Thread {
     this.printAllExceptions = printAllExceptions;
   }
 
+  /**
+   * Makes this thread issue its operations at fixed intervals rather than back to back. An
+   * operation that starts late, because earlier ones took longer than the interval, is measured
+   * from its scheduled start time too, so that server slowdowns show in the latencies instead of
+   * silently lowering the load. Operations are counted like in the metrics: a call that writes
+   * or reads a batch of keys takes as many intervals as there are keys in the batch.
+   * @param targetOpsPerSec the number of operations per second to schedule
+   */
+  public void setTargetOpsPerSec(double targetOpsPerSec) {
+    this.targetOpsPerSec = targetOpsPerSec;
+  }
+
   public int getNumExceptions() {
     return numExceptions;
   }
@@ -81,15 +99,34 @@ public class IOPSThread extends Thread {
     try {
       LOG.debug("Starting " + ioType.toString() + " IOPS thread #" + threadIdx);
       int numConsecutiveExceptions = 0;
+      final long intervalNanos = targetOpsPerSec > 0 ? (long) (1000000000L / targetOpsPerSec) : 0;
+      long intendedStartNanos = System.nanoTime();
       while (!app.hasFinished()) {
         try {
-          switch (ioType) {
-            case Write: app.performWrite(threadIdx); break;
-            case Read: app.performRead(); break;
+          if (intervalNanos > 0) {
+            // The schedule doesn't move when operations are late, the next ones start right away.
+            waitUntil(intendedStartNanos);
+            final long scheduledNanos = intendedStartNanos;
+            intendedStartNanos += intervalNanos;
+            long numOps = 0;
+            switch (ioType) {
+              case Write: numOps = app.performWrite(threadIdx, scheduledNanos); break;
+              case Read: numOps = app.performRead(scheduledNanos); break;
+            }
+            // The next call is scheduled after all the operations of this batch.
+            if (numOps > 1) {
+              intendedStartNanos += intervalNanos * (numOps - 1);
+            }
+          } else {
+            switch (ioType) {
+              case Write: app.performWrite(threadIdx); break;
+              case Read: app.performRead(); break;
+            }
           }
           numConsecutiveExceptions = 0;
         } catch (RuntimeException e) {
           numExceptions++;
+          AppBase.recordError();
           if (numConsecutiveExceptions++ % 10 == 0 || printAllExceptions) {
             app.reportException(e);
           }
@@ -120,4 +157,11 @@ public class IOPSThread extends Thread {
       app.terminate();
     }
   }
+
+  private static void waitUntil(long deadlineNanos) {
+    long remainingNanos;
+    while ((remainingNanos = deadlineNanos - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remainingNanos);
+    }
+  }
 }
@@ -0,0 +1,221 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chooses the existing keys to read or update, following a given distribution. The number of
+ * keys grows while they are loaded, so every call gets the current number of keys, and all the
+ * distributions sample in constant time regardless of it.
+ */
+public abstract class KeyChooser {
+  /**
+   * The supported distributions of the keys.
+   */
+  public static enum Distribution {
+    // All the keys are equally likely.
+    Uniform,
+    // Key i is chosen with a probability proportional to 1 / (i + 1)^exponent, so the first keys
+    // are the hottest.
+    Zipfian,
+    // Zipfian, but the hot keys are scattered over the key space instead of being the first ones.
+    ScrambledZipfian,
+    // Zipfian from the last key, so the recently inserted keys are the hottest.
+    Latest,
+    // A fraction of the keys gets a fraction of the operations, uniformly within both sets.
+    Hotspot,
+  }
+
+  /**
+   * Creates a key chooser.
+   * @param distribution the distribution of the keys.
+   * @param zipfExponent the exponent of the Zipfian distributions, in (0, 1).
+   * @param hotKeyFraction the fraction of the keys that are hot, for Hotspot.
+   * @param hotOpFraction the fraction of the operations on the hot keys, for Hotspot.
+   */
+  public static KeyChooser create(Distribution distribution, double zipfExponent,
+                                  double hotKeyFraction, double hotOpFraction) {
+    switch (distribution) {
+      case Uniform: return new Uniform();
+      case Zipfian: return new Zipfian(zipfExponent);
+      case ScrambledZipfian: return new ScrambledZipfian(zipfExponent);
+      case Latest: return new Latest(zipfExponent);
+      case Hotspot: return new Hotspot(hotKeyFraction, hotOpFraction);
+    }
+    throw new IllegalArgumentException("Unknown key distribution " + distribution);
+  }
+
+  /**
+   * Chooses a key.
+   * @param numKeys the number of keys to choose from, at least 1.
+   * @return a key in [0, numKeys).
+   */
+  public abstract long nextKey(long numKeys);
+
+  public static class Uniform extends KeyChooser {
+    @Override
+    public long nextKey(long numKeys) {
+      return ThreadLocalRandom.current().nextLong(numKeys);
+    }
+  }
+
+  /**
+   * The Zipfian generator of "Quickly Generating Billion-Record Synthetic Databases" by Gray et
+   * al., as in YCSB. It needs zeta(n) = sum(1 / i^exponent) over the n keys, which is extended
+   * as keys are added, and approximated by its integral beyond EXACT_ZETA_TERMS keys.
+   */
+  public static class Zipfian extends KeyChooser {
+    private static final long EXACT_ZETA_TERMS = 1 << 20;
+
+    private final double exponent;
+    private final double alpha;
+    private final double zeta2;
+    private final AtomicReference<ZetaState> state;
+
+    /**
+     * The constants of the distribution for a number of keys.
+     */
+    private final class ZetaState {
+      final long numKeys;
+      // The exact sum of the terms up to min(numKeys, EXACT_ZETA_TERMS).
+      final double exactZeta;
+      final double zeta;
+      final double eta;
+
+      ZetaState(long numKeys, double exactZeta) {
+        this.numKeys = numKeys;
+        this.exactZeta = exactZeta;
+        double zeta = exactZeta;
+        if (numKeys > EXACT_ZETA_TERMS) {
+          zeta += (Math.pow(numKeys + 0.5, 1 - exponent) -
+                   Math.pow(EXACT_ZETA_TERMS + 0.5, 1 - exponent)) / (1 - exponent);
+        }
+        this.zeta = zeta;
+        this.eta = (1 - Math.pow(2.0 / numKeys, 1 - exponent)) / (1 - zeta2 / zeta);
+      }
+
+      ZetaState extend(long newNumKeys) {
+        double newExactZeta = exactZeta;
+        for (long i = numKeys + 1; i <= Math.min(newNumKeys, EXACT_ZETA_TERMS); i++) {
+          newExactZeta += 1 / Math.pow(i, exponent);
+        }
+        return new ZetaState(newNumKeys, newExactZeta);
+      }
+    }
+
+    public Zipfian(double exponent) {
+      if (exponent <= 0 || exponent >= 1) {
+        throw new IllegalArgumentException("The Zipfian exponent must be in (0, 1): " + exponent);
+      }
+      this.exponent = exponent;
+      this.alpha = 1 / (1 - exponent);
+      this.zeta2 = 1 + 1 / Math.pow(2, exponent);
+      this.state = new AtomicReference<ZetaState>(new ZetaState(2, zeta2));
+    }
+
+    private ZetaState getState(long numKeys) {
+      ZetaState current = state.get();
+      while (current.numKeys < numKeys) {
+        ZetaState extended = current.extend(numKeys);
+        if (state.compareAndSet(current, extended)) {
+          return extended;
+        }
+        current = state.get();
+      }
+      return current;
+    }
+
+    @Override
+    public long nextKey(long numKeys) {
+      if (numKeys <= 2) {
+        return ThreadLocalRandom.current().nextLong(numKeys);
+      }
+      final ZetaState zetaState = getState(numKeys);
+      long key;
+      do {
+        // The state may be for more keys, if another thread saw more of them already.
+        final double u = ThreadLocalRandom.current().nextDouble();
+        final double uz = u * zetaState.zeta;
+        if (uz < 1) {
+          key = 0;
+        } else if (uz < zeta2) {
+          key = 1;
+        } else {
+          key = (long) (zetaState.numKeys *
+                        Math.pow(zetaState.eta * u - zetaState.eta + 1, alpha));
+        }
+      } while (key >= numKeys);
+      return key;
+    }
+  }
+
+  public static class ScrambledZipfian extends Zipfian {
+    public ScrambledZipfian(double exponent) {
+      super(exponent);
+    }
+
+    @Override
+    public long nextKey(long numKeys) {
+      return Long.remainderUnsigned(fnvHash64(super.nextKey(numKeys)), numKeys);
+    }
+
+    // The 64-bit FNV-1a hash of the bytes of a long.
+    private static long fnvHash64(long value) {
+      long hash = 0xCBF29CE484222325L;
+      for (int i = 0; i < Long.BYTES; i++) {
+        hash ^= value & 0xFF;
+        hash *= 0x100000001B3L;
+        value >>>= 8;
+      }
+      return hash;
+    }
+  }
+
+  public static class Latest extends Zipfian {
+    public Latest(double exponent) {
+      super(exponent);
+    }
+
+    @Override
+    public long nextKey(long numKeys) {
+      return numKeys - 1 - super.nextKey(numKeys);
+    }
+  }
+
+  public static class Hotspot extends KeyChooser {
+    private final double hotKeyFraction;
+    private final double hotOpFraction;
+
+    public Hotspot(double hotKeyFraction, double hotOpFraction) {
+      if (hotKeyFraction <= 0 || hotKeyFraction > 1 || hotOpFraction < 0 || hotOpFraction > 1) {
+        throw new IllegalArgumentException("Invalid hot key fraction " + hotKeyFraction +
+                                           " or hot op fraction " + hotOpFraction);
+      }
+      this.hotKeyFraction = hotKeyFraction;
+      this.hotOpFraction = hotOpFraction;
+    }
+
+    @Override
+    public long nextKey(long numKeys) {
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+      final long numHotKeys = Math.max(1, (long) (numKeys * hotKeyFraction));
+      if (numHotKeys >= numKeys || random.nextDouble() < hotOpFraction) {
+        return random.nextLong(numHotKeys);
+      }
+      return numHotKeys + random.nextLong(numKeys - numHotKeys);
+    }
+  }
+}
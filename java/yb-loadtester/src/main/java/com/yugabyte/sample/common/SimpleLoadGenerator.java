@@ -14,53 +14,127 @@
 package com.yugabyte.sample.common;
 
 import java.security.MessageDigest;
-import java.util.HashSet;
+import java.security.NoSuchAlgorithmException;
 import java.util.Random;
-import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-import org.apache.commons.codec.binary.Hex;
 import org.apache.log4j.Logger;
 
 public class SimpleLoadGenerator {
   private static final Logger LOG = Logger.getLogger(SimpleLoadGenerator.class);
 
   public static class Key {
+    // The maximum length of getValueStr(), for a negative key with 19 digits.
+    public static final int MAX_VALUE_STR_LENGTH = 24;
+
+    private static final byte[] VALUE_STR_PREFIX = { 'v', 'a', 'l', ':' };
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // The MD5 digest of the thread, which is expensive to look up for every key.
+    private static final ThreadLocal<MessageDigest> md5 = new ThreadLocal<MessageDigest>() {
+      @Override
+      protected MessageDigest initialValue() {
+        try {
+          return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+    // The key prefix of the load tester UUID, so that it is not formatted for every key.
+    private static volatile DefaultKeyPrefix defaultKeyPrefix = null;
+
     // The underlying key is an integer.
-    Long key;
+    final long key;
     // The randomized loadtester prefix.
-    String keyPrefix = (CmdLineOpts.loadTesterUUID != null)
-                           ? CmdLineOpts.loadTesterUUID.toString()
-                           : "key";
+    final String keyPrefix;
+    // The result of asString(), once computed.
+    private String keyString = null;
 
     public Key(long key, String keyPrefix) {
-      this.key = new Long(key);
-      if (keyPrefix != null) {
-        this.keyPrefix = keyPrefix;
+      this.key = key;
+      this.keyPrefix = keyPrefix != null ? keyPrefix : getDefaultKeyPrefix();
+    }
+
+    private static String getDefaultKeyPrefix() {
+      final UUID uuid = CmdLineOpts.loadTesterUUID;
+      if (uuid == null) {
+        return "key";
       }
+      DefaultKeyPrefix prefix = defaultKeyPrefix;
+      if (prefix == null || prefix.uuid != uuid) {
+        prefix = new DefaultKeyPrefix(uuid);
+        defaultKeyPrefix = prefix;
+      }
+      return prefix.prefix;
     }
 
     public long asNumber() {
       return key;
     }
 
-    public String asString() { return keyPrefix + ":" + key.toString(); }
+    public String asString() {
+      if (keyString == null) {
+        keyString = keyPrefix + ":" + key;
+      }
+      return keyString;
+    }
 
     public String getKeyWithHashPrefix() throws Exception {
       String k = asString();
-      MessageDigest md = MessageDigest.getInstance("MD5");
-      md.update(k.getBytes());
-      return Hex.encodeHexString(md.digest()) + ":" + k;
+      MessageDigest md = md5.get();
+      md.reset();
+      byte[] digest = md.digest(k.getBytes());
+      char[] chars = new char[digest.length * 2 + 1 + k.length()];
+      for (int i = 0; i < digest.length; i++) {
+        chars[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+        chars[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+      }
+      chars[digest.length * 2] = ':';
+      k.getChars(0, k.length(), chars, digest.length * 2 + 1);
+      return new String(chars);
     }
 
     public String getValueStr() {
-      return ("val:" + key.toString());
+      return ("val:" + key);
+    }
+
+    /**
+     * Writes the ASCII bytes of getValueStr() without allocating.
+     * @param out the buffer to write to, with at least MAX_VALUE_STR_LENGTH bytes from offset.
+     * @param offset the offset in out to write at.
+     * @return the number of bytes written.
+     */
+    public int writeValueStr(byte[] out, int offset) {
+      System.arraycopy(VALUE_STR_PREFIX, 0, out, offset, VALUE_STR_PREFIX.length);
+      int end = offset + VALUE_STR_PREFIX.length;
+      if (key == Long.MIN_VALUE) {
+        final byte[] bytes = getValueStr().getBytes();
+        System.arraycopy(bytes, 0, out, offset, bytes.length);
+        return bytes.length;
+      }
+      long n = key;
+      if (n < 0) {
+        out[end++] = '-';
+        n = -n;
+      }
+      int numDigits = 1;
+      for (long m = n; m >= 10; m /= 10) {
+        numDigits++;
+      }
+      end += numDigits;
+      for (int i = end - 1; i >= end - numDigits; i--) {
+        out[i] = (byte) ('0' + n % 10);
+        n /= 10;
+      }
+      return end - offset;
     }
 
     public void verify(String value) {
       if (value == null || !value.equals(getValueStr())) {
-        LOG.fatal("Value mismatch for key: " + key.toString() +
+        LOG.fatal("Value mismatch for key: " + key +
                   ", expected: " + getValueStr() +
                   ", got: " + value);
       }
@@ -72,6 +146,20 @@ public class SimpleLoadGenerator {
     }
   }
 
+  private static final class DefaultKeyPrefix {
+    final UUID uuid;
+    final String prefix;
+
+    DefaultKeyPrefix(UUID uuid) {
+      this.uuid = uuid;
+      this.prefix = uuid.toString();
+    }
+  }
+
+  // The number of keys above maxWrittenKey that can be written before maxWrittenKey moves, a
+  // power of 2. Once that many keys are in flight, writers update existing keys instead.
+  private static final int WINDOW_SIZE = 1 << 22;
+
   // The key to start from.
   final long startKey;
   // The key to write till.
@@ -80,12 +168,16 @@ public class SimpleLoadGenerator {
   AtomicLong maxWrittenKey;
   // The max key that has been generated and handed out so far.
   AtomicLong maxGeneratedKey;
-  // Set of keys that failed to write.
-  final Set<Long> failedKeys;
-  // Keys that have been written above maxWrittenKey.
-  final Set<Long> writtenKeys;
-  // A background thread to track keys written and increment maxWrittenKey.
-  Thread writtenKeysTracker;
+  // Keys that failed to write.
+  final KeySet failedKeys = new KeySet();
+  // The keys above maxWrittenKey that have been written or failed to write, one bit per key. Key
+  // k is bit (k % 64) of word (k / 64) % length, so that the bits of the keys written below
+  // maxWrittenKey are reused by the keys WINDOW_SIZE above them.
+  final AtomicLongArray writtenKeys = new AtomicLongArray(WINDOW_SIZE / 64);
+  // Whether a thread is moving maxWrittenKey forward. Only that thread clears bits of writtenKeys.
+  private final AtomicBoolean advancingMaxWrittenKey = new AtomicBoolean(false);
+  // Chooses the existing keys to read and update.
+  final KeyChooser keyChooser;
   // The prefix for the key.
   String keyPrefix;
   // Random number generator.
@@ -93,40 +185,16 @@ public class SimpleLoadGenerator {
 
   public SimpleLoadGenerator(long startKey, final long endKey,
                              long maxWrittenKey) {
+    this(startKey, endKey, maxWrittenKey, new KeyChooser.Uniform());
+  }
+
+  public SimpleLoadGenerator(long startKey, final long endKey,
+                             long maxWrittenKey, KeyChooser keyChooser) {
+    this.keyChooser = keyChooser;
     this.startKey = startKey;
     this.endKey = endKey;
     this.maxWrittenKey = new AtomicLong(maxWrittenKey);
     this.maxGeneratedKey = new AtomicLong(maxWrittenKey);
-    failedKeys = new HashSet<Long>();
-    writtenKeys = new HashSet<Long>();
-    writtenKeysTracker = new Thread("Written Keys Tracker") {
-        @Override
-        public void run() {
-          do {
-            long key = SimpleLoadGenerator.this.maxWrittenKey.get() + 1;
-            synchronized (this) {
-              if (failedKeys.contains(key) || writtenKeys.remove(key)) {
-                SimpleLoadGenerator.this.maxWrittenKey.set(key);
-                if (key == endKey - 1) {
-                  // We've inserted all requested keys, no need to track
-                  // maxWrittenKey/writtenKeys anymore.
-                  break;
-                }
-              } else {
-                try {
-                  wait();
-                } catch (InterruptedException e) {
-                  // Ignore
-                }
-              };
-            }
-          } while (true);
-        }
-      };
-    // Make tracker a daemon thread so that it will not block the load tester from exiting
-    // when done.
-    writtenKeysTracker.setDaemon(true);
-    writtenKeysTracker.start();
   }
 
   public void setKeyPrefix(String prefix) {
@@ -135,32 +203,76 @@ public class SimpleLoadGenerator {
 
   public void recordWriteSuccess(Key key) {
     if (key.asNumber() > maxWrittenKey.get()) {
-      synchronized (writtenKeysTracker) {
-        writtenKeys.add(key.asNumber());
-        writtenKeysTracker.notify();
-      }
+      markWritten(key.asNumber());
     }
   }
 
   public void recordWriteFailure(Key key) {
-    synchronized (writtenKeysTracker) {
-      if (key != null) {
-        failedKeys.add(key.asNumber());
-        writtenKeysTracker.notify();
+    if (key != null) {
+      failedKeys.add(key.asNumber());
+      if (key.asNumber() > maxWrittenKey.get()) {
+        markWritten(key.asNumber());
       }
     }
   }
 
+  private void markWritten(long key) {
+    final long bit = 1L << key;
+    final int word = (int) ((key >>> 6) & (writtenKeys.length() - 1));
+    long bits;
+    do {
+      bits = writtenKeys.get(word);
+    } while (!writtenKeys.compareAndSet(word, bits, bits | bit));
+    advanceMaxWrittenKey();
+  }
+
+  /**
+   * Moves maxWrittenKey over the keys that have been written right above it. A single thread
+   * does it at a time, the others leave their keys to it and return.
+   */
+  private void advanceMaxWrittenKey() {
+    while (advancingMaxWrittenKey.compareAndSet(false, true)) {
+      long key = maxWrittenKey.get() + 1;
+      try {
+        // We stop once all the requested keys are inserted, the remaining writes are updates.
+        while (key < endKey && isWritten(key)) {
+          final int word = (int) ((key >>> 6) & (writtenKeys.length() - 1));
+          final long mask = ~(1L << key);
+          long bits;
+          do {
+            bits = writtenKeys.get(word);
+          } while (!writtenKeys.compareAndSet(word, bits, bits & mask));
+          // The key WINDOW_SIZE above is only handed out from here on, after its bit is cleared.
+          maxWrittenKey.set(key);
+          key++;
+        }
+      } finally {
+        advancingMaxWrittenKey.set(false);
+      }
+      // Another thread may have marked the next key while we were done but still advancing.
+      if (key >= endKey || !isWritten(key)) {
+        return;
+      }
+    }
+  }
+
+  private boolean isWritten(long key) {
+    final int word = (int) ((key >>> 6) & (writtenKeys.length() - 1));
+    return (writtenKeys.get(word) & (1L << key)) != 0;
+  }
+
   // Always returns a non-null key.
   public Key getKeyToWrite() {
     Key retKey = null;
     do {
       long maxKey = maxWrittenKey.get();
-      // Return a random key to update if we have already written all keys.
-      if (maxKey != -1 && maxKey == endKey - 1) {
-        retKey = generateKey(ThreadLocalRandom.current().nextLong(maxKey));
-      } else {
-        retKey = generateKey(maxGeneratedKey.incrementAndGet());
+      long newKey = nextKeyToInsert(maxKey);
+      if (newKey != -1) {
+        retKey = generateKey(newKey);
+      } else if (maxKey > 0) {
+        // Return a random key to update if we have already written all keys, or if there are too
+        // many keys in flight to insert a new one.
+        retKey = generateKey(keyChooser.nextKey(maxKey));
       }
 
       if (retKey == null) {
@@ -173,6 +285,23 @@ public class SimpleLoadGenerator {
     return retKey;
   }
 
+  /**
+   * Hands out the next key to insert, if there is one and it fits in the window of keys being
+   * written.
+   * @return the key, or -1 if there is none.
+   */
+  private long nextKeyToInsert(long maxKey) {
+    final long lastKey = Math.min(endKey - 1, maxKey + WINDOW_SIZE);
+    long key;
+    do {
+      key = maxGeneratedKey.get();
+      if (key >= lastKey) {
+        return -1;
+      }
+    } while (!maxGeneratedKey.compareAndSet(key, key + 1));
+    return key + 1;
+  }
+
   public Key getKeyToRead() {
     long maxKey = maxWrittenKey.get();
     if (maxKey < 0) {
@@ -181,7 +310,7 @@ public class SimpleLoadGenerator {
       return generateKey(0);
     }
     do {
-      long key = ThreadLocalRandom.current().nextLong(maxKey);
+      long key = keyChooser.nextKey(maxKey);
       if (!failedKeys.contains(key))
         return generateKey(key);
     } while (true);
@@ -202,4 +331,68 @@ public class SimpleLoadGenerator {
   public boolean stillLoading() {
     return maxGeneratedKey.get() < endKey - 1;
   }
+
+  /**
+   * A set of keys that only grows. Adding is synchronized, but lookups don't lock: the keys are
+   * in an open-addressing table whose slots never change once set, and that is only replaced by
+   * a larger copy.
+   */
+  static final class KeySet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private volatile AtomicLongArray slots = newSlots(64);
+    private int size = 0;
+
+    private static AtomicLongArray newSlots(int length) {
+      AtomicLongArray slots = new AtomicLongArray(length);
+      for (int i = 0; i < length; i++) {
+        slots.lazySet(i, EMPTY);
+      }
+      return slots;
+    }
+
+    private static int slot(long key, int length) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & (length - 1);
+    }
+
+    boolean contains(long key) {
+      final AtomicLongArray slots = this.slots;
+      for (int i = slot(key, slots.length()); ; i = (i + 1) & (slots.length() - 1)) {
+        final long slotKey = slots.get(i);
+        if (slotKey == key) {
+          return true;
+        }
+        if (slotKey == EMPTY) {
+          return false;
+        }
+      }
+    }
+
+    synchronized void add(long key) {
+      if (contains(key)) {
+        return;
+      }
+      if (2 * (size + 1) > slots.length()) {
+        final AtomicLongArray oldSlots = slots;
+        final AtomicLongArray newSlots = newSlots(oldSlots.length() * 2);
+        for (int i = 0; i < oldSlots.length(); i++) {
+          if (oldSlots.get(i) != EMPTY) {
+            insert(newSlots, oldSlots.get(i));
+          }
+        }
+        slots = newSlots;
+      }
+      insert(slots, key);
+      size++;
+    }
+
+    private static void insert(AtomicLongArray slots, long key) {
+      int i = slot(key, slots.length());
+      while (slots.get(i) != EMPTY) {
+        i = (i + 1) & (slots.length() - 1);
+      }
+      slots.set(i, key);
+    }
+  }
 }
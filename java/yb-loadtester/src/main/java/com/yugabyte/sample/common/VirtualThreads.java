@@ -0,0 +1,103 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Starts threads on virtual threads when the JVM has them (Java 21 and later, or earlier versions
+ * with preview features enabled). The load tester is built for Java 8, so the virtual thread API
+ * is called through reflection.
+ */
+public final class VirtualThreads {
+  // The system property with the number of carrier threads of the virtual thread scheduler.
+  private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+  // Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.start(Runnable), or null if
+  // the JVM has no virtual threads.
+  private static final Method ofVirtual;
+  private static final Method builderName;
+  private static final Method builderStart;
+
+  static {
+    Method ofVirtualMethod = null;
+    Method nameMethod = null;
+    Method startMethod = null;
+    try {
+      // Look the builder methods up on the public interface, the builder classes are internal.
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+      nameMethod = builderClass.getMethod("name", String.class);
+      startMethod = builderClass.getMethod("start", Runnable.class);
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      ofVirtualMethod = null;
+    }
+    ofVirtual = ofVirtualMethod;
+    builderName = nameMethod;
+    builderStart = startMethod;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Returns true if virtual threads can be started in this JVM.
+   */
+  public static boolean isSupported() {
+    if (ofVirtual == null) {
+      return false;
+    }
+    try {
+      // Fails when virtual threads are a preview feature that is not enabled.
+      ofVirtual.invoke(null);
+      return true;
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Sets the number of carrier threads the virtual threads are scheduled on. Has no effect once
+   * the first virtual thread was started.
+   * @param numCarrierThreads the number of carrier threads, by default the number of CPUs.
+   */
+  public static void setNumCarrierThreads(int numCarrierThreads) {
+    System.setProperty(PARALLELISM_PROPERTY, Integer.toString(numCarrierThreads));
+  }
+
+  /**
+   * Starts a virtual thread.
+   * @param name the name of the thread.
+   * @param task the task the thread runs.
+   * @return the started thread.
+   * @throws UnsupportedOperationException if the JVM has no virtual threads.
+   */
+  public static Thread start(String name, Runnable task) {
+    if (ofVirtual == null) {
+      throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+    }
+    try {
+      Object builder = builderName.invoke(ofVirtual.invoke(null), name);
+      return (Thread) builderStart.invoke(builder, task);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot start virtual thread " + name, e);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Cannot start virtual thread " + name, e.getCause());
+    }
+  }
+}
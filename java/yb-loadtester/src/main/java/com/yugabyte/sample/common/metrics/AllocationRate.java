@@ -0,0 +1,104 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Reports the heap allocated by the load tester per operation, and its garbage collections, since
+ * the previous report. The load tester's own GC pauses show up in the latencies it measures, so a
+ * high allocation rate makes them less trustworthy.
+ */
+public class AllocationRate implements MetricsTracker.StatusMessageAppender {
+  // The HotSpot extension of the thread MX bean that counts the allocated bytes, null if the JVM
+  // doesn't have it.
+  private final com.sun.management.ThreadMXBean threadMXBean;
+  // The total number of operations done so far.
+  private final LongSupplier numOps;
+
+  // The bytes allocated by each thread at the previous report.
+  private Map<Long, Long> lastAllocatedBytes = new HashMap<Long, Long>();
+  private long lastNumOps;
+  private long lastGcCount;
+  private long lastGcMillis;
+  private long lastReportNanos = System.nanoTime();
+
+  public AllocationRate(LongSupplier numOps) {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean &&
+        ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      this.threadMXBean = (com.sun.management.ThreadMXBean) bean;
+      this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      this.threadMXBean = null;
+    }
+    this.numOps = numOps;
+    this.lastNumOps = numOps.getAsLong();
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      lastGcCount += Math.max(gc.getCollectionCount(), 0);
+      lastGcMillis += Math.max(gc.getCollectionTime(), 0);
+    }
+  }
+
+  @Override
+  public String appenderName() {
+    return getClass().getSimpleName();
+  }
+
+  @Override
+  public synchronized void appendMessage(StringBuilder sb) {
+    long now = System.nanoTime();
+    long elapsedNanos = now - lastReportNanos;
+    lastReportNanos = now;
+    long ops = numOps.getAsLong();
+    // The ops can be reset by the load tester.
+    long deltaOps = ops >= lastNumOps ? ops - lastNumOps : ops;
+    lastNumOps = ops;
+
+    if (threadMXBean != null) {
+      long[] threadIds = threadMXBean.getAllThreadIds();
+      long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+      long deltaBytes = 0;
+      Map<Long, Long> bytesByThread = new HashMap<Long, Long>();
+      for (int i = 0; i < threadIds.length; i++) {
+        if (allocatedBytes[i] < 0) {
+          continue;
+        }
+        bytesByThread.put(threadIds[i], allocatedBytes[i]);
+        Long last = lastAllocatedBytes.get(threadIds[i]);
+        deltaBytes += allocatedBytes[i] - (last == null ? 0 : last);
+      }
+      lastAllocatedBytes = bytesByThread;
+      sb.append(String.format("Allocated: %.1f MB/s, %d bytes/op | ",
+                              elapsedNanos <= 0 ? 0 : deltaBytes * 1e3 / elapsedNanos,
+                              deltaOps == 0 ? 0 : deltaBytes / deltaOps));
+    }
+
+    long gcCount = 0;
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(gc.getCollectionCount(), 0);
+      gcMillis += Math.max(gc.getCollectionTime(), 0);
+    }
+    sb.append(String.format("GC: %d collections, %d ms | ", gcCount - lastGcCount,
+                            gcMillis - lastGcMillis));
+    lastGcCount = gcCount;
+    lastGcMillis = gcMillis;
+  }
+}
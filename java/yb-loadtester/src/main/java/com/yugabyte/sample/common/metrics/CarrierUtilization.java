@@ -0,0 +1,72 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reports how busy the carrier threads of the virtual threads are, as the CPU time they used
+ * over the time elapsed since the previous report. A utilization close to 100% means that the
+ * load tester itself is the bottleneck rather than the database.
+ */
+public class CarrierUtilization implements MetricsTracker.StatusMessageAppender {
+  // The thread group of the carrier threads of the default virtual thread scheduler.
+  private static final String CARRIER_THREAD_GROUP = "CarrierThreads";
+
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  // The CPU time of each carrier thread at the previous report.
+  private Map<Long, Long> lastCpuNanos = new HashMap<Long, Long>();
+  private long lastReportNanos = System.nanoTime();
+
+  @Override
+  public String appenderName() {
+    return getClass().getSimpleName();
+  }
+
+  @Override
+  public synchronized void appendMessage(StringBuilder sb) {
+    if (!threadMXBean.isThreadCpuTimeSupported()) {
+      return;
+    }
+    long now = System.nanoTime();
+    long elapsedNanos = now - lastReportNanos;
+    lastReportNanos = now;
+
+    long busyNanos = 0;
+    Map<Long, Long> cpuNanos = new HashMap<Long, Long>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      ThreadGroup group = thread.getThreadGroup();
+      if (group == null || !CARRIER_THREAD_GROUP.equals(group.getName())) {
+        continue;
+      }
+      long cpu = threadMXBean.getThreadCpuTime(thread.getId());
+      if (cpu < 0) {
+        continue;
+      }
+      cpuNanos.put(thread.getId(), cpu);
+      Long last = lastCpuNanos.get(thread.getId());
+      busyNanos += cpu - (last == null ? 0 : last);
+    }
+    lastCpuNanos = cpuNanos;
+
+    int numCarriers = cpuNanos.size();
+    double utilization =
+        numCarriers == 0 || elapsedNanos <= 0 ? 0 : 100.0 * busyNanos / elapsedNanos / numCarriers;
+    sb.append(String.format("Carrier threads: %d, utilization: %.1f%% | ", numCarriers,
+                            utilization));
+  }
+}
@@ -0,0 +1,143 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in microseconds, with buckets of exponentially growing width so that
+ * any latency is known within 1.6% of its value, in the spirit of HdrHistogram.
+ *
+ * Values below 128 have a bucket each. Above that, every power of two range is split in 64
+ * buckets, so that a histogram covering the whole range of longs needs less than 4K counters.
+ */
+public class LatencyHistogram {
+  // Number of buckets in each power of two range, a power of two itself.
+  private static final int SUB_BUCKET_COUNT = 64;
+  private static final int SUB_BUCKET_BITS = 6;
+  static final int NUM_BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final long[] counts;
+  private long totalCount;
+  private long sum;
+
+  public LatencyHistogram() {
+    this.counts = new long[NUM_BUCKETS];
+  }
+
+  static int bucketIndex(long value) {
+    if (value < 2 * SUB_BUCKET_COUNT) {
+      return (int) Math.max(0, value);
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return SUB_BUCKET_COUNT * shift + (int) (value >>> shift);
+  }
+
+  /**
+   * @return the highest value that falls into the given bucket
+   */
+  static long bucketHighestValue(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    final long lowest = (long) (index - SUB_BUCKET_COUNT * shift) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * Adds the values recorded by a recorder so far. The recorder may be written to meanwhile, so
+   * the total count is derived from the bucket counts read, for the percentiles to stay within
+   * the buckets.
+   */
+  void add(Recorder recorder) {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      final long count = recorder.counts.get(i);
+      counts[i] += count;
+      totalCount += count;
+    }
+    sum += recorder.sum.get();
+  }
+
+  /**
+   * @return a new histogram with the values of this one that are not in the given one, which must
+   *         hold a subset of the values of this one
+   */
+  LatencyHistogram minus(LatencyHistogram other) {
+    final LatencyHistogram result = new LatencyHistogram();
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      result.counts[i] = counts[i] - other.counts[i];
+    }
+    result.totalCount = totalCount - other.totalCount;
+    result.sum = sum - other.sum;
+    return result;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * @return the mean of the values, 0 if there is none
+   */
+  public double getMean() {
+    return totalCount == 0 ? 0 : (double) sum / totalCount;
+  }
+
+  /**
+   * @param percentile the percentile, between 0 and 100
+   * @return the value at the given percentile, 0 if there is none
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return bucketHighestValue(i);
+      }
+    }
+    return getMaxValue();
+  }
+
+  /**
+   * @return the highest value, 0 if there is none
+   */
+  public long getMaxValue() {
+    for (int i = NUM_BUCKETS - 1; i >= 0; i--) {
+      if (counts[i] != 0) {
+        return bucketHighestValue(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Records values concurrently. Meant to be one of a few stripes the recording threads are spread
+   * over, so that the threads rarely contend on the same counters.
+   */
+  static class Recorder {
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+
+    void record(long value, long count) {
+      counts.addAndGet(bucketIndex(value), count);
+      sum.addAndGet(value * count);
+    }
+  }
+}
@@ -19,9 +19,11 @@ public class Metric {
   private static final Logger LOG = Logger.getLogger(Metric.class);
   String name;
   private final Object lock = new Object();
-  private long curOpCount = 0;
-  private long curOpLatencyNanos = 0;
-  private long totalOpCount = 0;
+  // The time the operations took.
+  private final Latencies serviceTimes = new Latencies();
+  // The time from the scheduled start of the operations to their end, only for operations
+  // scheduled at a target throughput.
+  private final Latencies responseTimes = new Latencies();
   private long lastSnapshotNanos;
 
   public Metric(String name) {
@@ -35,28 +37,179 @@ public class Metric {
    * @param batchLatencyNanos whole batch latency
    */
   public void accumulate(long numOps, long batchLatencyNanos) {
-    synchronized(lock) {
-      curOpCount += numOps;
-      curOpLatencyNanos += batchLatencyNanos * numOps;
-      totalOpCount += numOps;
-    }
+    serviceTimes.record(numOps, batchLatencyNanos);
+  }
+
+  /**
+   * Accumulate metrics with operations processed as one batch that was scheduled at a given time.
+   * @param numOps number of ops processed as one batch
+   * @param batchLatencyNanos whole batch latency
+   * @param responseTimeNanos time from the scheduled start of the batch to its end, including the
+   *                          time it waited for earlier operations to complete
+   */
+  public void accumulate(long numOps, long batchLatencyNanos, long responseTimeNanos) {
+    serviceTimes.record(numOps, batchLatencyNanos);
+    responseTimes.record(numOps, responseTimeNanos);
+  }
+
+  /**
+   * @return the latencies in microseconds of all the operations since the start
+   */
+  public LatencyHistogram getCumulativeHistogram() {
+    return serviceTimes.getCumulativeHistogram();
   }
 
   public String getMetricsAndReset() {
-    String msg = null;
+    return snapshotAndReset().toString();
+  }
+
+  /**
+   * @return the metrics of the operations since the previous snapshot, and since the start
+   */
+  public Snapshot snapshotAndReset() {
     synchronized(lock) {
       long currNanos = System.nanoTime();
       long elapsedNanos = currNanos - lastSnapshotNanos;
-      LOG.debug("currentOpLatency: " + curOpLatencyNanos + ", currentOpCount: " + curOpCount);
-      double ops_per_sec =
-          (elapsedNanos == 0) ? 0 : (curOpCount * 1000000000 * 1.0 / elapsedNanos);
-      double latency = (curOpCount == 0) ? 0 : (curOpLatencyNanos / 1000000 * 1.0 / curOpCount);
-      msg = String.format("%s: %.2f ops/sec (%.2f ms/op), %d total ops",
-                          name, ops_per_sec, latency, totalOpCount);
-      curOpCount = 0;
-      curOpLatencyNanos = 0;
+      LatencyHistogram cumulative = serviceTimes.getCumulativeHistogram();
+      LatencyHistogram interval = serviceTimes.snapshot(cumulative);
+      LOG.debug("currentOpLatency: " + interval.getMean() + ", currentOpCount: " +
+                interval.getTotalCount());
+      LatencyHistogram cumulativeResponseTimes = responseTimes.getCumulativeHistogram();
+      LatencyHistogram intervalResponseTimes = null;
+      if (cumulativeResponseTimes.getTotalCount() > 0) {
+        intervalResponseTimes = responseTimes.snapshot(cumulativeResponseTimes);
+      } else {
+        cumulativeResponseTimes = null;
+      }
       lastSnapshotNanos = currNanos;
+      return new Snapshot(name, elapsedNanos, interval, cumulative, intervalResponseTimes,
+                          cumulativeResponseTimes);
+    }
+  }
+
+  /**
+   * The metrics of the operations over an interval, and since the start. The latencies are in
+   * microseconds.
+   */
+  public static class Snapshot {
+    private final String name;
+    private final long elapsedNanos;
+    private final LatencyHistogram interval;
+    private final LatencyHistogram cumulative;
+    private final LatencyHistogram intervalResponseTimes;
+    private final LatencyHistogram cumulativeResponseTimes;
+
+    Snapshot(String name, long elapsedNanos, LatencyHistogram interval,
+             LatencyHistogram cumulative, LatencyHistogram intervalResponseTimes,
+             LatencyHistogram cumulativeResponseTimes) {
+      this.name = name;
+      this.elapsedNanos = elapsedNanos;
+      this.interval = interval;
+      this.cumulative = cumulative;
+      this.intervalResponseTimes = intervalResponseTimes;
+      this.cumulativeResponseTimes = cumulativeResponseTimes;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public double getOpsPerSec() {
+      return (elapsedNanos == 0) ? 0 :
+          (interval.getTotalCount() * 1000000000 * 1.0 / elapsedNanos);
+    }
+
+    public long getTotalOps() {
+      return cumulative.getTotalCount();
+    }
+
+    public LatencyHistogram getInterval() {
+      return interval;
+    }
+
+    public LatencyHistogram getCumulative() {
+      return cumulative;
+    }
+
+    /**
+     * @return the response times over the interval, null if no operation was scheduled at a
+     *         target throughput
+     */
+    public LatencyHistogram getIntervalResponseTimes() {
+      return intervalResponseTimes;
+    }
+
+    /**
+     * @return the response times since the start, null if no operation was scheduled at a target
+     *         throughput
+     */
+    public LatencyHistogram getCumulativeResponseTimes() {
+      return cumulativeResponseTimes;
+    }
+
+    @Override
+    public String toString() {
+      double latency = interval.getMean() / 1000;
+      String msg = String.format("%s: %.2f ops/sec (%.2f ms/op), %d total ops, %s, cumulative %s",
+                                 name, getOpsPerSec(), latency, cumulative.getTotalCount(),
+                                 formatPercentiles(interval), formatPercentiles(cumulative));
+      if (cumulativeResponseTimes != null) {
+        msg += String.format(", response time %s, cumulative %s",
+                             formatPercentiles(intervalResponseTimes),
+                             formatPercentiles(cumulativeResponseTimes));
+      }
+      return msg;
+    }
+  }
+
+  private static String formatPercentiles(LatencyHistogram histogram) {
+    return String.format("p50 %.2f p95 %.2f p99 %.2f p99.9 %.2f max %.2f ms",
+                         histogram.getValueAtPercentile(50) / 1000.0,
+                         histogram.getValueAtPercentile(95) / 1000.0,
+                         histogram.getValueAtPercentile(99) / 1000.0,
+                         histogram.getValueAtPercentile(99.9) / 1000.0,
+                         histogram.getMaxValue() / 1000.0);
+  }
+
+  /**
+   * Latencies recorded in a few stripes picked by thread id, so that recording rarely contends
+   * and the memory used doesn't grow with the number of threads that ever recorded.
+   */
+  private static class Latencies {
+    // A power of two between 2 and 4 times the number of cores, up to 64.
+    private static final int NUM_STRIPES = Math.min(
+        64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1));
+    private final LatencyHistogram.Recorder[] recorders =
+        new LatencyHistogram.Recorder[NUM_STRIPES];
+    // The latencies of all the threads at the last snapshot.
+    private LatencyHistogram lastSnapshot = new LatencyHistogram();
+
+    Latencies() {
+      for (int i = 0; i < NUM_STRIPES; i++) {
+        recorders[i] = new LatencyHistogram.Recorder();
+      }
+    }
+
+    void record(long numOps, long latencyNanos) {
+      final int stripe = (int) (Thread.currentThread().getId() & (NUM_STRIPES - 1));
+      recorders[stripe].record(latencyNanos / 1000, numOps);
+    }
+
+    LatencyHistogram getCumulativeHistogram() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (LatencyHistogram.Recorder stripeRecorder : recorders) {
+        histogram.add(stripeRecorder);
+      }
+      return histogram;
+    }
+
+    /**
+     * @return the latencies recorded since the last snapshot, given the cumulative latencies
+     */
+    LatencyHistogram snapshot(LatencyHistogram cumulative) {
+      LatencyHistogram interval = cumulative.minus(lastSnapshot);
+      lastSnapshot = cumulative;
+      return interval;
     }
-    return msg;
   }
 }
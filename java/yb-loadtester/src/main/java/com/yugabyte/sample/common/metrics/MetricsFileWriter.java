@@ -0,0 +1,150 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+import com.yugabyte.sample.common.metrics.MetricsTracker.MetricName;
+
+/**
+ * Writes the metrics of every interval to a file, one record per line, so that runs can be
+ * graphed and compared. The latencies are in milliseconds.
+ */
+public class MetricsFileWriter implements MetricsTracker.ReportListener {
+  /**
+   * The formats of the file.
+   */
+  public static enum Format {
+    // One JSON object per line, with the status messages of the appenders.
+    Json,
+    // Comma-separated values with a header line. The appender messages are free-form text and
+    // are left out.
+    Csv,
+  }
+
+  private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+
+  private final Format format;
+  private final Writer writer;
+
+  /**
+   * @param path the file to write to, replaced if it exists.
+   * @param format the format of the records.
+   */
+  public MetricsFileWriter(String path, Format format) throws IOException {
+    this.format = format;
+    this.writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+    if (format == Format.Csv) {
+      writeCsvHeader();
+    }
+  }
+
+  @Override
+  public synchronized void onReport(MetricsReport report) {
+    try {
+      writer.write(format == Format.Json ? toJson(report) : toCsv(report));
+      writer.write('\n');
+      writer.flush();
+    } catch (IOException e) {
+      throw new RuntimeException("Cannot write the metrics", e);
+    }
+  }
+
+  private static String toJson(MetricsReport report) {
+    JsonObject record = new JsonObject();
+    record.addProperty("timestamp_ms", report.getTimestampMillis());
+    for (Map.Entry<MetricName, Metric.Snapshot> entry : report.getSnapshots().entrySet()) {
+      Metric.Snapshot snapshot = entry.getValue();
+      JsonObject metric = new JsonObject();
+      metric.addProperty("ops_per_sec", snapshot.getOpsPerSec());
+      metric.addProperty("total_ops", snapshot.getTotalOps());
+      metric.add("latency_ms", toJson(snapshot.getInterval()));
+      metric.add("cumulative_latency_ms", toJson(snapshot.getCumulative()));
+      if (snapshot.getIntervalResponseTimes() != null) {
+        metric.add("response_time_ms", toJson(snapshot.getIntervalResponseTimes()));
+        metric.add("cumulative_response_time_ms",
+                   toJson(snapshot.getCumulativeResponseTimes()));
+      }
+      record.add(entry.getKey().name().toLowerCase(), metric);
+    }
+    record.addProperty("errors", report.getNumErrors());
+    JsonObject appenders = new JsonObject();
+    for (Map.Entry<String, String> entry : report.getAppenderMessages().entrySet()) {
+      appenders.addProperty(entry.getKey(), entry.getValue().trim());
+    }
+    record.add("status", appenders);
+    return record.toString();
+  }
+
+  private static JsonObject toJson(LatencyHistogram histogram) {
+    JsonObject latencies = new JsonObject();
+    latencies.addProperty("mean", histogram.getMean() / 1000);
+    for (double percentile : PERCENTILES) {
+      latencies.addProperty(percentileName(percentile),
+                            histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+    latencies.addProperty("max", histogram.getMaxValue() / 1000.0);
+    return latencies;
+  }
+
+  private void writeCsvHeader() throws IOException {
+    StringBuilder sb = new StringBuilder("timestamp_ms");
+    for (MetricName metricName : MetricName.values()) {
+      String prefix = metricName.name().toLowerCase() + "_";
+      sb.append(',').append(prefix).append("ops_per_sec");
+      sb.append(',').append(prefix).append("total_ops");
+      sb.append(',').append(prefix).append("mean_ms");
+      for (double percentile : PERCENTILES) {
+        sb.append(',').append(prefix).append(percentileName(percentile)).append("_ms");
+      }
+      sb.append(',').append(prefix).append("max_ms");
+    }
+    sb.append(",errors\n");
+    writer.write(sb.toString());
+  }
+
+  private static String toCsv(MetricsReport report) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(report.getTimestampMillis());
+    for (MetricName metricName : MetricName.values()) {
+      Metric.Snapshot snapshot = report.getSnapshots().get(metricName);
+      LatencyHistogram interval = snapshot.getInterval();
+      sb.append(String.format(Locale.ROOT, ",%.2f,%d,%.3f", snapshot.getOpsPerSec(),
+                              snapshot.getTotalOps(), interval.getMean() / 1000));
+      for (double percentile : PERCENTILES) {
+        sb.append(String.format(Locale.ROOT, ",%.3f",
+                                interval.getValueAtPercentile(percentile) / 1000.0));
+      }
+      sb.append(String.format(Locale.ROOT, ",%.3f", interval.getMaxValue() / 1000.0));
+    }
+    sb.append(',').append(report.getNumErrors());
+    return sb.toString();
+  }
+
+  // The name of a percentile in the records, e.g. p99 or p99_9.
+  static String percentileName(double percentile) {
+    String name = percentile == Math.rint(percentile) ?
+        Long.toString((long) percentile) : Double.toString(percentile);
+    return "p" + name.replace('.', '_');
+  }
+}
@@ -0,0 +1,62 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.yugabyte.sample.common.metrics.MetricsTracker.MetricName;
+
+/**
+ * The metrics of one reporting interval of the metrics tracker.
+ */
+public class MetricsReport {
+  private final long timestampMillis;
+  private final Map<MetricName, Metric.Snapshot> snapshots;
+  private final long numErrors;
+  private final Map<String, String> appenderMessages;
+
+  MetricsReport(long timestampMillis, Map<MetricName, Metric.Snapshot> snapshots,
+                long numErrors, Map<String, String> appenderMessages) {
+    this.timestampMillis = timestampMillis;
+    this.snapshots = Collections.unmodifiableMap(snapshots);
+    this.numErrors = numErrors;
+    this.appenderMessages = Collections.unmodifiableMap(appenderMessages);
+  }
+
+  /**
+   * @return the end of the interval, in milliseconds since the epoch
+   */
+  public long getTimestampMillis() {
+    return timestampMillis;
+  }
+
+  public Map<MetricName, Metric.Snapshot> getSnapshots() {
+    return snapshots;
+  }
+
+  /**
+   * @return the number of errors of the operations since the start
+   */
+  public long getNumErrors() {
+    return numErrors;
+  }
+
+  /**
+   * @return the status messages of the appenders, by appender name
+   */
+  public Map<String, String> getAppenderMessages() {
+    return appenderMessages;
+  }
+}
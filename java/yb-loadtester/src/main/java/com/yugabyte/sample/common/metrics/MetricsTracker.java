@@ -13,8 +13,13 @@
 
 package com.yugabyte.sample.common.metrics;
 
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
 
 import org.apache.log4j.Logger;
 
@@ -27,6 +32,11 @@ public class MetricsTracker extends Thread {
     public void appendMessage(StringBuilder sb);
   }
 
+  // Interface to export the metrics of every interval.
+  public static interface ReportListener {
+    public void onReport(MetricsReport report);
+  }
+
   // The type of metrics supported.
   public static enum MetricName {
     Read,
@@ -45,6 +55,11 @@ public class MetricsTracker extends Thread {
   Map<String, StatusMessageAppender> appenders =
       new ConcurrentHashMap<String, StatusMessageAppender>();
 
+  // The listeners of the metrics of every interval.
+  List<ReportListener> listeners = new CopyOnWriteArrayList<ReportListener>();
+  // The number of errors so far.
+  volatile LongSupplier errorCounter = () -> 0;
+
   public MetricsTracker() {
     this.setDaemon(true);
   }
@@ -53,6 +68,14 @@ public class MetricsTracker extends Thread {
     appenders.put(appender.appenderName(), appender);
   }
 
+  public void addReportListener(ReportListener listener) {
+    listeners.add(listener);
+  }
+
+  public void setErrorCounter(LongSupplier errorCounter) {
+    this.errorCounter = errorCounter;
+  }
+
   public void createMetric(MetricName metricName) {
     synchronized (initLock) {
       if (!metrics.containsKey(metricName)) {
@@ -65,10 +88,19 @@ public class MetricsTracker extends Thread {
     return metrics.get(metricName);
   }
 
-  public void getMetricsAndReset(StringBuilder sb) {
+  /**
+   * Snapshots all the metrics and appends them to the given status message.
+   * @return the snapshots of the metrics
+   */
+  public Map<MetricName, Metric.Snapshot> getMetricsAndReset(StringBuilder sb) {
+    Map<MetricName, Metric.Snapshot> snapshots =
+        new EnumMap<MetricName, Metric.Snapshot>(MetricName.class);
     for (MetricName metricName : MetricName.values()) {
-      sb.append(String.format("%s  |  ", metrics.get(metricName).getMetricsAndReset()));
+      Metric.Snapshot snapshot = metrics.get(metricName).snapshotAndReset();
+      snapshots.put(metricName, snapshot);
+      sb.append(String.format("%s  |  ", snapshot));
     }
+    return snapshots;
   }
 
   @Override
@@ -86,12 +118,25 @@ public class MetricsTracker extends Thread {
     while (true) {
       try {
         Thread.sleep(5000);
+        long timestampMillis = System.currentTimeMillis();
         StringBuilder sb = new StringBuilder();
-        getMetricsAndReset(sb);
+        Map<MetricName, Metric.Snapshot> snapshots = getMetricsAndReset(sb);
+        Map<String, String> appenderMessages = new TreeMap<String, String>();
         for (StatusMessageAppender appender : appenders.values()) {
+          int start = sb.length();
           appender.appendMessage(sb);
+          appenderMessages.put(appender.appenderName(), sb.substring(start));
         }
         LOG.info(sb.toString());
+        MetricsReport report = new MetricsReport(timestampMillis, snapshots,
+                                                 errorCounter.getAsLong(), appenderMessages);
+        for (ReportListener listener : listeners) {
+          try {
+            listener.onReport(report);
+          } catch (RuntimeException e) {
+            LOG.warn("Failed to export the metrics", e);
+          }
+        }
       } catch (InterruptedException e) {}
     }
   }
@@ -0,0 +1,118 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import com.yugabyte.sample.common.metrics.MetricsTracker.MetricName;
+
+/**
+ * Serves the metrics of the last interval in the Prometheus text format at /metrics. The
+ * latencies are in milliseconds: the quantiles are over the last interval, while the sum and
+ * count of the latencies are since the start, as Prometheus expects of a summary.
+ */
+public class PrometheusEndpoint implements MetricsTracker.ReportListener {
+  private static final Logger LOG = Logger.getLogger(PrometheusEndpoint.class);
+
+  private static final double[] QUANTILES = { 0.5, 0.95, 0.99, 0.999 };
+  private static final String PREFIX = "yb_loadtester_";
+
+  private final HttpServer server;
+  // The metrics to serve, in the Prometheus text format.
+  private volatile String metrics = "";
+
+  /**
+   * Starts serving the metrics.
+   * @param port the port to listen on.
+   */
+  public PrometheusEndpoint(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext("/metrics", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        byte[] body = metrics.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+    // Daemon threads, so that the endpoint doesn't keep the load tester running.
+    server.setExecutor(command -> {
+      Thread thread = new Thread(command, "Prometheus endpoint");
+      thread.setDaemon(true);
+      thread.start();
+    });
+    // The dispatcher thread inherits its daemon status from the thread that starts the server.
+    Thread starter = new Thread(server::start, "Prometheus endpoint starter");
+    starter.setDaemon(true);
+    starter.start();
+    try {
+      starter.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while starting the Prometheus endpoint", e);
+    }
+    LOG.info("Serving Prometheus metrics at http://0.0.0.0:" + port + "/metrics");
+  }
+
+  @Override
+  public void onReport(MetricsReport report) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("# HELP " + PREFIX + "ops_total The number of operations done.\n");
+    sb.append("# TYPE " + PREFIX + "ops_total counter\n");
+    for (Map.Entry<MetricName, Metric.Snapshot> entry : report.getSnapshots().entrySet()) {
+      sb.append(String.format(Locale.ROOT, "%sops_total{op=\"%s\"} %d\n", PREFIX, entry.getKey(),
+                              entry.getValue().getTotalOps()));
+    }
+    sb.append("# HELP " + PREFIX + "ops_per_sec The throughput over the last interval.\n");
+    sb.append("# TYPE " + PREFIX + "ops_per_sec gauge\n");
+    for (Map.Entry<MetricName, Metric.Snapshot> entry : report.getSnapshots().entrySet()) {
+      sb.append(String.format(Locale.ROOT, "%sops_per_sec{op=\"%s\"} %.2f\n", PREFIX,
+                              entry.getKey(), entry.getValue().getOpsPerSec()));
+    }
+    sb.append("# HELP " + PREFIX + "latency_ms The latencies, quantiles over the last interval.\n");
+    sb.append("# TYPE " + PREFIX + "latency_ms summary\n");
+    for (Map.Entry<MetricName, Metric.Snapshot> entry : report.getSnapshots().entrySet()) {
+      LatencyHistogram interval = entry.getValue().getInterval();
+      LatencyHistogram cumulative = entry.getValue().getCumulative();
+      for (double quantile : QUANTILES) {
+        sb.append(String.format(Locale.ROOT, "%slatency_ms{op=\"%s\",quantile=\"%s\"} %.3f\n",
+                                PREFIX, entry.getKey(), quantile,
+                                interval.getValueAtPercentile(quantile * 100) / 1000.0));
+      }
+      sb.append(String.format(Locale.ROOT, "%slatency_ms_sum{op=\"%s\"} %.3f\n", PREFIX,
+                              entry.getKey(),
+                              cumulative.getMean() * cumulative.getTotalCount() / 1000));
+      sb.append(String.format(Locale.ROOT, "%slatency_ms_count{op=\"%s\"} %d\n", PREFIX,
+                              entry.getKey(), cumulative.getTotalCount()));
+    }
+    sb.append("# HELP " + PREFIX + "errors_total The number of failed operations.\n");
+    sb.append("# TYPE " + PREFIX + "errors_total counter\n");
+    sb.append(PREFIX + "errors_total " + report.getNumErrors() + "\n");
+    metrics = sb.toString();
+  }
+}
@@ -0,0 +1,133 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package com.yugabyte.sample.apps;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.Checksum;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.yb.YBTestRunner;
+
+import com.yugabyte.sample.common.Crc32c;
+import com.yugabyte.sample.common.SimpleLoadGenerator.Key;
+
+@RunWith(value=YBTestRunner.class)
+public class TestRandomValues {
+
+  private static final int[] VALUE_SIZES = { 1, 5, 9, 10, 16, 17, 24, 64, 1024 };
+
+  private final boolean restrictValuesToAscii = AppBase.appConfig.restrictValuesToAscii;
+  private final AppBase app = new AppBase() {};
+  private final Random random = new Random(0);
+
+  @After
+  public void tearDown() {
+    AppBase.appConfig.restrictValuesToAscii = restrictValuesToAscii;
+  }
+
+  /**
+   * Generates a value the way the load tester did before values were checksummed with CRC32C, to
+   * check that the data it wrote can still be read.
+   */
+  private byte[] adler32Value(Key key, int valueSize, boolean ascii) {
+    final byte[] value = new byte[valueSize];
+    value[0] = ascii ? AppBase.ASCII_MARKER : AppBase.BINARY_MARKER;
+    final int checksumSize = ascii ? AppBase.CHECKSUM_ASCII_SIZE : AppBase.CHECKSUM_SIZE;
+    final boolean isUseChecksum = valueSize > checksumSize + 1;
+    final int contentSize = valueSize - (isUseChecksum ? checksumSize : 0);
+    int i = 1;
+    if (valueSize > AppBase.VALUE_SIZE_TO_USE_PREFIX) {
+      final byte[] keyValueBytes = key.getValueStr().getBytes();
+      final int prefixSize = Math.min(contentSize - 1, keyValueBytes.length);
+      System.arraycopy(keyValueBytes, 0, value, 1, prefixSize);
+      i += prefixSize;
+    }
+    while (i < contentSize) {
+      value[i++] = ascii ? (byte) (32 + random.nextInt(95)) : (byte) random.nextInt();
+    }
+    if (isUseChecksum) {
+      final Checksum checksum = new Adler32();
+      checksum.update(value, 0, contentSize);
+      long cs = checksum.getValue();
+      if (ascii) {
+        final String csHexStr = Long.toHexString(cs);
+        while (i < valueSize - csHexStr.length()) {
+          value[i++] = (byte) '0';
+        }
+        System.arraycopy(csHexStr.getBytes(), 0, value, i, csHexStr.length());
+      } else {
+        while (i < valueSize) {
+          value[i++] = (byte) cs;
+          cs >>= Byte.SIZE;
+        }
+      }
+    }
+    return value;
+  }
+
+  @Test
+  public void testAdler32Values() {
+    for (boolean ascii : new boolean[] { false, true }) {
+      for (int valueSize : VALUE_SIZES) {
+        for (long k : new long[] { 0, 42, -7, Long.MAX_VALUE }) {
+          Key key = new Key(k, "key");
+          byte[] value = adler32Value(key, valueSize, ascii);
+          assertTrue("Size " + valueSize + ", ASCII " + ascii,
+                     app.verifyRandomValue(key, value));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNewValues() {
+    for (boolean ascii : new boolean[] { false, true }) {
+      AppBase.appConfig.restrictValuesToAscii = ascii;
+      for (int valueSize : VALUE_SIZES) {
+        Key key = new Key(42, "key");
+        byte[] value = new byte[valueSize];
+        app.getRandomValue(key, value);
+        if (Crc32c.isJdkAvailable()) {
+          assertEquals(ascii ? AppBase.ASCII_CRC32C_MARKER : AppBase.BINARY_CRC32C_MARKER,
+                       value[0]);
+        }
+        assertTrue("Size " + valueSize + ", ASCII " + ascii, app.verifyRandomValue(key, value));
+      }
+    }
+  }
+
+  @Test
+  public void testCorruptedValues() {
+    for (boolean ascii : new boolean[] { false, true }) {
+      AppBase.appConfig.restrictValuesToAscii = ascii;
+      Key key = new Key(42, "key");
+      byte[] value = new byte[64];
+      app.getRandomValue(key, value);
+      value[40] ^= 1;
+      assertFalse(app.verifyRandomValue(key, value));
+
+      byte[] oldValue = adler32Value(key, 64, ascii);
+      oldValue[40] ^= 1;
+      assertFalse(app.verifyRandomValue(key, oldValue));
+
+      // A value written for another key.
+      assertFalse(app.verifyRandomValue(new Key(43, "key"), adler32Value(key, 64, ascii)));
+    }
+  }
+}
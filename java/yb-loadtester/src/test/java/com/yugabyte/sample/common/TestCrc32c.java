@@ -0,0 +1,67 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package com.yugabyte.sample.common;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.yb.YBTestRunner;
+
+@RunWith(value=YBTestRunner.class)
+public class TestCrc32c {
+
+  @Test
+  public void testCheckValue() {
+    // The standard check value of CRC32C.
+    final byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+    Checksum crc = new Crc32c();
+    crc.update(data, 0, data.length);
+    assertEquals(0xE3069283L, crc.getValue());
+
+    // Byte by byte, and again after a reset.
+    crc.reset();
+    for (byte b : data) {
+      crc.update(b);
+    }
+    assertEquals(0xE3069283L, crc.getValue());
+
+    crc.reset();
+    assertEquals(0, crc.getValue());
+  }
+
+  @Test
+  public void testMatchesJdk() {
+    Assume.assumeTrue(Crc32c.isJdkAvailable());
+    Checksum jdk = Crc32c.newChecksum();
+    assertFalse(jdk instanceof Crc32c);
+    Checksum fallback = new Crc32c();
+    Random random = new Random(0);
+    for (int length = 0; length < 1000; length += 7) {
+      byte[] data = new byte[length + 3];
+      random.nextBytes(data);
+      jdk.reset();
+      fallback.reset();
+      // With an offset, so that both are given the same slice.
+      jdk.update(data, 2, length);
+      fallback.update(data, 2, length);
+      assertEquals("Length " + length, jdk.getValue(), fallback.getValue());
+    }
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package com.yugabyte.sample.common;
+
+import static org.yb.AssertionWrappers.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.yb.YBTestRunner;
+
+@RunWith(value=YBTestRunner.class)
+public class TestKeyChooser {
+
+  private static final int NUM_SAMPLES = 200000;
+  private static final double EXPONENT = 0.99;
+
+  /**
+   * @return the probability of the first keys of a Zipfian distribution over numKeys keys
+   */
+  private static double[] zipfianProbabilities(long numKeys, int numFirstKeys) {
+    double zeta = 0;
+    for (long i = 1; i <= numKeys; i++) {
+      zeta += 1 / Math.pow(i, EXPONENT);
+    }
+    double[] probabilities = new double[numFirstKeys];
+    for (int i = 0; i < numFirstKeys; i++) {
+      probabilities[i] = 1 / Math.pow(i + 1, EXPONENT) / zeta;
+    }
+    return probabilities;
+  }
+
+  /**
+   * @return the frequencies of the first keys chosen, the keys being counted from the last one if
+   *         fromLast is set
+   */
+  private static double[] sample(KeyChooser chooser, long numKeys, int numFirstKeys,
+                                 boolean fromLast) {
+    long[] counts = new long[numFirstKeys];
+    for (int i = 0; i < NUM_SAMPLES; i++) {
+      long key = chooser.nextKey(numKeys);
+      assertTrue("Key " + key, key >= 0 && key < numKeys);
+      long rank = fromLast ? numKeys - 1 - key : key;
+      if (rank < numFirstKeys) {
+        counts[(int) rank]++;
+      }
+    }
+    double[] frequencies = new double[numFirstKeys];
+    for (int i = 0; i < numFirstKeys; i++) {
+      frequencies[i] = (double) counts[i] / NUM_SAMPLES;
+    }
+    return frequencies;
+  }
+
+  private static void assertZipfian(KeyChooser chooser, long numKeys, boolean fromLast) {
+    double[] expected = zipfianProbabilities(numKeys, 2);
+    double[] actual = sample(chooser, numKeys, 2, fromLast);
+    // The two hottest keys are sampled exactly, with a tolerance of several standard deviations.
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Key " + i + " of " + numKeys, expected[i], actual[i], expected[i] * 0.05);
+    }
+  }
+
+  @Test
+  public void testZipfian() {
+    KeyChooser chooser = new KeyChooser.Zipfian(EXPONENT);
+    assertZipfian(chooser, 1000, false);
+    // The constants are extended as keys are loaded, beyond the terms summed exactly.
+    assertZipfian(chooser, 100000, false);
+    assertZipfian(chooser, 3000000, false);
+    // A caller that saw fewer keys still gets keys in range.
+    double[] frequencies = sample(chooser, 3, 3, false);
+    assertTrue(frequencies[0] > frequencies[1]);
+    assertTrue(frequencies[1] > frequencies[2]);
+  }
+
+  @Test
+  public void testZipfianTail() {
+    final long numKeys = 1000;
+    double[] expected = zipfianProbabilities(numKeys, 100);
+    double[] actual = sample(new KeyChooser.Zipfian(EXPONENT), numKeys, 100, false);
+    double expectedHot = 0;
+    double actualHot = 0;
+    for (int i = 0; i < expected.length; i++) {
+      expectedHot += expected[i];
+      actualHot += actual[i];
+    }
+    // The generator only approximates the distribution beyond the two hottest keys.
+    assertEquals(expectedHot, actualHot, expectedHot * 0.05);
+  }
+
+  @Test
+  public void testLatest() {
+    assertZipfian(new KeyChooser.Latest(EXPONENT), 1000, true);
+  }
+
+  @Test
+  public void testScrambledZipfian() {
+    final long numKeys = 1000;
+    double[] expected = zipfianProbabilities(numKeys, 1);
+    long[] counts = new long[(int) numKeys];
+    KeyChooser chooser = new KeyChooser.ScrambledZipfian(EXPONENT);
+    for (int i = 0; i < NUM_SAMPLES; i++) {
+      counts[(int) chooser.nextKey(numKeys)]++;
+    }
+    long maxCount = 0;
+    for (long count : counts) {
+      maxCount = Math.max(maxCount, count);
+    }
+    // The hottest key moved, but it's as hot.
+    assertTrue(counts[0] < maxCount);
+    assertEquals(expected[0], (double) maxCount / NUM_SAMPLES, expected[0] * 0.05);
+  }
+
+  @Test
+  public void testHotspot() {
+    final long numKeys = 1000;
+    KeyChooser chooser = new KeyChooser.Hotspot(0.2, 0.8);
+    long numHot = 0;
+    for (int i = 0; i < NUM_SAMPLES; i++) {
+      long key = chooser.nextKey(numKeys);
+      assertTrue("Key " + key, key >= 0 && key < numKeys);
+      if (key < 200) {
+        numHot++;
+      }
+    }
+    assertEquals(0.8, (double) numHot / NUM_SAMPLES, 0.01);
+    // A single key is always hot.
+    assertEquals(0, chooser.nextKey(1));
+  }
+
+  @Test
+  public void testUniform() {
+    final long numKeys = 10;
+    long[] counts = new long[(int) numKeys];
+    KeyChooser chooser = KeyChooser.create(KeyChooser.Distribution.Uniform, EXPONENT, 0.2, 0.8);
+    for (int i = 0; i < NUM_SAMPLES; i++) {
+      counts[(int) chooser.nextKey(numKeys)]++;
+    }
+    for (long count : counts) {
+      assertEquals(0.1, (double) count / NUM_SAMPLES, 0.01);
+    }
+  }
+}
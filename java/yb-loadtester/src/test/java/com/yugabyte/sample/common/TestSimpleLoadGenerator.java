@@ -0,0 +1,126 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package com.yugabyte.sample.common;
+
+import static org.yb.AssertionWrappers.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.yb.YBTestRunner;
+
+@RunWith(value=YBTestRunner.class)
+public class TestSimpleLoadGenerator {
+
+  private static long windowSize(SimpleLoadGenerator generator) {
+    return generator.writtenKeys.length() * 64L;
+  }
+
+  // Every thousandth key fails to write.
+  private static boolean fails(long key) {
+    return key % 1000 == 7;
+  }
+
+  private static void record(SimpleLoadGenerator generator, SimpleLoadGenerator.Key key) {
+    if (fails(key.asNumber())) {
+      generator.recordWriteFailure(key);
+    } else {
+      generator.recordWriteSuccess(key);
+    }
+  }
+
+  @Test
+  public void testMaxWrittenKeyWithFailures() {
+    SimpleLoadGenerator generator = new SimpleLoadGenerator(0, 1, -1);
+    final long windowSize = windowSize(generator);
+    // Past the window twice, so that the bits of the keys are reused.
+    final long numKeys = 2 * windowSize + 1000;
+    generator = new SimpleLoadGenerator(0, numKeys, -1);
+
+    // The first key is slow to write, the others of the window are written meanwhile.
+    SimpleLoadGenerator.Key first = generator.getKeyToWrite();
+    assertEquals(0, first.asNumber());
+    for (long i = 1; i < windowSize; i++) {
+      SimpleLoadGenerator.Key key = generator.getKeyToWrite();
+      assertEquals(i, key.asNumber());
+      record(generator, key);
+    }
+    assertEquals(-1, generator.getMaxWrittenKey());
+    assertEquals(windowSize - 1, generator.getMaxGeneratedKey());
+
+    // The first key fails too, all the window is done.
+    generator.recordWriteFailure(first);
+    assertEquals(windowSize - 1, generator.getMaxWrittenKey());
+
+    while (generator.stillLoading()) {
+      record(generator, generator.getKeyToWrite());
+    }
+    assertEquals(numKeys - 1, generator.getMaxGeneratedKey());
+    assertEquals(numKeys - 1, generator.getMaxWrittenKey());
+
+    for (long key = 0; key < numKeys; key++) {
+      assertEquals("Key " + key, key == 0 || fails(key), generator.failedKeys.contains(key));
+    }
+    // Once loaded, the writes are updates and the reads skip the keys that failed.
+    for (int i = 0; i < 10000; i++) {
+      long key = generator.getKeyToWrite().asNumber();
+      assertTrue("Key " + key, key >= 0 && key < numKeys);
+      key = generator.getKeyToRead().asNumber();
+      assertFalse("Key " + key, key == 0 || fails(key));
+    }
+  }
+
+  @Test
+  public void testFullWindow() {
+    SimpleLoadGenerator generator = new SimpleLoadGenerator(0, 1, -1);
+    final long windowSize = windowSize(generator);
+    // Keys 0 and 1 are already written.
+    generator = new SimpleLoadGenerator(0, 3 * windowSize, 1);
+
+    SimpleLoadGenerator.Key slow = generator.getKeyToWrite();
+    assertEquals(2, slow.asNumber());
+    for (long i = 3; i <= windowSize + 1; i++) {
+      SimpleLoadGenerator.Key key = generator.getKeyToWrite();
+      assertEquals(i, key.asNumber());
+      generator.recordWriteSuccess(key);
+    }
+    assertEquals(1, generator.getMaxWrittenKey());
+
+    // The window is full while the slow key is in flight, so the writers update existing keys.
+    for (int i = 0; i < 100; i++) {
+      assertTrue(generator.getKeyToWrite().asNumber() <= 1);
+    }
+    assertEquals(windowSize + 1, generator.getMaxGeneratedKey());
+
+    generator.recordWriteSuccess(slow);
+    assertEquals(windowSize + 1, generator.getMaxWrittenKey());
+    assertEquals(windowSize + 2, generator.getKeyToWrite().asNumber());
+    assertFalse(generator.failedKeys.contains(2));
+  }
+
+  @Test
+  public void testKeySet() {
+    SimpleLoadGenerator.KeySet keys = new SimpleLoadGenerator.KeySet();
+    assertFalse(keys.contains(0));
+    for (long key = -50000; key < 50000; key += 3) {
+      keys.add(key);
+      keys.add(key);
+    }
+    keys.add(Long.MAX_VALUE);
+    for (long key = -50000; key < 50000; key++) {
+      assertEquals("Key " + key, (key + 50000) % 3 == 0, keys.contains(key));
+    }
+    assertTrue(keys.contains(Long.MAX_VALUE));
+    assertFalse(keys.contains(Long.MAX_VALUE - 1));
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+
+package com.yugabyte.sample.common.metrics;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the cost of recording an operation in a {@link Metric} as the number of recording
+ * threads grows, next to a single lock-protected counter like the one the metrics used to have.
+ * With striped recorders the cost per operation should stay flat as threads are added, while
+ * the lock gets more expensive with every thread contending on it.
+ *
+ * It is not a unit test, run it from the test classpath of the load tester:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.yugabyte.sample.common.metrics.MetricRecordingBenchmark
+ *     -Dexec.args="[max threads] [ops per thread]"
+ */
+public class MetricRecordingBenchmark {
+
+  // The recording scheme being measured.
+  private interface Recording {
+    void record(long latencyNanos);
+  }
+
+  // The metrics before they had striped recorders: a sum and a count under a lock.
+  private static class LockedRecording implements Recording {
+    private final Object lock = new Object();
+    private long count;
+    private long sum;
+
+    @Override
+    public void record(long latencyNanos) {
+      synchronized (lock) {
+        count++;
+        sum += latencyNanos;
+      }
+    }
+  }
+
+  /**
+   * @return the CPU time in nanoseconds spent recording one operation, estimated from the wall
+   *         time of the run and the number of processors the threads could use
+   */
+  private static double run(final Recording recording, int numThreads, final long opsPerThread)
+      throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      threads[i] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (long op = 0; op < opsPerThread; op++) {
+          recording.record(1000 + (op & 0xffff));
+        }
+      });
+      threads[i].start();
+    }
+    long startNanos = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+    int numCpus = Math.min(numThreads, Runtime.getRuntime().availableProcessors());
+    return (double) elapsedNanos * numCpus / numThreads / opsPerThread;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+    long opsPerThread = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+
+    // Warm up both code paths before measuring.
+    run(new LockedRecording(), 4, opsPerThread);
+    Metric warmUp = new Metric("WarmUp");
+    run(latencyNanos -> warmUp.accumulate(1, latencyNanos), 4, opsPerThread);
+
+    System.out.println(String.format("%8s %16s %16s", "threads", "metric ns/op", "lock ns/op"));
+    for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+      Metric metric = new Metric("Benchmark");
+      double metricNanos = run(latencyNanos -> metric.accumulate(1, latencyNanos),
+                               numThreads, opsPerThread);
+      double lockNanos = run(new LockedRecording(), numThreads, opsPerThread);
+      if (metric.getCumulativeHistogram().getTotalCount() != numThreads * opsPerThread) {
+        throw new IllegalStateException("Lost operations: recorded " +
+                                        metric.getCumulativeHistogram().getTotalCount());
+      }
+      System.out.println(String.format("%8d %16.1f %16.1f", numThreads, metricNanos, lockNanos));
+    }
+  }
+}
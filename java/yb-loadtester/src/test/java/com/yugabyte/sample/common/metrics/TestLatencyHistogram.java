@@ -0,0 +1,106 @@
+// Copyright (c) YugaByte, Inc.
+//
+// Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+// in compliance with the License.  You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software distributed under the License
+// is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+// or implied.  See the License for the specific language governing permissions and limitations
+// under the License.
+//
+package com.yugabyte.sample.common.metrics;
+
+import static org.yb.AssertionWrappers.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.yb.YBTestRunner;
+
+@RunWith(value=YBTestRunner.class)
+public class TestLatencyHistogram {
+
+  private static void checkBucket(long value) {
+    final int index = LatencyHistogram.bucketIndex(value);
+    assertTrue("Value " + value, index >= 0 && index < LatencyHistogram.NUM_BUCKETS);
+    final long highest = LatencyHistogram.bucketHighestValue(index);
+    final long lowest = index == 0 ? 0 : LatencyHistogram.bucketHighestValue(index - 1) + 1;
+    assertTrue("Value " + value + " in [" + lowest + ", " + highest + "]",
+               lowest <= value && value <= highest);
+    // Every value is known within 1/64 of itself.
+    assertTrue("Value " + value + " in [" + lowest + ", " + highest + "]",
+               highest - lowest <= Math.max(0, lowest / 64));
+  }
+
+  @Test
+  public void testBuckets() {
+    for (long value = 0; value < 100000; value++) {
+      checkBucket(value);
+    }
+    for (int shift = 0; shift < 63; shift++) {
+      checkBucket((1L << shift) - 1);
+      checkBucket(1L << shift);
+      checkBucket((1L << shift) + 1);
+    }
+    checkBucket(Long.MAX_VALUE);
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; i++) {
+      checkBucket((random.nextLong() >>> 1) >>> random.nextInt(63));
+    }
+    // Negative values count as 0.
+    assertEquals(0, LatencyHistogram.bucketIndex(-1));
+  }
+
+  @Test
+  public void testBucketIndexRoundTrip() {
+    for (int index = 0; index < LatencyHistogram.NUM_BUCKETS; index++) {
+      final long highest = LatencyHistogram.bucketHighestValue(index);
+      assertEquals(index, LatencyHistogram.bucketIndex(highest));
+      if (index > 0) {
+        assertEquals(index, LatencyHistogram.bucketIndex(
+            LatencyHistogram.bucketHighestValue(index - 1) + 1));
+      }
+    }
+    assertEquals(Long.MAX_VALUE,
+                 LatencyHistogram.bucketHighestValue(LatencyHistogram.NUM_BUCKETS - 1));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram empty = new LatencyHistogram();
+    assertEquals(0, empty.getTotalCount());
+    assertEquals(0, empty.getValueAtPercentile(99), 0);
+    assertEquals(0, empty.getMaxValue());
+    assertEquals(0, empty.getMean(), 0);
+
+    LatencyHistogram.Recorder recorder = new LatencyHistogram.Recorder();
+    for (long value = 1; value <= 10000; value++) {
+      recorder.record(value, 1);
+    }
+    // A batch of operations that took 1s each.
+    recorder.record(1000000, 100);
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.add(recorder);
+
+    assertEquals(10100, histogram.getTotalCount());
+    assertEquals((10000 * 10001 / 2 + 100 * 1000000.0) / 10100, histogram.getMean(), 0.001);
+    assertEquals(5050, histogram.getValueAtPercentile(50), 5050 / 64);
+    assertEquals(9999, histogram.getValueAtPercentile(99), 9999 / 64);
+    assertEquals(1000000, histogram.getValueAtPercentile(99.9), 1000000 / 64);
+    assertEquals(1, histogram.getValueAtPercentile(0));
+    assertEquals(1000000, histogram.getMaxValue(), 1000000 / 64);
+
+    // The values recorded since a snapshot.
+    recorder.record(20, 2);
+    LatencyHistogram later = new LatencyHistogram();
+    later.add(recorder);
+    LatencyHistogram interval = later.minus(histogram);
+    assertEquals(2, interval.getTotalCount());
+    assertEquals(20, interval.getMean(), 0);
+    assertEquals(20, interval.getMaxValue());
+  }
+}